@@ -2097,6 +2097,170 @@ public class AMD64Assembler extends AbstractAssembler {
         emitOperandHelper(dst, src);
     }
 
+    // VEX encoded (AVX/AVX2) instructions. The 256-bit forms operate on the ymm register aliased by the given xmm register.
+    // They must only be emitted if the CPU and OS support AVX (resp. AVX2) and should be followed by vzeroupper
+    // before any legacy SSE instruction executes, to avoid the SSE/AVX transition penalty.
+
+    /**
+     * Implied legacy prefix of a VEX encoded instruction (the {@code pp} field).
+     */
+    private static final int VEX_SIMD_NONE = 0x0;
+    private static final int VEX_SIMD_66 = 0x1;
+    private static final int VEX_SIMD_F3 = 0x2;
+
+    /**
+     * Implied leading opcode bytes of a VEX encoded instruction (the {@code m-mmmm} field).
+     */
+    private static final int VEX_OPCODE_0F = 0x1;
+    private static final int VEX_OPCODE_0F_38 = 0x2;
+
+    /**
+     * Emits a VEX prefix, using the 2-byte form when possible.
+     *
+     * @param rexR extension of the ModRM reg field
+     * @param rexX extension of the SIB index field
+     * @param rexB extension of the ModRM r/m or SIB base field
+     * @param ndsEnc encoding of the additional source register, or 0 if the instruction has none
+     * @param vector256 selects 256-bit (VEX.L = 1) rather than 128-bit operation
+     */
+    private void vexPrefix(boolean rexR, boolean rexX, boolean rexB, int ndsEnc, int simdPrefix, int opcodeMap, boolean vector256) {
+        int byte2 = ((~ndsEnc & 0xF) << 3) | (vector256 ? 0x04 : 0) | simdPrefix;
+        if (rexX || rexB || opcodeMap != VEX_OPCODE_0F) {
+            emitByte(0xC4);
+            emitByte((rexR ? 0 : 0x80) | (rexX ? 0 : 0x40) | (rexB ? 0 : 0x20) | opcodeMap);
+            emitByte(byte2);
+        } else {
+            emitByte(0xC5);
+            emitByte((rexR ? 0 : 0x80) | byte2);
+        }
+    }
+
+    private int vexPrefixAndEncode(int dstEnc, int ndsEnc, int srcEnc, int simdPrefix, int opcodeMap, boolean vector256) {
+        vexPrefix(dstEnc >= 8, false, srcEnc >= 8, ndsEnc, simdPrefix, opcodeMap, vector256);
+        return (dstEnc & 0x7) << 3 | (srcEnc & 0x7);
+    }
+
+    private void vexPrefix(CiAddress adr, int ndsEnc, int regEnc, int simdPrefix, int opcodeMap, boolean vector256) {
+        vexPrefix(regEnc >= 8, adr.index().getEncoding() >= MinEncodingNeedsRex, adr.base().getEncoding() >= MinEncodingNeedsRex, ndsEnc, simdPrefix, opcodeMap, vector256);
+    }
+
+    private void emitVex(int opcode, CiRegister dst, CiRegister nds, CiRegister src, int simdPrefix, int opcodeMap) {
+        assert dst.isFpu() && nds.isFpu() && src.isFpu();
+        int encode = vexPrefixAndEncode(dst.getEncoding(), nds.getEncoding(), src.getEncoding(), simdPrefix, opcodeMap, true);
+        emitByte(opcode);
+        emitByte(0xC0 | encode);
+    }
+
+    private void emitVex(int opcode, CiRegister dst, CiRegister nds, CiAddress src, int simdPrefix, int opcodeMap) {
+        assert dst.isFpu() && nds.isFpu();
+        vexPrefix(src, nds.getEncoding(), dst.getEncoding(), simdPrefix, opcodeMap, true);
+        emitByte(opcode);
+        emitOperandHelper(dst, src);
+    }
+
+    /**
+     * Loads 256 unaligned bits.
+     */
+    public final void vmovdqu(CiRegister dst, CiAddress src) {
+        emitVex(0x6F, dst, xmm0, src, VEX_SIMD_F3, VEX_OPCODE_0F);
+    }
+
+    /**
+     * Stores 256 unaligned bits.
+     */
+    public final void vmovdqu(CiAddress dst, CiRegister src) {
+        emitVex(0x7F, src, xmm0, dst, VEX_SIMD_F3, VEX_OPCODE_0F);
+    }
+
+    public final void vmovdqu(CiRegister dst, CiRegister src) {
+        if (src.getEncoding() >= 8 && dst.getEncoding() < 8) {
+            // the store form puts src in the reg field, where it only needs VEX.R and so fits the 2-byte prefix
+            emitVex(0x7F, src, xmm0, dst, VEX_SIMD_F3, VEX_OPCODE_0F);
+        } else {
+            emitVex(0x6F, dst, xmm0, src, VEX_SIMD_F3, VEX_OPCODE_0F);
+        }
+    }
+
+    public final void vpxor(CiRegister dst, CiRegister nds, CiRegister src) {
+        emitVex(0xEF, dst, nds, src, VEX_SIMD_66, VEX_OPCODE_0F);
+    }
+
+    public final void vpor(CiRegister dst, CiRegister nds, CiRegister src) {
+        emitVex(0xEB, dst, nds, src, VEX_SIMD_66, VEX_OPCODE_0F);
+    }
+
+    public final void vpand(CiRegister dst, CiRegister nds, CiRegister src) {
+        emitVex(0xDB, dst, nds, src, VEX_SIMD_66, VEX_OPCODE_0F);
+    }
+
+    public final void vpcmpeqb(CiRegister dst, CiRegister nds, CiRegister src) {
+        emitVex(0x74, dst, nds, src, VEX_SIMD_66, VEX_OPCODE_0F);
+    }
+
+    public final void vpcmpeqb(CiRegister dst, CiRegister nds, CiAddress src) {
+        emitVex(0x74, dst, nds, src, VEX_SIMD_66, VEX_OPCODE_0F);
+    }
+
+    public final void vpcmpeqw(CiRegister dst, CiRegister nds, CiRegister src) {
+        emitVex(0x75, dst, nds, src, VEX_SIMD_66, VEX_OPCODE_0F);
+    }
+
+    public final void vpcmpeqw(CiRegister dst, CiRegister nds, CiAddress src) {
+        emitVex(0x75, dst, nds, src, VEX_SIMD_66, VEX_OPCODE_0F);
+    }
+
+    public final void vpcmpeqd(CiRegister dst, CiRegister nds, CiRegister src) {
+        emitVex(0x76, dst, nds, src, VEX_SIMD_66, VEX_OPCODE_0F);
+    }
+
+    /**
+     * Sets the bits of the general purpose register {@code dst} to the most significant bit of each byte of {@code src}.
+     */
+    public final void vpmovmskb(CiRegister dst, CiRegister src) {
+        assert dst.isCpu() && src.isFpu();
+        int encode = vexPrefixAndEncode(dst.getEncoding(), 0, src.getEncoding(), VEX_SIMD_66, VEX_OPCODE_0F, true);
+        emitByte(0xD7);
+        emitByte(0xC0 | encode);
+    }
+
+    /**
+     * Sets ZF if {@code dst & src} is all zeroes and CF if {@code ~dst & src} is all zeroes.
+     */
+    public final void vptest(CiRegister dst, CiRegister src) {
+        emitVex(0x17, dst, xmm0, src, VEX_SIMD_66, VEX_OPCODE_0F_38);
+    }
+
+    public final void vptest(CiRegister dst, CiAddress src) {
+        emitVex(0x17, dst, xmm0, src, VEX_SIMD_66, VEX_OPCODE_0F_38);
+    }
+
+    /**
+     * Broadcasts the low byte of {@code src} to all the bytes of {@code dst} (AVX2).
+     */
+    public final void vpbroadcastb(CiRegister dst, CiRegister src) {
+        emitVex(0x78, dst, xmm0, src, VEX_SIMD_66, VEX_OPCODE_0F_38);
+    }
+
+    public final void vpbroadcastw(CiRegister dst, CiRegister src) {
+        emitVex(0x79, dst, xmm0, src, VEX_SIMD_66, VEX_OPCODE_0F_38);
+    }
+
+    public final void vpbroadcastd(CiRegister dst, CiRegister src) {
+        emitVex(0x58, dst, xmm0, src, VEX_SIMD_66, VEX_OPCODE_0F_38);
+    }
+
+    public final void vpbroadcastq(CiRegister dst, CiRegister src) {
+        emitVex(0x59, dst, xmm0, src, VEX_SIMD_66, VEX_OPCODE_0F_38);
+    }
+
+    /**
+     * Zeroes the upper 128 bits of all ymm registers.
+     */
+    public final void vzeroupper() {
+        vexPrefix(false, false, false, 0, VEX_SIMD_NONE, VEX_OPCODE_0F, false);
+        emitByte(0x77);
+    }
+
     // 32bit only pieces of the assembler
 
     public final void decl(CiRegister dst) {
@@ -398,6 +398,29 @@ public final class X86InstructionDecoder {
                     againAfterPrefix = true;
                     break;
 
+                case 0xC4: // 3-byte VEX prefix (AVX)
+                case 0xC5: // 2-byte VEX prefix (AVX)
+                    // In 64-bit mode these are always VEX prefixes, never les/lds
+                    assert targetIs64Bit : "VEX prefix";
+                    int opcodeMap = 0x1; // the 2-byte prefix implies the 0F opcode map
+                    if ((0xFF & code[ip - 1]) == 0xC4) {
+                        opcodeMap = code[ip] & 0x1F;
+                        if (opcodeMap == 0x3) {
+                            tailSize = 1; // instructions of the 0F 3A opcode map take an imm8
+                        }
+                        ip += 2;
+                    } else {
+                        ip += 1;
+                    }
+                    if (opcodeMap == 0x1 && (0xFF & code[ip]) == 0x77) {
+                        // vzeroupper, vzeroall: no operands
+                        currentEndOfInstruction = ip + 1;
+                        return;
+                    }
+                    ip++; // the opcode
+                    hasDisp32 = true;
+                    break;
+
                 case 0xF3: // For SSE
                 case 0xF2: // For SSE2
                     switch (0xFF & code[ip++]) {
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.oracle.max.asm.target.amd64;
+
+import com.sun.cri.ci.CiAddress;
+import com.sun.cri.ci.CiAddress.Scale;
+import com.sun.cri.ci.CiKind;
+import com.sun.cri.ci.CiRegister;
+import com.sun.cri.ci.CiTarget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the VEX encoded instructions of the assembler against the GNU assembler and checks that
+ * {@link X86InstructionDecoder} finds the end and the displacement of the instructions it emits.
+ *
+ * Expected values are generated using:
+ * {@code as -o a.o && objcopy -O binary -j .text a.o a.bin && od -An -tx1 -v a.bin}
+ * on input starting with {@code .intel_syntax noprefix}.
+ */
+public class AMD64AssemblerTest {
+
+    private AMD64Assembler asm;
+
+    private static final CiRegister[] XMM = AMD64.xmmRegisters;
+
+    private static final CiRegister[] CPU = AMD64.cpuRegisters;
+
+    public AMD64AssemblerTest() {
+        CiTarget amd64 = new CiTarget(new AMD64(), true, 8, 16, 4096, 0, false, false, false, true);
+        asm = new AMD64Assembler(amd64, null);
+    }
+
+    private static String assemble(String instructions) {
+        try {
+            File dir = File.createTempFile("vex", "");
+            dir.delete();
+            dir.mkdir();
+            String script = "cd " + dir + " && printf '.intel_syntax noprefix\\n" + instructions + "' | as -o a.o -- && " +
+                            "objcopy -O binary -j .text a.o a.bin && od -An -tx1 -v a.bin | tr -d ' \\n'; rm -rf " + dir;
+            String[] cmd = {"/bin/sh", "-c", script};
+            Process p = Runtime.getRuntime().exec(cmd);
+            BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()));
+            p.waitFor();
+            final String line = in.readLine();
+            in.close();
+            assertTrue("Command: " + script, p.exitValue() == 0 && line != null);
+            return line;
+        } catch (Exception ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    private String emitted() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < asm.codeBuffer.position(); i++) {
+            sb.append(String.format("%02x", asm.codeBuffer.getByte(i)));
+        }
+        return sb.toString();
+    }
+
+    private static String ymm(CiRegister xmm) {
+        return "ymm" + xmm.getEncoding();
+    }
+
+    /**
+     * Addresses covering the base, index and displacement forms and the registers that need the REX.X and REX.B bits.
+     */
+    private static CiAddress[] addresses() {
+        return new CiAddress[] {
+            new CiAddress(CiKind.Object, AMD64.rax.asValue()),
+            new CiAddress(CiKind.Object, AMD64.rsp.asValue(), 8),
+            new CiAddress(CiKind.Object, AMD64.rbp.asValue(), 0x1000),
+            new CiAddress(CiKind.Object, AMD64.r13.asValue()),
+            new CiAddress(CiKind.Object, AMD64.rsi.asValue(), AMD64.rcx.asValue(), Scale.Times2, 16),
+            new CiAddress(CiKind.Object, AMD64.r12.asValue(), AMD64.r9.asValue(), Scale.Times8, -32),
+            new CiAddress(CiKind.Object, AMD64.r8.asValue(), AMD64.rdx.asValue(), Scale.Times1, 0),
+        };
+    }
+
+    private static String intel(CiAddress address) {
+        StringBuilder sb = new StringBuilder("ymmword ptr [").append(address.base().name);
+        if (address.index().isValid()) {
+            sb.append("+").append(address.index().name).append("*").append(address.scale.value);
+        }
+        return sb.append(address.displacement < 0 ? "" : "+").append(address.displacement).append("]").toString();
+    }
+
+    /**
+     * Checks that the decoder finds the end and the 32-bit displacement of an instruction emitted with a RIP relative
+     * operand, by patching the displacement as for a call site or a data reference.
+     */
+    private void checkRipRelative(String name) {
+        byte[] code = asm.codeBuffer.copyData(0, asm.codeBuffer.position());
+        int relative = 0x1234;
+        X86InstructionDecoder.patchRelativeInstruction(code, 0, relative);
+        int end = code.length;
+        int disp = (code[end - 4] & 0xFF) | (code[end - 3] & 0xFF) << 8 | (code[end - 2] & 0xFF) << 16 | (code[end - 1] & 0xFF) << 24;
+        assertEquals(name, relative - end, disp);
+    }
+
+    private static CiAddress ripRelative() {
+        return new CiAddress(CiKind.Object, AMD64.rip.asValue(), 0);
+    }
+
+    @Before
+    public void initialization() {
+        asm.codeBuffer.reset();
+    }
+
+    @Test
+    public void vmovdqu() {
+        StringBuilder expected = new StringBuilder();
+        for (CiRegister dst : XMM) {
+            for (CiAddress src : addresses()) {
+                asm.vmovdqu(dst, src);
+                expected.append("vmovdqu ").append(ymm(dst)).append(", ").append(intel(src)).append("\\n");
+                asm.vmovdqu(src, dst);
+                expected.append("vmovdqu ").append(intel(src)).append(", ").append(ymm(dst)).append("\\n");
+            }
+            for (CiRegister src : XMM) {
+                asm.vmovdqu(dst, src);
+                expected.append("vmovdqu ").append(ymm(dst)).append(", ").append(ymm(src)).append("\\n");
+            }
+        }
+        assertEquals(assemble(expected.toString()), emitted());
+
+        asm.codeBuffer.reset();
+        asm.vmovdqu(AMD64.xmm9, ripRelative());
+        checkRipRelative("vmovdqu load");
+        asm.codeBuffer.reset();
+        asm.vmovdqu(ripRelative(), AMD64.xmm2);
+        checkRipRelative("vmovdqu store");
+    }
+
+    @Test
+    public void logic() {
+        StringBuilder expected = new StringBuilder();
+        for (CiRegister dst : XMM) {
+            for (CiRegister nds : XMM) {
+                for (CiRegister src : new CiRegister[] {AMD64.xmm0, AMD64.xmm7, AMD64.xmm8, AMD64.xmm15}) {
+                    String operands = " " + ymm(dst) + ", " + ymm(nds) + ", " + ymm(src) + "\\n";
+                    asm.vpxor(dst, nds, src);
+                    asm.vpor(dst, nds, src);
+                    asm.vpand(dst, nds, src);
+                    expected.append("vpxor").append(operands).append("vpor").append(operands).append("vpand").append(operands);
+                }
+            }
+        }
+        assertEquals(assemble(expected.toString()), emitted());
+    }
+
+    @Test
+    public void vpcmpeq() {
+        StringBuilder expected = new StringBuilder();
+        for (CiRegister dst : XMM) {
+            for (CiRegister src : XMM) {
+                String operands = " " + ymm(dst) + ", " + ymm(dst) + ", " + ymm(src) + "\\n";
+                asm.vpcmpeqb(dst, dst, src);
+                asm.vpcmpeqw(dst, dst, src);
+                asm.vpcmpeqd(dst, dst, src);
+                expected.append("vpcmpeqb").append(operands).append("vpcmpeqw").append(operands).append("vpcmpeqd").append(operands);
+            }
+            for (CiAddress src : addresses()) {
+                String operands = " " + ymm(dst) + ", " + ymm(dst) + ", " + intel(src) + "\\n";
+                asm.vpcmpeqb(dst, dst, src);
+                asm.vpcmpeqw(dst, dst, src);
+                expected.append("vpcmpeqb").append(operands).append("vpcmpeqw").append(operands);
+            }
+        }
+        assertEquals(assemble(expected.toString()), emitted());
+
+        asm.codeBuffer.reset();
+        asm.vpcmpeqw(AMD64.xmm12, AMD64.xmm3, ripRelative());
+        checkRipRelative("vpcmpeqw");
+    }
+
+    @Test
+    public void vpmovmskb() {
+        StringBuilder expected = new StringBuilder();
+        for (CiRegister dst : CPU) {
+            for (CiRegister src : XMM) {
+                asm.vpmovmskb(dst, src);
+                expected.append("vpmovmskb ").append(dst.name).append(", ").append(ymm(src)).append("\\n");
+            }
+        }
+        assertEquals(assemble(expected.toString()), emitted());
+    }
+
+    @Test
+    public void vptest() {
+        StringBuilder expected = new StringBuilder();
+        for (CiRegister dst : XMM) {
+            for (CiRegister src : XMM) {
+                asm.vptest(dst, src);
+                expected.append("vptest ").append(ymm(dst)).append(", ").append(ymm(src)).append("\\n");
+            }
+            for (CiAddress src : addresses()) {
+                asm.vptest(dst, src);
+                expected.append("vptest ").append(ymm(dst)).append(", ").append(intel(src)).append("\\n");
+            }
+        }
+        assertEquals(assemble(expected.toString()), emitted());
+
+        asm.codeBuffer.reset();
+        asm.vptest(AMD64.xmm1, ripRelative());
+        checkRipRelative("vptest");
+    }
+
+    @Test
+    public void vpbroadcast() {
+        StringBuilder expected = new StringBuilder();
+        for (CiRegister dst : XMM) {
+            for (CiRegister src : XMM) {
+                String operands = " " + ymm(dst) + ", xmm" + src.getEncoding() + "\\n";
+                asm.vpbroadcastb(dst, src);
+                asm.vpbroadcastw(dst, src);
+                asm.vpbroadcastd(dst, src);
+                asm.vpbroadcastq(dst, src);
+                expected.append("vpbroadcastb").append(operands).append("vpbroadcastw").append(operands);
+                expected.append("vpbroadcastd").append(operands).append("vpbroadcastq").append(operands);
+            }
+        }
+        assertEquals(assemble(expected.toString()), emitted());
+    }
+
+    @Test
+    public void vzeroupper() {
+        asm.vzeroupper();
+        asm.vzeroupper();
+        assertEquals(assemble("vzeroupper\\nvzeroupper\\n"), emitted());
+    }
+}
@@ -20,6 +20,7 @@
  */
 package com.oracle.max.vm.ext.c1x;
 
+import static com.sun.max.platform.Platform.*;
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 
 import com.oracle.max.cri.intrinsics.*;
@@ -33,6 +34,7 @@ import com.sun.c1x.value.*;
 import com.sun.cri.bytecode.*;
 import com.sun.cri.ci.*;
 import com.sun.cri.ri.*;
+import com.sun.max.lang.*;
 import com.sun.max.vm.runtime.*;
 
 public class MaxineIntrinsicImplementations {
@@ -264,6 +266,20 @@ public class MaxineIntrinsicImplementations {
         }
     }
 
+    public static class VectorizedMemoryIntrinsic implements C1XIntrinsicImpl {
+        public final LIROpcode opcode;
+
+        public VectorizedMemoryIntrinsic(LIROpcode opcode) {
+            this.opcode = opcode;
+        }
+
+        @Override
+        public Value createHIR(GraphBuilder b, RiMethod target, Value[] args, boolean isStatic, FrameState stateBefore) {
+            assert args.length == 3;
+            return b.append(new VectorizedMemoryOp(opcode, args[0], args[1], args[2]));
+        }
+    }
+
     public static void initialize(IntrinsicImpl.Registry registry) {
         registry.add(LSB, new BitIntrinsic(LIROpcode.Lsb));
         registry.add(MSB, new BitIntrinsic(LIROpcode.Msb));
@@ -293,5 +309,12 @@ public class MaxineIntrinsicImplementations {
 
         registry.add(GET_TICKS, new GetTicksIntrinsic());
         registry.add(GET_CPU_ID, new GetCpuIDIntrinsic());
+
+        if (platform().isa == ISA.AMD64) {
+            // Only the AMD64 backend has the AVX2 expansions; elsewhere the Java bodies are compiled
+            registry.add(VECTORIZED_EQUALS, new VectorizedMemoryIntrinsic(LIROpcode.VectorizedEquals));
+            registry.add(VECTORIZED_INDEX_OF_CHAR, new VectorizedMemoryIntrinsic(LIROpcode.VectorizedIndexOfChar));
+            registry.add(VECTORIZED_FILL, new VectorizedMemoryIntrinsic(LIROpcode.VectorizedFill));
+        }
     }
 }
@@ -292,7 +292,7 @@ public interface JJVMTI {
         void monitorContendedEntered(Thread thread, Object object); // TODO
         void monitorWait(Thread thread, Object object, long timeout); // TODO
         void monitorWaited(Thread thread, Object object, long timeout); // TODO
-        void objectFree(Object tag); // TODO
+        void objectFree(Object tag);
         void resourceExhausted(int flags, String description); // TODO
         void singleStep(Thread thread, MethodActor method, long location);
         void threadStart(Thread thread);
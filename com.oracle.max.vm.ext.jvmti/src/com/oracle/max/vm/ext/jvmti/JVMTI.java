@@ -631,6 +631,29 @@ public class JVMTI {
         }
     }
 
+    /**
+     * Sends the {@code ObjectFree} events of the tagged objects freed by the GC that is ending, which the tag maps keep
+     * until then so that the GC does not have to allocate or call the agents.
+     */
+    static void objectFreeEvents() {
+        if (MaxineVM.isHosted()) {
+            return;
+        }
+        final VmThread vmThread = VmThread.current();
+        for (int i = 0; i < jvmtiEnvs.length; i++) {
+            final Env env = jvmtiEnvs[i];
+            if (env == null || !env.tags.hasFreedTags()) {
+                continue;
+            }
+            if (phase == JVMTI_PHASE_LIVE && hasCallbackForEvent(env, E.OBJECT_FREE, vmThread)) {
+                logEvent(E.OBJECT_FREE, env, JVMTIEventLogger.DELIVERED, null);
+                env.tags.deleteFreedTags(env);
+            } else {
+                env.tags.deleteFreedTags(null);
+            }
+        }
+    }
+
     private static boolean dispatchEvent(JVMTIEvents.E event, Object arg1) {
         // Dispatch event to all interested agents
         boolean interest = false;
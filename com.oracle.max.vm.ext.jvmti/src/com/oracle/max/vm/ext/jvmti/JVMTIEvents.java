@@ -208,6 +208,7 @@ public class JVMTIEvents {
                 JVMTI.event(E.GARBAGE_COLLECTION_START);
             } else if (gcCallbackPhase == Heap.GCCallbackPhase.AFTER) {
                 JVMTI.event(E.GARBAGE_COLLECTION_FINISH);
+                JVMTI.objectFreeEvents();
             }
         }
     }
@@ -22,19 +22,21 @@
  */
 package com.oracle.max.vm.ext.jvmti;
 
-import java.lang.ref.*;
-import java.util.*;
-
+import static com.oracle.max.vm.ext.jvmti.JVMTICallbacks.*;
 import static com.oracle.max.vm.ext.jvmti.JVMTIConstants.*;
 
 import com.sun.max.memory.*;
 import com.sun.max.unsafe.*;
+import com.sun.max.vm.heap.*;
 import com.sun.max.vm.jni.*;
+import com.sun.max.vm.reference.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.thread.*;
 
 /**
- * JVMTI object tagging support. The tag map is allocated lazily. We cannot use a standard {@link WeakHashMap} because
- * that invokes the class-specific {@link Object#hashCode()} method, which can have all kinds of inappropriate side
- * effects. Plus we only need a handful of the standard {@link Map} methods.
+ * JVMTI object tagging support. The tag map is allocated lazily. We cannot use a standard {@link java.util.WeakHashMap}
+ * because that invokes the class-specific {@link Object#hashCode()} method, which can have all kinds of inappropriate
+ * side effects, and creates a weak reference object per tagged object that every GC must then process.
  *
  * We support {@link Object} (for JJVMTI) and {@code long} values, not via {@link Long} to avoid unnecessary allocation.
  *
@@ -42,209 +44,332 @@ import com.sun.max.vm.jni.*;
 class JVMTITags {
 
     /**
-     * A cut down and modified version of {@link WeakHashMap}.
-     * The value 0 is not allowed, and used to mean lookup failure.
+     * An open-addressed table, outside the heap, of the raw addresses of the tagged objects, which the GC
+     * {@linkplain SpecialReferenceManager.WeakReferenceTable processes} directly: the addresses are updated in place
+     * when the objects move, and the entries of the objects that die are kept as {@link #FREED} until their
+     * {@code ObjectFree} events have been sent, once the GC is over.
+     * <p>
+     * Each entry holds the address of the object, its identity hash, which does not change when the object moves, and
+     * its {@code long} tag. {@link Object} tags are held in a parallel array. The value 0 is not allowed, and used to
+     * mean lookup failure.
+     * <p>
+     * As the addresses are only valid between two GCs, every access runs with safepoints disabled; the only
+     * allocation in the heap, of the array of {@link Object} tags, is done beforehand.
      */
-    static class Map {
-        static abstract class Entry extends WeakReference<Object> {
-            final int hash;
-            Entry next;
-
-            Entry(Object object, int hash, Entry next) {
-                super(object);
-                this.hash = hash;
-                this.next = next;
-            }
+    static class Map implements SpecialReferenceManager.WeakReferenceTable {
+        private static final int KEY_OFFSET = 0;
+        private static final int HASH_OFFSET = 8;
+        private static final int TAG_OFFSET = 16;
+        private static final int ENTRY_SIZE = 24;
+
+        /*
+         * Values of an entry key that are not object addresses.
+         */
+        private static final long EMPTY = 0;
+        private static final long DELETED = 1;
+        private static final long FREED = 2;
 
-        }
+        private static final int DEFAULT_INITIAL_CAPACITY = 16;
 
-        static class LongEntry extends Entry {
-            long value;
-            LongEntry(Object object, long value, int hash, Entry next) {
-                super(object, hash, next);
-                this.value = value;
-            }
+        private Pointer entries = Pointer.zero();
+        private Object[] values;
+        private int capacity;
+        private int threshold;
 
-        }
+        /**
+         * The number of entries of live objects.
+         */
+        private int size;
+
+        /**
+         * The number of entries that are not {@link #EMPTY}, which bounds the length of a probe sequence.
+         */
+        private int occupied;
 
-        static class ObjectEntry extends Entry {
-            Object value;
-            ObjectEntry(Object object, Object value, int hash, Entry next) {
-                super(object, hash, next);
-                this.value = value;
+        /**
+         * The number of {@link #FREED} entries.
+         */
+        private int freed;
+
+        Map(boolean isNative) {
+            if (!isNative) {
+                values = new Object[DEFAULT_INITIAL_CAPACITY];
             }
+            if (!rehash(DEFAULT_INITIAL_CAPACITY, values)) {
+                throw new OutOfMemoryError();
+            }
+            SpecialReferenceManager.registerWeakReferenceTable(this);
         }
 
-        private static final int DEFAULT_INITIAL_CAPACITY = 16;
-        private static final int MAXIMUM_CAPACITY = 1 << 30;
-        private static final float DEFAULT_LOAD_FACTOR = 0.75f;
-        private int size;
-        private int threshold;
-        private final float loadFactor;
-        private Entry[] table;
-
-        private Entry[] getTable() {
-            // expungeStaleEntries(); TODO
-            return table;
+        private Pointer entry(int index) {
+            return entries.plus(index * ENTRY_SIZE);
         }
 
-        Map(boolean isNative) {
-            this.loadFactor = DEFAULT_LOAD_FACTOR;
-            threshold = DEFAULT_INITIAL_CAPACITY;
-            if (isNative) {
-                table = new LongEntry[DEFAULT_INITIAL_CAPACITY];
-            } else {
-                table = new ObjectEntry[DEFAULT_INITIAL_CAPACITY];
+        /**
+         * Gets the index of the entry of an object, or -1 if it is not tagged.
+         */
+        private int find(Pointer origin, int hash) {
+            final int mask = capacity - 1;
+            int index = hash & mask;
+            while (true) {
+                final Pointer e = entry(index);
+                final long key = e.readLong(KEY_OFFSET);
+                if (key == EMPTY) {
+                    return -1;
+                }
+                if (key == origin.toLong() && e.readInt(HASH_OFFSET) == hash) {
+                    return index;
+                }
+                index = (index + 1) & mask;
             }
         }
 
-        static int indexFor(int h, int length) {
-            return h & (length - 1);
+        /**
+         * Adds an entry for an object that is not in the table, which must have room for it.
+         */
+        private int insert(long key, int hash, long tag) {
+            final int mask = capacity - 1;
+            int index = hash & mask;
+            while (true) {
+                final Pointer e = entry(index);
+                final long k = e.readLong(KEY_OFFSET);
+                if (k == EMPTY || k == DELETED) {
+                    if (k == EMPTY) {
+                        occupied++;
+                    }
+                    e.writeLong(KEY_OFFSET, key);
+                    e.writeInt(HASH_OFFSET, hash);
+                    e.writeLong(TAG_OFFSET, tag);
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
         }
 
-        void put(Object key, long value) {
-            LongEntry e = (LongEntry) putCommon(key, true);
-            e.value = value;
+        /**
+         * Moves the entries to a new table, dropping the {@link #DELETED} ones.
+         *
+         * @param newValues the array of {@link Object} tags of the new table, {@code null} for {@code long} tags
+         * @return {@code false} if the new table could not be allocated
+         */
+        private boolean rehash(int newCapacity, Object[] newValues) {
+            final Pointer newEntries = Memory.allocate(Size.fromInt(newCapacity * ENTRY_SIZE));
+            if (newEntries.isZero()) {
+                return false;
+            }
+            Memory.setBytes(newEntries, Size.fromInt(newCapacity * ENTRY_SIZE), (byte) 0);
+            final Pointer oldEntries = entries;
+            final Object[] oldValues = values;
+            final int oldCapacity = capacity;
+            entries = newEntries;
+            values = newValues;
+            capacity = newCapacity;
+            threshold = newCapacity / 4 * 3;
+            occupied = 0;
+            for (int i = 0; i < oldCapacity; i++) {
+                final Pointer e = oldEntries.plus(i * ENTRY_SIZE);
+                final long key = e.readLong(KEY_OFFSET);
+                if (key != EMPTY && key != DELETED) {
+                    final int index = insert(key, e.readInt(HASH_OFFSET), e.readLong(TAG_OFFSET));
+                    if (newValues != null) {
+                        newValues[index] = oldValues[i];
+                    }
+                }
+            }
+            if (oldEntries.isNotZero()) {
+                Memory.deallocate(oldEntries);
+            }
+            return true;
         }
 
-        void put(Object key, Object value) {
-            ObjectEntry e = (ObjectEntry) putCommon(key, false);
-            e.value = value;
+        /**
+         * Gets the capacity of the table to move to before adding an entry, or 0 if there is room.
+         * After a move, the table is at most half full.
+         */
+        private int newCapacity() {
+            if (occupied < threshold) {
+                return 0;
+            }
+            int newCapacity = capacity;
+            while ((size + freed + 1) * 2 > newCapacity) {
+                newCapacity *= 2;
+            }
+            return newCapacity;
         }
 
-        private Entry putCommon(Object key, boolean isNative) {
-            int h = System.identityHashCode(key);
-            Entry[] tab = getTable();
-            int i = indexFor(h, tab.length);
-
-            for (Entry e = tab[i]; e != null; e = e.next) {
-                if (h == e.hash && key == e.get()) {
-                    return e;
+        boolean put(Object key, long value) {
+            final int hash = System.identityHashCode(key);
+            final boolean wasDisabled = SafepointPoll.disable();
+            boolean result = true;
+            final Pointer origin = Reference.fromJava(key).toOrigin();
+            final int index = find(origin, hash);
+            if (index >= 0) {
+                entry(index).writeLong(TAG_OFFSET, value);
+            } else {
+                final int newCapacity = newCapacity();
+                result = newCapacity == 0 || rehash(newCapacity, null);
+                if (result) {
+                    insert(origin.toLong(), hash, value);
+                    size++;
                 }
             }
+            if (!wasDisabled) {
+                SafepointPoll.enable();
+            }
+            return result;
+        }
 
-            Entry e = tab[i];
-            Entry ne = isNative ? new LongEntry(key, 0, h, e) : new ObjectEntry(key, null, h, e);
-            tab[i] = ne;
-            if (++size >= threshold) {
-                resize(tab.length * 2);
+        boolean put(Object key, Object value) {
+            final int hash = System.identityHashCode(key);
+            // the table cannot change until safepoints are disabled, as all updates hold the JVMTITags lock
+            final int newCapacity = newCapacity();
+            final Object[] newValues = newCapacity == 0 ? null : new Object[newCapacity];
+            final boolean wasDisabled = SafepointPoll.disable();
+            boolean result = true;
+            final Pointer origin = Reference.fromJava(key).toOrigin();
+            int index = find(origin, hash);
+            if (index < 0) {
+                result = newValues == null || rehash(newCapacity, newValues);
+                if (result) {
+                    index = insert(origin.toLong(), hash, 0);
+                    size++;
+                }
+            }
+            if (result) {
+                values[index] = value;
+            }
+            if (!wasDisabled) {
+                SafepointPoll.enable();
             }
-            return ne;
+            return result;
         }
 
         long getLong(Object key) {
-            LongEntry e = (LongEntry) getCommon(key);
-            return e == null ? 0 : e.value;
+            final int hash = System.identityHashCode(key);
+            final boolean wasDisabled = SafepointPoll.disable();
+            final int index = find(Reference.fromJava(key).toOrigin(), hash);
+            final long value = index < 0 ? 0 : entry(index).readLong(TAG_OFFSET);
+            if (!wasDisabled) {
+                SafepointPoll.enable();
+            }
+            return value;
         }
 
         Object getObject(Object key) {
-            ObjectEntry e = (ObjectEntry) getCommon(key);
-            return e == null ? null : e.value;
-        }
-
-        private Entry getCommon(Object key) {
-            int h = System.identityHashCode(key);
-            Entry[] tab = getTable();
-            int index = indexFor(h, tab.length);
-            Entry e = tab[index];
-            while (e != null) {
-                if (e.hash == h && e.get() == key) {
-                    return e;
-                }
-                e = e.next;
+            final int hash = System.identityHashCode(key);
+            final boolean wasDisabled = SafepointPoll.disable();
+            final int index = find(Reference.fromJava(key).toOrigin(), hash);
+            final Object value = index < 0 ? null : values[index];
+            if (!wasDisabled) {
+                SafepointPoll.enable();
             }
-            return null;
+            return value;
         }
 
-        public void remove(Object key) {
-            int h = System.identityHashCode(key);
-            Entry[] tab = getTable();
-            int i = indexFor(h, tab.length);
-            Entry prev = tab[i];
-            Entry e = prev;
-
-            while (e != null) {
-                Entry next = e.next;
-                if (h == e.hash && key == e.get()) {
-                    size--;
-                    if (prev == e) {
-                        tab[i] = next;
-                    } else {
-                        prev.next = next;
-                    }
-                    return;
-                }
-                prev = e;
-                e = next;
+        boolean contains(Object key) {
+            final int hash = System.identityHashCode(key);
+            final boolean wasDisabled = SafepointPoll.disable();
+            final int index = find(Reference.fromJava(key).toOrigin(), hash);
+            if (!wasDisabled) {
+                SafepointPoll.enable();
             }
+            return index >= 0;
         }
 
-        void resize(int newCapacity) {
-            Entry[] oldTable = getTable();
-            int oldCapacity = oldTable.length;
-            if (oldCapacity == MAXIMUM_CAPACITY) {
-                threshold = Integer.MAX_VALUE;
-                return;
+        void remove(Object key) {
+            final int hash = System.identityHashCode(key);
+            final boolean wasDisabled = SafepointPoll.disable();
+            final int index = find(Reference.fromJava(key).toOrigin(), hash);
+            if (index >= 0) {
+                entry(index).writeLong(KEY_OFFSET, DELETED);
+                if (values != null) {
+                    values[index] = null;
+                }
+                size--;
             }
-
-            Entry[] newTable = new Entry[newCapacity];
-            transfer(oldTable, newTable);
-            table = newTable;
-
-            /*
-             * If ignoring null elements and processing ref queue caused massive
-             * shrinkage, then restore old table.  This should be rare, but avoids
-             * unbounded expansion of garbage-filled tables.
-             */
-            if (size >= threshold / 2) {
-                threshold = (int) (newCapacity * loadFactor);
-            } else {
-                // expungeStaleEntries();
-                transfer(newTable, oldTable);
-                table = oldTable;
+            if (!wasDisabled) {
+                SafepointPoll.enable();
             }
         }
 
-        private void transfer(Entry[] src, Entry[] dest) {
-            for (int j = 0; j < src.length; ++j) {
-                Entry e = src[j];
-                src[j] = null;
-                while (e != null) {
-                    Entry next = e.next;
-                    Object key = e.get();
-                    if (key == null) {
-                        e.next = null;  // Help GC
+        public void processWeakReferences(SpecialReferenceManager.GC gc) {
+            final boolean relocate = gc.mayRelocateLiveObjects();
+            for (int i = 0; i < capacity; i++) {
+                final Pointer e = entry(i);
+                final long key = e.readLong(KEY_OFFSET);
+                if (key != EMPTY && key != DELETED && key != FREED) {
+                    final Reference ref = Reference.fromOrigin(Pointer.fromLong(key));
+                    if (!gc.isReachable(ref)) {
+                        e.writeLong(KEY_OFFSET, FREED);
                         size--;
-                    } else {
-                        int i = indexFor(e.hash, dest.length);
-                        e.next = dest[i];
-                        dest[i] = e;
+                        freed++;
+                    } else if (relocate) {
+                        e.writeLong(KEY_OFFSET, gc.preserve(ref).toOrigin().toLong());
                     }
-                    e = next;
                 }
             }
         }
 
-        static abstract class Visitor {
-            abstract void visit(Entry e);
-            Object getResult() {
-                return null;
+        /**
+         * Deletes the {@link #FREED} entries, sending their {@code ObjectFree} events to an agent.
+         *
+         * @param env the agent, or {@code null} if the events are not sent
+         */
+        void deleteFreed(JVMTI.Env env) {
+            final Pointer callback = env instanceof JVMTI.NativeEnv ?
+                JVMTI.getCallbackForEvent((JVMTI.NativeEnv) env, JVMTIEvents.E.OBJECT_FREE, VmThread.current()) : Pointer.zero();
+            for (int i = 0; i < capacity && freed > 0; i++) {
+                final Pointer e = entry(i);
+                if (e.readLong(KEY_OFFSET) == FREED) {
+                    if (callback.isNotZero()) {
+                        invokeObjectFreeCallback(callback, ((JVMTI.NativeEnv) env).cstruct, e.readLong(TAG_OFFSET));
+                    } else if (env instanceof JVMTI.JavaEnv) {
+                        ((JVMTI.JavaEnv) env).callbackHandler.objectFree(values[i]);
+                    }
+                    e.writeLong(KEY_OFFSET, DELETED);
+                    if (values != null) {
+                        values[i] = null;
+                    }
+                    freed--;
+                }
             }
         }
 
-        Visitor apply(Visitor visitor) {
-            for (int t = 0; t < table.length; t++) {
-                Map.Entry e = table[t];
-                while (e != null) {
-                    if (e.get() != null) {
-                        visitor.visit(e);
+        /**
+         * Gets the objects that have one of the given {@code long} tags.
+         *
+         * @param objects the array receiving the objects, or {@code null} to just count them
+         * @param objectTags the array receiving the tags of the objects
+         * @return the number of objects, or of elements set in {@code objects}
+         */
+        int getTagged(int tagCount, Pointer tags, Object[] objects, long[] objectTags) {
+            int count = 0;
+            final boolean wasDisabled = SafepointPoll.disable();
+            for (int i = 0; i < capacity; i++) {
+                final Pointer e = entry(i);
+                final long key = e.readLong(KEY_OFFSET);
+                if (key != EMPTY && key != DELETED && key != FREED) {
+                    final long tag = e.readLong(TAG_OFFSET);
+                    for (int t = 0; t < tagCount; t++) {
+                        if (tags.getLong(t) == tag) {
+                            if (objects != null) {
+                                if (count == objects.length) {
+                                    break;
+                                }
+                                objects[count] = Reference.fromOrigin(Pointer.fromLong(key)).toJava();
+                                objectTags[count] = tag;
+                            }
+                            count++;
+                            break;
+                        }
                     }
-                    e = e.next;
                 }
             }
-            return visitor;
+            if (!wasDisabled) {
+                SafepointPoll.enable();
+            }
+            return count;
         }
-
     }
 
     private Map tagMap;
@@ -257,7 +382,7 @@ class JVMTITags {
         if (tagMap == null) {
             return false;
         } else {
-            return tagMap.getCommon(object) != null;
+            return tagMap.contains(object);
         }
     }
 
@@ -282,14 +407,16 @@ class JVMTITags {
     synchronized int setTag(Object object, long tag) {
         if (tag == 0) {
             checkMap(true).remove(object);
-        } else {
-            checkMap(true).put(object, tag);
+        } else if (!checkMap(true).put(object, tag)) {
+            return JVMTI_ERROR_OUT_OF_MEMORY;
         }
         return JVMTI_ERROR_NONE;
     }
 
     public synchronized void setTag(Object object, Object tag) {
-        checkMap(false).put(object, tag);
+        if (!checkMap(false).put(object, tag)) {
+            throw new JJVMTI.JJVMTIException(JVMTI_ERROR_OUT_OF_MEMORY);
+        }
     }
 
     public synchronized Object getTag(Object object) {
@@ -303,72 +430,67 @@ class JVMTITags {
         return tagMap;
     }
 
+    /**
+     * Determines if objects tagged by the agent were freed by the last GC.
+     */
+    boolean hasFreedTags() {
+        return tagMap != null && tagMap.freed != 0;
+    }
+
+    /**
+     * Forgets the tags of the objects freed by the last GC, sending their {@code ObjectFree} events to an agent.
+     * Called at the end of the GC, when the tag map cannot be in use, so no lock is taken.
+     *
+     * @param env the agent, or {@code null} if the events are not sent
+     */
+    void deleteFreedTags(JVMTI.Env env) {
+        tagMap.deleteFreed(env);
+    }
+
     synchronized int getObjectsWithTags(final int tagCount, final Pointer tags, Pointer countPtr, Pointer objectResultPtrPtr, Pointer tagResultPtrPtr) {
         if (tagCount < 0) {
             return JVMTI_ERROR_ILLEGAL_ARGUMENT;
         }
         for (int i = 0; i < tagCount; i++) {
-            long givenTag = tags.getInt(i);
+            long givenTag = tags.getLong(i);
             if (givenTag == 0) {
                 return JVMTI_ERROR_ILLEGAL_ARGUMENT;
             }
         }
 
-        Map.Visitor counter = new Map.Visitor() {
-            private int count;
-
-            @Override
-            void visit(Map.Entry e) {
-                for (int i = 0; i < tagCount; i++) {
-                    long givenTag = tags.getInt(i);
-                    if (givenTag == ((Map.LongEntry) e).value) {
-                        count++;
-                    }
-                }
-            }
-
-            @Override
-            Object getResult() {
-                return new Integer(count);
-            }
-        };
+        final Map map = checkMap(true);
+        int count = map.getTagged(tagCount, tags, null, null);
+        final Object[] objects = new Object[count];
+        final long[] objectTags = new long[count];
+        // objects may have been freed by a GC in between
+        count = map.getTagged(tagCount, tags, objects, objectTags);
 
-        final int count = (Integer) tagMap.apply(counter).getResult();
-        // count is an upper bound, entries may disappear through GC actions
-        final Pointer objectResultPtr = objectResultPtrPtr.isZero() ? Pointer.zero() : Memory.allocate(Size.fromInt(count * Word.size()));
-        if (objectResultPtr.isZero()) {
+        final Size size = Size.fromInt(Math.max(count, 1) * Word.size());
+        final Pointer objectResultPtr = objectResultPtrPtr.isZero() ? Pointer.zero() : Memory.allocate(size);
+        if (objectResultPtrPtr.isNotZero() && objectResultPtr.isZero()) {
             return JVMTI_ERROR_OUT_OF_MEMORY;
         }
-        final Pointer tagResultPtr = tagResultPtrPtr.isZero() ? Pointer.zero() : Memory.allocate(Size.fromInt(count * Word.size()));
-        if (tagResultPtr.isZero()) {
-            Memory.deallocate(objectResultPtr);
+        final Pointer tagResultPtr = tagResultPtrPtr.isZero() ? Pointer.zero() : Memory.allocate(size);
+        if (tagResultPtrPtr.isNotZero() && tagResultPtr.isZero()) {
+            if (objectResultPtr.isNotZero()) {
+                Memory.deallocate(objectResultPtr);
+            }
             return JVMTI_ERROR_OUT_OF_MEMORY;
         }
-
-        Map.Visitor copier = new Map.Visitor() {
-            @Override
-            void visit(Map.Entry e) {
-                int index = 0;
-                Object key = e.get();
-                if (key != null) {
-                    for (int i = 0; i < tagCount; i++) {
-                        long givenTag = tags.getInt(i);
-                        if (givenTag == ((Map.LongEntry) e).value) {
-                            assert index < count;
-                            if (!objectResultPtr.isZero()) {
-                                objectResultPtr.setWord(index, JniHandles.createLocalHandle(key));
-                            }
-                            if (!tagResultPtr.isZero()) {
-                                tagResultPtr.setLong(index, givenTag);
-                            }
-                            index++;
-                            break;
-                        }
-                    }
-                }
+        for (int i = 0; i < count; i++) {
+            if (objectResultPtr.isNotZero()) {
+                objectResultPtr.setWord(i, JniHandles.createLocalHandle(objects[i]));
+            }
+            if (tagResultPtr.isNotZero()) {
+                tagResultPtr.setLong(i, objectTags[i]);
             }
-        };
-        tagMap.apply(copier);
+        }
+        if (objectResultPtr.isNotZero()) {
+            objectResultPtrPtr.setWord(objectResultPtr);
+        }
+        if (tagResultPtr.isNotZero()) {
+            tagResultPtrPtr.setWord(tagResultPtr);
+        }
         countPtr.setInt(count);
         return JVMTI_ERROR_NONE;
     }
@@ -86,6 +86,12 @@ public class MaxTargetMethod extends TargetMethod implements Cloneable {
      */
     private int[] exceptionHandlerBCIs;
 
+    /**
+     * Cache of recent {@linkplain #throwAddressToCatchAddress(CodePointer, Throwable) handler lookups}. This is
+     * {@code null} if the method has no exception handlers or the cache is disabled.
+     */
+    private ThrowAddressCache throwAddressCache;
+
     /**
      * Method actor of MaxMiscLowerings.throwException method.
      */
@@ -227,6 +233,9 @@ public class MaxTargetMethod extends TargetMethod implements Cloneable {
                 exceptionHandlerBCIs[z] = handler.handlerBci;
                 z++;
             }
+            if (ThrowAddressCache.isUseful(z)) {
+                throwAddressCache = new ThrowAddressCache();
+            }
         }
     }
 
@@ -315,20 +324,43 @@ public class MaxTargetMethod extends TargetMethod implements Cloneable {
 
     private CodePointer throwAddressToCatchAddress(CodePointer throwAddress, Throwable exception, CatchExceptionInfo info) {
         final int exceptionPos = throwAddress.minus(codeStart()).toInt();
+        int index;
+        final ThrowAddressCache cache = throwAddressCache;
+        if (cache != null) {
+            final ClassActor exceptionType = ObjectAccess.readClassActor(exception);
+            index = cache.lookup(exceptionPos, exceptionType);
+            if (index == ThrowAddressCache.MISS) {
+                index = findHandlerIndex(exceptionPos, exception);
+                cache.record(exceptionPos, exceptionType, index);
+            }
+        } else {
+            index = findHandlerIndex(exceptionPos, exception);
+        }
+        if (index == ThrowAddressCache.NO_HANDLER) {
+            return CodePointer.zero();
+        }
+        if (info != null) {
+            info.bci = getHandlerBCIAt(index);
+        }
+        return codeAt(getCatchPosAt(index));
+    }
+
+    /**
+     * Searches the exception handler table for the handler of a given exception thrown at a given position.
+     *
+     * @return the index of the handler table entry or {@link ThrowAddressCache#NO_HANDLER} if there is no handler
+     */
+    private int findHandlerIndex(int exceptionPos, Throwable exception) {
         int count = getExceptionHandlerCount();
         for (int i = 0; i < count; i++) {
             int codePos = getExceptionPosAt(i);
-            int catchPos = getCatchPosAt(i);
             ClassActor catchType = getCatchTypeAt(i);
 
             if ((codePos == exceptionPos) && checkType(exception, catchType)) {
-                if (info != null) {
-                    info.bci = getHandlerBCIAt(i);
-                }
-                return codeAt(catchPos);
+                return i;
             }
         }
-        return CodePointer.zero();
+        return ThrowAddressCache.NO_HANDLER;
     }
 
     private boolean checkType(Throwable exception, ClassActor catchType) {
@@ -25,6 +25,7 @@ import static com.oracle.max.vm.ext.t1x.T1XTemplateTag.*;
 import static com.sun.max.vm.MaxineVM.*;
 import static com.sun.max.vm.stack.JVMSFrameLayout.*;
 
+import java.lang.invoke.*;
 import java.util.*;
 
 import com.oracle.max.asm.*;
@@ -45,6 +46,7 @@ import com.sun.max.vm.classfile.constant.*;
 import com.sun.max.vm.compiler.*;
 import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.intrinsics.*;
+import com.sun.max.vm.methodhandle.*;
 import com.sun.max.vm.profile.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.stack.*;
@@ -2287,6 +2289,20 @@ public abstract class T1XCompilation {
         assert methodActor.holder().isInitialized();
 
         do_profileExceptionSeen();
+        if (T1XOptions.DirectLinkInvokeDynamic && !(appendix instanceof CallSite)) {
+            // the appendix is the target of a constant call site
+            ClassMethodActor direct = MaxMethodHandles.directStaticTarget(appendix, invokeDynamicConstant.signature(cp));
+            if (direct != null) {
+                Trace.line(1, "direct =>" + direct);
+                Kind directKind = invokeKind(direct.descriptor());
+                T1XTemplateTag directTag = INVOKESTATICS.get(directKind.asEnum);
+                do_invokestatic_resolved(directTag, direct);
+                int safepoint = callDirect();
+                finishCall(directTag, directKind, safepoint, direct);
+                Trace.end(1, "T1XCompilation.do_invokedynamic");
+                return;
+            }
+        }
         do_invokestatic_resolved(tag, methodActor);
         // stack the CallSite appendix argument.
         incStack(1);
@@ -40,6 +40,8 @@ public final class T1XOptions {
 
     public static boolean DebugMethods                       = ____;
 
+    public static boolean DirectLinkInvokeDynamic            = true;
+
     /**
      * See {@link Filter#Filter(String, Object)}.
      */
@@ -85,6 +87,8 @@ public final class T1XOptions {
                 "Trace calls to T1X compiled methods.");
         map.put("DebugMethods",
                         "Create file with T1X compiled method IDs for debugging.");
+        map.put("DirectLinkInvokeDynamic",
+                "Call the static method targeted by a constant invokedynamic call site directly.");
         map.put("PrintJsrRetRewrites",
                 "Print a message when T1X rewrites a method to inline jsr/ret subroutines.");
 
@@ -216,6 +216,11 @@ typedef struct {
      * Place to hang miscellaneous OS dependent record keeping data.
      */
     void *osData;  //
+
+    /*
+     * Ring buffer into which the CPU sampler's SIGPROF handler records samples of this thread, or 0.
+     */
+    Address cpuSamples;
 } NativeThreadLocalsStruct, *NativeThreadLocals;
 
 /**
@@ -38,6 +38,10 @@
 #include <sys/sysctl.h>
 #endif
 
+#if os_LINUX
+#include <stdio.h>
+#endif
+
 /* There is a problem binding these identifiers in RedHat's include files, so we fake them: */
 #if os_LINUX
 #   ifndef MAP_ANONYMOUS
@@ -52,6 +56,12 @@
 #   ifndef MAP_32BIT
 #       define MAP_32BIT        0x40
 #   endif
+#   ifndef MAP_HUGETLB
+#       define MAP_HUGETLB      0x40000
+#   endif
+#   ifndef MADV_HUGEPAGE
+#       define MADV_HUGEPAGE    14
+#   endif
 #else
     /* TODO */
 #   ifndef MAP_32BIT
@@ -195,6 +205,118 @@ Address virtualMemory_mapFileAtFixedAddress(Address address, Size size, jint fd,
     return check_mmap_result(mmap((void *) address, (size_t) size, PROT, MAP_PRIVATE | MAP_FIXED, fd, (off_t) offset));
 }
 
+/* Large page support.
+ * On Linux, large pages are obtained either from the hugetlbfs pool (MAP_HUGETLB), which requires pages to have been
+ * reserved by the administrator, or as transparent huge pages (THP) requested with madvise(MADV_HUGEPAGE).
+ * The functions below never fail hard: the caller falls back to regular pages if they report failure.
+ */
+
+#define DEFAULT_LARGE_PAGE_SIZE (2 * 1024 * 1024)
+
+static Size largePageSize = 0;
+
+Size virtualMemory_getLargePageSize(void) {
+    if (largePageSize == 0) {
+        largePageSize = DEFAULT_LARGE_PAGE_SIZE;
+#if os_LINUX
+        FILE *f = fopen("/sys/kernel/mm/transparent_hugepage/hpage_pmd_size", "r");
+        if (f != NULL) {
+            unsigned long value = 0;
+            if (fscanf(f, "%lu", &value) == 1 && value != 0 && (value & (value - 1)) == 0) {
+                largePageSize = (Size) value;
+            }
+            fclose(f);
+        }
+#endif
+    }
+    return largePageSize;
+}
+
+/*
+ * Requests that the pages in a given range be backed by transparent huge pages.
+ * The range must be aligned to the large page size.
+ */
+jboolean virtualMemory_adviseHugePages(Address address, Size size) {
+#if os_LINUX
+    if (madvise((void *) address, (size_t) size, MADV_HUGEPAGE) != 0) {
+#if log_MMAP
+        log_println("madvise(%p, %p, MADV_HUGEPAGE) failed: %s", address, size, strerror(errno));
+#endif
+        return JNI_FALSE;
+    }
+    return JNI_TRUE;
+#else
+    return JNI_FALSE;
+#endif
+}
+
+/*
+ * Replaces the mapping of a given range with a mapping backed by pages from the hugetlbfs pool.
+ * If the pool cannot satisfy the request, the range is remapped with regular pages and ALLOC_FAILED is returned.
+ * The range must be aligned to the large page size.
+ */
+Address virtualMemory_commitHugeTLB(Address address, Size size) {
+#if os_LINUX
+    void *result = mmap((void *) address, (size_t) size, PROT, MAP_PRIVATE | MAP_ANON | MAP_FIXED | MAP_HUGETLB, -1, 0);
+    if (result == MAP_FAILED) {
+#if log_MMAP
+        log_println("mmap(%p, %p, MAP_HUGETLB) failed: %s", address, size, strerror(errno));
+#endif
+        mmap((void *) address, (size_t) size, PROT, MAP_PRIVATE | MAP_ANON | MAP_FIXED | MAP_NORESERVE, -1, 0);
+        return ALLOC_FAILED;
+    }
+    return (Address) result;
+#else
+    return ALLOC_FAILED;
+#endif
+}
+
+/*
+ * Gets the number of bytes in a given range currently backed by transparent huge pages.
+ * This sums the AnonHugePages entries of /proc/self/smaps for the mappings overlapping the range
+ * and so may over-report for mappings extending beyond the range.
+ */
+Size virtualMemory_hugePagesInRange(Address address, Size size) {
+    Size total = 0;
+#if os_LINUX
+    FILE *f = fopen("/proc/self/smaps", "r");
+    if (f == NULL) {
+        return 0;
+    }
+    char line[256];
+    jboolean overlaps = JNI_FALSE;
+    while (fgets(line, sizeof(line), f) != NULL) {
+        unsigned long start, end, kb;
+        if (sscanf(line, "%lx-%lx ", &start, &end) == 2) {
+            overlaps = start < address + size && end > address;
+        } else if (overlaps && sscanf(line, "AnonHugePages: %lu kB", &kb) == 1) {
+            total += (Size) kb * 1024;
+        }
+    }
+    fclose(f);
+#endif
+    return total;
+}
+
+/*
+ * Releases the physical pages backing a range of private anonymous memory, which then reads as zero when next touched.
+ * The range must be page aligned. Only Linux guarantees that discarded pages are zero-filled; elsewhere this fails
+ * and the caller clears the memory itself.
+ */
+jboolean virtualMemory_discardPages(Address address, Size size) {
+#if os_LINUX
+    if (madvise((void *) address, (size_t) size, MADV_DONTNEED) != 0) {
+#if log_MMAP
+        log_println("madvise(%p, %p, MADV_DONTNEED) failed: %s", address, size, strerror(errno));
+#endif
+        return JNI_FALSE;
+    }
+    return JNI_TRUE;
+#else
+    return JNI_FALSE;
+#endif
+}
+
 // end of conditional exclusion of mmap stuff not available (or used) on MAXVE
 #endif // MAXVE
 
@@ -49,6 +49,12 @@ extern Size virtualMemory_getPhysicalMemorySize(void);
 
 extern Address virtualMemory_pageAlign(Address address);
 
+extern Size virtualMemory_getLargePageSize(void);
+extern jboolean virtualMemory_adviseHugePages(Address address, Size size);
+extern Address virtualMemory_commitHugeTLB(Address address, Size size);
+extern Size virtualMemory_hugePagesInRange(Address address, Size size);
+extern jboolean virtualMemory_discardPages(Address address, Size size);
+
 extern void virtualMemory_protectPages(Address address, int count);
 extern void virtualMemory_unprotectPages(Address address, int count);
 #endif /*__virtualMemory_h__*/
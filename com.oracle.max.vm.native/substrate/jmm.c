@@ -19,8 +19,18 @@
  * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
  */
 
+#include <string.h>
+#include <time.h>
+#include <pthread.h>
+
+#include "os.h"
+#include "word.h"
 #include "jmm.h"
 
+#if os_DARWIN
+#include <mach/mach.h>
+#endif
+
 static void jmm_reserved() {
 }
 
@@ -29,9 +39,59 @@ static jint jmm_GetVersion(JNIEnv *env) {
 }
 
 static jint jmm_GetOptionalSupport(JNIEnv *env, jmmOptionalSupport* support) {
+    memset(support, 0, sizeof(jmmOptionalSupport));
+    support->isThreadContentionMonitoringSupported = 1;
+#if os_LINUX || os_DARWIN
+    support->isCurrentThreadCpuTimeSupported = 1;
+    support->isOtherThreadCpuTimeSupported = 1;
+#endif
     return 0;
 }
 
+/**
+ * Implementation of com.sun.max.vm.management.ThreadManagement.jmm_threadCpuTime().
+ *
+ * @param nativeThread the handle of a live thread (a pthread_t value), or 0 for the current thread
+ * @param userTimeOnly if true, only the time spent in user mode is returned
+ * @return the CPU time of the thread in nanoseconds, or -1 if it cannot be measured
+ */
+jlong jmm_threadCpuTime(Address nativeThread, jboolean userTimeOnly) {
+#if os_LINUX
+    struct timespec ts;
+    clockid_t clock;
+    if (nativeThread == 0 && !userTimeOnly) {
+        clock = CLOCK_THREAD_CPUTIME_ID;
+    } else {
+        pthread_t thread = nativeThread == 0 ? pthread_self() : (pthread_t) nativeThread;
+        if (pthread_getcpuclockid(thread, &clock) != 0) {
+            return -1;
+        }
+        if (userTimeOnly) {
+            /* Linux encodes the kind of a CPU clock in its low bits: 2 is user + system time, 1 is user time only */
+            clock = (clock & ~((clockid_t) 3)) | 1;
+        }
+    }
+    if (clock_gettime(clock, &ts) != 0) {
+        return -1;
+    }
+    return ((jlong) ts.tv_sec) * 1000000000LL + ts.tv_nsec;
+#elif os_DARWIN
+    pthread_t thread = nativeThread == 0 ? pthread_self() : (pthread_t) nativeThread;
+    thread_basic_info_data_t info;
+    mach_msg_type_number_t count = THREAD_BASIC_INFO_COUNT;
+    if (thread_info(pthread_mach_thread_np(thread), THREAD_BASIC_INFO, (thread_info_t) &info, &count) != KERN_SUCCESS) {
+        return -1;
+    }
+    jlong nanos = ((jlong) info.user_time.seconds) * 1000000000LL + info.user_time.microseconds * 1000LL;
+    if (!userTimeOnly) {
+        nanos += ((jlong) info.system_time.seconds) * 1000000000LL + info.system_time.microseconds * 1000LL;
+    }
+    return nanos;
+#else
+    return -1;
+#endif
+}
+
 struct jmmInterface_1_ jmm_interface = {
     (void *) jmm_reserved,
     (void *) jmm_reserved,
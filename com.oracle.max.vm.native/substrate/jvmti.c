@@ -38,6 +38,7 @@ typedef jint (JNICALL *Agent_OnLoad_t)(JavaVM *, char *, void *reserved);
 typedef jint (JNICALL *Agent_OnAttach_t)(JavaVM *, char *);
 typedef jint (JNICALL *Agent_OnUnLoad_t)(JavaVM *);
 typedef void (JNICALL *GarbageCollectionCallback) (jvmtiEnv *jvmti_env);
+typedef void (JNICALL *ObjectFreeCallback) (jvmtiEnv *jvmti_env, jlong tag);
 typedef void (JNICALL *jvmtiStartFunctionNoArg) (jvmtiEnv* jvmti_env, JNIEnv* jni_env);
 typedef void (JNICALL *ThreadObjectCall) (jvmtiEnv *jvmti_env, JNIEnv* jni_env, jthread thread, jclass klass);
 
@@ -67,6 +68,11 @@ Java_com_oracle_max_vm_ext_jvmti_JVMTICallbacks_invokeGarbageCollectionCallback(
     (*callback)(jvmti_env);
 }
 
+JNIEXPORT void JNICALL
+Java_com_oracle_max_vm_ext_jvmti_JVMTICallbacks_invokeObjectFreeCallback(JNIEnv *env, jclass c, ObjectFreeCallback callback, jvmtiEnv *jvmti_env, jlong tag) {
+    (*callback)(jvmti_env, tag);
+}
+
 JNIEXPORT void JNICALL
 Java_com_oracle_max_vm_ext_jvmti_JVMTICallbacks_invokeThreadObjectCallback(JNIEnv *env, jclass c, ThreadObjectCall callback, jvmtiEnv *jvmti_env, jthread thread, jobject object) {
     (*callback)(jvmti_env, env, thread, object);
@@ -45,4 +45,8 @@ int numaNodeOfCPU(int cpuID) {
 
 int numaPageSize() {
     return numa_pagesize();
-}
\ No newline at end of file
+}
+
+void numaBindToNode(jlong address, jlong size, int node) {
+    numa_tonode_memory((void *) address, (size_t) size, node);
+}
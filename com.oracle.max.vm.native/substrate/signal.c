@@ -30,7 +30,14 @@
 
 #include "c.h"
 #include "threads.h"
+#include "threadLocals.h"
 #include "log.h"
+#include "isa.h"
+#include "trap.h"
+
+#if !os_MAXVE
+#include <sys/time.h>
+#endif
 
 #if os_DARWIN
 #include <mach/mach.h>
@@ -185,3 +192,152 @@ Java_com_sun_max_vm_runtime_SignalDispatcher_nativeSignalFinalize(JNIEnv *env, j
 void nativeSetSignalTracing(boolean flag) {
     traceSignals = flag;
 }
+
+/*
+ * Asynchronous CPU sampling for com.sun.max.vm.profilers.sampling.CPUSampler.
+ *
+ * An ITIMER_PROF timer delivers SIGPROF to the thread that is consuming CPU time. The handler records the
+ * interrupted instruction, stack and frame pointers and a copy of the top of the stack into a single-producer,
+ * single-consumer ring buffer hanging off the thread's native thread locals. Nothing is decoded in the handler:
+ * a Java thread later walks the copies with the VM's stack walker.
+ *
+ * ATTENTION: the layout of the ring buffer must match the constants in CPUSampler.java.
+ */
+#define CPU_SAMPLES_HEAD        0   /* jint: number of samples recorded, written by the handler */
+#define CPU_SAMPLES_TAIL        4   /* jint: number of samples consumed, written by the drainer */
+#define CPU_SAMPLES_DROPPED     8   /* jint: number of samples lost because the buffer was full */
+#define CPU_SAMPLES_CAPACITY    12  /* jint: number of entries */
+#define CPU_SAMPLES_ENTRY_SIZE  16  /* jint: size of an entry in bytes */
+#define CPU_SAMPLES_HEADER_SIZE 32
+
+#define CPU_SAMPLE_IP           0
+#define CPU_SAMPLE_SP           8
+#define CPU_SAMPLE_FP           16
+#define CPU_SAMPLE_FLAGS        24  /* jint */
+#define CPU_SAMPLE_LENGTH       28  /* jint: number of stack bytes copied */
+#define CPU_SAMPLE_STACK        32
+
+#define CPU_SAMPLE_IN_NATIVE    1   /* the registers are those recorded in the last Java frame anchor */
+
+static int cpuSampler_anchorPCOffset;
+static int cpuSampler_anchorSPOffset;
+static int cpuSampler_anchorFPOffset;
+
+#if (os_LINUX && (isa_AMD64 || isa_AARCH64)) || os_DARWIN
+#define CPU_SAMPLING_SUPPORTED 1
+#else
+#define CPU_SAMPLING_SUPPORTED 0
+#endif
+
+#if CPU_SAMPLING_SUPPORTED
+
+static void cpuSampleHandler(int signal, SigInfo *signalInfo, UContext *ucontext) {
+    NativeThreadLocals ntl = nativeThreadLocals_current();
+    if (ntl == NULL || ntl->cpuSamples == 0) {
+        return;
+    }
+    Address buffer = ntl->cpuSamples;
+#if os_LINUX && isa_AMD64
+    Address ip = ucontext->uc_mcontext.gregs[REG_RIP];
+    Address sp = ucontext->uc_mcontext.gregs[REG_RSP];
+    Address fp = ucontext->uc_mcontext.gregs[REG_RBP];
+#elif os_LINUX && isa_AARCH64
+    Address ip = ucontext->uc_mcontext.pc;
+    Address sp = ucontext->uc_mcontext.sp;
+    Address fp = ucontext->uc_mcontext.regs[29];
+#elif os_DARWIN
+    Address ip = ucontext->uc_mcontext->__ss.__rip;
+    Address sp = ucontext->uc_mcontext->__ss.__rsp;
+    Address fp = ucontext->uc_mcontext->__ss.__rbp;
+#endif
+
+    jint flags = 0;
+    TLA etla = tla_current();
+    if (etla != 0) {
+        /* A thread in native code is attributed to the Java frame that called it. */
+        Address anchor = tla_load(Address, etla, LAST_JAVA_FRAME_ANCHOR);
+        if (anchor != 0 && *(Address *) (anchor + cpuSampler_anchorPCOffset) != 0) {
+            ip = *(Address *) (anchor + cpuSampler_anchorPCOffset);
+            sp = *(Address *) (anchor + cpuSampler_anchorSPOffset);
+            fp = *(Address *) (anchor + cpuSampler_anchorFPOffset);
+            flags = CPU_SAMPLE_IN_NATIVE;
+        }
+    }
+
+    jint head = *(jint *) (buffer + CPU_SAMPLES_HEAD);
+    jint tail = __atomic_load_n((jint *) (buffer + CPU_SAMPLES_TAIL), __ATOMIC_ACQUIRE);
+    jint capacity = *(jint *) (buffer + CPU_SAMPLES_CAPACITY);
+    if (head - tail >= capacity) {
+        (*(jint *) (buffer + CPU_SAMPLES_DROPPED))++;
+        return;
+    }
+    jint entrySize = *(jint *) (buffer + CPU_SAMPLES_ENTRY_SIZE);
+    Address entry = buffer + CPU_SAMPLES_HEADER_SIZE + (Address) (((unsigned int) head) % (unsigned int) capacity) * entrySize;
+
+    Address stackEnd = ntl->stackBase + ntl->stackSize;
+    Size length = 0;
+    if (sp >= ntl->stackBase && sp < stackEnd) {
+        length = stackEnd - sp;
+        if (length > (Size) (entrySize - CPU_SAMPLE_STACK)) {
+            length = entrySize - CPU_SAMPLE_STACK;
+        }
+        memcpy((void *) (entry + CPU_SAMPLE_STACK), (void *) sp, length);
+    }
+    *(Address *) (entry + CPU_SAMPLE_IP) = ip;
+    *(Address *) (entry + CPU_SAMPLE_SP) = sp;
+    *(Address *) (entry + CPU_SAMPLE_FP) = fp;
+    *(jint *) (entry + CPU_SAMPLE_FLAGS) = flags;
+    *(jint *) (entry + CPU_SAMPLE_LENGTH) = (jint) length;
+
+    /* publish the entry */
+    __atomic_store_n((jint *) (buffer + CPU_SAMPLES_HEAD), head + 1, __ATOMIC_RELEASE);
+}
+
+#endif
+
+/**
+ * Implementation of com.sun.max.vm.profilers.sampling.CPUSampler.cpuSampler_start().
+ *
+ * @param intervalMicros the CPU time between two samples, in microseconds
+ * @return 0 if the sampler was started, -1 otherwise
+ */
+jint cpuSampler_start(jint intervalMicros, jint anchorPCOffset, jint anchorSPOffset, jint anchorFPOffset) {
+#if !CPU_SAMPLING_SUPPORTED
+    return -1;
+#else
+    cpuSampler_anchorPCOffset = anchorPCOffset;
+    cpuSampler_anchorSPOffset = anchorSPOffset;
+    cpuSampler_anchorFPOffset = anchorFPOffset;
+    setSignalHandler(SIGPROF, (SignalHandlerFunction) cpuSampleHandler);
+
+    struct itimerval timer;
+    timer.it_interval.tv_sec = intervalMicros / 1000000;
+    timer.it_interval.tv_usec = intervalMicros % 1000000;
+    timer.it_value = timer.it_interval;
+    if (setitimer(ITIMER_PROF, &timer, NULL) != 0) {
+        log_println("setitimer failed: %s", strerror(errno));
+        return -1;
+    }
+    return 0;
+#endif
+}
+
+/**
+ * Implementation of com.sun.max.vm.profilers.sampling.CPUSampler.cpuSampler_stop().
+ */
+void cpuSampler_stop() {
+#if CPU_SAMPLING_SUPPORTED
+    struct itimerval timer;
+    memset((char *) &timer, 0, sizeof(timer));
+    setitimer(ITIMER_PROF, &timer, NULL);
+#endif
+}
+
+/**
+ * Implementation of com.sun.max.vm.profilers.sampling.CPUSampler.cpuSampler_setBuffer().
+ *
+ * Sets the ring buffer of the thread owning given native thread locals.
+ */
+void cpuSampler_setBuffer(Address ntl, Address buffer) {
+    ((NativeThreadLocals) ntl)->cpuSamples = buffer;
+}
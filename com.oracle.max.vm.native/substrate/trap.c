@@ -511,9 +511,13 @@ void nativeTrapInitialize(Address javaTrapStub) {
     /* Let all threads be stopped by a debugger. */
     sigaddset(&vmSignals, SIGTRAP);
 
+    /* Let the CPU sampler interrupt the thread that consumed the CPU time. */
+    sigaddset(&vmSignals, SIGPROF);
+
     /* Define the signals to be blocked on thread exit. */
     sigemptyset(&blockedOnThreadExitSignals);
     sigaddset(&blockedOnThreadExitSignals, SIGUSR1);
+    sigaddset(&blockedOnThreadExitSignals, SIGPROF);
 
     /* Apply the normal thread mask to the primordial thread. */
     thread_setSignalMask(SIG_BLOCK, &allSignals, NULL);
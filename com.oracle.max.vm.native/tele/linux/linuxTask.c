@@ -33,6 +33,7 @@
 #include <sys/wait.h>
 #include <sys/time.h>
 #include <sys/prctl.h>
+#include <sys/uio.h>
 
 #include "log.h"
 #include "ptrace.h"
@@ -924,6 +925,69 @@ Java_com_sun_max_tele_debug_linux_LinuxTask_nativeReadBytes(JNIEnv *env, jclass
     return teleProcess_read(&ph, env, c, src, dst, isDirectByteBuffer, dstOffset, length);
 }
 
+/**
+ * Maximum number of I/O vectors passed to process_vm_readv(2) by a single vectored read.
+ */
+#define READ_VECTORED_MAX_IOVECS 64
+
+/**
+ * Copies 'length' bytes from 'src' in the address space of 'tgid' to a direct ByteBuffer or a byte array with a
+ * single process_vm_readv(2) call, which needs neither a file descriptor nor one ptrace request per word.
+ * The range is split into one I/O vector per page, or per power-of-two group of pages if it spans more than
+ * READ_VECTORED_MAX_IOVECS pages. The kernel never splits an I/O vector, so a read that reaches an unmapped page
+ * still copies the pages before it instead of failing as a whole.
+ *
+ * @return the number of bytes copied, -1 if there was an error or -2 if process_vm_readv is not available
+ */
+JNIEXPORT jint JNICALL
+Java_com_sun_max_tele_debug_linux_LinuxTask_nativeReadVectored(JNIEnv *env, jclass c, jint tgid, jlong src, jobject dst, jboolean isDirectByteBuffer, jint dstOffset, jint length) {
+    struct iovec local[READ_VECTORED_MAX_IOVECS];
+    struct iovec remote[READ_VECTORED_MAX_IOVECS];
+    Address start = (Address) src;
+    Address end = start + (Address) length;
+    Address granule = (Address) sysconf(_SC_PAGESIZE);
+    Address address;
+    int count = 0;
+    void *dstBuffer;
+
+    // The first and the last vectors may cover partial granules.
+    while (((Address) length + granule - 1) / granule + 1 > READ_VECTORED_MAX_IOVECS) {
+        granule <<= 1;
+    }
+    if (isDirectByteBuffer) {
+        dstBuffer = (*env)->GetDirectBufferAddress(env, dst);
+    } else {
+        dstBuffer = (*env)->GetPrimitiveArrayCritical(env, (jbyteArray) dst, NULL);
+    }
+    if (dstBuffer == NULL) {
+        log_println("Failed to get address of read buffer");
+        return -1;
+    }
+    for (address = start; address < end; count++) {
+        Address next = (address & ~(granule - 1)) + granule;
+        if (next > end) {
+            next = end;
+        }
+        local[count].iov_base = (jbyte *) dstBuffer + dstOffset + (address - start);
+        local[count].iov_len = (size_t) (next - address);
+        remote[count].iov_base = (void *) address;
+        remote[count].iov_len = (size_t) (next - address);
+        address = next;
+    }
+    ssize_t bytesRead = process_vm_readv((pid_t) tgid, local, count, remote, count, 0);
+    int error = errno;
+    if (!isDirectByteBuffer) {
+        (*env)->ReleasePrimitiveArrayCritical(env, (jbyteArray) dst, dstBuffer, 0);
+    }
+    if (bytesRead < 0) {
+        if (error == ENOSYS || error == EPERM) {
+            return -2;
+        }
+        return -1;
+    }
+    return (jint) bytesRead;
+}
+
 JNIEXPORT jboolean JNICALL
 Java_com_sun_max_tele_debug_linux_LinuxTask_nativeSetInstructionPointer(JNIEnv *env, jclass c, jint tid, jlong instructionPointer) {
     user_regs_structure registers;
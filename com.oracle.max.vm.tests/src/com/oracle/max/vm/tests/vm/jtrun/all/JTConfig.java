@@ -400,9 +400,11 @@ public class JTConfig {
         jtt.jasm.Invokevirtual_private01.class,
         jtt.jasm.Loop00.class,
         jtt.jdk.AtomicIntegerFieldUpdater01.class,
+        jtt.jdk.CallSite_setTarget01.class,
         jtt.jdk.Class_getName.class,
         jtt.jdk.EnumMap01.class,
         jtt.jdk.EnumMap02.class,
+        jtt.jdk.Reference_softWeak01.class,
         jtt.jdk.System_currentTimeMillis01.class,
         jtt.jdk.System_currentTimeMillis02.class,
         jtt.jdk.System_nanoTime01.class,
@@ -544,6 +546,7 @@ public class JTConfig {
         jtt.loop.LoopNewInstance.class,
         jtt.loop.LoopPhi.class,
         jtt.loop.LoopSwitch01.class,
+        jtt.max.AdaptiveTLAB01.class,
         jtt.max.CodePointer01.class,
         jtt.max.CodePointer02.class,
         jtt.max.Fold01.class,
@@ -554,12 +557,16 @@ public class JTConfig {
         jtt.max.ImmortalHeap_allocation.class,
         jtt.max.ImmortalHeap_switching.class,
         jtt.max.Inline01.class,
+        jtt.max.InvokeDynamic01.class,
         jtt.max.Invoke_except01.class,
+        jtt.max.LargeObject_allocation01.class,
         jtt.max.Prototyping01.class,
+        jtt.max.StackWatermark01.class,
         jtt.max.Unsigned_idiv01.class,
         jtt.max.Unsigned_irem01.class,
         jtt.max.Unsigned_ldiv01.class,
         jtt.max.Unsigned_lrem01.class,
+        jtt.max.VerificationCache01.class,
         jtt.micro.ArrayCompare01.class,
         jtt.micro.ArrayCompare02.class,
         jtt.micro.BC_invokevirtual2.class,
@@ -738,6 +745,7 @@ public class JTConfig {
         jtt.reflect.Class_newInstance03.class,
         jtt.reflect.Class_newInstance06.class,
         jtt.reflect.Class_newInstance07.class,
+        jtt.reflect.Constructor_newInstance01.class,
         jtt.reflect.Field_get01.class,
         jtt.reflect.Field_get02.class,
         jtt.reflect.Field_get03.class,
@@ -747,10 +755,14 @@ public class JTConfig {
         jtt.reflect.Field_set02.class,
         jtt.reflect.Field_set03.class,
         jtt.reflect.Invoke_except01.class,
+        jtt.reflect.Invoke_except02.class,
+        jtt.reflect.Invoke_except03.class,
+        jtt.reflect.Invoke_inflation01.class,
         jtt.reflect.Invoke_main01.class,
         jtt.reflect.Invoke_main02.class,
         jtt.reflect.Invoke_main03.class,
         jtt.reflect.Invoke_virtual01.class,
+        jtt.reflect.Invoke_widening01.class,
         jtt.reflect.Method_getParameterTypes01.class,
         jtt.reflect.Method_getReturnType01.class,
         jtt.reflect.Reflection_getCallerClass01.class,
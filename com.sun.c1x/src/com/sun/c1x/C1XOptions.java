@@ -122,6 +122,7 @@ public final class C1XOptions {
 
     // optimistic optimization settings
     public static boolean UseAssumptions                = true;
+    public static boolean DirectLinkInvokeDynamic       = true;
 
     // state merging settings
     public static boolean AssumeVerifiedBytecode        = ____;
@@ -711,6 +711,11 @@ public abstract class LIRGenerator extends ValueVisitor {
         throw FatalError.unimplemented("LIRGenerator.visitGetCpuID");
     }
 
+    @Override
+    public void visitVectorizedMemoryOp(VectorizedMemoryOp i) {
+        throw FatalError.unimplemented("LIRGenerator.visitVectorizedMemoryOp");
+    }
+
     protected CiAddress getAddressForPointerOp(PointerOp x, CiKind kind, CiValue pointer) {
         if (x.displacement() == null) {
             // address is [pointer + offset]
@@ -23,6 +23,7 @@ package com.sun.c1x.graph;
 import static com.sun.cri.bytecode.Bytecodes.*;
 import static java.lang.reflect.Modifier.*;
 
+import java.lang.invoke.CallSite;
 import java.lang.reflect.*;
 import java.util.*;
 
@@ -44,6 +45,8 @@ import com.sun.cri.ri.RiType.Representation;
 import com.sun.max.vm.classfile.constant.ClassMethodRefConstant;
 import com.sun.max.vm.classfile.constant.ConstantPool;
 import com.sun.max.vm.classfile.constant.InvokeDynamicConstant;
+import com.sun.max.vm.methodhandle.MaxMethodHandles;
+import com.sun.max.vm.type.SignatureDescriptor;
 
 /**
  * The {@code GraphBuilder} class parses the bytecode of a method and builds the IR graph.
@@ -939,10 +942,48 @@ public final class GraphBuilder {
         assert constantPool instanceof ConstantPool;
         ConstantPool cp = (ConstantPool) constantPool;
         InvokeDynamicConstant invokeDynamicConstant = cp.invokeDynamicAt(cpi);
-        args = appendObjectToArguments(args, invokeDynamicConstant.getAppendix());
+        Object appendix = invokeDynamicConstant.getAppendix();
+        if (C1XOptions.DirectLinkInvokeDynamic && genInvokeDynamicDirect(appendix, invokeDynamicConstant.signature(cp), args, cpi, constantPool)) {
+            return;
+        }
+        args = appendObjectToArguments(args, appendix);
         appendInvoke(INVOKESTATIC, target, args, true, cpi, constantPool);
     }
 
+    /**
+     * Links an invokedynamic instruction directly to the static method invoked by the target of its call site,
+     * bypassing the linker method and the lambda forms of the target, so that the method can be inlined.
+     * The target of a constant call site is the appendix itself. The current target of a mutable call
+     * site is used under an assumption that is invalidated when the target of the call site changes.
+     *
+     * @param appendix the target method handle of a constant call site, or a mutable call site
+     * @param signature the type of the call site
+     * @param args the arguments of the call, without the appendix
+     * @return {@code true} if the call was linked directly
+     */
+    private boolean genInvokeDynamicDirect(Object appendix, SignatureDescriptor signature, Value[] args, int cpi, RiConstantPool constantPool) {
+        final boolean isMutable = appendix instanceof CallSite;
+        if (isMutable && !C1XOptions.UseAssumptions) {
+            return false;
+        }
+        Object methodHandle = isMutable ? ((CallSite) appendix).getTarget() : appendix;
+        RiResolvedMethod direct = MaxMethodHandles.directStaticTarget(methodHandle, signature);
+        if (direct == null) {
+            return false;
+        }
+        if (isMutable) {
+            RiResolvedType callSiteType = compilation.runtime.getTypeOf(CiConstant.forObject(appendix));
+            if (C1XOptions.PrintAssumptions) {
+                TTY.println("Recording call site target assumption in context of " + callSiteType.name() + ": " + direct);
+            }
+            compilation.assumptions.recordCallSiteTargetValue(callSiteType, appendix, methodHandle);
+        }
+        if (!tryInline(direct, args)) {
+            appendInvoke(INVOKESTATIC, direct, args, true, cpi, constantPool);
+        }
+        return true;
+    }
+
     void genInvokeVirtual(RiMethod target, int cpi, RiConstantPool constantPool) {
         target = bindAccessorMethod(target);
         if (target == null) {
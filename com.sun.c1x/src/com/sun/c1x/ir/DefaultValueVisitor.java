@@ -107,4 +107,5 @@ public class DefaultValueVisitor extends ValueVisitor {
     @Override public void visitIfBit(IfBit i) { visit(i); }
     @Override public void visitGetTicks(GetTicks i) { visit(i); }
     @Override public void visitGetCpuID(GetCpuID i) { visit(i); }
+    @Override public void visitVectorizedMemoryOp(VectorizedMemoryOp i) { visit(i); }
 }
@@ -97,4 +97,5 @@ public abstract class ValueVisitor {
     public abstract void visitIfBit(IfBit i);
     public abstract void visitGetTicks(GetTicks i);
     public abstract void visitGetCpuID(GetCpuID i);
+    public abstract void visitVectorizedMemoryOp(VectorizedMemoryOp i);
 }
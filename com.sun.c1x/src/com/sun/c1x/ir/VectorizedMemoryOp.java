@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.c1x.ir;
+
+import static com.sun.c1x.util.Util.*;
+
+import com.oracle.max.criutils.*;
+import com.sun.c1x.lir.*;
+import com.sun.cri.ci.*;
+
+/**
+ * Compares, searches or fills a block of memory with vector operations. The three inputs are, depending on the
+ * operation:
+ * <ul>
+ * <li>{@link LIROpcode#VectorizedEquals}: the addresses of the two blocks and their size in bytes</li>
+ * <li>{@link LIROpcode#VectorizedIndexOfChar}: the address of the block of chars, their number and the char searched</li>
+ * <li>{@link LIROpcode#VectorizedFill}: the address of the block, its size in bytes and a 64-bit fill pattern</li>
+ * </ul>
+ */
+public final class VectorizedMemoryOp extends Instruction {
+
+    public final LIROpcode op;
+
+    private Value x;
+    private Value y;
+    private Value z;
+
+    /**
+     * Creates a new VectorizedMemoryOp instance.
+     *
+     * @param op {@link LIROpcode#VectorizedEquals}, {@link LIROpcode#VectorizedIndexOfChar} or {@link LIROpcode#VectorizedFill}
+     */
+    public VectorizedMemoryOp(LIROpcode op, Value x, Value y, Value z) {
+        super(op == LIROpcode.VectorizedFill ? CiKind.Void : CiKind.Int);
+        assert op == LIROpcode.VectorizedEquals || op == LIROpcode.VectorizedIndexOfChar || op == LIROpcode.VectorizedFill;
+        this.op = op;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        if (op == LIROpcode.VectorizedFill) {
+            setFlag(Flag.LiveStore);
+        }
+    }
+
+    public Value x() {
+        return x;
+    }
+
+    public Value y() {
+        return y;
+    }
+
+    public Value z() {
+        return z;
+    }
+
+    @Override
+    public void inputValuesDo(ValueClosure closure) {
+        x = closure.apply(x);
+        y = closure.apply(y);
+        z = closure.apply(z);
+    }
+
+    @Override
+    public void accept(ValueVisitor v) {
+        v.visitVectorizedMemoryOp(this);
+    }
+
+    @Override
+    public void print(LogStream out) {
+        out.print(op.toString()).print(" ").print(valueString(x)).print(", ").print(valueString(y)).print(", ").print(valueString(z));
+    }
+}
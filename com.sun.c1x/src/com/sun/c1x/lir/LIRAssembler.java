@@ -524,6 +524,8 @@ public abstract class LIRAssembler {
 
     protected abstract void emitCompareAndSwap(LIRCompareAndSwap compareAndSwap);
 
+    protected abstract void emitVectorizedMemoryOp(LIRVectorizedMemory op);
+
     protected abstract void emitXir(LIRXirInstruction xirInstruction);
 
     protected abstract void emitIndirectCall(Object target, LIRDebugInfo info, CiValue callAddress);
@@ -314,6 +314,10 @@ public final class LIRList {
         append(new LIROp0(LIROpcode.GetCpuID, result, null));
     }
 
+    public void vectorizedMemoryOp(LIROpcode opcode, CiValue x, CiValue y, CiValue z, CiValue result, CiValue tmp1, CiValue tmp2, CiValue vectorTmp1, CiValue vectorTmp2) {
+        append(new LIRVectorizedMemory(opcode, x, y, z, result, tmp1, tmp2, vectorTmp1, vectorTmp2));
+    }
+
     public void testbit(CiAddress address, CiValue bitNo) {
         append(new LIROp2(LIROpcode.IfBit, address, bitNo, CiValue.IllegalValue));
     }
@@ -105,6 +105,9 @@ public enum LIROpcode {
     CasLong,
     CasObj,
     CasInt,
+    VectorizedEquals,
+    VectorizedIndexOfChar,
+    VectorizedFill,
     Xir,
     // Checkstyle: on
 }
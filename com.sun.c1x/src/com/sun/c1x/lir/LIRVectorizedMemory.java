@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.c1x.lir;
+
+import com.sun.c1x.ir.*;
+import com.sun.cri.ci.*;
+
+/**
+ * LIR instruction used in translating {@link VectorizedMemoryOp}. The three inputs are modified by the instruction,
+ * which also needs two general purpose and two vector temporaries.
+ */
+public class LIRVectorizedMemory extends LIRInstruction {
+
+    public LIRVectorizedMemory(LIROpcode opcode, CiValue x, CiValue y, CiValue z, CiValue result, CiValue tmp1, CiValue tmp2, CiValue vectorTmp1, CiValue vectorTmp2) {
+        super(opcode, result, null, false, 3, 4, x, y, z, tmp1, tmp2, vectorTmp1, vectorTmp2);
+    }
+
+    public CiValue x() {
+        return operand(0);
+    }
+
+    public CiValue y() {
+        return operand(1);
+    }
+
+    public CiValue z() {
+        return operand(2);
+    }
+
+    public CiValue tmp1() {
+        return operand(3);
+    }
+
+    public CiValue tmp2() {
+        return operand(4);
+    }
+
+    public CiValue vectorTmp1() {
+        return operand(5);
+    }
+
+    public CiValue vectorTmp2() {
+        return operand(6);
+    }
+
+    @Override
+    public void emitCode(LIRAssembler masm) {
+        masm.emitVectorizedMemoryOp(this);
+    }
+}
@@ -549,6 +549,11 @@ public final class Aarch64LIRAssembler extends LIRAssembler {
         }
     }
 
+    @Override
+    protected void emitVectorizedMemoryOp(LIRVectorizedMemory op) {
+        throw FatalError.unimplemented("Aarch64LIRAssembler.emitVectorizedMemoryOp");
+    }
+
     @Override
     protected void emitCompareAndSwap(LIRCompareAndSwap op) {
         Aarch64Address address = Aarch64Address.createBaseRegisterOnlyAddress(op.address().asRegister());
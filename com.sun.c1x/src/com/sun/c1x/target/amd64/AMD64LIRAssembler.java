@@ -788,6 +788,193 @@ public final class AMD64LIRAssembler extends LIRAssembler {
         }
     }
 
+    /**
+     * Emits the vector loops of a {@link VectorizedMemoryOp} with 256-bit AVX2 operations, followed by scalar loops
+     * for the remainder. The code must only be reached on CPUs that support AVX2, which the callers of the intrinsics
+     * check. The ymm registers are cleared with {@code vzeroupper} before leaving, so that the legacy SSE code compiled
+     * for the rest of the method does not pay for a transition.
+     */
+    @Override
+    protected void emitVectorizedMemoryOp(LIRVectorizedMemory op) {
+        CiRegister tmp1 = op.tmp1().asRegister();
+        CiRegister tmp2 = op.tmp2().asRegister();
+        CiRegister vector1 = op.vectorTmp1().asRegister();
+        CiRegister vector2 = op.vectorTmp2().asRegister();
+        switch (op.code) {
+            case VectorizedEquals:
+                emitVectorizedEquals(op.x().asRegister(), op.y().asRegister(), op.z().asRegister(), op.result().asRegister(), tmp1, tmp2, vector1, vector2);
+                break;
+            case VectorizedIndexOfChar:
+                emitVectorizedIndexOfChar(op.x().asRegister(), op.y().asRegister(), op.z().asRegister(), op.result().asRegister(), tmp1, tmp2, vector1, vector2);
+                break;
+            case VectorizedFill:
+                emitVectorizedFill(op.x().asRegister(), op.y().asRegister(), op.z().asRegister(), vector1);
+                break;
+            default:
+                throw Util.shouldNotReachHere();
+        }
+        masm.vzeroupper();
+    }
+
+    private void emitVectorizedEquals(CiRegister pointer1, CiRegister pointer2, CiRegister size, CiRegister result, CiRegister tmp1, CiRegister tmp2, CiRegister vector1, CiRegister vector2) {
+        Label vectorLoop = new Label();
+        Label words = new Label();
+        Label wordLoop = new Label();
+        Label bytes = new Label();
+        Label byteLoop = new Label();
+        Label equal = new Label();
+        Label notEqual = new Label();
+        Label done = new Label();
+
+        masm.cmpq(size, 32);
+        masm.jcc(ConditionFlag.below, words);
+        masm.bind(vectorLoop);
+        masm.vmovdqu(vector1, new CiAddress(CiKind.Long, pointer1.asValue()));
+        masm.vmovdqu(vector2, new CiAddress(CiKind.Long, pointer2.asValue()));
+        masm.vpxor(vector1, vector1, vector2);
+        masm.vptest(vector1, vector1);
+        masm.jcc(ConditionFlag.notZero, notEqual);
+        masm.addq(pointer1, 32);
+        masm.addq(pointer2, 32);
+        masm.subq(size, 32);
+        masm.cmpq(size, 32);
+        masm.jcc(ConditionFlag.aboveEqual, vectorLoop);
+
+        masm.bind(words);
+        masm.cmpq(size, 8);
+        masm.jcc(ConditionFlag.below, bytes);
+        masm.bind(wordLoop);
+        masm.movq(tmp1, new CiAddress(CiKind.Long, pointer1.asValue()));
+        masm.cmpq(tmp1, new CiAddress(CiKind.Long, pointer2.asValue()));
+        masm.jcc(ConditionFlag.notEqual, notEqual);
+        masm.addq(pointer1, 8);
+        masm.addq(pointer2, 8);
+        masm.subq(size, 8);
+        masm.cmpq(size, 8);
+        masm.jcc(ConditionFlag.aboveEqual, wordLoop);
+
+        masm.bind(bytes);
+        masm.testq(size, size);
+        masm.jcc(ConditionFlag.zero, equal);
+        masm.bind(byteLoop);
+        masm.movzxb(tmp1, new CiAddress(CiKind.Byte, pointer1.asValue()));
+        masm.movzxb(tmp2, new CiAddress(CiKind.Byte, pointer2.asValue()));
+        masm.cmpl(tmp1, tmp2);
+        masm.jcc(ConditionFlag.notEqual, notEqual);
+        masm.addq(pointer1, 1);
+        masm.addq(pointer2, 1);
+        masm.subq(size, 1);
+        masm.jcc(ConditionFlag.notZero, byteLoop);
+
+        masm.bind(equal);
+        masm.movl(result, 1);
+        masm.jmp(done);
+        masm.bind(notEqual);
+        masm.xorl(result, result);
+        masm.bind(done);
+    }
+
+    private void emitVectorizedIndexOfChar(CiRegister chars, CiRegister length, CiRegister ch, CiRegister result, CiRegister index, CiRegister tmp, CiRegister needle, CiRegister vector) {
+        Label vectorLoop = new Label();
+        Label tail = new Label();
+        Label tailLoop = new Label();
+        Label foundInVector = new Label();
+        Label found = new Label();
+        Label notFound = new Label();
+        Label done = new Label();
+        CiAddress current = new CiAddress(CiKind.Char, chars.asValue(), index.asValue(), Scale.Times2, 0);
+
+        masm.movdl(needle, ch);
+        masm.vpbroadcastw(needle, needle);
+        masm.xorl(index, index);
+        masm.cmpl(length, 16);
+        masm.jcc(ConditionFlag.less, tail);
+        masm.bind(vectorLoop);
+        masm.vpcmpeqw(vector, needle, current);
+        masm.vpmovmskb(tmp, vector);
+        masm.testl(tmp, tmp);
+        masm.jcc(ConditionFlag.notZero, foundInVector);
+        masm.addl(index, 16);
+        masm.subl(length, 16);
+        masm.cmpl(length, 16);
+        masm.jcc(ConditionFlag.greaterEqual, vectorLoop);
+
+        masm.bind(tail);
+        masm.testl(length, length);
+        masm.jcc(ConditionFlag.zero, notFound);
+        masm.bind(tailLoop);
+        masm.movzxl(tmp, current);
+        masm.cmpl(tmp, ch);
+        masm.jcc(ConditionFlag.equal, found);
+        masm.addl(index, 1);
+        masm.subl(length, 1);
+        masm.jcc(ConditionFlag.notZero, tailLoop);
+        masm.jmp(notFound);
+
+        masm.bind(foundInVector);
+        // each char contributes two bits to the byte mask
+        masm.bsfq(tmp, tmp);
+        masm.shrl(tmp, 1);
+        masm.addl(index, tmp);
+        masm.bind(found);
+        masm.movl(result, index);
+        masm.jmp(done);
+        masm.bind(notFound);
+        masm.movl(result, -1);
+        masm.bind(done);
+    }
+
+    private void emitVectorizedFill(CiRegister start, CiRegister size, CiRegister pattern, CiRegister vector) {
+        Label vectorLoop = new Label();
+        Label words = new Label();
+        Label wordLoop = new Label();
+        Label tail4 = new Label();
+        Label tail2 = new Label();
+        Label tail1 = new Label();
+        Label done = new Label();
+
+        masm.movdq(vector, pattern);
+        masm.vpbroadcastq(vector, vector);
+        masm.cmpq(size, 32);
+        masm.jcc(ConditionFlag.below, words);
+        masm.bind(vectorLoop);
+        masm.vmovdqu(new CiAddress(CiKind.Long, start.asValue()), vector);
+        masm.addq(start, 32);
+        masm.subq(size, 32);
+        masm.cmpq(size, 32);
+        masm.jcc(ConditionFlag.aboveEqual, vectorLoop);
+
+        masm.bind(words);
+        masm.cmpq(size, 8);
+        masm.jcc(ConditionFlag.below, tail4);
+        masm.bind(wordLoop);
+        masm.movq(new CiAddress(CiKind.Long, start.asValue()), pattern);
+        masm.addq(start, 8);
+        masm.subq(size, 8);
+        masm.cmpq(size, 8);
+        masm.jcc(ConditionFlag.aboveEqual, wordLoop);
+
+        // the remainder is a multiple of the element size and the pattern repeats with the element size,
+        // so the low bytes of the pattern are the right value for any remaining whole elements
+        masm.bind(tail4);
+        masm.cmpq(size, 4);
+        masm.jcc(ConditionFlag.below, tail2);
+        masm.movl(new CiAddress(CiKind.Int, start.asValue()), pattern);
+        masm.addq(start, 4);
+        masm.subq(size, 4);
+        masm.bind(tail2);
+        masm.cmpq(size, 2);
+        masm.jcc(ConditionFlag.below, tail1);
+        masm.movw(new CiAddress(CiKind.Short, start.asValue()), pattern);
+        masm.addq(start, 2);
+        masm.subq(size, 2);
+        masm.bind(tail1);
+        masm.testq(size, size);
+        masm.jcc(ConditionFlag.zero, done);
+        masm.movb(new CiAddress(CiKind.Byte, start.asValue()), pattern);
+        masm.bind(done);
+    }
+
     @Override
     protected void emitConditionalMove(Condition condition, CiValue opr1, CiValue opr2, CiValue result) {
         ConditionFlag acond;
@@ -650,6 +650,23 @@ public class AMD64LIRGenerator extends LIRGenerator {
         lir.getCpuID(result);
     }
 
+    @Override
+    public void visitVectorizedMemoryOp(VectorizedMemoryOp x) {
+        LIRItem a = new LIRItem(x.x(), this);
+        LIRItem b = new LIRItem(x.y(), this);
+        LIRItem c = new LIRItem(x.z(), this);
+        a.setDestroysRegister();
+        b.setDestroysRegister();
+        c.setDestroysRegister();
+        a.loadItem();
+        b.loadItem();
+        c.loadItem();
+        CiValue result = x.kind.isVoid() ? CiValue.IllegalValue : createResultVariable(x);
+        CiKind wordKind = compilation.target.wordKind;
+        lir.vectorizedMemoryOp(x.op, a.result(), b.result(), c.result(), result,
+                        newVariable(wordKind), newVariable(wordKind), newVariable(CiKind.Double), newVariable(CiKind.Double));
+    }
+
     @Override
     protected void genGetObjectUnsafe(CiValue dst, CiValue src, CiValue offset, CiKind kind, boolean isVolatile) {
         if (isVolatile && kind == CiKind.Long) {
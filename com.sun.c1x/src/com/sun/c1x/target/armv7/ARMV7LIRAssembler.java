@@ -849,6 +849,11 @@ public final class ARMV7LIRAssembler extends LIRAssembler {
         }
     }
 
+    @Override
+    protected void emitVectorizedMemoryOp(LIRVectorizedMemory op) {
+        throw FatalError.unimplemented("ARMV7LIRAssembler.emitVectorizedMemoryOp");
+    }
+
     @Override
     protected void emitCompareAndSwap(LIRCompareAndSwap op) {
         CiAddress address = new CiAddress(CiKind.Object, op.address(), 0);
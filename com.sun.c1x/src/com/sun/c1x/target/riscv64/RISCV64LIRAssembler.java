@@ -600,6 +600,11 @@ public final class RISCV64LIRAssembler extends LIRAssembler {
         }
     }
 
+    @Override
+    protected void emitVectorizedMemoryOp(LIRVectorizedMemory op) {
+        throw FatalError.unimplemented("RISCV64LIRAssembler.emitVectorizedMemoryOp");
+    }
+
     @Override
     protected void emitCompareAndSwap(LIRCompareAndSwap op) {
         RISCV64Address address = RISCV64Address.createBaseRegisterOnlyAddress(op.address().asRegister());
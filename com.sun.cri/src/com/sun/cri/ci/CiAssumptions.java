@@ -185,6 +185,49 @@ public final class CiAssumptions implements Serializable, Iterable<CiAssumptions
         }
     }
 
+    /**
+     * An assumption that the target of a mutable call site is a given method handle.
+     */
+    public static final class CallSiteTargetValue extends ContextAssumption {
+
+        private static final long serialVersionUID = 2841347932431128725L;
+
+        /**
+         * The {@code java.lang.invoke.CallSite} whose target is assumed.
+         */
+        public final Object callSite;
+
+        /**
+         * The {@code java.lang.invoke.MethodHandle} assumed to be the target of {@link #callSite}.
+         */
+        public final Object methodHandle;
+
+        /**
+         * @param context the type of {@code callSite}
+         * @param callSite the call site
+         * @param methodHandle the assumed target of {@code callSite}
+         */
+        public CallSiteTargetValue(RiResolvedType context, Object callSite, Object methodHandle) {
+            super(context);
+            this.callSite = callSite;
+            this.methodHandle = methodHandle;
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode() * prime + System.identityHashCode(callSite);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof CallSiteTargetValue) {
+                CallSiteTargetValue other = (CallSiteTargetValue) obj;
+                return other.callSite == callSite && other.methodHandle == methodHandle;
+            }
+            return false;
+        }
+    }
+
     /**
      * Array with the assumptions. This field is directly accessed from C++ code in the Graal/HotSpot implementation.
      */
@@ -259,6 +302,16 @@ public final class CiAssumptions implements Serializable, Iterable<CiAssumptions
         record(new InlinedMethod(method, method.holder(), inlinee));
     }
 
+    /**
+     * Records that the target of the mutable call site {@code callSite} is {@code methodHandle}.
+     * @param context the type of {@code callSite}
+     * @param callSite the call site
+     * @param methodHandle the current target of {@code callSite}
+     */
+    public void recordCallSiteTargetValue(RiResolvedType context, Object callSite, Object methodHandle) {
+        record(new CallSiteTargetValue(context, callSite, methodHandle));
+    }
+
     public void record(Assumption assumption) {
         if (list == null) {
             list = new Assumption[4];
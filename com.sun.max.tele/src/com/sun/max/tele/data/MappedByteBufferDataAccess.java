@@ -54,7 +54,8 @@ public final class MappedByteBufferDataAccess extends DataAccessAdapter {
         int srcViewPos = asOffset(src);
         int srcViewLimit = srcViewPos + toRead;
         final ByteBuffer srcView = (ByteBuffer) buffer.duplicate().position(srcViewPos).limit(srcViewLimit);
-        dst.put(srcView);
+        final ByteBuffer dstView = (ByteBuffer) dst.duplicate().position(dstOffset);
+        dstView.put(srcView);
         return toRead;
     }
 
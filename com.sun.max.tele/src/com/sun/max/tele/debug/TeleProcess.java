@@ -828,6 +828,18 @@ public abstract class TeleProcess extends AbstractVmHolder implements TeleVMCach
      */
     public abstract DataAccess dataAccess();
 
+    /**
+     * Reads a region of process memory ahead of the reads that use it, so that they are served from the page cache of
+     * the {@linkplain #dataAccess() data access} with fewer requests to the process. Does nothing if the data access
+     * does not cache pages.
+     */
+    public final void prefetch(Address start, Size size) {
+        final DataAccess dataAccess = dataAccess();
+        if (dataAccess instanceof PageDataAccess) {
+            ((PageDataAccess) dataAccess).prefetch(start, size);
+        }
+    }
+
     /**
      * Gathers information about this process and posts a thread-safe record of the state change.
      *
@@ -178,6 +178,7 @@ public final class TeleThreadLocalsBlock extends AbstractVmHolder implements Tel
                 }
                 updatingCache = true;
                 updateTracer.begin();
+                prefetchAreas();
                 for (TeleThreadLocalsArea teleThreadLocalsArea : areas.values()) {
                     if (teleThreadLocalsArea != null) {
                         teleThreadLocalsArea.updateCache(epoch);
@@ -254,6 +255,29 @@ public final class TeleThreadLocalsBlock extends AbstractVmHolder implements Tel
         return teleVmThread;
     }
 
+    /**
+     * Reads the memory spanned by the thread locals areas with as few requests to the process as possible, as every
+     * variable of every area is read when the cache is updated.
+     */
+    private void prefetchAreas() {
+        Address start = Address.zero();
+        Address end = Address.zero();
+        for (TeleThreadLocalsArea teleThreadLocalsArea : areas.values()) {
+            if (teleThreadLocalsArea != null) {
+                final MaxMemoryRegion region = teleThreadLocalsArea.memoryRegion();
+                if (start.isZero() || region.start().lessThan(start)) {
+                    start = region.start();
+                }
+                if (region.end().greaterThan(end)) {
+                    end = region.end();
+                }
+            }
+        }
+        if (!start.isZero()) {
+            vm().teleProcess().prefetch(start, end.minus(start).asSize());
+        }
+    }
+
     /**
      * Update any state related to this thread locals area, based on possibly more information having been acquired.
      *
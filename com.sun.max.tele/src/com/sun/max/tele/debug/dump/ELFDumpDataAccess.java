@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.tele.debug.dump;
+
+import static com.oracle.max.elf.ELFProgramHeaderTable.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import com.oracle.max.elf.*;
+import com.sun.max.lang.*;
+import com.sun.max.program.*;
+import com.sun.max.tele.data.*;
+import com.sun.max.unsafe.*;
+
+/**
+ * Data access to the memory saved in an ELF core dump, read directly from the {@code PT_LOAD} segments of the file
+ * mapped in memory, so that the contents of the dump are neither copied nor cached by the Inspector.
+ * <p>
+ * A {@link MappedByteBuffer} cannot be larger than 2GB, so each segment is mapped in windows of at most
+ * {@value #MAX_WINDOW_SIZE} bytes. The memory of a segment that is not saved in the file cannot be read.
+ * The dump is read-only: writes are ignored.
+ */
+public final class ELFDumpDataAccess extends DataAccessAdapter {
+
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+
+    /**
+     * The first address of each window, in ascending order.
+     */
+    private final long[] starts;
+
+    /**
+     * The address following the last address of each window.
+     */
+    private final long[] ends;
+
+    private final MappedByteBufferDataAccess[] windows;
+
+    /**
+     * The index of the window of the last access, which is likely to be used by the next one.
+     */
+    private int lastWindow;
+
+    public ELFDumpDataAccess(RandomAccessFile file, ELFProgramHeaderTable programHeaderTable, WordWidth wordWidth, ByteOrder byteOrder) throws IOException {
+        super(wordWidth, byteOrder);
+        final List<ELFProgramHeaderTable.Entry64> segments = new ArrayList<ELFProgramHeaderTable.Entry64>();
+        for (ELFProgramHeaderTable.Entry entry : programHeaderTable.entries) {
+            final ELFProgramHeaderTable.Entry64 entry64 = (ELFProgramHeaderTable.Entry64) entry;
+            if (entry64.p_type == PT_LOAD && entry64.p_filesz != 0) {
+                segments.add(entry64);
+            }
+        }
+        Collections.sort(segments, new Comparator<ELFProgramHeaderTable.Entry64>() {
+            public int compare(ELFProgramHeaderTable.Entry64 e1, ELFProgramHeaderTable.Entry64 e2) {
+                return Address.fromLong(e1.p_vaddr).compareTo(Address.fromLong(e2.p_vaddr));
+            }
+        });
+        final FileChannel channel = file.getChannel();
+        final List<MappedByteBufferDataAccess> mapped = new ArrayList<MappedByteBufferDataAccess>();
+        final List<Long> windowStarts = new ArrayList<Long>();
+        final List<Long> windowEnds = new ArrayList<Long>();
+        for (ELFProgramHeaderTable.Entry64 segment : segments) {
+            for (long offset = 0; offset < segment.p_filesz; offset += MAX_WINDOW_SIZE) {
+                final long size = Math.min(MAX_WINDOW_SIZE, segment.p_filesz - offset);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, segment.p_offset + offset, size);
+                buffer.order(byteOrder);
+                mapped.add(new MappedByteBufferDataAccess(buffer, Address.fromLong(segment.p_vaddr + offset), wordWidth));
+                windowStarts.add(segment.p_vaddr + offset);
+                windowEnds.add(segment.p_vaddr + offset + size);
+            }
+        }
+        windows = mapped.toArray(new MappedByteBufferDataAccess[mapped.size()]);
+        starts = new long[windows.length];
+        ends = new long[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            starts[i] = windowStarts.get(i);
+            ends[i] = windowEnds.get(i);
+        }
+    }
+
+    /**
+     * Gets the index of the window containing an address, or -1 if the address is not saved in the dump.
+     */
+    private int find(Address address) {
+        final int last = lastWindow;
+        if (last < windows.length && contains(last, address)) {
+            return last;
+        }
+        int low = 0;
+        int high = windows.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (address.lessThan(Address.fromLong(starts[mid]))) {
+                high = mid - 1;
+            } else if (address.greaterEqual(Address.fromLong(ends[mid]))) {
+                low = mid + 1;
+            } else {
+                lastWindow = mid;
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private boolean contains(int window, Address address) {
+        return address.greaterEqual(Address.fromLong(starts[window])) && address.lessThan(Address.fromLong(ends[window]));
+    }
+
+    /**
+     * Gets the window containing all the {@code size} bytes at an address, or {@code null} if they span several
+     * windows.
+     *
+     * @throws DataIOError if the address is not saved in the dump
+     */
+    private MappedByteBufferDataAccess window(Address address, int size) throws DataIOError {
+        final int window = find(address);
+        if (window < 0) {
+            throw new DataIOError(address);
+        }
+        if (address.plus(size).greaterThan(Address.fromLong(ends[window]))) {
+            return null;
+        }
+        return windows[window];
+    }
+
+    /**
+     * Reads a value that spans several windows.
+     */
+    private ByteBuffer readSpanning(Address address, int size) throws DataIOError {
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(byteOrder);
+        readFully(address, buffer);
+        return buffer;
+    }
+
+    public int read(Address src, ByteBuffer dst, int dstOffset, int length) throws DataIOError {
+        final int toRead = Math.min(length, dst.limit() - dstOffset);
+        int n = 0;
+        while (n < toRead) {
+            final Address address = src.plus(n);
+            final int window = find(address);
+            if (window < 0) {
+                if (n == 0) {
+                    throw new DataIOError(address);
+                }
+                break;
+            }
+            final int count = (int) Math.min(toRead - n, ends[window] - address.toLong());
+            n += windows[window].read(address, dst, dstOffset + n, count);
+        }
+        return n;
+    }
+
+    public byte readByte(Address address) {
+        return window(address, Bytes.SIZE).readByte(address);
+    }
+
+    public short readShort(Address address) {
+        final MappedByteBufferDataAccess window = window(address, Shorts.SIZE);
+        return window != null ? window.readShort(address) : readSpanning(address, Shorts.SIZE).getShort(0);
+    }
+
+    public int readInt(Address address) {
+        final MappedByteBufferDataAccess window = window(address, Ints.SIZE);
+        return window != null ? window.readInt(address) : readSpanning(address, Ints.SIZE).getInt(0);
+    }
+
+    public long readLong(Address address) {
+        final MappedByteBufferDataAccess window = window(address, Longs.SIZE);
+        return window != null ? window.readLong(address) : readSpanning(address, Longs.SIZE).getLong(0);
+    }
+
+    private static void writeIgnored(Address address) {
+        Trace.line(2, "WARNING: Inspector trying to write to " + address.toHexString());
+    }
+
+    public int write(ByteBuffer src, int srcOffset, int length, Address dst) throws DataIOError {
+        writeIgnored(dst);
+        return length;
+    }
+
+    public void writeByte(Address address, byte value) {
+        writeIgnored(address);
+    }
+
+    public void writeShort(Address address, short value) {
+        writeIgnored(address);
+    }
+
+    public void writeInt(Address address, int value) {
+        writeIgnored(address);
+    }
+
+    public void writeLong(Address address, long value) {
+        writeIgnored(address);
+    }
+}
@@ -25,12 +25,15 @@ package com.sun.max.tele.debug.dump;
 import static com.oracle.max.elf.ELFProgramHeaderTable.*;
 
 import java.io.*;
+import java.nio.*;
 
 import com.oracle.max.elf.*;
+import com.sun.max.lang.*;
 import com.sun.max.program.*;
 import com.sun.max.tele.*;
 import com.sun.max.tele.channel.*;
 import com.sun.max.tele.channel.iostream.*;
+import com.sun.max.tele.data.*;
 import com.sun.max.tele.debug.*;
 import com.sun.max.tele.heap.*;
 import com.sun.max.tele.util.*;
@@ -45,6 +48,7 @@ public class ELFDumpTeleChannelProtocolAdaptor extends TeleChannelDataIOProtocol
     protected ELFHeader header;
     protected ELFProgramHeaderTable programHeaderTable;
     protected ELFSymbolLookup symbolLookup;
+    protected ELFDumpDataAccess dataAccess;
     protected MaxVM teleVM;
     protected static final String HEAP_SYMBOL_NAME = "theHeap";  // defined in image.c, holds the base address of the boot heap
 
@@ -58,6 +62,8 @@ public class ELFDumpTeleChannelProtocolAdaptor extends TeleChannelDataIOProtocol
             dumpRaf = new RandomAccessFile(dump, "r");
             this.header = ELFLoader.readELFHeader(dumpRaf);
             this.programHeaderTable = ELFLoader.readPHT(dumpRaf, header);
+            dataAccess = new ELFDumpDataAccess(dumpRaf, programHeaderTable, header.is64Bit() ? WordWidth.BITS_64 : WordWidth.BITS_32,
+                            header.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
             // This is not needed currently as we cannot look up symbols from shared libraries.
             //symbolLookup = new ELFSymbolLookup(new File(vm.getParent(), "libjvm.so"));
         } catch (Exception ex) {
@@ -241,19 +247,20 @@ public class ELFDumpTeleChannelProtocolAdaptor extends TeleChannelDataIOProtocol
         return Integer.MAX_VALUE;
     }
 
+    /**
+     * Gets the access to the memory saved in the dump, which reads the mapped file directly and so needs no cache.
+     */
+    public DataAccess dataAccess() {
+        return dataAccess;
+    }
+
     @Override
     public int readBytes(long src, byte[] dst, int dstOffset, int length) {
-        final ELFProgramHeaderTable.Entry64 entry64 = findAddress(src);
-        if (entry64 == null) {
-            return 0;
-        }
         try {
-            dumpRaf.seek(entry64.p_offset + (src - entry64.p_vaddr));
-            return dumpRaf.read(dst, dstOffset, length);
-        } catch (IOException ex) {
+            return dataAccess.read(Address.fromLong(src), ByteBuffer.wrap(dst), dstOffset, length);
+        } catch (DataIOError e) {
             return 0;
         }
-
     }
 
     @Override
@@ -327,6 +327,21 @@ public final class LinuxTask {
      */
     private static native int nativeReadBytes(int tgid, int tid, long src, Object dst, boolean isDirectByteBuffer, int dstOffset, int length);
 
+    /**
+     * Copies bytes from the tele process with a single {@code process_vm_readv} system call, which is given one
+     * I/O vector per page (or per group of pages for long reads). As the system call never splits an I/O vector, this
+     * lets a read that reaches an unreadable page return the bytes of the pages before it.
+     *
+     * @return the number of bytes copied, -1 if there was an error or -2 if {@code process_vm_readv} is not available
+     */
+    private static native int nativeReadVectored(int tgid, long src, Object dst, boolean isDirectByteBuffer, int dstOffset, int length);
+
+    /**
+     * Whether {@link #nativeReadVectored} is used for reading, which is no longer the case once it has reported that
+     * the kernel does not support it or does not allow it for this process.
+     */
+    private static boolean vectoredReads = true;
+
     public int readBytes(final long src, final Object dst, final boolean isDirectByteBuffer, final int offset, final int length) {
         if (!isLeader()) {
             return leader().readBytes(src, dst, isDirectByteBuffer, offset, length);
@@ -335,6 +350,13 @@ public final class LinuxTask {
         return execute(new Function<Integer>() {
             public Integer call() throws Exception {
                 final long addr = src;
+                if (vectoredReads) {
+                    final int bytesRead = nativeReadVectored(tgid, addr, dst, isDirectByteBuffer, offset, length);
+                    if (bytesRead != -2) {
+                        return bytesRead;
+                    }
+                    vectoredReads = false;
+                }
                 if (addr < 0) {
                     // RandomAccessFile.see() can't handle unsigned long offsets: have to resort to a JNI call
                     return nativeReadBytes(tgid, tid, addr, dst, isDirectByteBuffer, offset, length);
@@ -37,6 +37,7 @@ import com.sun.max.tele.*;
 import com.sun.max.tele.channel.*;
 import com.sun.max.tele.data.*;
 import com.sun.max.tele.debug.*;
+import com.sun.max.tele.debug.dump.*;
 import com.sun.max.tele.page.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
@@ -55,7 +56,12 @@ public abstract class UnixTeleProcessAdaptor extends TeleProcess {
     private UnixTeleProcessAdaptor(TeleVM teleVM, Platform platform, File programFile, String[] commandLineArguments, int id) throws BootImageException {
         super(teleVM, platform, ProcessState.STOPPED);
         protocol = TeleVM.teleChannelProtocol();
-        dataAccess = new PageDataAccess(teleVM, this, platform.dataModel);
+        if (protocol instanceof ELFDumpTeleChannelProtocolAdaptor) {
+            // the contents of a dump never change and are mapped in memory: caching them would only copy them
+            dataAccess = ((ELFDumpTeleChannelProtocolAdaptor) protocol).dataAccess();
+        } else {
+            dataAccess = new PageDataAccess(teleVM, this, platform.dataModel);
+        }
         protocol.initialize(teleVM.bootImage().header.tlaSize, platform().endianness() == Endianness.BIG);
         if (commandLineArguments != null) {
             final long processHandle = protocol.create(programFile.getAbsolutePath(), commandLineArguments);
@@ -1348,6 +1348,8 @@ public final class TeleInterpreter {
             throw TeleError.unexpected("Unsupported intrinsic: " + intrinsic);
         } else if (intrinsic == GET_CPU_ID) {
             throw TeleError.unexpected("Unsupported intrinsic: " + intrinsic);
+        } else if (intrinsic == VECTORIZED_EQUALS || intrinsic == VECTORIZED_INDEX_OF_CHAR || intrinsic == VECTORIZED_FILL) {
+            throw TeleError.unexpected("Unsupported intrinsic: " + intrinsic);
         } else if (intrinsic == PAUSE) {
             // Nothing to do, since it can be no-op.
         } else {
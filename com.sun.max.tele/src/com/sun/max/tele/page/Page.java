@@ -110,7 +110,7 @@ public class Page extends AbstractVmHolder {
      * Decide whether to use direct buffers.
      * It is counter-productive to use them if the target VM is remote.
      */
-    private static boolean useDirectBuffers() {
+    static boolean useDirectBuffers() {
         return TeleVM.targetLocation().kind != Kind.REMOTE;
     }
 
@@ -142,6 +142,28 @@ public class Page extends AbstractVmHolder {
         epoch = -1;
     }
 
+    /**
+     * @return whether the contents of this page must be read again before being used
+     */
+    public boolean isStale() {
+        return epoch < teleIO.epoch();
+    }
+
+    /**
+     * Sets the contents of this page to those read for it as part of a larger region.
+     *
+     * @param contents the bytes of the region
+     * @param offset the offset in {@code contents} of the bytes of this page
+     */
+    public void refresh(ByteBuffer contents, int offset) {
+        final ByteBuffer src = contents.duplicate();
+        src.position(offset).limit(offset + size());
+        buffer.position(0);
+        buffer.put(src);
+        buffer.position(0);
+        epoch = teleIO.epoch();
+    }
+
     /**
      * Reads into the cache the contents of the remote memory page.
      *
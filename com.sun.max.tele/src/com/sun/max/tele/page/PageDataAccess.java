@@ -34,11 +34,22 @@ import com.sun.max.tele.util.*;
 import com.sun.max.unsafe.*;
 
 /**
+ * Access to the memory of the VM through a cache of {@linkplain Page pages}, each of which is read again only when
+ * the process has run since it was last read.
+ * <p>
+ * A read that spans several pages, or an explicit {@linkplain #prefetch(Address, Size) prefetch} of a region, reads
+ * all the stale pages of each run of consecutive stale pages with a single request to the process, of at most
+ * {@value #MAX_PREFETCH_PAGES} pages, instead of one request per page.
  */
 public class PageDataAccess extends DataAccessAdapter {
 
     private static final int TRACE_VALUE = 1;
 
+    /**
+     * The maximum number of pages read with a single request.
+     */
+    private static final int MAX_PREFETCH_PAGES = 64;
+
     protected String  tracePrefix() {
         return "[PageDataAccess] ";
     }
@@ -48,6 +59,7 @@ public class PageDataAccess extends DataAccessAdapter {
     private final int indexShift;
     private final int offsetMask;
     private final ByteBuffer writeBuffer;
+    private ByteBuffer prefetchBuffer;
 
     public PageDataAccess(TeleVM vm, TeleIO teleProcess, DataModel dataModel) {
         super(dataModel.wordWidth, dataModel.endianness.asByteOrder());
@@ -118,10 +130,66 @@ public class PageDataAccess extends DataAccessAdapter {
         return getPage(getIndex(address));
     }
 
+    /**
+     * Reads the stale pages covering a region of memory, so that later reads in the region are served from the cache.
+     * Pages that cannot be read are left stale, to report the error when they are actually read.
+     */
+    public synchronized void prefetch(Address address, Size size) {
+        if (size.isZero()) {
+            return;
+        }
+        prefetch(getIndex(address), getIndex(address.plus(size).minus(1)) + 1);
+    }
+
+    private void prefetch(long startIndex, long endIndex) {
+        long index = startIndex;
+        while (index < endIndex) {
+            if (!getPage(index).isStale()) {
+                index++;
+                continue;
+            }
+            long runEnd = index + 1;
+            while (runEnd < endIndex && runEnd - index < MAX_PREFETCH_PAGES && getPage(runEnd).isStale()) {
+                runEnd++;
+            }
+            if (runEnd - index > 1) {
+                refreshPages(index, (int) (runEnd - index));
+            }
+            index = runEnd;
+        }
+    }
+
+    /**
+     * Reads consecutive pages with a single request to the process. If the request stops short, e.g. at a page that
+     * is not readable, the pages read in full are refreshed and the others are left to be read one by one.
+     */
+    private void refreshPages(long startIndex, int count) {
+        final int size = count << indexShift;
+        if (prefetchBuffer == null) {
+            final int capacity = MAX_PREFETCH_PAGES << indexShift;
+            prefetchBuffer = Page.useDirectBuffers() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+        prefetchBuffer.clear().limit(size);
+        final int pagesRead;
+        try {
+            pagesRead = teleIO.read(Address.fromLong(startIndex << indexShift), prefetchBuffer, 0, size) >> indexShift;
+        } catch (DataIOError dataIOError) {
+            return;
+        } catch (TerminatedProcessIOException terminatedProcessIOException) {
+            return;
+        }
+        for (int i = 0; i < pagesRead; i++) {
+            getPage(startIndex + i).refresh(prefetchBuffer, i << indexShift);
+        }
+    }
+
     public synchronized int read(Address address, ByteBuffer buffer, int offset, int length) {
         final int toRead = Math.min(length, buffer.limit() - offset);
         long pageIndex = getIndex(address);
         int pageOffset = getOffset(address);
+        if (pageOffset + toRead > pageSize()) {
+            prefetch(pageIndex, getIndex(address.plus(toRead - 1)) + 1);
+        }
         int i = 0;
         while (i < toRead) {
             i += getPage(pageIndex).readBytes(pageOffset, buffer, i + offset);
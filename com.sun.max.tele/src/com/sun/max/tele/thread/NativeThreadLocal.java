@@ -38,9 +38,10 @@ public enum NativeThreadLocal {
     STACK_RED_ZONE(48),
     STACK_RED_ZONE_VMPROTECTED(56),
     STACK_BLUE_ZONE(64),
-    OSDATA(72);
+    OSDATA(72),
+    CPU_SAMPLES(80);
 
-    public static final int SIZE = 80;
+    public static final int SIZE = 88;
     public int offset;
 
     NativeThreadLocal(int offset) {
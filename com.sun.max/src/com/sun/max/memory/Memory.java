@@ -156,6 +156,11 @@ public final class Memory {
     @NO_SAFEPOINT_POLLS("speed, and used in code that shouldn't be interrupted by GC")
     public static void clearWords(Pointer start, int length) {
         FatalError.check(start.isWordAligned(), "Can only zero word-aligned region");
+        final Size size = Size.fromInt(length).shiftedLeft(Word.widthValue().log2numberOfBytes).asSize();
+        if (VectorizedMemory.isUseful(size)) {
+            VectorizedMemory.fill(start, size, 0L);
+            return;
+        }
         for (int i = 0; i < length; i++) {
             start.setWord(i, Address.zero());
         }
@@ -175,6 +180,9 @@ public final class Memory {
 
     @NO_SAFEPOINT_POLLS("speed")
     public static boolean equals(Pointer pointer1, Pointer pointer2, Size numberOfBytes) {
+        if (VectorizedMemory.isUseful(numberOfBytes)) {
+            return VectorizedMemory.equals(pointer1, pointer2, numberOfBytes);
+        }
         for (Offset i = Offset.zero(); i.lessThan(numberOfBytes.asOffset()); i = i.plus(1)) {
             if (pointer1.readByte(i) != pointer2.readByte(i)) {
                 return false;
@@ -208,6 +216,82 @@ public final class Memory {
         assert i.equals(numberOfBytes);
     }
 
+    /**
+     * Copies a block of elements of size {@code 1 << log2ElementSize}, in ascending address order.
+     * The destination is word aligned with element copies first, the bulk is then moved a word at a time, so that
+     * each element is read and written as a whole provided both blocks are aligned to the element size.
+     * The blocks may overlap if {@code toPointer} is not above {@code fromPointer}.
+     */
+    @NO_SAFEPOINT_POLLS("speed, and used on raw addresses of heap objects")
+    public static void copyElementsForward(Pointer fromPointer, Pointer toPointer, Size numberOfBytes, int log2ElementSize) {
+        final int elementSize = 1 << log2ElementSize;
+        final Pointer end = toPointer.plus(numberOfBytes);
+        Pointer from = fromPointer;
+        Pointer to = toPointer;
+        while (to.lessThan(end) && !to.isWordAligned()) {
+            copyElement(from, to, log2ElementSize);
+            from = from.plus(elementSize);
+            to = to.plus(elementSize);
+        }
+        final Address wordEnd = end.alignDown(Word.size());
+        while (to.lessThan(wordEnd)) {
+            to.writeWord(0, from.readWord(0));
+            from = from.plus(Word.size());
+            to = to.plus(Word.size());
+        }
+        while (to.lessThan(end)) {
+            copyElement(from, to, log2ElementSize);
+            from = from.plus(elementSize);
+            to = to.plus(elementSize);
+        }
+    }
+
+    /**
+     * Copies a block of elements of size {@code 1 << log2ElementSize}, in descending address order.
+     * Same as {@link #copyElementsForward(Pointer, Pointer, Size, int)} otherwise, except that the blocks may overlap if
+     * {@code toPointer} is not below {@code fromPointer}.
+     */
+    @NO_SAFEPOINT_POLLS("speed, and used on raw addresses of heap objects")
+    public static void copyElementsBackward(Pointer fromPointer, Pointer toPointer, Size numberOfBytes, int log2ElementSize) {
+        final int elementSize = 1 << log2ElementSize;
+        Pointer from = fromPointer.plus(numberOfBytes);
+        Pointer to = toPointer.plus(numberOfBytes);
+        while (to.greaterThan(toPointer) && !to.isWordAligned()) {
+            from = from.minus(elementSize);
+            to = to.minus(elementSize);
+            copyElement(from, to, log2ElementSize);
+        }
+        final Address wordStart = toPointer.plus(Word.size() - 1).alignDown(Word.size());
+        while (to.greaterThan(wordStart)) {
+            from = from.minus(Word.size());
+            to = to.minus(Word.size());
+            to.writeWord(0, from.readWord(0));
+        }
+        while (to.greaterThan(toPointer)) {
+            from = from.minus(elementSize);
+            to = to.minus(elementSize);
+            copyElement(from, to, log2ElementSize);
+        }
+    }
+
+    @INLINE
+    private static void copyElement(Pointer from, Pointer to, int log2ElementSize) {
+        switch (log2ElementSize) {
+            case 0:
+                to.writeByte(0, from.readByte(0));
+                break;
+            case 1:
+                to.writeShort(0, from.readShort(0));
+                break;
+            case 2:
+                to.writeInt(0, from.readInt(0));
+                break;
+            default:
+                to.writeLong(0, from.readLong(0));
+                break;
+        }
+    }
+
     @NO_SAFEPOINT_POLLS("speed")
     public static void readBytes(Pointer fromPointer, int numberOfBytes, byte[] toArray, int startIndex) {
         for (int i = 0; i < numberOfBytes; i++) {
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.memory;
+
+import static com.sun.max.platform.Platform.*;
+import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.lang.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.runtime.*;
+
+/**
+ * Vectorized comparison, search and fill of blocks of memory with 256-bit AVX2 operations.
+ * <p>
+ * The operations are {@linkplain INTRINSIC intrinsics} that the optimizing compiler expands inline into VEX encoded
+ * loops. The bodies of the methods are equivalent scalar loops, run by compilers that do not implement the intrinsics.
+ * The vectorized operations must only be used if {@link #UseAVX} allows it and the CPU and OS support AVX2, as
+ * determined once with CPUID during VM startup; callers fall back to their own scalar loops otherwise, and for blocks
+ * too small for the vector loops to pay off (see {@link #isUseful(Size)}).
+ * <p>
+ * The operations work on raw addresses. When these are inside heap objects, the caller must not reach a safepoint
+ * between computing the addresses and the end of the operation.
+ */
+public final class VectorizedMemory {
+
+    public static int UseAVX = 2;
+    static {
+        VMOptions.addFieldOption("-XX:", "UseAVX", VectorizedMemory.class,
+            "Highest AVX version used by vectorized string and array operations; values below 2 disable them.", MaxineVM.Phase.PRISTINE);
+        new CriticalNativeMethod(VectorizedMemory.class, "simd_avx2Supported");
+    }
+
+    /**
+     * Blocks smaller than this many bytes are processed by the scalar loops of the callers.
+     */
+    public static final int THRESHOLD = 64;
+
+    private static boolean enabled;
+
+    private VectorizedMemory() {
+    }
+
+    /**
+     * Enables the vectorized operations if the platform supports them. Called once options have been parsed.
+     */
+    public static void initialize() {
+        enabled = UseAVX >= 2 && platform().isa == ISA.AMD64 && simd_avx2Supported() != 0;
+    }
+
+    @INLINE
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Determines if a block of a given size should be processed by the vectorized operations.
+     */
+    @INLINE
+    public static boolean isUseful(Size numberOfBytes) {
+        return enabled && numberOfBytes.greaterEqual(THRESHOLD);
+    }
+
+    /**
+     * Compares two blocks of memory.
+     */
+    @INTRINSIC(VECTORIZED_EQUALS)
+    @NO_SAFEPOINT_POLLS("raw addresses must remain valid during the comparison")
+    public static boolean equals(Pointer pointer1, Pointer pointer2, Size numberOfBytes) {
+        for (Offset i = Offset.zero(); i.lessThan(numberOfBytes.asOffset()); i = i.plus(1)) {
+            if (pointer1.readByte(i) != pointer2.readByte(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches a block of 16-bit chars.
+     *
+     * @return the index of the first of the {@code length} chars at {@code chars} equal to {@code ch}, or -1
+     */
+    @INTRINSIC(VECTORIZED_INDEX_OF_CHAR)
+    @NO_SAFEPOINT_POLLS("raw address must remain valid during the search")
+    public static int indexOfChar(Pointer chars, int length, char ch) {
+        for (int i = 0; i < length; i++) {
+            if (chars.getChar(i) == ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fills a block of elements, aligned to their size, with a value. The size of the block must be a multiple of the
+     * size of the elements.
+     *
+     * @param pattern the value replicated over 64 bits, e.g. {@code 0x0101010101010101L * (value & 0xFF)} for bytes
+     */
+    @INTRINSIC(VECTORIZED_FILL)
+    @NO_SAFEPOINT_POLLS("raw address must remain valid during the fill")
+    public static void fill(Pointer start, Size numberOfBytes, long pattern) {
+        Offset i = Offset.zero();
+        for (; i.plus(Longs.SIZE).lessEqual(numberOfBytes.asOffset()); i = i.plus(Longs.SIZE)) {
+            start.writeLong(i, pattern);
+        }
+        if (i.plus(Ints.SIZE).lessEqual(numberOfBytes.asOffset())) {
+            start.writeInt(i, (int) pattern);
+            i = i.plus(Ints.SIZE);
+        }
+        if (i.plus(Shorts.SIZE).lessEqual(numberOfBytes.asOffset())) {
+            start.writeShort(i, (short) pattern);
+            i = i.plus(Shorts.SIZE);
+        }
+        if (i.lessThan(numberOfBytes.asOffset())) {
+            start.writeByte(i, (byte) pattern);
+        }
+    }
+
+    @C_FUNCTION
+    private static native int simd_avx2Supported();
+}
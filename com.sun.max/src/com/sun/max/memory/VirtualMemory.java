@@ -23,6 +23,7 @@
 
 package com.sun.max.memory;
 
+import static com.sun.max.vm.VMOptions.*;
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 
 import java.io.*;
@@ -50,6 +51,30 @@ public final class VirtualMemory {
         VMOptions.addFieldOption("-XX:", "TraceAnonOperations", VirtualMemory.class, "TraceAnonOperations", Phase.PRISTINE);
     }
 
+    /**
+     * Back the heap and the code regions with large pages where the platform supports it.
+     */
+    public static boolean UseLargePages = false;
+    /**
+     * Take large pages for committed heap and code memory from the hugetlbfs pool instead of relying on transparent huge pages.
+     */
+    public static boolean UseHugeTLBFS = false;
+    static {
+        VMOptions.addFieldOption("-XX:", "UseLargePages", VirtualMemory.class, "Use large pages for the heap and code regions if available.", Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "UseHugeTLBFS", VirtualMemory.class,
+            "Commit large page backed memory from the hugetlbfs pool (falls back to transparent huge pages).", Phase.PRISTINE);
+    }
+
+    public static final VMBooleanOption PrintLargePagesOption = register(new VMBooleanOption("-XX:-PrintLargePages",
+            "Report the regions for which large pages were requested and how much of each is actually backed by large pages.") {
+        @Override
+        protected void beforeExit() {
+            if (getValue()) {
+                printLargePageRegions();
+            }
+        }
+    }, MaxineVM.Phase.STARTING);
+
     public enum Type {
         HEAP,   // for the garbage collected heap
         STACK,  // for thread stacks
@@ -207,7 +232,20 @@ public final class VirtualMemory {
             traceRange("commitMemory", address, size);
         }
         commitMemoryTime.start();
-        final Pointer committed = virtualMemory_allocatePrivateAnon(address, size, true, false, type.ordinal());
+        Pointer committed = Pointer.zero();
+        final boolean largePages = UseLargePages && (type == Type.HEAP || type == Type.CODE);
+        if (largePages && UseHugeTLBFS && address.isAligned(largePageSize().toInt()) && size.isAligned(largePageSize().toInt())) {
+            committed = virtualMemory_commitHugeTLB(address, size);
+            if (committed.equals(address)) {
+                recordLargePageRegion(type.name(), address, size, size);
+            }
+        }
+        if (!committed.equals(address)) {
+            committed = virtualMemory_allocatePrivateAnon(address, size, true, false, type.ordinal());
+            if (largePages && committed.equals(address)) {
+                adviseLargePages(address, size, type.name());
+            }
+        }
         commitMemoryTime.stop();
         return committed.equals(address);
     }
@@ -238,6 +276,154 @@ public final class VirtualMemory {
     @C_FUNCTION
     private static native Size virtualMemory_getPhysicalMemorySize();
 
+    /* Large page methods */
+
+    /**
+     * The size of large pages on the underlying platform. Zero until first queried.
+     */
+    private static Size largePageSize = Size.zero();
+
+    /**
+     * The maximum number of distinct regions recorded for {@linkplain #PrintLargePagesOption reporting}.
+     */
+    private static final int MAX_LARGE_PAGE_REGIONS = 16;
+
+    /**
+     * Regions for which large pages were requested. Preallocated, since requests are made while the heap is being set up.
+     */
+    private static final String[] largePageRegionNames = new String[MAX_LARGE_PAGE_REGIONS];
+    private static final long[] largePageRegionStarts = new long[MAX_LARGE_PAGE_REGIONS];
+    private static final long[] largePageRegionEnds = new long[MAX_LARGE_PAGE_REGIONS];
+    private static final long[] largePageRegionAdvised = new long[MAX_LARGE_PAGE_REGIONS];
+
+    @RESET
+    private static int largePageRegionCount;
+
+    /**
+     * Gets the size of large pages on the underlying platform. The value is meaningful whether or not
+     * {@link #UseLargePages} is enabled, so that spaces can be laid out on large page boundaries.
+     */
+    public static Size largePageSize() {
+        if (largePageSize.isZero()) {
+            largePageSize = virtualMemory_getLargePageSize();
+            if (largePageSize.lessThan(Platform.platform().pageSize)) {
+                largePageSize = Size.fromInt(Platform.platform().pageSize);
+            }
+        }
+        return largePageSize;
+    }
+
+    /**
+     * Gets the alignment spaces that want to be backed by large pages should use: the large page size
+     * if {@link #UseLargePages} is enabled, the platform page size otherwise.
+     */
+    public static int largePageAlignment() {
+        return UseLargePages ? largePageSize().toInt() : Platform.platform().pageSize;
+    }
+
+    /**
+     * Requests that a committed range of memory be backed by large pages. Only the large page aligned part of the range is
+     * affected; the request is a hint the operating system may ignore, and memory simply remains backed by regular pages
+     * if it does.
+     *
+     * @param start start of the range
+     * @param size size of the range
+     * @param regionName name of the region the range belongs to, used for {@linkplain #PrintLargePagesOption reporting}
+     * @return the number of bytes for which large pages were requested
+     */
+    public static Size adviseLargePages(Address start, Size size, String regionName) {
+        if (!UseLargePages) {
+            return Size.zero();
+        }
+        final int pageSize = largePageSize().toInt();
+        final Address alignedStart = start.alignUp(pageSize);
+        final Address alignedEnd = start.plus(size).alignDown(pageSize);
+        Size advised = Size.zero();
+        if (alignedEnd.greaterThan(alignedStart)) {
+            final Size alignedSize = alignedEnd.minus(alignedStart).asSize();
+            if (virtualMemory_adviseHugePages(alignedStart, alignedSize)) {
+                advised = alignedSize;
+            }
+        }
+        recordLargePageRegion(regionName, start, size, advised);
+        return advised;
+    }
+
+    private static void recordLargePageRegion(String regionName, Address start, Size size, Size advised) {
+        final long end = start.plus(size).toLong();
+        for (int i = 0; i < largePageRegionCount; i++) {
+            if (largePageRegionNames[i].equals(regionName)) {
+                largePageRegionStarts[i] = Math.min(largePageRegionStarts[i], start.toLong());
+                largePageRegionEnds[i] = Math.max(largePageRegionEnds[i], end);
+                largePageRegionAdvised[i] += advised.toLong();
+                return;
+            }
+        }
+        if (largePageRegionCount < MAX_LARGE_PAGE_REGIONS) {
+            final int i = largePageRegionCount++;
+            largePageRegionNames[i] = regionName;
+            largePageRegionStarts[i] = start.toLong();
+            largePageRegionEnds[i] = end;
+            largePageRegionAdvised[i] = advised.toLong();
+        }
+    }
+
+    private static void printLargePageRegions() {
+        Log.print("Large pages: ");
+        if (!UseLargePages) {
+            Log.println("disabled");
+            return;
+        }
+        Log.print("page size ");
+        Log.printToPowerOfTwoUnits(largePageSize());
+        Log.println(UseHugeTLBFS ? ", hugetlbfs" : ", transparent huge pages");
+        for (int i = 0; i < largePageRegionCount; i++) {
+            final Address start = Address.fromLong(largePageRegionStarts[i]);
+            final Size size = Size.fromLong(largePageRegionEnds[i] - largePageRegionStarts[i]);
+            Log.print("  ");
+            Log.print(largePageRegionNames[i]);
+            Log.print(" [");
+            Log.print(start);
+            Log.print(", ");
+            Log.print(start.plus(size));
+            Log.print("] requested ");
+            Log.printToPowerOfTwoUnits(Size.fromLong(largePageRegionAdvised[i]));
+            Log.print(", backed ");
+            Log.printToPowerOfTwoUnits(virtualMemory_hugePagesInRange(start, size));
+            Log.print(" of ");
+            Log.printToPowerOfTwoUnits(size);
+            Log.println();
+        }
+    }
+
+    @C_FUNCTION
+    private static native Size virtualMemory_getLargePageSize();
+
+    @C_FUNCTION
+    private static native boolean virtualMemory_adviseHugePages(Address address, Size size);
+
+    @C_FUNCTION
+    private static native Pointer virtualMemory_commitHugeTLB(Address address, Size size);
+
+    @C_FUNCTION
+    private static native Size virtualMemory_hugePagesInRange(Address address, Size size);
+
+    /**
+     * Releases the physical pages backing a page aligned range of committed heap or code memory. The range stays
+     * committed and reads as zero when next touched, so this is a cheap way of clearing large ranges.
+     *
+     * @param address start of the range, aligned to the platform page size
+     * @param size size of the range, aligned to the platform page size
+     * @return {@code true} if the pages were discarded, {@code false} if the platform cannot guarantee that the range
+     *         reads as zero, in which case it must be cleared by the caller
+     */
+    public static boolean discardPages(Address address, Size size) {
+        return virtualMemory_discardPages(address, size);
+    }
+
+    @C_FUNCTION
+    private static native boolean virtualMemory_discardPages(Address address, Size size);
+
     /* Page protection methods */
 
     /**
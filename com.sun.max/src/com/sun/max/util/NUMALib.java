@@ -71,4 +71,11 @@ public class NUMALib {
 
     @C_FUNCTION
     public static native int numaPageSize();
+
+    /**
+     * Sets the memory policy of a range of virtual memory so that pages are allocated on a given NUMA node when first touched.
+     * Pages already placed are not moved.
+     */
+    @C_FUNCTION
+    public static native void numaBindToNode(long address, long size, int node);
 }
@@ -33,6 +33,7 @@ import java.util.concurrent.*;
 import com.sun.max.annotate.*;
 import com.sun.max.config.*;
 import com.sun.max.lang.*;
+import com.sun.max.memory.*;
 import com.sun.max.platform.*;
 import com.sun.max.program.*;
 import com.sun.max.unsafe.*;
@@ -517,6 +518,7 @@ public final class MaxineVM {
         vm.phase = Phase.PRISTINE;
 
         VMOptions.parsePristine(argc, argv);
+        VectorizedMemory.initialize();
         return exitCode;
     }
 
@@ -1599,8 +1599,10 @@ public abstract class ClassActor extends Actor implements RiResolvedType {
     private void verify() {
         if (isReflectionStub() || !ClassVerifier.shouldBeVerified(classLoader, isRemote())) {
             // generated stubs do not necessarily pass the verifier, even if they work as intended
-        } else {
-            Verifier.verifierFor(this).verify();
+        } else if (!VerificationCache.isVerified(this)) {
+            final ClassVerifier verifier = Verifier.verifierFor(this);
+            verifier.verify();
+            VerificationCache.recordVerified(verifier);
         }
     }
 
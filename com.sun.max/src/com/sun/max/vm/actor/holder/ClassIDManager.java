@@ -23,6 +23,8 @@
 package com.sun.max.vm.actor.holder;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import com.sun.max.annotate.*;
 import com.sun.max.program.*;
@@ -50,15 +52,66 @@ public final class ClassIDManager {
 
     static final int MINIMAL_CLASSES_POPULATIONS = 4000;
 
-    private static final LinearIDMap<ClassActor> idToClassActor = new LinearIDMap<ClassActor>(MINIMAL_CLASSES_POPULATIONS);
+    /**
+     * The number of class actors in a segment of {@link #idToClassActor}, a power of two.
+     */
+    private static final int SEGMENT_SIZE = 1024;
 
     /**
-     * A bit set keeping track of the assigned class identifiers. A bit set to 1 doesn't necessarily mean a
-     * non-null entry in {@link ClassIDManager#idToClassActor} as class identifiers are reserved eagerly for array classes,
+     * The maximum number of segments, which bounds the number of class identifiers.
+     */
+    private static final int MAX_SEGMENTS = 4096;
+
+    /**
+     * The map from identifiers to class actors, as segments of {@link #SEGMENT_SIZE} entries created on demand.
+     * Segments are never moved, so that entries can be set and read concurrently without a lock.
+     */
+    private static final AtomicReferenceArray<ClassActor[]> idToClassActor = new AtomicReferenceArray<ClassActor[]>(MAX_SEGMENTS);
+
+    /**
+     * The lowest identifier never allocated. Class identifiers are reserved eagerly for array classes,
      * whereas the corresponding array class actors are created lazily.
      * Thus it is possible to encounter a null entry for a used class identifier.
      */
-    private static BitSet usedIDs = new BitSet();
+    private static final AtomicInteger nextID = new AtomicInteger();
+
+    /**
+     * The identifiers released by {@link #remove(ClassActor)}, which are allocated again before new ones.
+     */
+    private static final ConcurrentLinkedQueue<Integer> freeIDs = new ConcurrentLinkedQueue<Integer>();
+
+    static {
+        // Create the segments for the classes of the boot image.
+        for (int i = 0; i < MINIMAL_CLASSES_POPULATIONS / SEGMENT_SIZE + 1; i++) {
+            idToClassActor.set(i, new ClassActor[SEGMENT_SIZE]);
+        }
+    }
+
+    private static ClassActor[] segment(int id) {
+        final int index = id / SEGMENT_SIZE;
+        ClassActor[] segment = idToClassActor.get(index);
+        if (segment == null) {
+            // Racing threads may create several segments, only one of which is kept.
+            idToClassActor.compareAndSet(index, null, new ClassActor[SEGMENT_SIZE]);
+            segment = idToClassActor.get(index);
+        }
+        return segment;
+    }
+
+    private static ClassActor get(int id) {
+        if (id < 0 || id >= nextID.get()) {
+            return null;
+        }
+        final ClassActor[] segment = idToClassActor.get(id / SEGMENT_SIZE);
+        return segment == null ? null : segment[id & (SEGMENT_SIZE - 1)];
+    }
+
+    private static ClassActor set(int id, ClassActor classActor) {
+        final ClassActor[] segment = segment(id);
+        final ClassActor oldValue = segment[id & (SEGMENT_SIZE - 1)];
+        segment[id & (SEGMENT_SIZE - 1)] = classActor;
+        return oldValue;
+    }
 
     /**
      * Retrieves the class corresponding to a given identifier.
@@ -75,17 +128,24 @@ public final class ClassIDManager {
                 }
             }
         }
-        return idToClassActor.get(id);
+        return get(id);
     }
 
     /**
      * Allocates a new, system-wide unique identifier that will subsequently be
      * {@linkplain #register(ClassActor) bound} to a class actor.
+     * Released identifiers are reused first, so that identifiers stay dense.
      */
-    static synchronized int allocate() {
-        final int id = usedIDs.nextClearBit(0);
-        idToClassActor.set(id, null);
-        usedIDs.set(id);
+    static int allocate() {
+        final Integer free = freeIDs.poll();
+        final int id;
+        if (free != null) {
+            id = free;
+        } else {
+            id = nextID.getAndIncrement();
+            FatalError.check(id < MAX_SEGMENTS * SEGMENT_SIZE, "Too many class identifiers");
+            segment(id);
+        }
         if (TraceClassIDs) {
             Log.println("Allocated class identifier " + id);
         }
@@ -95,10 +155,10 @@ public final class ClassIDManager {
     /**
      * Binds a class actor to its allocated identifier.
      */
-    static synchronized void register(ClassActor classActor) {
+    static void register(ClassActor classActor) {
         int id = classActor.id;
-        FatalError.check(usedIDs.get(id), "Class ID must be allocated: id=" + id + ", class=" + classActor);
-        idToClassActor.set(id, classActor);
+        FatalError.check(id < nextID.get(), "Class ID must be allocated: id=" + id + ", class=" + classActor);
+        set(id, classActor);
         if (TraceClassIDs) {
             Log.println("Bound class identifier " + id + " to " + classActor);
         }
@@ -110,17 +170,17 @@ public final class ClassIDManager {
      *
      * @see ClassRegistry#define0(ClassActor)
      */
-    public static synchronized void remove(ClassActor classActor) {
+    public static void remove(ClassActor classActor) {
         assert ClassRegistry.get(classActor.classLoader, classActor.typeDescriptor, false) != classActor;
         int id = classActor.id;
-        FatalError.check(usedIDs.get(id), "Class ID must be allocated");
+        FatalError.check(id < nextID.get(), "Class ID must be allocated");
         FatalError.check(classActor.arrayClassIDs == null, "Can remove class ID only when no array classes were registered yet");
         clear(id);
     }
 
     private static void clear(int id) {
-        ClassActor c = idToClassActor.set(id, null);
-        usedIDs.clear(id);
+        ClassActor c = set(id, null);
+        freeIDs.add(id);
         if (TraceClassIDs) {
             Log.print("Released class identifier " + id);
             if (c != null) {
@@ -135,8 +195,8 @@ public final class ClassIDManager {
         VMOptions.addFieldOption("-XX:", "TraceClassIDs", ClassIDManager.class, "Trace management of class identifiers.");
     }
 
-    public static synchronized int largestClassId() {
-        return idToClassActor.maxID();
+    public static int largestClassId() {
+        return nextID.get() - 1;
     }
 
 
@@ -169,10 +229,10 @@ public final class ClassIDManager {
         int id = 0;
         id = createdArrayClassIDs.nextSetBit(0);
         while (id >= 0) {
-            ClassActor classActor = idToClassActor.get(id);
+            ClassActor classActor = get(id);
             if (classActor == null) {
                 System.out.print("Class ID " + id + " created for array isn't assigned");
-                if (usedIDs.get(id)) {
+                if (isUsedID(id)) {
                     System.out.print(" but recorded used");
                 }
                 System.out.println();
@@ -184,14 +244,14 @@ public final class ClassIDManager {
 
         id = 0;
         while (id >= 0) {
-            ClassActor classActor = idToClassActor.get(id);
+            ClassActor classActor = get(id);
             if (classActor != null && classActor.arrayClassIDs != null) {
                 final int [] arrayClassIDs = classActor.arrayClassIDs;
                 for (int i = 0; i < arrayClassIDs.length; i++) {
-                    ClassActor arrayClassActor = idToClassActor.get(arrayClassIDs[i]);
+                    ClassActor arrayClassActor = get(arrayClassIDs[i]);
                     if (arrayClassActor == null) {
                         System.out.print("Class ID " + arrayClassIDs[i] + " created for array isn't assigned");
-                        if (usedIDs.get(arrayClassIDs[i])) {
+                        if (isUsedID(arrayClassIDs[i])) {
                             System.out.print(" but recorded used");
                         }
                         System.out.println();
@@ -200,12 +260,15 @@ public final class ClassIDManager {
                     }
                 }
             }
-            id = usedIDs.nextSetBit(id + 1);
+            id = id + 1 < nextID.get() ? id + 1 : -1;
         }
     }
 
+    /**
+     * Determines if an identifier is allocated. This is slow if many identifiers were released.
+     */
     public static boolean isUsedID(int id) {
-        return usedIDs.get(id);
+        return id >= 0 && id < nextID.get() && !freeIDs.contains(id);
     }
 
     /**
@@ -60,6 +60,7 @@ import com.sun.max.vm.ti.*;
 import com.sun.max.vm.type.*;
 import com.sun.max.vm.type.ClassRegistry.*;
 import com.sun.max.vm.value.*;
+import com.sun.max.vm.verifier.*;
 
 import sun.reflect.CallerSensitive;
 
@@ -1755,6 +1756,9 @@ public final class ClassfileReader {
         final ClassActor definedClassActor = ClassRegistry.define(classActor);
 
         if (!MaxineVM.isHosted()) {
+            if (definedClassActor == classActor) {
+                VerificationCache.recordClassfile(classActor, bytes, offset, length);
+            }
             // Maxine is unable to usefully distinguish CLASS_LOAD and CLASS_PREPARE events which, for example, JVMTI distinguishes,
             // as we need a ClassActor in order to create a Class object, so we just have the one event.
             VMTI.handler().classLoad(definedClassActor);
@@ -23,14 +23,24 @@
 package com.sun.max.vm.classfile.constant;
 
 import java.io.*;
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
 
-import com.sun.max.collect.*;
-import com.sun.max.collect.ChainedHashMapping.Entry;
 import com.sun.max.vm.*;
 
 /**
  * Implementation of symbol and String interning, the latter of which is a Java language requirement.
- *
+ * <p>
+ * The symbols are kept in a {@link ConcurrentHashMap}, so that looking up a symbol takes no lock and the table grows
+ * as needed. A symbol is created while holding one of {@value #STRIPES} locks selected by the hash of its value, so
+ * that threads creating different symbols seldom contend. The symbols are held strongly, as they are referenced by the
+ * constant pools and actors of the loaded classes, and the strings of the string literals of these classes are those
+ * of their symbols.
+ * <p>
+ * A string {@linkplain #intern(String) interned} at run time that is not a symbol is held weakly in the table of its
+ * stripe, so that it is reclaimed by the GC once unreachable. If a symbol is later created for an equal string, it
+ * takes over the interned string, which keeps {@code ==} between interned strings and literals.
  */
 public final class SymbolTable {
 
@@ -39,36 +49,13 @@ public final class SymbolTable {
 
     /**
      * The only concrete subclass of {@link Utf8Constant}.
-     * Using a subclass hides the details of storing Utf8Constants in a {@link ChainedHashMapping}.
      */
-    static final class Utf8ConstantEntry extends Utf8Constant implements ChainedHashMapping.Entry<String, Utf8ConstantEntry> {
+    static final class Utf8ConstantEntry extends Utf8Constant {
 
         Utf8ConstantEntry(String value) {
             super(value);
         }
 
-        public String key() {
-            return toString();
-        }
-
-        private Entry<String, Utf8ConstantEntry> next;
-
-        public Entry<String, Utf8ConstantEntry> next() {
-            return next;
-        }
-
-        public void setNext(Entry<String, Utf8ConstantEntry> next) {
-            this.next = next;
-        }
-
-        public void setValue(Utf8ConstantEntry value) {
-            assert value == this;
-        }
-
-        public Utf8ConstantEntry value() {
-            return this;
-        }
-
         @Override
         public void writeOn(DataOutputStream stream, ConstantPoolEditor editor, int index) throws IOException {
             super.writeOn(stream, editor, index);
@@ -77,38 +64,99 @@ public final class SymbolTable {
     }
 
     /**
-     * Searching and adding entries to this map is only performed by {@linkplain #makeSymbol(String) one method} which
-     * is synchronized.
+     * The number of stripes, a power of two.
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * A stripe of the tables, whose lock is held to create the symbols and intern the strings of the stripe.
      */
-    private static final ChainingValueChainedHashMapping<String, Utf8ConstantEntry> symbolTable = new ChainingValueChainedHashMapping<String, Utf8ConstantEntry>(40000);
+    private static final class Stripe {
+        /**
+         * The strings interned at run time that are not symbols, created on demand.
+         */
+        WeakHashMap<String, WeakReference<String>> internedStrings;
+    }
+
+    private static final ConcurrentHashMap<String, Utf8ConstantEntry> symbolTable = new ConcurrentHashMap<String, Utf8ConstantEntry>(40000);
+
+    private static final Stripe[] stripes = new Stripe[STRIPES];
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
 
     public static final Utf8Constant INIT = makeSymbol("<init>");
     public static final Utf8Constant CLINIT = makeSymbol("<clinit>");
     public static final Utf8Constant FINALIZE = makeSymbol("finalize");
 
     public static int length() {
-        return symbolTable.length();
+        return symbolTable.size();
+    }
+
+    private static Stripe stripe(String value) {
+        final int hash = value.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
     }
 
-    public static synchronized Utf8Constant lookupSymbol(String value) {
+    public static Utf8Constant lookupSymbol(String value) {
         return symbolTable.get(value);
     }
 
-    public static synchronized Utf8Constant makeSymbol(String value) {
+    public static Utf8Constant makeSymbol(String value) {
         Utf8ConstantEntry utf8 = symbolTable.get(value);
-        if (utf8 == null) {
-            if (MaxineVM.isHosted()) {
-                // String interning is implemented with another data structure when running hosted
-                utf8 = new Utf8ConstantEntry(value.intern());
-            } else {
-                utf8 = new Utf8ConstantEntry(value);
+        if (utf8 != null) {
+            return utf8;
+        }
+        final Stripe stripe = stripe(value);
+        synchronized (stripe) {
+            utf8 = symbolTable.get(value);
+            if (utf8 == null) {
+                String string = null;
+                if (MaxineVM.isHosted()) {
+                    // String interning is implemented with another data structure when running hosted
+                    string = value.intern();
+                } else if (stripe.internedStrings != null) {
+                    final WeakReference<String> interned = stripe.internedStrings.remove(value);
+                    if (interned != null) {
+                        string = interned.get();
+                    }
+                }
+                if (string == null) {
+                    string = value;
+                }
+                utf8 = new Utf8ConstantEntry(string);
+                symbolTable.put(string, utf8);
             }
-            symbolTable.put(value, utf8);
         }
         return utf8;
     }
 
     public static String intern(String value) {
-        return makeSymbol(value).toString();
+        Utf8ConstantEntry utf8 = symbolTable.get(value);
+        if (utf8 != null) {
+            return utf8.string;
+        }
+        if (MaxineVM.isHosted()) {
+            return makeSymbol(value).toString();
+        }
+        final Stripe stripe = stripe(value);
+        synchronized (stripe) {
+            utf8 = symbolTable.get(value);
+            if (utf8 != null) {
+                return utf8.string;
+            }
+            if (stripe.internedStrings == null) {
+                stripe.internedStrings = new WeakHashMap<String, WeakReference<String>>();
+            }
+            final WeakReference<String> interned = stripe.internedStrings.get(value);
+            String string = interned == null ? null : interned.get();
+            if (string == null) {
+                string = value;
+                stripe.internedStrings.put(string, new WeakReference<String>(string));
+            }
+            return string;
+        }
     }
 }
@@ -152,6 +152,16 @@ public final class Code {
         codeManager.visitCells(cellVisitor, includeBootCode);
     }
 
+    /**
+     * Visit the cells in a single code region.
+     *
+     * @param cellVisitor the visitor to call back for each cell in the region
+     * @param codeRegion one of the code regions of the {@linkplain #getCodeManager() code manager}
+     */
+    public static void visitCells(CellVisitor cellVisitor, CodeRegion codeRegion) {
+        codeManager.visitAllIn(cellVisitor, codeRegion);
+    }
+
     public static Size getRuntimeCodeRegionSize() {
         return codeManager.getRuntimeBaselineCodeRegionSize().plus(codeManager.getRuntimeOptCodeRegionSize());
     }
@@ -47,6 +47,7 @@ public class VariableAddressCodeManager extends CodeManager {
     void initialize() {
         tryAllocate(runtimeBaselineCodeRegionSize, runtimeBaselineCodeRegion);
         tryAllocate(runtimeOptCodeRegionSize, runtimeOptCodeRegion);
+        VirtualMemory.adviseLargePages(runtimeOptCodeRegion.start(), runtimeOptCodeRegion.size(), runtimeOptCodeRegion.regionName());
     }
 
     private void tryAllocate(VMSizeOption s, CodeRegion cr) {
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.compiler.deps;
+
+import static com.sun.max.vm.compiler.deps.ContextDependents.*;
+import static com.sun.max.vm.compiler.deps.DependenciesManager.*;
+
+import java.lang.ref.*;
+import java.util.*;
+
+import com.oracle.max.cri.intrinsics.*;
+import com.sun.cri.ci.*;
+import com.sun.cri.ci.CiAssumptions.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.compiler.deps.ContextDependents.*;
+import com.sun.max.vm.compiler.deps.Dependencies.*;
+import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.hosted.*;
+import com.sun.max.vm.methodhandle.*;
+
+/**
+ * {@link DependencyProcessor} for the targets of mutable call sites, which lets an invokedynamic instruction linked to a
+ * {@code MutableCallSite} or {@code VolatileCallSite} call the current target of the call site directly.
+ * <p>
+ * The context class of the dependency is the class of the call site. As the packed form of dependencies can only hold
+ * small integers, each call site that compiled code depends on is given an index in a registry of call sites, which is
+ * recorded as the data of the dependency:
+ * <pre>
+ *     call_site_targets {
+ *         short length;           // length of 'deps'
+ *         call_site_dep deps[length / 2];
+ *     }
+ *
+ *     call_site_dep {
+ *         short index_high;       // index of the call site in the registry
+ *         short index_low;
+ *     }
+ * </pre>
+ * The targets of call sites are changed by {@link #setTarget} under the {@linkplain DependenciesManager#classHierarchyLock
+ * class hierarchy lock}, which invalidates and deoptimizes the target methods depending on the previous target.
+ * The registry holds the call sites weakly, as compiled code embeds the target of a call site rather than the call
+ * site itself, and the index of a call site is released when the code depending on it is invalidated or when the
+ * call site is collected. A released index is reused for another call site; dependencies left on the index by code
+ * compiled against a collected call site are then at worst invalidated by a change of target of the new call site.
+ */
+public final class CallSiteTargetDependencyProcessor extends DependencyProcessor {
+
+    /**
+     * Essentially the Maxine specific mirror of {@link CallSiteTargetValue}.
+     * Implement this interface in a subclass of {@link DependencyVisitor} to
+     * process these dependencies.
+     */
+    public interface CallSiteTargetDependencyProcessorVisitor extends DependencyProcessorVisitor {
+        /**
+         * Process a call site target dependency.
+         * @param targetMethod the method compiled with this dependency
+         * @param context class context, the class of {@code callSite}
+         * @param callSite the call site whose target was assumed
+         * @return {@code true} to continue the iteration, {@code false} to terminate it
+         */
+        boolean doCallSiteTarget(TargetMethod targetMethod, ClassActor context, Object callSite);
+    }
+
+    static class ToStringCallSiteTargetDependencyProcessorVisitor extends ToStringDependencyProcessorVisitor implements CallSiteTargetDependencyProcessorVisitor {
+        @Override
+        public boolean doCallSiteTarget(TargetMethod targetMethod, ClassActor context, Object callSite) {
+            sb.append(" CST[").append(context).append('@').append(Integer.toHexString(System.identityHashCode(callSite))).append(']');
+            return true;
+        }
+    }
+
+    static final ToStringCallSiteTargetDependencyProcessorVisitor toStringCallSiteTargetDependencyProcessorVisitor = new ToStringCallSiteTargetDependencyProcessorVisitor();
+
+    @Override
+    protected ToStringDependencyProcessorVisitor getToStringDependencyProcessorVisitor(StringBuilder sb) {
+        return toStringCallSiteTargetDependencyProcessorVisitor.setStringBuilder(sb);
+    }
+
+    private static final CallSiteTargetDependencyProcessor singleton = new CallSiteTargetDependencyProcessor();
+
+    private CallSiteTargetDependencyProcessor() {
+        super(CiAssumptions.CallSiteTargetValue.class);
+    }
+
+    /**
+     * A call site in the registry, with its index.
+     */
+    private static final class RegisteredCallSite extends WeakReference<Object> {
+        final int index;
+
+        RegisteredCallSite(Object callSite, int index) {
+            super(callSite, collectedCallSites);
+            this.index = index;
+        }
+    }
+
+    private static final ReferenceQueue<Object> collectedCallSites = new ReferenceQueue<Object>();
+
+    /**
+     * The call sites that compiled code depends on, indexed by their registry index, with {@code null} at the indexes
+     * that are free.
+     */
+    private static final ArrayList<RegisteredCallSite> callSites = new ArrayList<RegisteredCallSite>();
+
+    /**
+     * Map from call sites to their index. Call sites do not override {@link Object#equals(Object)} or
+     * {@link Object#hashCode()}, so the map compares them by identity.
+     */
+    private static final WeakHashMap<Object, Integer> callSiteIndexes = new WeakHashMap<Object, Integer>();
+
+    private static final ArrayList<Integer> freeIndexes = new ArrayList<Integer>();
+
+    private static int register(Object callSite) {
+        synchronized (callSites) {
+            expungeCollectedCallSites();
+            Integer index = callSiteIndexes.get(callSite);
+            if (index == null) {
+                if (freeIndexes.isEmpty()) {
+                    index = callSites.size();
+                    callSites.add(new RegisteredCallSite(callSite, index));
+                } else {
+                    index = freeIndexes.remove(freeIndexes.size() - 1);
+                    callSites.set(index, new RegisteredCallSite(callSite, index));
+                }
+                callSiteIndexes.put(callSite, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Frees the indexes of the call sites that were collected. Must be called with the registry locked.
+     */
+    private static void expungeCollectedCallSites() {
+        Reference<?> reference;
+        while ((reference = collectedCallSites.poll()) != null) {
+            final int index = ((RegisteredCallSite) reference).index;
+            if (callSites.get(index) == reference) {
+                callSites.set(index, null);
+                freeIndexes.add(index);
+            }
+        }
+    }
+
+    /**
+     * Removes a call site from the registry once no compiled code depends on it anymore.
+     */
+    private static void release(Object callSite) {
+        synchronized (callSites) {
+            final Integer index = callSiteIndexes.remove(callSite);
+            if (index != null) {
+                callSites.set(index, null);
+                freeIndexes.add(index);
+            }
+        }
+    }
+
+    private static int indexOf(Object callSite) {
+        synchronized (callSites) {
+            final Integer index = callSiteIndexes.get(callSite);
+            return index == null ? -1 : index;
+        }
+    }
+
+    /**
+     * Gets the call site registered at a given index, {@code null} if it was collected or released.
+     */
+    private static Object callSiteAt(int index) {
+        synchronized (callSites) {
+            final RegisteredCallSite registered = callSites.get(index);
+            return registered == null ? null : registered.get();
+        }
+    }
+
+    @Override
+    protected boolean validate(Assumption assumption, ClassDeps classDeps) {
+        CallSiteTargetValue callSiteTarget = (CallSiteTargetValue) assumption;
+        // the target cannot change while the class hierarchy lock is held in read mode
+        if (MaxMethodHandles.callSiteTarget(callSiteTarget.callSite) != callSiteTarget.methodHandle) {
+            return false;
+        }
+        classDeps.add(this, register(callSiteTarget.callSite));
+        return true;
+    }
+
+    @Override
+    protected DependencyProcessorVisitor match(DependencyVisitor dependencyVisitor) {
+        return dependencyVisitor instanceof CallSiteTargetDependencyProcessorVisitor ? (CallSiteTargetDependencyProcessorVisitor) dependencyVisitor : null;
+    }
+
+    @Override
+    protected int visit(DependencyProcessorVisitor dependencyProcessorVisitor, ClassActor context, Dependencies dependencies, int index) {
+        CallSiteTargetDependencyProcessorVisitor callSiteVisitor = (CallSiteTargetDependencyProcessorVisitor) dependencyProcessorVisitor;
+        int i = index;
+        int callSiteIndex = (dependencies.packed[i++] << 16) | (dependencies.packed[i++] & 0xffff);
+        if (callSiteVisitor != null) {
+            if (!callSiteVisitor.doCallSiteTarget(dependencies.targetMethod, context, callSiteAt(callSiteIndex))) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Finds the dependencies on the target of a given call site.
+     */
+    private static final class CallSiteChecker extends DependencyVisitor implements CallSiteTargetDependencyProcessorVisitor {
+        private final Object callSite;
+        private boolean dependent;
+
+        CallSiteChecker(ClassActor context, Object callSite) {
+            super(context.id);
+            this.callSite = callSite;
+        }
+
+        @Override
+        public boolean doCallSiteTarget(TargetMethod targetMethod, ClassActor context, Object callSite) {
+            if (callSite == this.callSite) {
+                dependent = true;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sets the target of a call site and deoptimizes the target methods that depend on its previous target.
+     *
+     * @param callSite a {@code java.lang.invoke.CallSite}
+     * @param target the new target of {@code callSite}
+     * @param isVolatile specifies if the store must have the semantics of a volatile store
+     */
+    public static void setTarget(Object callSite, Object target, boolean isVolatile) {
+        ArrayList<TargetMethod> invalidatedMethods = null;
+        classHierarchyLock.writeLock().lock();
+        try {
+            if (isVolatile) {
+                MemoryBarriers.barrier(MemoryBarriers.JMM_PRE_VOLATILE_WRITE);
+            }
+            MaxMethodHandles.setCallSiteTarget(callSite, target);
+            if (isVolatile) {
+                MemoryBarriers.barrier(MemoryBarriers.JMM_POST_VOLATILE_WRITE);
+            }
+            if (indexOf(callSite) >= 0) {
+                invalidatedMethods = invalidateDependents(ClassActor.fromJava(callSite.getClass()), callSite);
+                // all the code compiled against the previous target is invalidated
+                release(callSite);
+            }
+        } finally {
+            classHierarchyLock.writeLock().unlock();
+        }
+        ConcreteTypeDependencyProcessor.deoptimize(invalidatedMethods);
+    }
+
+    private static ArrayList<TargetMethod> invalidateDependents(ClassActor context, Object callSite) {
+        DSet dset = map.get(context);
+        if (dset == null) {
+            return null;
+        }
+        ArrayList<Dependencies> invalidated = new ArrayList<Dependencies>();
+        int i = 0;
+        while (i < dset.size()) {
+            Dependencies deps = dset.getDeps(i);
+            CallSiteChecker checker = new CallSiteChecker(context, callSite);
+            deps.visit(checker);
+            if (checker.dependent) {
+                invalidated.add(deps);
+                dset.removeAt(i);
+            } else {
+                i++;
+            }
+        }
+        if (dset.size() == 0) {
+            map.remove(context);
+        }
+
+        ArrayList<TargetMethod> methods = new ArrayList<TargetMethod>(invalidated.size());
+        for (Dependencies deps : invalidated) {
+            if (dependenciesLogger.enabled()) {
+                deps.logInvalidated();
+            }
+            if (deps.invalidate() && deps.targetMethod != null) {
+                if (MaxineVM.isHosted()) {
+                    CompiledPrototype.invalidateTargetMethod(deps.targetMethod);
+                }
+                methods.add(deps.targetMethod);
+            }
+        }
+        if (MaxineVM.isHosted() || methods.isEmpty()) {
+            return null;
+        }
+        return methods;
+    }
+}
@@ -262,14 +262,17 @@ public class ConcreteTypeDependencyProcessor extends DependencyProcessor {
     }
 
     /**
-     * Processes a list of invalidated dependencies, triggering deopt as necessary.
+     * Processes a list of invalidated dependencies, marking them invalid so that their target methods cannot be
+     * installed. The target methods already installed must then be {@linkplain #deoptimize(ArrayList) deoptimized},
+     * which need not be done under the class hierarchy lock.
      *
      * @param invalidated the head of a {@link Dependencies} list (which may contain duplicates)
      * @param classActor the class to be added to the global class hierarchy
+     * @return the target methods to deoptimize, or {@code null} if there are none
      */
-    static void invalidateDependencies(ArrayList<Dependencies> invalidated, ClassActor classActor) {
+    static ArrayList<TargetMethod> invalidateDependencies(ArrayList<Dependencies> invalidated, ClassActor classActor) {
         if (invalidated == null) {
-            return;
+            return null;
         }
         if (dependenciesLogger.enabled()) {
             dependenciesLogger.logInvalidateDeps(classActor);
@@ -287,9 +290,19 @@ public class ConcreteTypeDependencyProcessor extends DependencyProcessor {
                 methods.add(deps.targetMethod);
             }
         }
-        if (MaxineVM.isHosted()) {
-            return;
-        } else if (!methods.isEmpty()) {
+        if (MaxineVM.isHosted() || methods.isEmpty()) {
+            return null;
+        }
+        return methods;
+    }
+
+    /**
+     * Deoptimizes the target methods whose dependencies were {@linkplain #invalidateDependencies invalidated}.
+     *
+     * @param methods the target methods to deoptimize, or {@code null}
+     */
+    static void deoptimize(ArrayList<TargetMethod> methods) {
+        if (methods != null) {
             new Deoptimization(methods).go();
         }
     }
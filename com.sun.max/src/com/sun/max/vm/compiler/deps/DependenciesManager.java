@@ -134,21 +134,28 @@ public final class DependenciesManager {
     /**
      * Adds a class to the class hierarchy.
      * This checks dependencies on the type hierarchy and invalidates all target methods whose dependencies are no longer valid.
+     * <p>
+     * Only the update of the hierarchy and of the dependencies is done under the class hierarchy lock, so that
+     * classes parsed, verified and linked in parallel are serialized as briefly as possible. The invalidated
+     * dependencies can no longer be installed once the lock is released, so the target methods that depend on them
+     * are deoptimized afterwards.
      *
      * @param classActor the class to be added to the global class hierarchy
      */
     public static void addToHierarchy(ClassActor classActor) {
         boolean refreshTables = false;
+        ArrayList<TargetMethod> invalidatedMethods = null;
         classHierarchyLock.writeLock().lock();
         try {
             classActor.prependToSiblingList();
             ArrayList<Dependencies> invalidated = ConcreteTypeDependencyProcessor.recordUniqueConcreteSubtype(classActor);
-            ConcreteTypeDependencyProcessor.invalidateDependencies(invalidated, classActor);
+            invalidatedMethods = ConcreteTypeDependencyProcessor.invalidateDependencies(invalidated, classActor);
             refreshTables = true;
         } finally {
             classHierarchyLock.writeLock().unlock();
             if (!MaxineVM.isHosted() && refreshTables) {
                 // Don't need to be under the class hierarchy lock to do this.
+                ConcreteTypeDependencyProcessor.deoptimize(invalidatedMethods);
                 classActor.dynamicHub().refreshVTable();
                 classActor.dynamicHub().refreshITable();
             }
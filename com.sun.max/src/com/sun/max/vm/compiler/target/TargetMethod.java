@@ -1247,6 +1247,42 @@ public abstract class TargetMethod extends MemoryRegion {
      */
     public abstract CodePointer throwAddressToCatchAddress(CodePointer throwAddress, Throwable throwable);
 
+    /**
+     * Pairs of (position + 1, count) recording the number of implicit exceptions raised at a few positions in this
+     * method. Allocated when the first implicit exception is raised in this method.
+     *
+     * @see #countImplicitException(CodePointer)
+     */
+    private int[] implicitExceptionCounts;
+
+    /**
+     * The number of positions tracked by {@link #implicitExceptionCounts}. Must be a power of two.
+     */
+    private static final int IMPLICIT_EXCEPTION_COUNTER_SLOTS = 4;
+
+    /**
+     * Increments the number of implicit exceptions raised at a given address in this method. The counters are
+     * direct-mapped and updated without synchronization: a collision or a lost update merely delays the point at which
+     * a position is considered to throw frequently.
+     *
+     * @param throwAddress the address of the instruction raising the implicit exception
+     * @return the number of implicit exceptions raised at {@code throwAddress} including this one
+     */
+    public final int countImplicitException(CodePointer throwAddress) {
+        int[] counts = implicitExceptionCounts;
+        if (counts == null) {
+            counts = new int[IMPLICIT_EXCEPTION_COUNTER_SLOTS * 2];
+            implicitExceptionCounts = counts;
+        }
+        final int pos = posFor(throwAddress);
+        final int index = ((pos ^ (pos >>> 8)) & (IMPLICIT_EXCEPTION_COUNTER_SLOTS - 1)) * 2;
+        if (counts[index] != pos + 1) {
+            counts[index] = pos + 1;
+            counts[index + 1] = 0;
+        }
+        return ++counts[index + 1];
+    }
+
     public static class CatchExceptionInfo {
 
         public CodePointer codePointer;
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.compiler.target;
+
+import static com.sun.max.vm.VMOptions.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+
+/**
+ * A small, per-{@link TargetMethod} cache mapping a (throw position, exception type) pair to the index of the
+ * exception handler table entry that handles it, or to {@link #NO_HANDLER} if the method does not handle the
+ * exception at that position.
+ * <p>
+ * The cache is consulted while {@linkplain com.sun.max.vm.runtime.Throw#raise(Throwable) unwinding} the stack, when
+ * safepoints are disabled and allocation must be avoided. It is therefore allocated up front and each entry is packed
+ * into a single {@code long} so that a racing update can never produce a torn entry: a reader sees either the old or
+ * the new entry, both of which are valid. The cache is direct-mapped; a colliding update simply overwrites the slot.
+ * <pre>
+ *
+ *   63                      42 41            28 27                           0
+ *  +--------------------------+----------------+------------------------------+
+ *  |   exception class id     | handler index+2|          throw position      |
+ *  +--------------------------+----------------+------------------------------+
+ * </pre>
+ * Results whose components do not fit in their fields are simply not cached.
+ */
+public final class ThrowAddressCache {
+
+    public static boolean UseThrowAddressCache = true;
+    static {
+        VMOptions.addFieldOption("-XX:", "UseThrowAddressCache", ThrowAddressCache.class,
+            "Cache the exception handler found for a throw address and exception type in each optimized target method.");
+    }
+
+    public static final VMBooleanOption PrintThrowAddressCacheStatsOption = register(new VMBooleanOption("-XX:-PrintThrowAddressCacheStats",
+            "Report the number of hits and misses of the per target method throw address caches.") {
+        @Override
+        protected void beforeExit() {
+            if (getValue()) {
+                Log.print("Throw address cache: ");
+                Log.print(hits);
+                Log.print(" hits, ");
+                Log.print(misses);
+                Log.println(" misses");
+            }
+        }
+    }, MaxineVM.Phase.STARTING);
+
+    /**
+     * The number of slots in a cache. Must be a power of two.
+     */
+    static final int SLOTS = 8;
+
+    /**
+     * Value returned by {@link #lookup(int, ClassActor)} when there is no cached result.
+     */
+    public static final int MISS = -2;
+
+    /**
+     * Handler index denoting that the method has no handler for an exception type at a given position.
+     */
+    public static final int NO_HANDLER = -1;
+
+    static final int POS_BITS = 28;
+    static final int HANDLER_BITS = 14;
+    static final int CLASS_ID_BITS = 64 - POS_BITS - HANDLER_BITS;
+
+    static final int HANDLER_SHIFT = POS_BITS;
+    static final int CLASS_ID_SHIFT = POS_BITS + HANDLER_BITS;
+
+    static final long POS_MASK = (1L << POS_BITS) - 1;
+    static final long HANDLER_MASK = (1L << HANDLER_BITS) - 1;
+    static final long CLASS_ID_MASK = (1L << CLASS_ID_BITS) - 1;
+
+    @RESET
+    private static long hits;
+
+    @RESET
+    private static long misses;
+
+    private final long[] entries = new long[SLOTS];
+
+    /**
+     * Determines if a target method with a given number of exception handlers should be given a cache.
+     */
+    public static boolean isUseful(int handlerCount) {
+        return UseThrowAddressCache && handlerCount > 0 && handlerCount + 2 <= HANDLER_MASK && Word.width() == 64;
+    }
+
+    private static int slot(int throwPos, int classId) {
+        int h = throwPos * 31 + classId;
+        return (h ^ (h >>> 16)) & (SLOTS - 1);
+    }
+
+    /**
+     * Looks up the handler table index cached for a given throw position and exception type.
+     *
+     * @return the cached handler index (which may be {@link #NO_HANDLER}) or {@link #MISS} if there is no cached result
+     */
+    public int lookup(int throwPos, ClassActor exceptionType) {
+        final int classId = exceptionType.id;
+        final long entry = entries[slot(throwPos, classId)];
+        if (entry != 0L && (entry & POS_MASK) == throwPos && (entry >>> CLASS_ID_SHIFT) == classId) {
+            hits++;
+            return (int) ((entry >>> HANDLER_SHIFT) & HANDLER_MASK) - 2;
+        }
+        misses++;
+        return MISS;
+    }
+
+    /**
+     * Records the result of an exception handler table search.
+     *
+     * @param handlerIndex the index of the handler table entry or {@link #NO_HANDLER}
+     */
+    public void record(int throwPos, ClassActor exceptionType, int handlerIndex) {
+        final int classId = exceptionType.id;
+        if (throwPos < 0 || throwPos > POS_MASK || classId < 0 || classId > CLASS_ID_MASK) {
+            return;
+        }
+        final long entry = ((long) classId << CLASS_ID_SHIFT) | ((long) (handlerIndex + 2) << HANDLER_SHIFT) | throwPos;
+        entries[slot(throwPos, classId)] = entry;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.heap;
+
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+
+/**
+ * A per-thread TLAB refill policy that sizes the TLABs of its thread after the thread's allocation rate.
+ * <p>
+ * The policy counts the bytes its thread allocated in TLABs between two {@linkplain #notifyReset(Size) resets} of its
+ * TLAB, i.e., during a GC cycle, as the size of the TLABs it retired minus their leftover. At every reset, the count is
+ * folded into an exponentially weighted moving average, and the next TLAB is sized so that a thread allocating at the
+ * average rate refills its TLAB {@link #TLABRefillTarget} times per GC cycle. Threads that allocate a lot thus get
+ * larger TLABs and refill less often, whereas threads that barely allocate get small TLABs and pin less of the heap.
+ * The size is kept within the bounds given by the heap scheme.
+ */
+public class AdaptiveTLABRefillPolicy extends SimpleTLABRefillPolicy {
+
+    private static int TLABAllocationWeight = 35;
+    private static int TLABRefillTarget = 50;
+    static {
+        VMOptions.addFieldOption("-XX:", "TLABAllocationWeight", AdaptiveTLABRefillPolicy.class,
+            "Weight, in percent, of the last GC cycle in the average TLAB allocation of a thread.", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "TLABRefillTarget", AdaptiveTLABRefillPolicy.class,
+            "Number of TLAB refills per GC cycle a thread allocating at its average rate should take.", MaxineVM.Phase.PRISTINE);
+    }
+
+    /**
+     * Alignment of the size of the TLABs.
+     */
+    static final int TLAB_SIZE_ALIGNMENT = Size.K.toInt();
+
+    private final Size minTlabSize;
+    private final Size maxTlabSize;
+
+    /**
+     * Size of the current TLAB of the thread, or of its current chunk if the TLAB is made of several chunks, zero if the
+     * thread has no TLAB.
+     */
+    private Size currentTlabSize;
+
+    /**
+     * Bytes allocated in TLABs by the thread since the last reset.
+     */
+    private long allocated;
+
+    /**
+     * Average of the bytes allocated in TLABs by the thread per GC cycle, negative if not sampled yet.
+     */
+    private long averageAllocated;
+
+    /**
+     * Creates a policy for a thread whose TLAB was just filled with a chunk of {@code initialTLABSize} bytes.
+     */
+    public AdaptiveTLABRefillPolicy(Size initialTLABSize, Size minTlabSize, Size maxTlabSize) {
+        super(initialTLABSize);
+        this.minTlabSize = minTlabSize;
+        this.maxTlabSize = maxTlabSize;
+        currentTlabSize = initialTLABSize;
+        averageAllocated = -1L;
+    }
+
+    private void retireTLAB(Size leftover) {
+        if (currentTlabSize.greaterThan(leftover)) {
+            allocated += currentTlabSize.minus(leftover).toLong();
+        }
+    }
+
+    @Override
+    public void notifyRefill(Size size, Size leftover) {
+        retireTLAB(leftover);
+        currentTlabSize = size;
+    }
+
+    @Override
+    public void notifyChunkChange(Size size, Size leftover) {
+        retireTLAB(leftover);
+        currentTlabSize = size;
+    }
+
+    @Override
+    public void notifyReset(Size leftover) {
+        retireTLAB(leftover);
+        currentTlabSize = Size.zero();
+        if (averageAllocated < 0) {
+            averageAllocated = allocated;
+        } else {
+            averageAllocated = (allocated * TLABAllocationWeight + averageAllocated * (100 - TLABAllocationWeight)) / 100;
+        }
+        allocated = 0L;
+        Size size = Size.fromLong(averageAllocated / Math.max(TLABRefillTarget, 1)).alignUp(TLAB_SIZE_ALIGNMENT);
+        if (size.lessThan(minTlabSize)) {
+            size = minTlabSize;
+        } else if (size.greaterThan(maxTlabSize)) {
+            size = maxTlabSize;
+        }
+        setNextTlabSize(size);
+    }
+}
@@ -69,6 +69,34 @@ public final class BootHeapRegion extends LinearAllocatorRegion {
         discoverSpecialReference();
     }
 
+    /**
+     * Number of words of the reference map of the boot heap region. Each word covers as many words of the region
+     * as there are bits in a word.
+     */
+    public int referenceMapWords() {
+        return UnsignedMath.divide(referenceMapBytes.length, Word.size());
+    }
+
+    /**
+     * Visit the references covered by a range of words of the reference map of the boot heap region.
+     * This lets the scanning of the region be split in chunks. Unlike {@link #visitReferences(PointerIndexVisitor)},
+     * it does not {@linkplain #discoverSpecialReference() discover} the special references of the region.
+     *
+     * @param firstRefMapWord index of the first word (inclusive) of the range
+     * @param endRefMapWord index of the last word (exclusive) of the range
+     * @param pointerIndexVisitor
+     */
+    public void visitReferences(int firstRefMapWord, int endRefMapWord, PointerIndexVisitor pointerIndexVisitor) {
+        if (Heap.logRootScanning()) {
+            if (firstRefMapWord == 0) {
+                Heap.rootScanLogger.logScanningBootHeap(this, start().plus(referenceMapBytes.length));
+            }
+            scanReferenceMap(pointerIndexVisitor, referenceMapBytes, firstRefMapWord, endRefMapWord, true);
+        } else {
+            scanReferenceMap(pointerIndexVisitor, referenceMapBytes, firstRefMapWord, endRefMapWord, false);
+        }
+    }
+
     /**
      * Visit references comprised in the specified range within the boot heap region.
      * @param start first address (inclusive) of the range
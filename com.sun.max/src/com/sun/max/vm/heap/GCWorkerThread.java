@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.heap;
+
+import com.sun.max.annotate.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.monitor.modal.sync.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * A thread helping the GC thread (i.e., the {@linkplain VmOperationThread VM operation thread}) with the parallel
+ * phases of a garbage collection.
+ * <p>
+ * A pool of {@link #MAX_GC_WORKER_THREADS} workers is created in the boot image, so that the workers and all the
+ * objects they use are never moved or collected. The first {@link #GCWorkerThreads} of them are started at VM startup.
+ * Like the VM operation thread, the workers are hidden from the application and are never frozen by
+ * {@linkplain VmOperation VM operations}.
+ * <p>
+ * A worker sleeps until the GC thread {@linkplain #beginCollection() begins} a collection. It then prepares the
+ * reference map of its own stack, the same way the GC thread does in {@link GCOperation#doIt()}, and waits for
+ * {@linkplain #run(Task) tasks} until the collection {@linkplain #endCollection() ends}. The collection does not proceed
+ * before all the workers have prepared their stack reference map, so that their stacks can be scanned as roots.
+ * Workers must not allocate, and the tasks they run must only refer to objects in the boot image.
+ */
+public final class GCWorkerThread extends Thread {
+
+    /**
+     * A unit of work that the GC thread and each started worker run once.
+     */
+    public interface Task {
+        /**
+         * Runs this task on the current thread.
+         *
+         * @param workerIndex {@code 0} for the GC thread, the index of the worker otherwise (from 1 to
+         *            {@link GCWorkerThread#numberOfWorkers()} inclusive)
+         */
+        void run(int workerIndex);
+    }
+
+    /**
+     * Number of workers created in the boot image, and so the maximum number of workers that can be started.
+     */
+    public static final int MAX_GC_WORKER_THREADS = 8;
+
+    private static int GCWorkerThreads = 0;
+    static {
+        VMOptions.addFieldOption("-XX:", "GCWorkerThreads", GCWorkerThread.class,
+            "Number of threads helping the GC thread with the parallel phases of a collection (at most " + MAX_GC_WORKER_THREADS + ").",
+            MaxineVM.Phase.PRISTINE);
+    }
+
+    /**
+     * Guards the state shared by the GC thread and the workers.
+     */
+    private static final Mutex lock = MutexFactory.create();
+
+    /**
+     * Notified whenever the state shared by the GC thread and the workers changes.
+     */
+    private static final ConditionVariable stateChanged = ConditionVariableFactory.create();
+
+    /**
+     * Number of workers started.
+     */
+    private static int numberOfWorkers;
+
+    /**
+     * Indicates if a collection is in progress.
+     */
+    private static boolean collecting;
+
+    /**
+     * Number of workers that have prepared their stack reference map for the collection in progress and have not yet
+     * left it.
+     */
+    private static int participants;
+
+    /**
+     * The task to run. A new task is announced by incrementing {@link #taskNumber}.
+     */
+    private static Task task;
+
+    private static int taskNumber;
+
+    /**
+     * Number of workers that have not yet run the current task.
+     */
+    private static int unfinished;
+
+    /**
+     * Index of this worker, from 1 to {@link #MAX_GC_WORKER_THREADS}.
+     */
+    private final int workerIndex;
+
+    @HOSTED_ONLY
+    public GCWorkerThread(ThreadGroup group, int workerIndex) {
+        super(group, "GC Worker " + workerIndex);
+        this.workerIndex = workerIndex;
+        setDaemon(true);
+    }
+
+    /**
+     * Starts the first {@link #GCWorkerThreads} workers.
+     */
+    public static void startWorkers() {
+        lock.init();
+        stateChanged.init();
+        final int count = Math.min(Math.max(GCWorkerThreads, 0), MAX_GC_WORKER_THREADS);
+        for (int i = 0; i < count; i++) {
+            VmThread.gcWorkerThreads[i].startVmSystemThread();
+        }
+        numberOfWorkers = count;
+    }
+
+    /**
+     * Gets the number of started workers. The GC thread and these workers together run each {@linkplain #run(Task) task}.
+     */
+    public static int numberOfWorkers() {
+        return numberOfWorkers;
+    }
+
+    /**
+     * Wakes up the workers at the beginning of a collection and waits until all of them have prepared their stack
+     * reference map. Must be called by the GC thread before any root is scanned.
+     */
+    public static void beginCollection() {
+        if (numberOfWorkers == 0) {
+            return;
+        }
+        lock.lock();
+        FatalError.check(!collecting && participants == 0, "GC workers must be idle before a collection");
+        collecting = true;
+        stateChanged.threadNotify(true);
+        while (participants < numberOfWorkers) {
+            stateChanged.threadWait(lock, 0);
+        }
+        lock.unlock();
+    }
+
+    /**
+     * Sends the workers back to sleep at the end of a collection and waits until all of them have left it.
+     */
+    public static void endCollection() {
+        if (numberOfWorkers == 0) {
+            return;
+        }
+        lock.lock();
+        collecting = false;
+        stateChanged.threadNotify(true);
+        while (participants > 0) {
+            stateChanged.threadWait(lock, 0);
+        }
+        lock.unlock();
+    }
+
+    /**
+     * Runs a task on the GC thread and on every started worker, and waits until all of them have run it.
+     * Must be called by the GC thread between {@link #beginCollection()} and {@link #endCollection()}.
+     */
+    public static void run(Task task) {
+        if (numberOfWorkers == 0) {
+            task.run(0);
+            return;
+        }
+        lock.lock();
+        FatalError.check(collecting && unfinished == 0, "GC worker task submitted outside of a collection or while another is running");
+        GCWorkerThread.task = task;
+        unfinished = numberOfWorkers;
+        taskNumber++;
+        stateChanged.threadNotify(true);
+        lock.unlock();
+
+        task.run(0);
+
+        lock.lock();
+        while (unfinished > 0) {
+            stateChanged.threadWait(lock, 0);
+        }
+        GCWorkerThread.task = null;
+        lock.unlock();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            lock.lock();
+            while (!collecting) {
+                stateChanged.threadWait(lock, 0);
+            }
+            lock.unlock();
+            collect();
+        }
+    }
+
+    @NEVER_INLINE
+    private void collect() {
+        // The next 2 statements *must* be adjacent as the reference map for this frame must
+        // be the same at both calls.
+        VmThreadLocal.prepareCurrentStackReferenceMap();
+        runTasks();
+    }
+
+    /**
+     * Runs the tasks submitted by the GC thread until the collection ends.
+     */
+    private void runTasks() {
+        lock.lock();
+        int lastTaskNumber = taskNumber;
+        participants++;
+        stateChanged.threadNotify(true);
+        while (true) {
+            while (collecting && taskNumber == lastTaskNumber) {
+                stateChanged.threadWait(lock, 0);
+            }
+            if (!collecting) {
+                break;
+            }
+            lastTaskNumber = taskNumber;
+            final Task currentTask = task;
+            lock.unlock();
+
+            currentTask.run(workerIndex);
+
+            lock.lock();
+            if (--unfinished == 0) {
+                stateChanged.threadNotify(true);
+            }
+        }
+        participants--;
+        stateChanged.threadNotify(true);
+        lock.unlock();
+    }
+}
@@ -455,7 +455,11 @@ public final class Heap {
         if (verbose()) {
             VmThread.current().gcRequest.printBeforeGC();
         }
-        final boolean result = heapScheme().collectGarbage();
+        boolean result = heapScheme().collectGarbage();
+        if (!result && SpecialReferenceManager.clearSoftReferencesBeforeOutOfMemory()) {
+            // Soft references must all be cleared before running out of memory
+            result = heapScheme().collectGarbage();
+        }
         if (verbose()) {
             VmThread.current().gcRequest.printAfterGC(result);
         }
@@ -326,6 +326,18 @@ public interface HeapScheme extends VMScheme {
 
     void postWriteBarrier(Reference ref,  int displacement, int index, Reference value);
 
+    /**
+     * Post-write barrier for a bulk update of the reference elements of an array, e.g. by {@link System#arraycopy}.
+     * Stands for the post-write barriers of all the updated elements; it is applied once, after they have all been
+     * written without barriers.
+     *
+     * @param ref the updated array
+     * @param displacement the offset from the origin of the array to its first element
+     * @param firstIndex the index of the first updated element
+     * @param length the number of updated elements
+     */
+    void postWriteBarrierRange(Reference ref, int displacement, int firstIndex, int length);
+
     enum PIN_SUPPORT_FLAG {
         /**
          * Just to indicate that the pin support flag has been initialized (makes the pinningSupportFlags treated as constant when not zero).
@@ -464,10 +476,10 @@ public interface HeapScheme extends VMScheme {
     CodeManager createCodeManager();
 
     /**
-     * Returns the garbage collection management bean for this heap scheme.
-     * @return the {@link GarbageCollectorMXBean} instance
+     * Returns the garbage collection management beans for this heap scheme, e.g. one per generation.
+     * @return the {@link GarbageCollectorMXBean} instances
      */
-    GarbageCollectorMXBean getGarbageCollectorMXBean();
+    GarbageCollectorMXBean[] getGarbageCollectorMXBeans();
 
     /**
      * Indicates whether this heap scheme supports tagging of heap object for debugging purposes.
@@ -24,9 +24,14 @@ package com.sun.max.vm.heap;
 import static com.sun.max.vm.thread.VmThread.*;
 import static com.sun.max.vm.thread.VmThreadLocal.*;
 
+import java.lang.management.*;
+import java.util.*;
+
 import javax.management.*;
 
-import com.sun.management.*;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GarbageCollectorMXBean;
+import com.sun.management.GcInfo;
 import com.sun.max.annotate.*;
 import com.sun.max.memory.*;
 import com.sun.max.platform.*;
@@ -57,21 +62,203 @@ public abstract class HeapSchemeAdaptor extends AbstractVMScheme implements Heap
         VMOptions.addFieldOption("-XX:", "DisableExplicitGC", HeapSchemeAdaptor.class, "Tells whether System.gc() forces a full GC", MaxineVM.Phase.PRISTINE);
     }
 
-    public class GarbageCollectorMXBeanAdaptor extends MemoryManagerMXBeanAdaptor implements GarbageCollectorMXBean  {
+    /**
+     * Adaptor for the garbage collector beans of a heap scheme.
+     * <p>
+     * A bean records the collections it is {@linkplain HeapSchemeAdaptor#collectingMXBean() reported as doing} by the
+     * {@link Heap.GCCallback} of the heap scheme: their number and time, as well as the usage of its pools before and
+     * after the last one. Recording does not allocate, as it is done during the GC. The {@link GcInfo} of the last
+     * collection and its notifications are created afterwards from the recorded values. Collections that end before the
+     * previous one was notified are not notified.
+     */
+    public class GarbageCollectorMXBeanAdaptor extends MemoryManagerMXBeanAdaptor implements GarbageCollectorMXBean, NotificationEmitter {
+        private final String action;
+
+        private volatile long count;
+        private long totalNanos;
+        private long startNanos;
+        private long endNanos;
+        private boolean explicit;
+        private long[] usedBefore = new long[0];
+        private long[] committedBefore = new long[0];
+        private long[] usedAfter = new long[0];
+        private long[] committedAfter = new long[0];
+
+        private NotificationBroadcasterSupport broadcaster;
+        private long notifiedCount;
+        private long sequenceNumber;
+
         public GarbageCollectorMXBeanAdaptor(String name) {
+            this(name, "end of major GC");
+        }
+
+        /**
+         * @param name the name of the collector
+         * @param action the action reported by the notifications of the collector
+         */
+        public GarbageCollectorMXBeanAdaptor(String name, String action) {
             super(name);
+            this.action = action;
+        }
+
+        @Override
+        public void add(MemoryPoolMXBean bean) {
+            super.add(bean);
+            final int n = getAll().size();
+            usedBefore = new long[n];
+            committedBefore = new long[n];
+            usedAfter = new long[n];
+            committedAfter = new long[n];
+        }
+
+        private void sample(long[] used, long[] committed) {
+            final List<MemoryPoolMXBean> pools = getAll();
+            for (int i = 0; i < used.length; i++) {
+                final MemoryPoolMXBean pool = pools.get(i);
+                if (pool instanceof MemoryPoolMXBeanAdaptor) {
+                    used[i] = ((MemoryPoolMXBeanAdaptor) pool).usedBytes();
+                    committed[i] = ((MemoryPoolMXBeanAdaptor) pool).committedBytes();
+                }
+            }
+        }
+
+        /**
+         * Records the start of a collection. Called during the GC.
+         */
+        public void collectionStarted() {
+            startNanos = System.nanoTime();
+            sample(usedBefore, committedBefore);
+        }
+
+        /**
+         * Records the end of a collection. Called during the GC.
+         *
+         * @param explicit specifies if the collection was requested by {@link System#gc()}
+         */
+        public void collectionEnded(boolean explicit) {
+            endNanos = System.nanoTime();
+            sample(usedAfter, committedAfter);
+            final List<MemoryPoolMXBean> pools = getAll();
+            for (int i = 0; i < usedAfter.length; i++) {
+                final MemoryPoolMXBean pool = pools.get(i);
+                if (pool instanceof MemoryPoolMXBeanAdaptor) {
+                    ((MemoryPoolMXBeanAdaptor) pool).recordCollectionUsage(usedAfter[i], committedAfter[i]);
+                }
+            }
+            this.explicit = explicit;
+            totalNanos += endNanos - startNanos;
+            count++;
         }
 
         public GcInfo getLastGcInfo() {
-            return null;
+            return lastGcInfo(new long[1]);
+        }
+
+        /**
+         * Creates the {@link GcInfo} of the last collection from the recorded values.
+         *
+         * @param countAndCause receives the number of the collection, negated if it was explicit
+         * @return {@code null} if there was no collection
+         */
+        private GcInfo lastGcInfo(long[] countAndCause) {
+            final List<MemoryPoolMXBean> pools = getAll();
+            final String[] poolNames = new String[pools.size()];
+            final MemoryUsage[] before = new MemoryUsage[poolNames.length];
+            final MemoryUsage[] after = new MemoryUsage[poolNames.length];
+            long c;
+            long start;
+            long end;
+            boolean wasExplicit;
+            do {
+                // A collection may happen while the values are read
+                c = count;
+                if (c == 0) {
+                    return null;
+                }
+                start = startNanos;
+                end = endNanos;
+                wasExplicit = explicit;
+                for (int i = 0; i < poolNames.length; i++) {
+                    final MemoryPoolMXBean pool = pools.get(i);
+                    final MemoryUsage usage = pool.getUsage();
+                    final long init = usage == null ? -1 : usage.getInit();
+                    final long max = usage == null ? -1 : usage.getMax();
+                    poolNames[i] = pool.getName();
+                    before[i] = usage(init, usedBefore[i], committedBefore[i], max);
+                    after[i] = usage(init, usedAfter[i], committedAfter[i], max);
+                }
+            } while (c != count);
+            countAndCause[0] = wasExplicit ? -c : c;
+            final long vmStart = MaxineVM.getStartupTimeNano();
+            return GarbageCollectionNotifier.toGcInfo(c, (start - vmStart) / 1000000, (end - vmStart) / 1000000, poolNames, before, after);
+        }
+
+        private MemoryUsage usage(long init, long used, long committed, long max) {
+            return new MemoryUsage(init, used, committed, max < 0 ? max : Math.max(max, committed));
         }
 
         public long getCollectionCount() {
-            return collectionCount;
+            return count;
         }
 
         public long getCollectionTime() {
-            return accumulatedGCTime;
+            return totalNanos / 1000000;
+        }
+
+        /**
+         * Sends a notification for the last collection if it has not been notified yet and there are listeners.
+         */
+        public void sendPendingNotification() {
+            final NotificationBroadcasterSupport b;
+            synchronized (this) {
+                b = broadcaster;
+            }
+            if (b == null || count == notifiedCount) {
+                return;
+            }
+            final long[] countAndCause = new long[1];
+            final GcInfo gcInfo = lastGcInfo(countAndCause);
+            final long c = Math.abs(countAndCause[0]);
+            final String cause = countAndCause[0] < 0 ? "System.gc()" : "Allocation Failure";
+            final Notification notification;
+            synchronized (this) {
+                if (c == notifiedCount) {
+                    return;
+                }
+                notifiedCount = c;
+                notification = new Notification(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION, getObjectName(), ++sequenceNumber,
+                                System.currentTimeMillis(), getName());
+            }
+            notification.setUserData(GarbageCollectionNotifier.toNotificationData(getName(), action, cause, gcInfo));
+            b.sendNotification(notification);
+        }
+
+        public synchronized void addNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) {
+            if (broadcaster == null) {
+                broadcaster = new NotificationBroadcasterSupport(getNotificationInfo());
+                notifiedCount = count;
+                GarbageCollectionNotifier.ensureStarted();
+            }
+            broadcaster.addNotificationListener(listener, filter, handback);
+        }
+
+        public synchronized void removeNotificationListener(NotificationListener listener) throws ListenerNotFoundException {
+            if (broadcaster == null) {
+                throw new ListenerNotFoundException();
+            }
+            broadcaster.removeNotificationListener(listener);
+        }
+
+        public synchronized void removeNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) throws ListenerNotFoundException {
+            if (broadcaster == null) {
+                throw new ListenerNotFoundException();
+            }
+            broadcaster.removeNotificationListener(listener, filter, handback);
+        }
+
+        public MBeanNotificationInfo[] getNotificationInfo() {
+            return new MBeanNotificationInfo[] {new MBeanNotificationInfo(new String[] {GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION},
+                            Notification.class.getName(), "GC notification")};
         }
 
         @Override
@@ -186,11 +373,6 @@ public abstract class HeapSchemeAdaptor extends AbstractVMScheme implements Heap
      */
     protected int collectionCount;
 
-    /**
-     * Support for {@link GarbageCollectorMXBean#getCollectionTime()}.
-     */
-    protected long accumulatedGCTime;
-
     /**
      * Per thread count of request for disabling GC. It allows to fail-fast if a thread pinning an object request garbage collection (which create a deadlock).
      */
@@ -204,11 +386,35 @@ public abstract class HeapSchemeAdaptor extends AbstractVMScheme implements Heap
     @Override
     public void initialize(MaxineVM.Phase phase) {
         super.initialize(phase);
-        if (phase == MaxineVM.Phase.PRISTINE) {
+        if (MaxineVM.isHosted() && phase == MaxineVM.Phase.BOOTSTRAPPING) {
+            garbageCollectorMXBeans = createGarbageCollectorMXBeans();
+            Heap.registerGCCallback(new GarbageCollectorMXBeanCallback());
+        } else if (phase == MaxineVM.Phase.PRISTINE) {
             releaseUnusedReservedVirtualSpace();
         }
     }
 
+    /**
+     * Feeds the garbage collector bean doing the current collection.
+     */
+    private final class GarbageCollectorMXBeanCallback implements Heap.GCCallback {
+        private GarbageCollectorMXBeanAdaptor bean;
+
+        public void gcCallback(Heap.GCCallbackPhase gcCallbackPhase) {
+            if (gcCallbackPhase == Heap.GCCallbackPhase.BEFORE) {
+                bean = collectingMXBean();
+                if (bean != null) {
+                    bean.collectionStarted();
+                }
+            } else if (gcCallbackPhase == Heap.GCCallbackPhase.AFTER && bean != null) {
+                final VmOperation operation = VmOperationThread.instance().currentOperation();
+                final VmThread requester = operation == null ? null : operation.callingThread();
+                bean.collectionEnded(requester != null && requester.gcRequest.explicit);
+                bean = null;
+            }
+        }
+    }
+
     @HOSTED_ONLY
     public CodeManager createCodeManager() {
         switch (Platform.platform().os) {
@@ -319,6 +525,10 @@ public abstract class HeapSchemeAdaptor extends AbstractVMScheme implements Heap
     public void postWriteBarrier(Reference ref,  int displacement, int index, Reference value) {
         // do nothing
     }
+    @INLINE
+    public void postWriteBarrierRange(Reference ref, int displacement, int firstIndex, int length) {
+        // do nothing
+    }
 
     public boolean isPinned(Object object) {
         FatalError.check(supportsPinning(PIN_SUPPORT_FLAG.IS_QUERYABLE), "Object pinning support doesn't support querying");
@@ -341,13 +551,37 @@ public abstract class HeapSchemeAdaptor extends AbstractVMScheme implements Heap
         return 0;
     }
 
-    public GarbageCollectorMXBean getGarbageCollectorMXBean() {
-        return new GarbageCollectorMXBeanAdaptor("Invalid") {
+    /**
+     * The garbage collector beans of this heap scheme, created when the boot image is built so that collections are
+     * recorded from the start.
+     */
+    private GarbageCollectorMXBeanAdaptor[] garbageCollectorMXBeans;
+
+    public GarbageCollectorMXBean[] getGarbageCollectorMXBeans() {
+        return garbageCollectorMXBeans.clone();
+    }
+
+    /**
+     * Creates the garbage collector beans of this heap scheme. The default is a single invalid bean.
+     */
+    @HOSTED_ONLY
+    protected GarbageCollectorMXBeanAdaptor[] createGarbageCollectorMXBeans() {
+        return new GarbageCollectorMXBeanAdaptor[] {new GarbageCollectorMXBeanAdaptor("Invalid") {
             @Override
             public boolean isValid() {
                 return false;
             }
-        };
+        }};
+    }
+
+    /**
+     * Gets the garbage collector bean that records the collection starting. Called during the GC, at the
+     * {@linkplain Heap.GCCallbackPhase#BEFORE start} of a collection.
+     *
+     * @return {@code null} if collections are not recorded, which is the default
+     */
+    protected GarbageCollectorMXBeanAdaptor collectingMXBean() {
+        return null;
     }
 
     public int reservedVirtualSpaceKB() {
@@ -21,6 +21,7 @@
  */
 package com.sun.max.vm.heap;
 
+import static com.sun.max.vm.VMConfiguration.*;
 import static com.sun.max.vm.VMOptions.*;
 import static com.sun.max.vm.thread.VmThread.*;
 import static com.sun.max.vm.thread.VmThreadLocal.*;
@@ -40,6 +41,7 @@ import com.sun.max.vm.layout.*;
 import com.sun.max.vm.log.VMLog.Record;
 import com.sun.max.vm.log.hosted.*;
 import com.sun.max.vm.object.*;
+import com.sun.max.vm.profilers.sampling.AllocationSampler;
 import com.sun.max.vm.profilers.tracing.numa.NUMAProfiler;
 import com.sun.max.vm.reference.*;
 import com.sun.max.vm.run.java.JavaRunScheme;
@@ -108,6 +110,24 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
     private static final VMSizeOption tlabSizeOption = register(new VMSizeOption("-XX:TLABSize=", Size.K.times(64),
         "The size of thread-local allocation buffers."), MaxineVM.Phase.PRISTINE);
 
+    /**
+     * A VM option for sizing TLABs after the allocation rate of their thread.
+     * @see AdaptiveTLABRefillPolicy
+     */
+    public static boolean UseAdaptiveTLAB = true;
+    static {
+        VMOptions.addFieldOption("-XX:", "UseAdaptiveTLAB", HeapSchemeWithTLAB.class,
+            "Size the thread-local allocation buffers of a thread after its allocation rate.", MaxineVM.Phase.PRISTINE);
+    }
+
+    /**
+     * VM options bounding the size of TLABs when {@link #UseAdaptiveTLAB} is set. Defaults are 4 K and 1 M.
+     */
+    private static final VMSizeOption minTlabSizeOption = register(new VMSizeOption("-XX:MinTLABSize=", Size.K.times(4),
+        "The minimum size of adaptively sized thread-local allocation buffers."), MaxineVM.Phase.PRISTINE);
+    private static final VMSizeOption maxTlabSizeOption = register(new VMSizeOption("-XX:MaxTLABSize=", Size.M,
+        "The maximum size of adaptively sized thread-local allocation buffers."), MaxineVM.Phase.PRISTINE);
+
     /**
      * The top of the current thread-local allocation buffer. This will remain zero if TLABs are not
      * {@linkplain #useTLAB enabled}.
@@ -161,6 +181,7 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
             final Pointer etla = VmThreadLocal.ETLA.load(tla);
             final Pointer tlabMark = TLAB_MARK.load(etla);
             Pointer tlabTop = TLAB_TOP.load(etla);
+            final TLABRefillPolicy refillPolicy = TLABRefillPolicy.getForCurrentThread(etla);
             if (logTLAB()) {
                 logger.logReset(UnsafeCast.asVmThread(VM_THREAD.loadRef(etla).toJava()), tlabTop, tlabMark);
             }
@@ -173,7 +194,6 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
                 }
                 // (2) allocation has been disabled for the thread.
                 FatalError.check(!ALLOCATION_DISABLED.load(currentTLA()).isZero(), "inconsistent TLAB state");
-                TLABRefillPolicy refillPolicy = TLABRefillPolicy.getForCurrentThread(etla);
                 if (refillPolicy != null) {
                     // Go fetch the actual TLAB top in case the heap scheme needs it for its doBeforeReset handler.
                     tlabTop = refillPolicy.getSavedTlabTop().asPointer();
@@ -181,6 +201,13 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
                     refillPolicy.saveTlabTop(Address.zero());
                 }
             }
+            if (!tlabMark.isZero()) {
+                final Size leftover = tlabTop.greaterThan(tlabMark) ? tlabTop.minus(tlabMark).asSize() : Size.zero();
+                ((HeapSchemeWithTLAB) vmConfig().heapScheme()).globalTlabStats.resetLeftover += leftover.toLong();
+                if (refillPolicy != null) {
+                    refillPolicy.notifyReset(leftover);
+                }
+            }
             doBeforeReset(etla, tlabMark, tlabTop);
             TLAB_TOP.store(etla, Address.zero());
             TLAB_MARK.store(etla, Address.zero());
@@ -219,6 +246,12 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
      */
     private Size initialTlabSize;
 
+    /**
+     * Bounds of the size of TLABs sized by an {@link AdaptiveTLABRefillPolicy}.
+     */
+    private Size minTlabSize;
+    private Size maxTlabSize;
+
     /*
      * TLAB statistics. For now, something simple shared by all threads without synchronization.
      * Will need to get per-thread, with statistics gathered globally at safepoint,
@@ -240,10 +273,40 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
         volatile long tlabOverflowCount = 0L;
 
         /**
-         * Leftover after refill.
+         * Count TLAB refills, including the first fill of a thread's TLAB.
+         */
+        volatile long refillCount = 0L;
+
+        /**
+         * Count changes of TLABs made of several chunks to their next chunk.
+         */
+        volatile long chunkChangeCount = 0L;
+
+        /**
+         * Bytes of heap handed out as TLABs, including all the chunks of TLABs made of several chunks.
+         */
+        volatile long refilledBytes = 0L;
+
+        /**
+         * Leftover after refill or chunk change.
          */
         volatile long leftover = 0L;
 
+        /**
+         * Leftover of the TLABs reset before a GC.
+         */
+        volatile long resetLeftover = 0L;
+
+        private static void printSize(long size) {
+            if (size > Size.K.toLong()) {
+                Log.print(Size.K.plus(size).unsignedShiftedRight(10).toLong());
+                Log.println(" K");
+            } else {
+                Log.print(size);
+                Log.println(" bytes");
+            }
+        }
+
         void printTLABStats() {
             Log.println("\n\n Summary TLAB stats");
             Log.print("   inlined allocation slow-path count: ");
@@ -252,13 +315,20 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
             Log.println(runtimeSlowPathAllocateCount);
             Log.print("   tlab overflow count               :");
             Log.println(tlabOverflowCount);
+            Log.print("   tlab refill count                 :");
+            Log.println(refillCount);
+            Log.print("   tlab chunk change count           :");
+            Log.println(chunkChangeCount);
+            Log.print("   bytes refilled                    :");
+            printSize(refilledBytes);
             Log.print("   leftover at TLAB refill           :");
-            if (leftover > Size.K.toLong()) {
-                Log.print(Size.K.plus(leftover).unsignedShiftedRight(10).toLong());
-                Log.println(" K");
-            } else {
-                Log.print(leftover);
-                Log.println(" bytes");
+            printSize(leftover);
+            Log.print("   leftover at TLAB reset            :");
+            printSize(resetLeftover);
+            if (refilledBytes > 0L) {
+                Log.print("   wasted in retired TLABs           :");
+                Log.print((leftover + resetLeftover) * 100 / refilledBytes);
+                Log.println(" %");
             }
         }
     }
@@ -282,6 +352,8 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
             if (initialTlabSize.lessThan(0)) {
                 FatalError.unexpected("Specified TLAB size is too small");
             }
+            minTlabSize = minTlabSizeOption.getValue().alignUp(AdaptiveTLABRefillPolicy.TLAB_SIZE_ALIGNMENT);
+            maxTlabSize = maxTlabSizeOption.getValue().alignUp(AdaptiveTLABRefillPolicy.TLAB_SIZE_ALIGNMENT);
         } else if (phase == MaxineVM.Phase.RUNNING) {
             HeapSchemeWithTLAB.setTraceTLAB(false);
         } else if (phase == MaxineVM.Phase.TERMINATING) {
@@ -361,6 +433,27 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
         initialTlabSize = size;
     }
 
+    /**
+     * Largest TLAB the heap scheme can refill a TLAB with.
+     * Heap schemes whose allocators limit the size of a TLAB override this to bound adaptively sized TLABs.
+     */
+    protected Size maxTlabSize() {
+        return maxTlabSize;
+    }
+
+    /**
+     * Creates the refill policy of a thread whose TLAB was just filled for the first time.
+     * @param tlabSize size of the first TLAB of the thread
+     */
+    protected TLABRefillPolicy newTLABRefillPolicy(Size tlabSize) {
+        if (UseAdaptiveTLAB) {
+            final Size max = maxTlabSize();
+            final Size min = minTlabSize.greaterThan(max) ? max : minTlabSize;
+            return new AdaptiveTLABRefillPolicy(tlabSize, min, max);
+        }
+        return new SimpleTLABRefillPolicy(tlabSize);
+    }
+
     public void refillTLAB(Pointer tlab, Size size) {
         final Pointer etla = ETLA.load(currentTLA());
         refillTLAB(etla, tlab, size);
@@ -379,15 +472,25 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
     public void refillTLAB(Pointer etla, Pointer tlab, Size size) {
         final Pointer tlabTop = tlab.plus(size); // top of the new TLAB
         final Pointer allocationMark = TLAB_MARK.load(etla);
+        final TLABRefillPolicy refillPolicy = TLABRefillPolicy.getForCurrentThread(etla);
+        Size leftover = Size.zero();
         if (!allocationMark.isZero()) {
             final Pointer oldTop = TLAB_TOP.load(etla);
-            globalTlabStats.leftover += oldTop.minus(allocationMark).toLong();
+            if (oldTop.greaterThan(allocationMark)) {
+                leftover = oldTop.minus(allocationMark).asSize();
+            }
+            globalTlabStats.leftover += leftover.toLong();
             // It is a refill, not an initial fill. So invoke handler.
             doBeforeTLABRefill(allocationMark, oldTop);
         } else {
             ProgramError.check(CUSTOM_ALLOCATION_ENABLED.load(etla).isZero(),
                 "Must not refill TLAB when in custom allocator is set");
         }
+        globalTlabStats.refillCount++;
+        globalTlabStats.refilledBytes += size.toLong();
+        if (refillPolicy != null) {
+            refillPolicy.notifyRefill(size, leftover);
+        }
 
         TLAB_TOP.store(etla, tlabTop);
         TLAB_MARK.store(etla, tlab);
@@ -403,6 +506,27 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
         TLAB_MARK.store(etla, tlab);
     }
 
+    /**
+     * Moves a TLAB made of several chunks of free space on to its next chunk, and accounts for the change in the TLAB
+     * statistics and the refill policy of the thread as for a refill.
+     *
+     * @param etla
+     * @param chunk the next chunk of the TLAB
+     * @param size the size of the next chunk available for allocation
+     * @param leftover space left unused in the current chunk
+     */
+    @INLINE
+    protected final void changeTLABChunk(Pointer etla, Pointer chunk, Size size, Size leftover) {
+        globalTlabStats.chunkChangeCount++;
+        globalTlabStats.refilledBytes += size.toLong();
+        globalTlabStats.leftover += leftover.toLong();
+        final TLABRefillPolicy refillPolicy = TLABRefillPolicy.getForCurrentThread(etla);
+        if (refillPolicy != null) {
+            refillPolicy.notifyChunkChange(size, leftover);
+        }
+        fastRefillTLAB(etla, chunk, size);
+    }
+
     /**
      * Handles TLAB allocation failure.
      * The handler is specified the size of the failed allocation and the allocation mark of the TLAB and must return
@@ -486,17 +610,15 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
     @NO_SAFEPOINT_POLLS("dynamic profiler call chain must be atomic")
     @NEVER_INLINE
     public final void profileNewTuple(int size, Hub hub, Pointer cell) {
-        final String objectType = hub.classActor.name();
         final long address = cell.toLong();
-        NUMAProfiler.profileNew(size, objectType, address);
+        NUMAProfiler.profileNew(size, hub.classActor.id, address);
     }
 
     @NO_SAFEPOINT_POLLS("dynamic profiler call chain must be atomic")
     @NEVER_INLINE
     public final void profileNewArray(int size, Hub hub, Pointer cell) {
-        final String objectType = hub.classActor.name();
         final long address = cell.toLong();
-        NUMAProfiler.profileNew(size, objectType, address);
+        NUMAProfiler.profileNew(size, hub.classActor.id, address);
     }
 
     @NO_SAFEPOINT_POLLS("dynamic profiler call chain must be atomic")
@@ -554,7 +676,11 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
         }
         globalTlabStats.tlabOverflowCount++;
         // This path will always be taken if TLAB allocation is not enabled.
-        return handleTLABOverflow(size, etla, oldAllocationMark, tlabEnd);
+        final Pointer cell = handleTLABOverflow(size, etla, oldAllocationMark, tlabEnd);
+        if (AllocationSampler.isEnabled()) {
+            AllocationSampler.afterSlowPathAllocate(etla, oldAllocationMark, TLAB_MARK.load(etla), size);
+        }
+        return cell;
     }
 
     @NEVER_INLINE
@@ -577,9 +703,8 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
 
         NUMAProfiler.checkForFlareObject(dynamicHub);
         if (NUMAProfiler.shouldProfile()) {
-            final String objectType = dynamicHub.classActor.name();
             final long address = cell.toLong();
-            NUMAProfiler.profileNew(size.toInt(), objectType, address);
+            NUMAProfiler.profileNew(size.toInt(), dynamicHub.classActor.id, address);
         }
         return Cell.plantArray(cell, size, dynamicHub, length);
     }
@@ -595,9 +720,8 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
         } else {
             NUMAProfiler.checkForFlareObject(hub);
             if (NUMAProfiler.shouldProfile()) {
-                final String objectType = hub.classActor.name();
                 final long address = cell.toLong();
-                NUMAProfiler.profileNew(hub.tupleSize.toInt(), objectType, address);
+                NUMAProfiler.profileNew(hub.tupleSize.toInt(), hub.classActor.id, address);
             }
             return Cell.plantTuple(cell, hub);
         }
@@ -610,9 +734,8 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
 
         NUMAProfiler.checkForFlareObject(hub);
         if (NUMAProfiler.shouldProfile()) {
-            final String objectType = hub.classActor.name();
             final long address = cell.toLong();
-            NUMAProfiler.profileNew(size.toInt(), objectType, address);
+            NUMAProfiler.profileNew(size.toInt(), hub.classActor.id, address);
         }
         return Cell.plantHybrid(cell, size, hub);
     }
@@ -638,9 +761,8 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
         final Hub hub = Layout.getHub(oldOrigin);
         NUMAProfiler.checkForFlareObject(hub);
         if (NUMAProfiler.shouldProfile()) {
-            final String objectType = hub.classActor.name();
             final long address = cell.toLong();
-            NUMAProfiler.profileNew(size.toInt(), objectType, address);
+            NUMAProfiler.profileNew(size.toInt(), hub.classActor.id, address);
         }
     }
 
@@ -677,6 +799,9 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
     @Override
     public void notifyCurrentThreadDetach() {
         tlabReset(currentTLA());
+        if (AllocationSampler.isEnabled()) {
+            AllocationSampler.retireCurrentThread(ETLA.load(currentTLA()));
+        }
     }
 
     public static final TLABLogger logger = MaxineVM.isDebug() ? new TLABLogger(true) : new TLABLogger();
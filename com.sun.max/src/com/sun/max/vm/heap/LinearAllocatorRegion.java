@@ -205,4 +205,18 @@ public class LinearAllocatorRegion extends LinearAllocationMemoryRegion {
             scanReferences(pointerIndexVisitor, refMap, refMapWordIndex++, logging);
         }
     }
+
+    /**
+     * Scan the references covered by a range of words of a reference map.
+     * @param firstRefMapWord index of the first word (inclusive) of the range
+     * @param endRefMapWord index of the last word (exclusive) of the range
+     */
+    @INLINE
+    protected final void scanReferenceMap(PointerIndexVisitor pointerIndexVisitor, byte [] referenceMapBytes, int firstRefMapWord, int endRefMapWord, boolean logging) {
+        final Pointer refMap =  ArrayAccess.elementPointer(referenceMapBytes, 0);
+        int refMapWordIndex = firstRefMapWord;
+        while (refMapWordIndex < endRefMapWord) {
+            scanReferences(pointerIndexVisitor, refMap, refMapWordIndex++, logging);
+        }
+    }
 }
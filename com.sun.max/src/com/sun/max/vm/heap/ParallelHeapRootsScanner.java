@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.heap;
+
+import static com.sun.max.vm.VMConfiguration.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.code.*;
+import com.sun.max.vm.monitor.*;
+import com.sun.max.vm.reference.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * Scans the GC roots of the VM as work units that any number of {@linkplain Worker workers} can claim.
+ * The roots are partitioned into the following units:
+ * <ul>
+ * <li>the references of each active mutator thread, plus one unit for the references
+ * {@linkplain MonitorScheme#scanReferences(PointerIndexVisitor) held} by the monitor scheme,</li>
+ * <li>chunks of {@link #BootHeapRootsChunkSize} words of the reference map of the {@linkplain BootHeapRegion boot heap region},</li>
+ * <li>the runtime code regions.</li>
+ * </ul>
+ * Units are claimed by atomically incrementing a cursor, so each unit is scanned by exactly one worker, which feeds the
+ * references it finds to its own visitor (e.g., a per-worker marking stack or evacuation queue).
+ * The cursors are {@linkplain #reset() reset} by the thread coordinating the root scanning before the workers start.
+ * Typically, the GC thread and each of the {@linkplain GCWorkerThread GC worker threads} use their own worker, and
+ * run it as a {@linkplain GCWorkerThread#run(GCWorkerThread.Task) task}. When no GC worker thread is started, the
+ * single worker of the GC thread claims all the units and the cursors are updated without atomic operations.
+ */
+public final class ParallelHeapRootsScanner {
+
+    private static int BootHeapRootsChunkSize = 64;
+    static {
+        VMOptions.addFieldOption("-XX:", "BootHeapRootsChunkSize", ParallelHeapRootsScanner.class,
+            "Number of words of the boot heap reference map scanned by a root scanning work unit.");
+    }
+
+    /**
+     * Index of the next thread to claim. The threads are numbered in the order of the {@linkplain VmThreadMap#ACTIVE
+     * active thread list}, which does not change while the roots are scanned.
+     */
+    private volatile int nextThread;
+
+    /**
+     * Index of the next unit after the threads, i.e., the monitor scheme, to claim.
+     */
+    private volatile int nextMonitors;
+
+    /**
+     * Index of the next chunk of the boot heap reference map to claim.
+     */
+    private volatile int nextBootHeapChunk;
+
+    /**
+     * Index of the next runtime code region to claim.
+     */
+    private volatile int nextCodeRegion;
+
+    @FOLD
+    private static int nextThreadOffset() {
+        return ClassActor.fromJava(ParallelHeapRootsScanner.class).findLocalInstanceFieldActor("nextThread").offset();
+    }
+
+    @FOLD
+    private static int nextMonitorsOffset() {
+        return ClassActor.fromJava(ParallelHeapRootsScanner.class).findLocalInstanceFieldActor("nextMonitors").offset();
+    }
+
+    @FOLD
+    private static int nextBootHeapChunkOffset() {
+        return ClassActor.fromJava(ParallelHeapRootsScanner.class).findLocalInstanceFieldActor("nextBootHeapChunk").offset();
+    }
+
+    @FOLD
+    private static int nextCodeRegionOffset() {
+        return ClassActor.fromJava(ParallelHeapRootsScanner.class).findLocalInstanceFieldActor("nextCodeRegion").offset();
+    }
+
+    /**
+     * Claims the next unit of the cursor at a given offset.
+     *
+     * @return the index of the claimed unit
+     */
+    private int claim(int cursorOffset) {
+        final Reference reference = Reference.fromJava(this);
+        if (GCWorkerThread.numberOfWorkers() == 0) {
+            // No other worker competes for the units
+            final int index = reference.readInt(cursorOffset);
+            reference.writeInt(cursorOffset, index + 1);
+            return index;
+        }
+        int index;
+        do {
+            index = reference.readInt(cursorOffset);
+        } while (reference.compareAndSwapInt(cursorOffset, index, index + 1) != index);
+        return index;
+    }
+
+    /**
+     * Makes all the units available again. Must be called before the workers start scanning the roots.
+     */
+    public void reset() {
+        nextThread = 0;
+        nextMonitors = 0;
+        nextBootHeapChunk = 0;
+        nextCodeRegion = 0;
+    }
+
+    /**
+     * Creates a worker scanning roots with a given visitor.
+     */
+    public Worker newWorker(PointerIndexVisitor pointerIndexVisitor, CellVisitor cellVisitor) {
+        return new Worker(pointerIndexVisitor, cellVisitor);
+    }
+
+    /**
+     * A participant to the scanning of the roots. A worker is used by a single thread at a time.
+     */
+    public final class Worker implements Pointer.Procedure {
+        private final PointerIndexVisitor pointerIndexVisitor;
+        private final CellVisitor cellVisitor;
+
+        /**
+         * Index of the thread visited by the walk of the thread list in progress.
+         */
+        private int threadIndex;
+
+        /**
+         * Index of the thread claimed by this worker and not yet scanned.
+         */
+        private int claimedThread;
+
+        Worker(PointerIndexVisitor pointerIndexVisitor, CellVisitor cellVisitor) {
+            this.pointerIndexVisitor = pointerIndexVisitor;
+            this.cellVisitor = cellVisitor;
+        }
+
+        public void run(Pointer tla) {
+            if (threadIndex++ == claimedThread) {
+                if (Heap.logGCPhases()) {
+                    Heap.phaseLogger.logScanningThreadRoots(VmThread.fromTLA(tla));
+                }
+                VmThreadLocal.scanReferences(tla, pointerIndexVisitor);
+                claimedThread = claim(nextThreadOffset());
+            }
+        }
+
+        /**
+         * Scans the references of the threads claimed by this worker and, if it claims it, those held by the monitor scheme.
+         */
+        public void scanThreads() {
+            threadIndex = 0;
+            claimedThread = claim(nextThreadOffset());
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, this);
+            if (claim(nextMonitorsOffset()) == 0) {
+                vmConfig().monitorScheme().scanReferences(pointerIndexVisitor);
+            }
+        }
+
+        /**
+         * Scans the chunks of the boot heap reference map claimed by this worker.
+         * The worker claiming the first chunk also discovers the special references of the boot heap region.
+         */
+        public void scanBootHeap() {
+            final BootHeapRegion bootHeapRegion = Heap.bootHeapRegion;
+            final int referenceMapWords = bootHeapRegion.referenceMapWords();
+            final int chunkSize = BootHeapRootsChunkSize > 0 ? BootHeapRootsChunkSize : referenceMapWords;
+            int firstWord = claim(nextBootHeapChunkOffset()) * chunkSize;
+            while (firstWord < referenceMapWords) {
+                final int endWord = Math.min(firstWord + chunkSize, referenceMapWords);
+                bootHeapRegion.visitReferences(firstWord, endWord, pointerIndexVisitor);
+                if (firstWord == 0) {
+                    bootHeapRegion.discoverSpecialReference();
+                }
+                firstWord = claim(nextBootHeapChunkOffset()) * chunkSize;
+            }
+        }
+
+        /**
+         * Scans the runtime code regions claimed by this worker. References in the boot code region are immutable
+         * and only ever refer to objects in the boot heap region, so it is not scanned.
+         */
+        public void scanCode() {
+            final CodeManager codeManager = Code.getCodeManager();
+            int index = claim(nextCodeRegionOffset());
+            while (index < 2) {
+                Code.visitCells(cellVisitor, index == 0 ? codeManager.getRuntimeBaselineCodeRegion() : codeManager.getRuntimeOptCodeRegion());
+                index = claim(nextCodeRegionOffset());
+            }
+        }
+    }
+}
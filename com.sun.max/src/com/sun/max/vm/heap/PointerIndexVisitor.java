@@ -38,4 +38,13 @@ public abstract class PointerIndexVisitor {
      * @param wordIndex
      */
     public abstract void visit(Pointer pointer, int wordIndex);
+
+    /**
+     * Gets the visitor on whose behalf this visitor visits roots. When the scanning of the roots is split among
+     * several threads, each with its own visitor, roots shared by all threads (e.g. a global {@link com.sun.max.vm.log.VMLog} buffer)
+     * are only visited by one of the visitors with the same leader.
+     */
+    public PointerIndexVisitor leader() {
+        return this;
+    }
 }
@@ -102,4 +102,12 @@ public class SimpleTLABRefillPolicy extends TLABRefillPolicy {
         return nextSize;
     }
 
+    /**
+     * Changes the size the TLAB should have on next refill, and the refill threshold accordingly.
+     */
+    protected void setNextTlabSize(Size size) {
+        nextSize = size;
+        refillThreshold = size.dividedBy(TLAB_REFILL_RATIO);
+    }
+
 }
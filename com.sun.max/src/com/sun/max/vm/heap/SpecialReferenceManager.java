@@ -24,6 +24,8 @@ package com.sun.max.vm.heap;
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 import static com.sun.max.vm.jdk.JDK_java_lang_ref_ReferenceQueue.*;
 
+import java.util.*;
+
 import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
@@ -52,6 +54,28 @@ public class SpecialReferenceManager {
 
     private static final boolean FINALIZERS_SUPPORTED = true;
 
+    private static int SoftRefLRUPolicyMSPerMB = 1000;
+    static {
+        VMOptions.addFieldOption("-XX:", "SoftRefLRUPolicyMSPerMB", SpecialReferenceManager.class,
+            "Number of milliseconds a soft reference that was not used is kept alive per megabyte of free heap space.");
+        Heap.registerGCCallback(new FreeSpaceAfterGC());
+    }
+
+    /**
+     * The free heap space, in bytes, at the end of the last GC, or at VM startup before the first GC.
+     * The age up to which unused soft references are kept is computed from it rather than from the free space
+     * in the middle of a GC, which is close to zero when the GC was triggered by a failed allocation.
+     */
+    private static long freeSpaceAfterLastGC;
+
+    private static final class FreeSpaceAfterGC implements Heap.GCCallback {
+        public void gcCallback(Heap.GCCallbackPhase gcCallbackPhase) {
+            if (gcCallbackPhase == Heap.GCCallbackPhase.AFTER) {
+                freeSpaceAfterLastGC = Heap.reportFreeSpace();
+            }
+        }
+    }
+
     /**
      * This interface forms a contract between the GC algorithm and the implementation of special references.
      */
@@ -75,6 +99,13 @@ public class SpecialReferenceManager {
          */
         Reference preserve(Reference ref);
 
+        /**
+         * Traces the object graphs rooted at the references {@linkplain #preserve(Reference) preserved} so far, so that
+         * {@link #isReachable(Reference)} returns {@code true} for every object reachable from them. Special references
+         * found while tracing may be added to the discovered lists.
+         */
+        void traceFromPreserved();
+
         /**
          * Indicates whether the GC relocates live objects. If true and a reference object is live, the special reference manager must
          * invoke its {@link #preserve(Reference)} method to update the referent field.
@@ -83,6 +114,35 @@ public class SpecialReferenceManager {
         boolean mayRelocateLiveObjects();
     }
 
+    /**
+     * A table of weak references held outside the heap, as raw object addresses, that is updated in place by the GC
+     * instead of relying on {@link java.lang.ref.WeakReference} objects.
+     */
+    public interface WeakReferenceTable {
+        /**
+         * Called once the special references have been processed, with no mutator running. The table must clear (or
+         * otherwise retire) the entries of the objects that are not {@linkplain GC#isReachable(Reference) reachable}
+         * and, if the GC {@linkplain GC#mayRelocateLiveObjects() relocates objects}, update the others with the
+         * address returned by {@link GC#preserve(Reference)}. It must not allocate.
+         *
+         * @param gc interface to the GC implementation
+         */
+        void processWeakReferences(GC gc);
+    }
+
+    private static WeakReferenceTable[] weakReferenceTables = new WeakReferenceTable[0];
+
+    /**
+     * Registers a table to be processed by every GC after the special references.
+     */
+    public static void registerWeakReferenceTable(WeakReferenceTable table) {
+        synchronized (SpecialReferenceManager.class) {
+            final WeakReferenceTable[] tables = Arrays.copyOf(weakReferenceTables, weakReferenceTables.length + 1);
+            tables[tables.length - 1] = table;
+            weakReferenceTables = tables;
+        }
+    }
+
     /**
      * The lock object associated with managing special references. This lock must
      * be held by the GC when it is updating the list of pending special references.
@@ -101,10 +161,55 @@ public class SpecialReferenceManager {
     }
 
     /**
-     * The head of the list of discovered references.
-     * This field must only be used by the GC. Accessing it should not trigger any read/write barriers.
+     * The types of special references. Each type has its own list of discovered references, and the lists are
+     * processed in this order so that, for instance, the objects kept alive by soft references are not seen as
+     * unreachable by the weak references to them.
+     */
+    private static final int SOFT = 0;
+    private static final int WEAK = 1;
+    private static final int FINAL = 2;
+    private static final int PHANTOM = 3;
+    private static final int REFERENCE_TYPES = 4;
+
+    private static final String[] REFERENCE_TYPE_NAMES = {"soft", "weak", "final", "phantom"};
+
+    /**
+     * The heads of the lists of discovered references, indexed by reference type.
+     * This array must only be used by the GC. Accessing it should not trigger any read/write barriers.
+     */
+    private static final java.lang.ref.Reference[] discoveredLists = new java.lang.ref.Reference[REFERENCE_TYPES];
+
+    /**
+     * Counts of the references processed by the last GC, indexed by reference type.
+     */
+    private static final int[] processedCounts = new int[REFERENCE_TYPES];
+
+    /**
+     * Counts of the references added to the pending list by the last GC, indexed by reference type.
+     */
+    private static final int[] pendingCounts = new int[REFERENCE_TYPES];
+
+    /**
+     * Counts of the unreachable referents kept alive by the last GC, indexed by reference type. Only soft
+     * references have their referents kept alive.
+     */
+    private static final int[] keptCounts = new int[REFERENCE_TYPES];
+
+    /**
+     * Time spent processing each type of references by the last GC, in nanoseconds. Only measured when
+     * {@link #specialReferenceLogger} is enabled.
+     */
+    private static final long[] processingNanos = new long[REFERENCE_TYPES];
+
+    /**
+     * Set to make the next GC clear all the soft references to unreachable objects.
+     */
+    private static boolean clearSoftReferences;
+
+    /**
+     * Records if the last GC kept alive the referent of a soft reference.
      */
-    private static java.lang.ref.Reference discoveredList;
+    private static boolean keptSoftReferences;
 
     /**
      * An alias type for accessing the fields in java.lang.ref.Reference without having to use reflection.
@@ -202,6 +307,33 @@ public class SpecialReferenceManager {
     @INTRINSIC(UNSAFE_CAST)
     public static native java.lang.ref.Reference asJLRR(Object o);
 
+    /**
+     * An alias type for accessing the fields of {@link java.lang.ref.SoftReference}.
+     */
+    static class SoftReferenceAlias {
+        /**
+         * The value of {@link SpecialReferenceManager#clock} when the referent was last obtained.
+         */
+        @ALIAS(declaringClass = java.lang.ref.SoftReference.class)
+        long timestamp;
+    }
+
+    @INTRINSIC(UNSAFE_CAST)
+    static native SoftReferenceAlias asSoftReferenceAlias(Object o);
+
+    private static int referenceType(java.lang.ref.Reference ref) {
+        if (ref instanceof java.lang.ref.SoftReference) {
+            return SOFT;
+        }
+        if (ref instanceof java.lang.ref.WeakReference) {
+            return WEAK;
+        }
+        if (ref instanceof java.lang.ref.PhantomReference) {
+            return PHANTOM;
+        }
+        return FINAL;
+    }
+
     /**
      * This method is called by the GC during heap exploration, when it finds a special
      * reference object. This method checks to see whether the object has been processed previously,
@@ -216,7 +348,8 @@ public class SpecialReferenceManager {
 
         if (refAlias.discovered == null) {
             // the discovered field of this object is null, queue it for later processing
-            if (ref == discoveredList) {
+            final int type = referenceType(ref);
+            if (ref == discoveredLists[type]) {
                 final boolean lockDisabledSafepoints = Log.lock();
                 Log.print("Reference ");
                 Log.print(ObjectAccess.readClassActor(ref).name.string);
@@ -229,8 +362,8 @@ public class SpecialReferenceManager {
             final Reference referent = Reference.fromJava(refAlias.referent);
             // WATCH OUT: the following two lines will cause a write barrier to be executed. Depending on its implementation, this may
             // resulting in implicit modification to a remember set during GC.
-            refAlias.discovered = discoveredList;
-            discoveredList = ref;
+            refAlias.discovered = discoveredLists[type];
+            discoveredLists[type] = ref;
             if (specialReferenceLogger.enabled()) {
                 specialReferenceLogger.logDiscover(cell, UnsafeCast.asHub(Layout.readHubReference(origin).toJava()).classActor, referent.toOrigin());
             }
@@ -246,13 +379,18 @@ public class SpecialReferenceManager {
      * and add them to their respective queues later.
      * The reference handler lock is notified by the thread that {@linkplain VmOperationThread#submit(VmOperation) submitted}
      * the GC operation as it holds the lock. See {@link GCOperation#doItEpilogue(boolean)}.
+     * <p>
+     * The referent of a soft reference that is not otherwise reachable is kept alive if the reference was used
+     * within the last {@link #SoftRefLRUPolicyMSPerMB} milliseconds per megabyte of heap space free after the
+     * {@linkplain #freeSpaceAfterLastGC last GC}, unless the
+     * GC must {@linkplain #clearSoftReferencesBeforeOutOfMemory() clear all soft references}.
      *
      * @param gc interface to the GC implementation
      */
     public static void processDiscoveredSpecialReferences(GC gc) {
-        java.lang.ref.Reference head = discoveredList;
-        java.lang.ref.Reference end = sentinel;
         final boolean updateReachableReferent = gc.mayRelocateLiveObjects();
+        final long now = System.currentTimeMillis();
+        final long maxSoftReferenceAge = clearSoftReferences ? -1L : (freeSpaceAfterLastGC >> 20) * SoftRefLRUPolicyMSPerMB;
 
         if (specialReferenceLogger.enabled()) {
             specialReferenceLogger.logProcessDiscoveredInit(
@@ -260,83 +398,157 @@ public class SpecialReferenceManager {
                             Reference.fromJava(JDK_java_lang_ref_ReferenceQueue.ENQUEUED).toOrigin());
         }
 
-        // Process the discovered list until it is empty (new elements may be
-        // prepended while processing).
-        do {
-            java.lang.ref.Reference ref = head;
-            java.lang.ref.Reference pending = JLRRAlias.pending;
-
-            while (ref != end) {
-                boolean preserved = false;
-                boolean addedToPending = false;
-                JLRRAlias refAlias = asJLRRAlias(ref);
-                final Reference referent = Reference.fromJava(refAlias.referent);
-                if (referent.isZero()) {
-                    // Do not add 'ref' to the pending list as weak references
-                    // with already null referents are not added to ReferenceQueues
-                } else if (!gc.isReachable(referent)) {
-                    if (refAlias.queue == null) {
-                        // This can only occur if there is a GC in the constructor for java.lang.ref.Reference
-                        // between the initialization of 'referent' and 'queue'.
-                        Log.println("WARNING: cannot add weak reference with null 'queue' field to pending list");
-                    } else {
-                        // Only soft and weak references have their referent cleared
-                        if (ref instanceof java.lang.ref.SoftReference || ref instanceof java.lang.ref.WeakReference) {
-                            refAlias.referent = null;
-                        } else {
-                            // The following line MUST run the mutator write barrier
-                            refAlias.referent = gc.preserve(referent).toJava();
-                            preserved = true;
-                        }
+        for (int type = 0; type < REFERENCE_TYPES; type++) {
+            processedCounts[type] = 0;
+            pendingCounts[type] = 0;
+            keptCounts[type] = 0;
+            processingNanos[type] = 0L;
+        }
 
-                        // Add active reference whose reachability has changed to pending list
-                        if (refAlias.isActive()) {
-                            if (pending == null) {
-                                // 'ref' will be at the end of the pending list
-                                refAlias.next = ref;
-                            } else {
-                                refAlias.next = pending;
-                            }
-                            pending = ref;
-                            addedToPending = true;
-                        }
-                    }
-                } else if (updateReachableReferent) {
-                    // this object is reachable, however the "referent" field was not scanned.
-                    // we need to update this field manually
+        // Process the discovered lists until they are all empty (new elements may be added to any of them
+        // while processing). A list is only processed once the lists of all the stronger types are empty and the
+        // objects reachable from the referents kept alive by these have been traced, so that, e.g., a weak reference
+        // to an object reachable from the referent of a recently used soft reference is not cleared.
+        int listType = nextDiscoveredListType();
+        while (listType < REFERENCE_TYPES) {
+            processDiscoveredList(gc, listType, updateReachableReferent, maxSoftReferenceAge);
+            gc.traceFromPreserved();
+            listType = nextDiscoveredListType();
+        }
+
+        keptSoftReferences = keptCounts[SOFT] != 0;
+        clearSoftReferences = false;
+        clock = now;
+
+        if (specialReferenceLogger.enabled()) {
+            for (int type = 0; type < REFERENCE_TYPES; type++) {
+                specialReferenceLogger.logProcessedReferences(type, processedCounts[type], pendingCounts[type], keptCounts[type], processingNanos[type]);
+            }
+        }
+
+        // After the finalizable objects have been preserved, so that only the objects that are really freed are removed
+        for (WeakReferenceTable table : weakReferenceTables) {
+            table.processWeakReferences(gc);
+        }
+    }
+
+    /**
+     * Gets the strongest type of reference whose discovered list is not empty.
+     *
+     * @return {@link #REFERENCE_TYPES} if all the discovered lists are empty
+     */
+    private static int nextDiscoveredListType() {
+        int type = 0;
+        while (type < REFERENCE_TYPES && discoveredLists[type] == sentinel) {
+            type++;
+        }
+        return type;
+    }
+
+    /**
+     * Processes the references currently on the discovered list of a given type. The references discovered while
+     * doing so, including those of the same type, are added to the discovered lists and left for the caller to process.
+     */
+    private static void processDiscoveredList(GC gc, int type, boolean updateReachableReferent, long maxSoftReferenceAge) {
+        final long startNanos = specialReferenceLogger.enabled() ? System.nanoTime() : 0L;
+        java.lang.ref.Reference ref = discoveredLists[type];
+        java.lang.ref.Reference pending = JLRRAlias.pending;
+        int processedCount = 0;
+        int pendingCount = 0;
+        int keptCount = 0;
+        discoveredLists[type] = sentinel;
+
+        while (ref != sentinel) {
+            boolean preserved = false;
+            boolean addedToPending = false;
+            JLRRAlias refAlias = asJLRRAlias(ref);
+            final Reference referent = Reference.fromJava(refAlias.referent);
+            if (referent.isZero()) {
+                // Do not add 'ref' to the pending list as weak references
+                // with already null referents are not added to ReferenceQueues
+            } else if (!gc.isReachable(referent)) {
+                if (type == SOFT && clock - asSoftReferenceAlias(ref).timestamp <= maxSoftReferenceAge) {
+                    // The soft reference was used recently: keep its referent alive
                     // The following line MUST run the mutator write barrier
                     refAlias.referent = gc.preserve(referent).toJava();
-                }
+                    preserved = true;
+                    keptCount++;
+                } else if (refAlias.queue == null) {
+                    // This can only occur if there is a GC in the constructor for java.lang.ref.Reference
+                    // between the initialization of 'referent' and 'queue'.
+                    Log.println("WARNING: cannot add weak reference with null 'queue' field to pending list");
+                } else {
+                    // Only soft and weak references have their referent cleared
+                    if (type == SOFT || type == WEAK) {
+                        refAlias.referent = null;
+                    } else {
+                        // The following line MUST run the mutator write barrier
+                        refAlias.referent = gc.preserve(referent).toJava();
+                        preserved = true;
+                    }
 
-                JLRRAlias r = refAlias;
-                ref = refAlias.discovered;
-                r.discovered = null;
-
-                if (specialReferenceLogger.enabled()) {
-                    final Object newReferent = r.referent;
-                    specialReferenceLogger.logProcessDiscovered(
-                        ObjectAccess.readClassActor(r),
-                        ObjectAccess.toOrigin(r),
-                        referent.toOrigin(),
-                        newReferent == null ? Pointer.zero() : ObjectAccess.toOrigin(newReferent),
-                        Reference.fromJava(r.queue).toOrigin(),
-                        preserved,
-                        updateReachableReferent,
-                        addedToPending,
-                        MaxineVM.isDebug() ? ObjectAccess.toOrigin(ref) : Pointer.zero());
+                    // Add active reference whose reachability has changed to pending list
+                    if (refAlias.isActive()) {
+                        if (pending == null) {
+                            // 'ref' will be at the end of the pending list
+                            refAlias.next = ref;
+                        } else {
+                            refAlias.next = pending;
+                        }
+                        pending = ref;
+                        addedToPending = true;
+                        pendingCount++;
+                    }
                 }
+            } else if (updateReachableReferent) {
+                // this object is reachable, however the "referent" field was not scanned.
+                // we need to update this field manually
+                // The following line MUST run the mutator write barrier
+                refAlias.referent = gc.preserve(referent).toJava();
             }
-            JLRRAlias.pending = pending;
 
-            if (head == discoveredList) {
-                // No further special references were discovered
-                discoveredList = sentinel;
-                break;
+            JLRRAlias r = refAlias;
+            ref = refAlias.discovered;
+            r.discovered = null;
+            processedCount++;
+
+            if (specialReferenceLogger.enabled()) {
+                final Object newReferent = r.referent;
+                specialReferenceLogger.logProcessDiscovered(
+                    ObjectAccess.readClassActor(r),
+                    ObjectAccess.toOrigin(r),
+                    referent.toOrigin(),
+                    newReferent == null ? Pointer.zero() : ObjectAccess.toOrigin(newReferent),
+                    Reference.fromJava(r.queue).toOrigin(),
+                    preserved,
+                    updateReachableReferent,
+                    addedToPending,
+                    MaxineVM.isDebug() ? ObjectAccess.toOrigin(ref) : Pointer.zero());
             }
+        }
+        JLRRAlias.pending = pending;
 
-            end = head;
-            head = discoveredList;
-        } while (true);
+        processedCounts[type] += processedCount;
+        pendingCounts[type] += pendingCount;
+        keptCounts[type] += keptCount;
+        if (specialReferenceLogger.enabled()) {
+            processingNanos[type] += System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Called when a GC did not free enough space for an allocation request, before reporting an
+     * {@link OutOfMemoryError}. If that GC kept alive the referents of soft references, the next GC clears all the
+     * soft references to objects that are not otherwise reachable, as required before running out of memory.
+     *
+     * @return {@code true} if the allocation request should be retried after another GC
+     */
+    public static boolean clearSoftReferencesBeforeOutOfMemory() {
+        if (keptSoftReferences) {
+            clearSoftReferences = true;
+            return true;
+        }
+        return false;
     }
 
     @ALIAS(declaringClassName = "java.lang.ref.Finalizer")
@@ -377,7 +589,10 @@ public class SpecialReferenceManager {
     public static void initialize(Phase phase) {
         if (phase == Phase.PRISTINE) {
             clock = System.currentTimeMillis();
-            discoveredList = sentinel;
+            freeSpaceAfterLastGC = Heap.reportFreeSpace();
+            for (int type = 0; type < REFERENCE_TYPES; type++) {
+                discoveredLists[type] = sentinel;
+            }
             JLRRAlias sentinelAlias = asJLRRAlias(sentinel);
             sentinelAlias.discovered = sentinel;
             sentinelAlias.next = sentinel;
@@ -388,6 +603,10 @@ public class SpecialReferenceManager {
         }
     }
 
+    /**
+     * The time of the last GC, in milliseconds. {@link java.lang.ref.SoftReference#get()} records it in the
+     * reference as the time it was last used.
+     */
     @ALIAS(declaringClass = java.lang.ref.SoftReference.class)
     private static long clock;
 
@@ -463,6 +682,13 @@ public class SpecialReferenceManager {
                         @VMLogParam(name = "i") int i,
                         @VMLogParam(name = "rootPointer") Pointer rootPointer,
                         @VMLogParam(name = "value") Word value);
+
+        void processedReferences(
+                        @VMLogParam(name = "referenceType") int referenceType,
+                        @VMLogParam(name = "processed") int processed,
+                        @VMLogParam(name = "pending") int pending,
+                        @VMLogParam(name = "kept") int kept,
+                        @VMLogParam(name = "nanos") long nanos);
     }
 
     public static final class SpecialReferenceLogger extends SpecialReferenceLoggerAuto {
@@ -587,13 +813,29 @@ public class SpecialReferenceManager {
             Log.println(value);
         }
 
+        @Override
+        protected void traceProcessedReferences(int referenceType, int processed, int pending, int kept, long nanos) {
+            Log.print("Processed ");
+            Log.print(processed);
+            Log.print(' ');
+            Log.print(REFERENCE_TYPE_NAMES[referenceType]);
+            Log.print(" references in ");
+            Log.print(nanos / 1000);
+            Log.print(" us: ");
+            Log.print(pending);
+            Log.print(" added to Reference.pending list, ");
+            Log.print(kept);
+            Log.println(" referents kept alive");
+        }
+
     }
 
 // START GENERATED CODE
     private static abstract class SpecialReferenceLoggerAuto extends com.sun.max.vm.log.VMLogger {
         public enum Operation {
             Discover, Enqueue, ProcessDiscovered,
-            ProcessDiscoveredInit, ProcessInspectable, RegisterFinalizee, Remove;
+            ProcessDiscoveredInit, ProcessInspectable, ProcessedReferences, RegisterFinalizee,
+            Remove;
 
             @SuppressWarnings("hiding")
             public static final Operation[] VALUES = values();
@@ -643,6 +885,12 @@ public class SpecialReferenceManager {
         }
         protected abstract void traceProcessInspectable(int i, Pointer rootPointer, Word value);
 
+        @INLINE
+        public final void logProcessedReferences(int referenceType, int processed, int pending, int kept, long nanos) {
+            log(Operation.ProcessedReferences.ordinal(), intArg(referenceType), intArg(processed), intArg(pending), intArg(kept), longArg(nanos));
+        }
+        protected abstract void traceProcessedReferences(int referenceType, int processed, int pending, int kept, long nanos);
+
         @INLINE
         public final void logRegisterFinalizee(Pointer origin, ClassActor classActor) {
             log(Operation.RegisterFinalizee.ordinal(), origin, classActorArg(classActor));
@@ -678,11 +926,15 @@ public class SpecialReferenceManager {
                     traceProcessInspectable(toInt(r, 1), toPointer(r, 2), toWord(r, 3));
                     break;
                 }
-                case 5: { //RegisterFinalizee
+                case 5: { //ProcessedReferences
+                    traceProcessedReferences(toInt(r, 1), toInt(r, 2), toInt(r, 3), toInt(r, 4), toLong(r, 5));
+                    break;
+                }
+                case 6: { //RegisterFinalizee
                     traceRegisterFinalizee(toPointer(r, 1), toClassActor(r, 2));
                     break;
                 }
-                case 6: { //Remove
+                case 7: { //Remove
                     traceRemove(toClassActor(r, 1), toPointer(r, 2), toPointer(r, 3));
                     break;
                 }
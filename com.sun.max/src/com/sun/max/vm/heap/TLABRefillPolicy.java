@@ -65,6 +65,32 @@ public abstract class TLABRefillPolicy {
      */
     public abstract Size nextTlabSize();
 
+    /**
+     * Notifies the policy that the TLAB of its thread has been refilled.
+     * Default is to do nothing.
+     * @param size size of the chunk the TLAB was refilled with, which may differ from {@link #nextTlabSize()}
+     * @param leftover space left unused in the TLAB retired by the refill, zero if the thread had no TLAB
+     */
+    public void notifyRefill(Size size, Size leftover) {
+    }
+
+    /**
+     * Notifies the policy that the TLAB of its thread, made of several chunks of free space, moved on to its next chunk.
+     * Default is to do nothing.
+     * @param size size of the next chunk
+     * @param leftover space left unused in the chunk the TLAB moved away from
+     */
+    public void notifyChunkChange(Size size, Size leftover) {
+    }
+
+    /**
+     * Notifies the policy that the TLAB of its thread has been reset, typically before a garbage collection.
+     * Default is to do nothing.
+     * @param leftover space left unused in the reset TLAB
+     */
+    public void notifyReset(Size leftover) {
+    }
+
     @INTRINSIC(UNSAFE_CAST)
     private static native TLABRefillPolicy asTLABRefillPolicy(Object object);
 
@@ -31,6 +31,11 @@ final public class ContiguousHeapRootCellVisitor extends RootCellVisitor {
         super();
     }
 
+    @Override
+    RootCellVisitor newWorkerVisitor() {
+        return new ContiguousHeapRootCellVisitor();
+    }
+
     @Override
     void reset() {
         super.reset();
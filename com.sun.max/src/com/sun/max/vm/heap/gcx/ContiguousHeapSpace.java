@@ -81,6 +81,10 @@ public class ContiguousHeapSpace extends MemoryRegion implements EvacuatingSpace
         start = reservedStart;
         committedEnd = start;
         size = reservedSize;
+        if (Heap.AvoidsAnonOperations) {
+            // The reserved space is already committed and will never be committed again: advise it in one go.
+            VirtualMemory.adviseLargePages(start, size, regionName());
+        }
     }
 
     public boolean reserve(Address atAddress, Size maxSize) {
@@ -105,7 +109,7 @@ public class ContiguousHeapSpace extends MemoryRegion implements EvacuatingSpace
     }
 
     public Size adjustGrowth(Size delta) {
-        int pageSize = platform().pageSize;
+        int pageSize = VirtualMemory.largePageAlignment();
         Size pageAlignedGrowth = delta.alignUp(pageSize).asSize();
         Address end = end();
         if (committedEnd.plus(pageAlignedGrowth).greaterThan(end)) {
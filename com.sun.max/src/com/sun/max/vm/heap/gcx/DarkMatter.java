@@ -92,6 +92,7 @@ public final class DarkMatter {
             return Reference.fromJava(hub()).toOrigin();
         }
 
+        @INLINE
         static void format(Address darkMatter) {
             final Pointer origin = Layout.cellToOrigin(darkMatter.asPointer());
             Layout.writeHubReference(origin, Reference.fromJava(hub()));
@@ -226,6 +227,7 @@ public final class DarkMatter {
         FatalError.unexpected("Not enough space to format Dark Matter");
     }
 
+    @INLINE
     private static void plantDarkMatter(Address start, Size size)  {
         final Pointer origin = Layout.cellToOrigin(start.asPointer());
         final int length = size.minus(darkMatterHeaderSize()).unsignedShiftedRight(Word.widthValue().log2numberOfBytes).toInt();
@@ -256,6 +258,7 @@ public final class DarkMatter {
      * @param start address to the first word of the region
      * @param size size of the region
      */
+    @NO_SAFEPOINT_POLLS("formats the remainders of chunks allocated without locking, which must not be swept before they are handed out")
     public static void format(Address start, Size size) {
         if (size.greaterThan(minSize())) {
             // Can't use DarkMatter array for formatting very large region (length encoded as. Need to slice it into smaller region.
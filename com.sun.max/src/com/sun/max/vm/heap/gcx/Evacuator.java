@@ -303,6 +303,11 @@ public abstract class Evacuator extends PointerIndexVisitor implements CellVisit
         return ref;
     }
 
+    @Override
+    public void traceFromPreserved() {
+        evacuateReachables();
+    }
+
     @Override
     public boolean mayRelocateLiveObjects() {
         return true;
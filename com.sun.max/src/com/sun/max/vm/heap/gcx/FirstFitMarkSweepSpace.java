@@ -108,6 +108,12 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
      */
     final ChunkListAllocator<RegionChunkListRefillManager> tlabAllocator;
 
+    /**
+     * TLAB allocators for each NUMA node, the first of which is {@link #tlabAllocator}. Only the first
+     * {@link NUMAHeapRegions#numNodes()} are used; each refills from regions homed on its node.
+     */
+    final ChunkListAllocator<RegionChunkListRefillManager>[] nodeTLABAllocators;
+
     /**
      * Overflow allocator. Handles direct allocation request and all small overflow of TLABs.
      */
@@ -326,6 +332,7 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
         }
     }
 
+    @SuppressWarnings("unchecked")
     public FirstFitMarkSweepSpace(HeapAccount<T> heapAccount,
                     ChunkListAllocator<RegionChunkListRefillManager> tlabAllocator,
                     BaseAtomicBumpPointerAllocator<RegionOverflowAllocatorRefiller> overflowAllocator,
@@ -337,6 +344,12 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
         this.tlabAllocator = tlabAllocator;
         tlabAllocator.refillManager.setRegionProvider(this);
         overflowAllocator.refillManager.setRegionProvider(this);
+        nodeTLABAllocators = new ChunkListAllocator[NUMAHeapRegions.MAX_NODES];
+        nodeTLABAllocators[0] = tlabAllocator;
+        for (int node = 1; node < nodeTLABAllocators.length; node++) {
+            nodeTLABAllocators[node] = new ChunkListAllocator<RegionChunkListRefillManager>(new RegionChunkListRefillManager(tlabAllocator.refillManager.deadSpaceListener));
+            nodeTLABAllocators[node].refillManager.setRegionProvider(this);
+        }
         regionsRangeIterable = new HeapRegionRangeIterable();
         regionInfoIterable = new HeapRegionInfoIterable();
 
@@ -404,11 +417,17 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
         // The following two are connected: if you deny refill after overflow, the only solution left is allocating large.
         minLargeObjectSize = regionSize;
         minOverflowRefillSize = regionSize.dividedBy(4);
-        RegionChunkListRefillManager refillManager = tlabAllocator.refillManager();
-        refillManager.setRefillPolicy(minReclaimableSpace);
-        refillManager.setMinChunkSize(minReclaimableSpace);
-        // Initialize the tlab allocator with a first region.
-        tlabAllocator.initialize(regionSize, regionSize);
+        for (int node = 0; node < NUMAHeapRegions.numNodes(); node++) {
+            final ChunkListAllocator<RegionChunkListRefillManager> allocator = nodeTLABAllocators[node];
+            RegionChunkListRefillManager refillManager = allocator.refillManager();
+            refillManager.setRefillPolicy(minReclaimableSpace);
+            refillManager.setMinChunkSize(minReclaimableSpace);
+            if (NUMAHeapRegions.isEnabled()) {
+                refillManager.setNode(node);
+            }
+            // Initialize the tlab allocator with a first region.
+            allocator.initialize(regionSize, regionSize);
+        }
         overflowAllocator.initialize(Address.zero(), Size.zero(), Size.zero());
     }
 
@@ -420,12 +439,15 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
     }
 
     public Pointer allocateTLAB(Size size) {
-        return tlabAllocator.allocateTLAB(size);
+        return nodeTLABAllocators[NUMAHeapRegions.currentNode()].allocateTLAB(size);
     }
 
     public void retireTLAB(Pointer start, Size size) {
-        if (tlabAllocator.retireTop(start, size)) {
-            return;
+        // The thread may have migrated to another node since it obtained the TLAB.
+        for (int node = 0; node < NUMAHeapRegions.numNodes(); node++) {
+            if (nodeTLABAllocators[node].retireTop(start, size)) {
+                return;
+            }
         }
         if (size.lessThan(minRetiredFreeChunkSize())) {
             DarkMatter.format(start, size);
@@ -457,7 +479,12 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
     }
 
     public Size freeSpace() {
-        return allocationRegionsFreeSpace.plus(tlabAllocator.refillManager.freeSpace().plus(tlabAllocator.freeSpace().plus(overflowAllocator.freeSpace())));
+        Size freeSpace = allocationRegionsFreeSpace.plus(overflowAllocator.freeSpace());
+        for (int node = 0; node < NUMAHeapRegions.numNodes(); node++) {
+            final ChunkListAllocator<RegionChunkListRefillManager> allocator = nodeTLABAllocators[node];
+            freeSpace = freeSpace.plus(allocator.refillManager.freeSpace().plus(allocator.freeSpace()));
+        }
+        return freeSpace;
     }
 
     public Size usedSpace() {
@@ -466,8 +493,11 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
 
     public void doBeforeGC() {
         overflowAllocator.doBeforeGC();
-        tlabAllocator.doBeforeGC();
-        FatalError.check(tlabAllocator.refillManager.allocatingRegion() == INVALID_REGION_ID, "TLAB allocating region must have been retired");
+        for (int node = 0; node < NUMAHeapRegions.numNodes(); node++) {
+            final ChunkListAllocator<RegionChunkListRefillManager> allocator = nodeTLABAllocators[node];
+            allocator.doBeforeGC();
+            FatalError.check(allocator.refillManager.allocatingRegion() == INVALID_REGION_ID, "TLAB allocating region must have been retired");
+        }
         // Move all regions to the sweep list. This tracks all the regions used by the space.
         sweepList.appendAndClear(unavailableRegions);
         sweepList.appendAndClear(allocationRegions);
@@ -693,7 +723,9 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
     @Override
     public void visit(CellRangeVisitor visitor) {
         // Make allocating regions iterable first.
-        tlabAllocator.unsafeMakeParsable();
+        for (int node = 0; node < NUMAHeapRegions.numNodes(); node++) {
+            nodeTLABAllocators[node].unsafeMakeParsable();
+        }
         overflowAllocator.unsafeMakeParsable();
         regionsRangeIterable.addMatchingFlags(Flag.IS_ALLOCATING);
         iterateRegions(visitor);
@@ -703,7 +735,9 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
 
     private void verifyHeapRegionsBalance() {
         int balance = 0;
-        balance += tlabAllocator.refillManager().allocatingRegion() == INVALID_REGION_ID ? 0 : 1;
+        for (int node = 0; node < NUMAHeapRegions.numNodes(); node++) {
+            balance += nodeTLABAllocators[node].refillManager().allocatingRegion() == INVALID_REGION_ID ? 0 : 1;
+        }
         // balance += currentOverflowAllocatingRegion == INVALID_REGION_ID ? 0 : 1;
         balance += overflowAllocator.refillManager().allocatingRegion() == INVALID_REGION_ID ? 0 : 1;
 
@@ -736,9 +770,31 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
     public int getAllocatingRegion() {
         final int regionID = tlabAllocationRegionList().removeHead();
         if (regionID != INVALID_REGION_ID) {
-            final HeapRegionInfo regionInfo = fromRegionID(regionID);
-            final int numFreeBytes = regionInfo.isEmpty() ?  regionSizeInBytes : regionInfo.freeBytesInChunks();
-            allocationRegionsFreeSpace = allocationRegionsFreeSpace.minus(numFreeBytes);
+            accountAllocatingRegion(fromRegionID(regionID));
+        }
+        return regionID;
+    }
+
+    private void accountAllocatingRegion(HeapRegionInfo regionInfo) {
+        final int numFreeBytes = regionInfo.isEmpty() ?  regionSizeInBytes : regionInfo.freeBytesInChunks();
+        allocationRegionsFreeSpace = allocationRegionsFreeSpace.minus(numFreeBytes);
+    }
+
+    public int getAllocatingRegionOnNode(int node) {
+        regionInfoIterable.initialize(tlabAllocationRegionList());
+        regionInfoIterable.reset();
+        for (HeapRegionInfo regionInfo : regionInfoIterable) {
+            if (NUMAHeapRegions.nodeOfRegion(regionInfo.toRegionID()) == node) {
+                regionInfoIterable.remove();
+                accountAllocatingRegion(regionInfo);
+                NUMAHeapRegions.localRegions++;
+                return regionInfo.toRegionID();
+            }
+        }
+        // No region left on this node: take one from another node rather than triggering a GC.
+        final int regionID = getAllocatingRegion();
+        if (regionID != INVALID_REGION_ID) {
+            NUMAHeapRegions.remoteRegions++;
         }
         return regionID;
     }
@@ -201,6 +201,10 @@ final class ForwardScanState extends ColorMapScanState implements SpecialReferen
         return ref;
     }
 
+    public void traceFromPreserved() {
+        heapMarker.visitGreyObjectsOfSpecialReferences();
+    }
+
     public boolean mayRelocateLiveObjects() {
         return false;
     }
@@ -47,6 +47,8 @@ import com.sun.max.vm.thread.*;
  * between minReclaimableSpace and 1<< log2FirstBin and is used primarily for TLAB and small object allocation.
  * The other bins are used for large object space allocation.
  * "Bin" allocation are synchronized.
+ * Large chunks found by the sweeper are instead entered in {@link LargeFreeChunkLists}, which large objects are allocated
+ * from without locking. The bins only get the large chunks freed between two GCs.
  */
 public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
     private static final VMIntOption largeObjectsMinSizeOption =
@@ -171,6 +173,11 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
 
     private final ChunkListAllocator<LinearSpaceRefillManager> smallObjectAllocator;
 
+    /**
+     * Large chunks of free space found by the sweeper.
+     */
+    private final LargeFreeChunkLists largeChunks;
+
     /**
      * Log 2 of the maximum size to enter the first bin of free space.
      */
@@ -443,6 +450,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
      * @return  the address of the first chunks allocated to the TLAB
      */
     private synchronized Address binAllocateTLAB(Size size, Address firstChunk) {
+        recordRemainders();
         long requiredSpace = size.toLong();
         // First, try to allocate from the TLAB bin.
         if (tlabFreeSpaceList.totalSize > requiredSpace) {
@@ -502,9 +510,24 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
 
 
     synchronized Address binAllocate(Size size) {
+        recordRemainders();
         return  binAllocate(binIndex(size), size, true);
     }
 
+    /**
+     * Enters the remainders of the chunks allocated from the {@linkplain #largeChunks large chunk lists} in the bins.
+     * Must be called with this object's lock held.
+     */
+    private void recordRemainders() {
+        Address chunk = largeChunks.drainRemainders();
+        while (!chunk.isZero()) {
+            final Address next = HeapFreeChunk.getFreeChunkNext(chunk);
+            recordFreeSpace(chunk, HeapFreeChunk.getFreechunkSize(chunk));
+            chunk = next;
+        }
+        useTLABBin = tlabFreeSpaceList.totalSize > 0;
+    }
+
     /* For simplicity at the moment.
      */
     private static final OutOfMemoryError outOfMemoryError = new OutOfMemoryError();
@@ -523,7 +546,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
             }
             index++;
         }
-        return Address.zero();
+        return largeChunks.allocate(size, exactFit);
     }
 
     public boolean canSatisfyAllocation(Size size) {
@@ -538,7 +561,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
             }
             index++;
         }
-        return false;
+        return largeChunks.canFit(size);
     }
 
     private void printTlabFreeSpace() {
@@ -585,6 +608,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
     }
 
     synchronized Address binRefill(Size refillSize, Pointer topAtRefill, Size spaceLeft) {
+        recordRemainders();
         // First, deal with the left-over.
         if  (spaceLeft.greaterEqual(minReclaimableSpace)) {
             recordFreeSpace(topAtRefill, spaceLeft);
@@ -601,6 +625,19 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
         totalFreeChunkSpace += numBytes.toLong();
     }
 
+    /**
+     * Recording of free space while no mutator can allocate, i.e., while sweeping or growing the heap.
+     * Large chunks are entered in the lists large objects are allocated from without locking.
+     */
+    @INLINE
+    private void recordSweptSpace(Address chunk, Size numBytes) {
+        if (numBytes.greaterEqual(minLargeObjectSize)) {
+            largeChunks.add(chunk, numBytes);
+        } else {
+            recordFreeSpace(chunk, numBytes);
+        }
+    }
+
     /**
      * Recording of free chunk of space.
      * Chunks are recording in different list depending on their size.
@@ -609,7 +646,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
      */
     @Override
     public void processDeadSpace(Address freeChunk, Size size) {
-        recordFreeSpace(freeChunk, size);
+        recordSweptSpace(freeChunk, size);
         endOfLastVisitedObject = freeChunk.plus(size).asPointer();
     }
 
@@ -676,7 +713,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
         }
 
         if (deadSpace.greaterThan(minReclaimableSpace)) {
-            recordFreeSpace(endOfLastVisitedObject, deadSpace);
+            recordSweptSpace(endOfLastVisitedObject, deadSpace);
         } else if (deadSpace.isNotZero()) {
             DarkMatter.format(endOfLastVisitedObject, deadSpace);
         }
@@ -692,7 +729,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
             logger.logGap(leftLiveObject, rightLiveObject);
         }
         if (numDeadBytes.greaterEqual(minReclaimableSpace)) {
-            recordFreeSpace(endOfLeftObject, numDeadBytes);
+            recordSweptSpace(endOfLeftObject, numDeadBytes);
         } else if (numDeadBytes.isNotZero()) {
             DarkMatter.format(endOfLeftObject, numDeadBytes);
         }
@@ -723,6 +760,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
         }
         tlabFreeSpaceList = freeChunkBins[0];
         smallObjectAllocator = new ChunkListAllocator<LinearSpaceRefillManager>(new LinearSpaceRefillManager());
+        largeChunks = new LargeFreeChunkLists(LastBin);
     }
 
     public void initialize(HeapScheme heapScheme, Address start, Size initSize, Size maxSize, boolean reserved) {
@@ -743,6 +781,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
             lastBinThreshold = Size.fromInt(LastBin).shiftedLeft(log2FirstBinSize);
         }
         minReclaimableSpace = Size.fromInt(freeChunkMinSizeOption.getValue());
+        largeChunks.initialize(minLargeObjectSize, minReclaimableSpace);
 
         TraceTLABChunk = heapScheme instanceof HeapSchemeWithTLAB && HeapSchemeWithTLAB.traceTLAB();
 
@@ -757,7 +796,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
     }
 
     private Size lockedFreeSpaceLeft() {
-        return Size.fromLong(totalFreeChunkSpace).plus(smallObjectAllocator.freeSpace());
+        return Size.fromLong(totalFreeChunkSpace + largeChunks.freeBytes()).plus(smallObjectAllocator.freeSpace());
     }
 
     /**
@@ -783,6 +822,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
             freeChunkBins[i].reset();
         }
         totalFreeChunkSpace = 0;
+        largeChunks.reset();
         endOfLastVisitedObject = committedHeapSpace.start().asPointer();
     }
 
@@ -793,6 +833,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
             checkBinFreeSpace();
             if (TraceSweep) {
                 print();
+                largeChunks.print();
             }
         }
     }
@@ -807,6 +848,7 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
         for (FreeSpaceList fsp : freeChunkBins) {
             fsp.doBeforeGC();
         }
+        largeChunks.doBeforeGC();
     }
 
     public void doAfterGC() {
@@ -824,13 +866,20 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
     }
 
     void verifyUsage(long freeChunksByteCount, long darkMatterByteCount, long liveDataByteCount) {
-        FatalError.check(freeChunksByteCount == totalFreeChunkSpace, "Inconsistent free chunk space");
+        FatalError.check(freeChunksByteCount == totalFreeChunkSpace + largeChunks.freeBytes(), "Inconsistent free chunk space");
         final long total = darkMatterByteCount + freeChunksByteCount + liveDataByteCount;
         FatalError.check(total == committedHeapSpace.committedSize().toLong(), "Inconsistent committed space size");
     }
 
     @INLINE
     public Pointer allocate(Size size) {
+        if (size.greaterThan(minLargeObjectSize)) {
+            // Try the large chunk lists first, which need no locking.
+            final Pointer cell = largeChunks.allocateCleared(size);
+            if (!cell.isZero()) {
+                return cell;
+            }
+        }
         return smallObjectAllocator.allocateCleared(size);
     }
 
@@ -859,8 +908,8 @@ public final class FreeHeapSpaceManager extends Sweeper implements HeapSpace {
         Address chunkStart = committedHeapSpace.committedEnd();
         boolean res = committedHeapSpace.growCommittedSpace(adjustedGrowth);
         FatalError.check(res, "Committing over reserved space should always succeed");
-        freeChunkBins[binIndex(adjustedGrowth)].append(HeapFreeChunk.format(chunkStart, adjustedGrowth));
-        totalFreeChunkSpace += adjustedGrowth.toLong();
+        recordSweptSpace(chunkStart, adjustedGrowth);
+        useTLABBin = tlabFreeSpaceList.totalSize > 0;
         return adjustedGrowth;
     }
 
@@ -32,6 +32,11 @@ final public class HeapAccounRootCellVisitor extends RootCellVisitor {
         this.owner = owner;
     }
 
+    @Override
+    RootCellVisitor newWorkerVisitor() {
+        return new HeapAccounRootCellVisitor(owner);
+    }
+
     @Override
     void reset() {
         super.reset();
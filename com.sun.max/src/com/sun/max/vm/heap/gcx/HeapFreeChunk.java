@@ -147,6 +147,7 @@ public class HeapFreeChunk {
         }
     }
 
+    @NO_SAFEPOINT_POLLS("formats chunks allocated without locking, which must not be swept before they are handed out")
     static HeapFreeChunk format(Address deadSpace, Size numBytes, Address nextChunk, DynamicHub hub) {
         final Pointer cell = deadSpace.asPointer();
         if (MaxineVM.isDebug()) {
@@ -175,6 +176,7 @@ public class HeapFreeChunk {
      * @param numBytes size of the dead space in bytes
      * @return a reference to HeapFreeChunk object just planted at the beginning of the free chunk.
      */
+    @INLINE
     static HeapFreeChunk format(Address deadSpace, Size numBytes, Address nextChunk) {
         return format(deadSpace, numBytes, nextChunk, heapFreeChunkHub());
     }
@@ -23,6 +23,7 @@
 package com.sun.max.vm.heap.gcx;
 
 import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
 import com.sun.max.platform.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.MaxineVM.Phase;
@@ -102,6 +103,8 @@ public final class HeapRegionConstants {
      * The minimum region size, and the one used by default, is specified by the {@link #DefaultHeapRegionSize} option.
      * The maximum region size is specified by the {@link #MaxHeapRegionSize} option.
      * The maximum length of the {@link RegionTable}  is specified by {@value #MaxNumberOfRegions} option.
+     * When {@linkplain VirtualMemory#UseLargePages large pages} are used, regions are at least one large page, so that committing,
+     * uncommitting or advising a region never splits a large page.
      *
      * @param maxHeapSize the maximum heap size specified at VM startup
      */
@@ -120,6 +123,12 @@ public final class HeapRegionConstants {
                 regionSize = MaxHeapRegionSize;
             }
         }
+        if (VirtualMemory.UseLargePages) {
+            final Size largePageSize = VirtualMemory.largePageSize();
+            if (regionSize.lessThan(largePageSize) && largePageSize.lessEqual(MaxHeapRegionSize)) {
+                regionSize = largePageSize;
+            }
+        }
         initializeConstants(regionSize.toInt());
     }
 }
@@ -233,6 +233,7 @@ public final class HeapRegionManager implements HeapAccountOwner {
         final Size managedSpaceSize = Size.fromInt(numTotalRegions).shiftedLeft(log2RegionSizeInBytes);
         FatalError.check(startOfManagedSpace.plus(managedSpaceSize).lessEqual(endOfReservedSpace),
                         "Not enough reserved space to initialize managed space");
+        NUMAHeapRegions.initialize(startOfManagedSpace, numTotalRegions);
 
         // Estimate conservatively how much space the heap manager needs initially. This is to commit
         // enough memory to get started.
@@ -277,6 +278,10 @@ public final class HeapRegionManager implements HeapAccountOwner {
             // They are recorded committed
             HeapAccount.completeBootHeapAccountBootstrap(initialNumRegions, bootTag);
 
+            // Region size is a multiple of the large page size when large pages are used, so the managed space can be advised as a whole.
+            if (Heap.AvoidsAnonOperations) {
+                VirtualMemory.adviseLargePages(startOfManagedSpace, bounds().end().minus(startOfManagedSpace).asSize(), "heap regions");
+            }
             // First, uncommit reserved space after the fact. All the space between the end of the initial boot heap and the end of the provided reserved space should be uncommitted.
             if (!Heap.AvoidsAnonOperations) {
                 final Address endOfInitialBootHeap = startOfManagedSpace.plus(bootHeapSize);
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.heap.gcx;
+
+import java.lang.management.*;
+
+import com.sun.max.vm.management.*;
+
+/**
+ * Memory pool bean of a {@link HeapSpace}, which may not be a single contiguous memory region.
+ * The committed size of the pool is the {@linkplain ResizableSpace#totalSpace() current size} of the space and its
+ * maximum size the {@linkplain ResizableSpace#capacity() capacity} of the space.
+ */
+public class HeapSpaceMemoryPoolMXBean extends MemoryPoolMXBeanAdaptor {
+    private final String name;
+    private final HeapSpace space;
+
+    public HeapSpaceMemoryPoolMXBean(String name, HeapSpace space, MemoryManagerMXBean manager) {
+        super(MemoryType.HEAP, null, manager);
+        this.name = name;
+        this.space = space;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long usedBytes() {
+        return space.usedSpace().toLong();
+    }
+
+    @Override
+    public long committedBytes() {
+        return space.totalSpace().toLong();
+    }
+
+    @Override
+    public MemoryUsage getUsage() {
+        final long committed = committedBytes();
+        return new MemoryUsage(-1, Math.min(usedBytes(), committed), committed, Math.max(committed, space.capacity().toLong()));
+    }
+}
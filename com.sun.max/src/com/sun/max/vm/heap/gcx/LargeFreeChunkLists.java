@@ -0,0 +1,428 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.heap.gcx;
+
+import static com.sun.max.vm.VMConfiguration.*;
+import static com.sun.max.vm.VMOptions.*;
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.platform.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.layout.*;
+import com.sun.max.vm.reference.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.thread.*;
+import com.sun.max.vm.thread.VmThreadLocal.Nature;
+
+/**
+ * Segregated lists of large free chunks that mutators allocate from without locking.
+ * <p>
+ * Chunks of at least a minimum large size are entered in lists of chunks of the same size class. Each power of two
+ * above the minimum size is divided into {@link #CLASSES_PER_POWER_OF_TWO} size classes, and the last list holds all
+ * the chunks larger than the size classes cover, largest first.
+ * Chunks only enter the lists while sweeping, when no mutator runs. Between two GCs, the lists are only ever
+ * shortened, by removing their head with a compare-and-swap. As a removed chunk cannot reappear at the head of a
+ * list before the next GC, the compare-and-swap cannot be fooled by a chunk removed and entered again (ABA).
+ * <p>
+ * The space left after allocating from a chunk is cached by the allocating thread if it is large, so that a thread
+ * allocating several large objects carves them from the same chunk without going through the lists. Smaller
+ * leftovers, and large leftovers a thread has no room to cache, are pushed on a list of remainders that the owner of
+ * the lists {@linkplain #drainRemainders() drains} into its own free lists under its lock.
+ * <p>
+ * Large chunks are not cleared when swept but when allocated. Ranges of whole pages at least
+ * {@code -XX:LargeObjectDiscardPagesSize} bytes long are zeroed by {@linkplain VirtualMemory#discardPages discarding}
+ * their pages, which the operating system zero-fills when they are touched again.
+ */
+final class LargeFreeChunkLists {
+
+    private static final VMSizeOption discardPagesSizeOption = register(new VMSizeOption("-XX:LargeObjectDiscardPagesSize=", Size.M,
+        "Minimum size of a large object whose pages are zeroed by discarding them instead of clearing them, 0 to always clear them."),
+        MaxineVM.Phase.PRISTINE);
+
+    static final int LOG2_CLASSES_PER_POWER_OF_TWO = 2;
+    static final int CLASSES_PER_POWER_OF_TWO = 1 << LOG2_CLASSES_PER_POWER_OF_TWO;
+
+    /**
+     * Large free chunk cached by a thread, zero if none.
+     */
+    private static final VmThreadLocal LARGE_CHUNK_CACHE
+        = new VmThreadLocal("LARGE_CHUNK_CACHE", false, "LargeFreeChunkLists: large free chunk cached by the thread, zero if none", Nature.Single);
+
+    /**
+     * Index of the list of chunks larger than the size classes cover.
+     */
+    private final int lastClass;
+
+    /**
+     * Heads of the lists of free chunks, indexed by size class.
+     */
+    private final Pointer[] heads;
+
+    /**
+     * Tails of the lists of free chunks, only used while sweeping.
+     */
+    private final Pointer[] tails;
+
+    /**
+     * Address of the first element of {@link #heads}, used to update heads with a compare-and-swap.
+     */
+    private Pointer headsStart;
+
+    /**
+     * Head of the list of remainders of allocated chunks, waiting to be drained.
+     */
+    private volatile Address remainders;
+
+    /**
+     * Space in free chunks in the lists, in remainders and in the chunks cached by threads.
+     */
+    private volatile long freeBytes;
+
+    private Size minChunkSize;
+    private int log2MinChunkSize;
+    private Size minReclaimableSpace;
+    private Size discardPagesSize;
+
+    /**
+     * @param log2NumPowersOfTwo log2 of the ratio between the size of the last list and the minimum chunk size
+     */
+    LargeFreeChunkLists(int log2NumPowersOfTwo) {
+        lastClass = log2NumPowersOfTwo << LOG2_CLASSES_PER_POWER_OF_TWO;
+        heads = new Pointer[lastClass + 1];
+        tails = new Pointer[lastClass + 1];
+    }
+
+    void initialize(Size minChunkSize, Size minReclaimableSpace) {
+        FatalError.check(Long.bitCount(minChunkSize.toLong()) == 1 && minChunkSize.greaterEqual(CLASSES_PER_POWER_OF_TWO),
+            "Minimum large chunk size must be a power of two");
+        this.minChunkSize = minChunkSize;
+        this.log2MinChunkSize = minChunkSize.mostSignificantBitSet();
+        this.minReclaimableSpace = minReclaimableSpace;
+        discardPagesSize = discardPagesSizeOption.getValue();
+        final ArrayLayout layout = vmConfig().layoutScheme().wordArrayLayout;
+        headsStart = Reference.fromJava(heads).toOrigin().plus(layout.getElementOffsetFromOrigin(0));
+        reset();
+    }
+
+    @FOLD
+    private static int remaindersOffset() {
+        return ClassActor.fromJava(LargeFreeChunkLists.class).findLocalInstanceFieldActor("remainders").offset();
+    }
+
+    @FOLD
+    private static int freeBytesOffset() {
+        return ClassActor.fromJava(LargeFreeChunkLists.class).findLocalInstanceFieldActor("freeBytes").offset();
+    }
+
+    @INLINE
+    private void addFreeBytes(long delta) {
+        final Reference reference = Reference.fromJava(this);
+        long bytes;
+        do {
+            bytes = freeBytes;
+        } while (reference.compareAndSwapLong(freeBytesOffset(), bytes, bytes + delta) != bytes);
+    }
+
+    long freeBytes() {
+        return freeBytes;
+    }
+
+    Size minChunkSize() {
+        return minChunkSize;
+    }
+
+    private int classIndex(Size size) {
+        if (size.lessThan(minChunkSize)) {
+            return 0;
+        }
+        // Number of fractions of the minimum size, with CLASSES_PER_POWER_OF_TWO fractions in the minimum size.
+        final Size fractions = size.unsignedShiftedRight(log2MinChunkSize - LOG2_CLASSES_PER_POWER_OF_TWO);
+        final int powerOfTwo = fractions.mostSignificantBitSet() - LOG2_CLASSES_PER_POWER_OF_TWO;
+        final int index = (powerOfTwo << LOG2_CLASSES_PER_POWER_OF_TWO) + (fractions.unsignedShiftedRight(powerOfTwo).toInt() & (CLASSES_PER_POWER_OF_TWO - 1));
+        return index < lastClass ? index : lastClass;
+    }
+
+    /**
+     * Determines if a chunk can hold a cell, leaving either nothing or enough space for an object.
+     */
+    @INLINE
+    private static boolean fits(Size chunkSize, Size size) {
+        return chunkSize.equals(size) || chunkSize.greaterEqual(size.plus(HeapSchemeAdaptor.minObjectSize()));
+    }
+
+    /**
+     * Removes the head of a list if it can hold a cell of a given size.
+     *
+     * @return the removed chunk, or zero if the list is empty or its head is too small
+     */
+    @NO_SAFEPOINT_POLLS("a chunk must not be entered again in a list by a GC while being removed from it")
+    private Address removeHead(int classIndex, Size size) {
+        final int offset = classIndex << Word.widthValue().log2numberOfBytes;
+        Address head = headsStart.readWord(offset).asAddress();
+        while (!head.isZero()) {
+            // The head may be removed and overwritten by another thread at any time, in which case the
+            // compare-and-swap below fails whatever was read from it.
+            if (!fits(HeapFreeChunk.getFreechunkSize(head), size)) {
+                return Address.zero();
+            }
+            final Address next = HeapFreeChunk.getFreeChunkNext(head);
+            final Address current = headsStart.compareAndSwapWord(offset, head, next).asAddress();
+            if (current.equals(head)) {
+                return head;
+            }
+            head = current;
+        }
+        return Address.zero();
+    }
+
+    /**
+     * Allocates a chunk from the cache of the current thread or from the lists, without locking.
+     * <p>
+     * No GC may happen between the removal of the chunk and its return, as the chunk is not reachable from
+     * anywhere until the caller has formatted it: the sweep would enter it again in the lists while it is
+     * handed out. All the methods called on that path are therefore inlined or free of safepoint polls.
+     *
+     * @param size the requested size
+     * @param exactFit specifies if the chunk must be split to the requested size. If not, the whole chunk is returned,
+     *            formatted as a free chunk.
+     * @return the allocated chunk, or zero if no chunk can hold the requested size
+     */
+    @NO_SAFEPOINT_POLLS("the chunk cached by the thread must not be dropped by a GC while being allocated from")
+    Address allocate(Size size, boolean exactFit) {
+        final Pointer etla = ETLA.load(VmThread.currentTLA());
+        Address chunk = LARGE_CHUNK_CACHE.load(etla);
+        if (!chunk.isZero() && fits(HeapFreeChunk.getFreechunkSize(chunk), size)) {
+            LARGE_CHUNK_CACHE.store(etla, Address.zero());
+        } else {
+            chunk = Address.zero();
+            for (int classIndex = classIndex(size); classIndex <= lastClass && chunk.isZero(); classIndex++) {
+                chunk = removeHead(classIndex, size);
+            }
+            if (chunk.isZero()) {
+                return chunk;
+            }
+        }
+        final Size chunkSize = HeapFreeChunk.getFreechunkSize(chunk);
+        addFreeBytes(-chunkSize.toLong());
+        if (exactFit) {
+            retireRemainder(etla, chunk.plus(size), chunkSize.minus(size));
+        } else {
+            HeapFreeChunk.setFreeChunkNext(chunk, Address.zero());
+        }
+        return chunk;
+    }
+
+    /**
+     * Disposes of the space left after allocating from a chunk: the current thread caches it if it is large and
+     * larger than the chunk the thread already caches, otherwise it is pushed on the list of remainders.
+     */
+    @INLINE
+    private void retireRemainder(Pointer etla, Address remainder, Size remainderSize) {
+        if (remainderSize.lessThan(minReclaimableSpace)) {
+            if (!remainderSize.isZero()) {
+                DarkMatter.format(remainder, remainderSize);
+            }
+            return;
+        }
+        HeapFreeChunk.format(remainder, remainderSize);
+        addFreeBytes(remainderSize.toLong());
+        Address pushed = remainder;
+        if (remainderSize.greaterEqual(minChunkSize)) {
+            final Address cached = LARGE_CHUNK_CACHE.load(etla);
+            if (cached.isZero() || HeapFreeChunk.getFreechunkSize(cached).lessThan(remainderSize)) {
+                LARGE_CHUNK_CACHE.store(etla, remainder);
+                pushed = cached;
+            }
+        }
+        if (!pushed.isZero()) {
+            pushRemainder(pushed);
+        }
+    }
+
+    @INLINE
+    private void pushRemainder(Address chunk) {
+        final Reference reference = Reference.fromJava(this);
+        Address head;
+        do {
+            head = remainders;
+            HeapFreeChunk.setFreeChunkNext(chunk, head);
+        } while (!reference.compareAndSwapWord(remaindersOffset(), head, chunk).equals(head));
+    }
+
+    /**
+     * Takes the whole list of remainders. The space of the remainders is no longer accounted for by these lists.
+     *
+     * @return the first remainder of the list, linked to the others as free chunks, or zero if there are none
+     */
+    Address drainRemainders() {
+        if (remainders.isZero()) {
+            return Address.zero();
+        }
+        final Reference reference = Reference.fromJava(this);
+        Address head;
+        do {
+            head = remainders;
+        } while (!reference.compareAndSwapWord(remaindersOffset(), head, Address.zero()).equals(head));
+        long drainedBytes = 0L;
+        for (Address chunk = head; !chunk.isZero(); chunk = HeapFreeChunk.getFreeChunkNext(chunk)) {
+            drainedBytes += HeapFreeChunk.getFreechunkSize(chunk).toLong();
+        }
+        addFreeBytes(-drainedBytes);
+        return head;
+    }
+
+    /**
+     * Allocates and zeroes a cell, without locking.
+     *
+     * @return the allocated cell, or zero if no chunk can hold it
+     */
+    Pointer allocateCleared(Size size) {
+        final Pointer cell = allocate(size, true).asPointer();
+        if (cell.isZero()) {
+            return cell;
+        }
+        return clear(cell, size);
+    }
+
+    /**
+     * Zeroes an allocated large cell.
+     */
+    Pointer clear(Pointer cell, Size size) {
+        final int log2WordSize = Word.widthValue().log2numberOfBytes;
+        if (!discardPagesSize.isZero() && size.greaterEqual(discardPagesSize) && !VirtualMemory.UseLargePages) {
+            final int pageSize = Platform.platform().pageSize;
+            final Pointer end = cell.plus(size);
+            final Pointer firstPage = cell.alignUp(pageSize).asPointer();
+            final Pointer endOfLastPage = end.alignDown(pageSize).asPointer();
+            if (endOfLastPage.greaterThan(firstPage) && VirtualMemory.discardPages(firstPage, endOfLastPage.minus(firstPage).asSize())) {
+                Memory.clearWords(cell, firstPage.minus(cell).toInt() >> log2WordSize);
+                Memory.clearWords(endOfLastPage, end.minus(endOfLastPage).toInt() >> log2WordSize);
+                return cell;
+            }
+        }
+        Memory.clearWords(cell, size.unsignedShiftedRight(log2WordSize).toInt());
+        return cell;
+    }
+
+    /**
+     * Determines if a cell of a given size could be allocated from the lists, that is, if the head of one of the lists
+     * {@linkplain #removeHead(int, Size) allocate} tries can hold it. A chunk of a size class above that of the request
+     * may still leave a remainder too small for an object, so every head is checked.
+     */
+    boolean canFit(Size size) {
+        for (int i = classIndex(size); i <= lastClass; i++) {
+            final Address head = WordArray.get(heads, i).asAddress();
+            if (!head.isZero() && fits(HeapFreeChunk.getFreechunkSize(head), size)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Enters a chunk of free space in the list of its size class. Must only be called while sweeping.
+     * Chunks are appended, so the lists are in the order the sweeper finds them, except for the last list, which
+     * is kept in decreasing size order so that its head is the only chunk it has to try.
+     */
+    void add(Address chunk, Size size) {
+        final int classIndex = classIndex(size);
+        if (classIndex == lastClass) {
+            Address previous = Address.zero();
+            Address next = WordArray.get(heads, lastClass).asAddress();
+            while (!next.isZero() && HeapFreeChunk.getFreechunkSize(next).greaterThan(size)) {
+                previous = next;
+                next = HeapFreeChunk.getFreeChunkNext(next);
+            }
+            HeapFreeChunk.format(chunk, size, next);
+            if (previous.isZero()) {
+                WordArray.set(heads, lastClass, chunk.asPointer());
+            } else {
+                HeapFreeChunk.setFreeChunkNext(previous, chunk);
+            }
+        } else {
+            HeapFreeChunk.format(chunk, size);
+            final Pointer tail = WordArray.get(tails, classIndex).asPointer();
+            if (tail.isZero()) {
+                WordArray.set(heads, classIndex, chunk.asPointer());
+            } else {
+                HeapFreeChunk.setFreeChunkNext(tail, chunk);
+            }
+            WordArray.set(tails, classIndex, chunk.asPointer());
+        }
+        freeBytes += size.toLong();
+    }
+
+    /**
+     * Empties the lists. Must only be called when no mutator can allocate from them.
+     */
+    void reset() {
+        WordArray.fill(heads, Pointer.zero());
+        WordArray.fill(tails, Pointer.zero());
+        remainders = Address.zero();
+        freeBytes = 0L;
+    }
+
+    /**
+     * Drops the chunks cached by threads.
+     */
+    private final Pointer.Procedure dropCachedChunk = new Pointer.Procedure() {
+        public void run(Pointer tla) {
+            final Pointer etla = ETLA.load(tla);
+            final Address cached = LARGE_CHUNK_CACHE.load(etla);
+            if (!cached.isZero()) {
+                DarkMatter.format(cached, HeapFreeChunk.getFreechunkSize(cached));
+                LARGE_CHUNK_CACHE.store(etla, Address.zero());
+            }
+        }
+    };
+
+    /**
+     * Makes the free space of the lists parsable as dark matter, as the free lists of the {@link FreeHeapSpaceManager},
+     * and empties the lists. The sweep that follows enters the free space in the lists again.
+     */
+    void doBeforeGC() {
+        VmThreadMap.ACTIVE.forAllThreadLocals(null, dropCachedChunk);
+        for (int i = 0; i <= lastClass; i++) {
+            HeapFreeChunk.formatAsDarkMatter(WordArray.get(heads, i).asAddress());
+        }
+        HeapFreeChunk.formatAsDarkMatter(remainders);
+        reset();
+    }
+
+    void print() {
+        final boolean lockDisabledSafepoints = Log.lock();
+        for (int i = 0; i <= lastClass; i++) {
+            int numChunks = 0;
+            for (Address chunk = WordArray.get(heads, i).asAddress(); !chunk.isZero(); chunk = HeapFreeChunk.getFreeChunkNext(chunk)) {
+                numChunks++;
+            }
+            if (numChunks > 0) {
+                Log.print("Large chunk class ["); Log.print(i); Log.print("] total chunks: "); Log.println(numChunks);
+            }
+        }
+        Log.print("Large chunks total space: "); Log.println(freeBytes);
+        Log.unlock(lockDisabledSafepoints);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.heap.gcx;
+
+import static com.sun.max.platform.Platform.*;
+import static com.sun.max.vm.VMOptions.*;
+import static com.sun.max.vm.heap.gcx.HeapRegionConstants.*;
+import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.lang.*;
+import com.sun.max.platform.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.util.*;
+import com.sun.max.vm.*;
+
+/**
+ * NUMA placement of heap regions.
+ * <p>
+ * When enabled with {@link #UseNUMA}, heap regions are homed on NUMA nodes round-robin: region {@code r} is bound to node
+ * {@code r % numNodes()}, so that any contiguous range of regions spreads evenly over the nodes. Spaces that support it
+ * (see {@link FirstFitMarkSweepSpace}) keep one TLAB allocator per node and refill each from regions homed on that node,
+ * so that a thread obtains TLABs from memory local to the CPU it runs on.
+ * <p>
+ * The mode is disabled, and allocation behaves exactly as without it, on machines with a single NUMA node, when libnuma
+ * is not available, or on platforms where the current node cannot be read cheaply (see {@link Intrinsics#getCpuID()}).
+ */
+public final class NUMAHeapRegions {
+
+    public static boolean UseNUMA = false;
+    static {
+        VMOptions.addFieldOption("-XX:", "UseNUMA", NUMAHeapRegions.class,
+            "Home heap regions on NUMA nodes and serve TLAB refills from regions of the node of the current CPU.", MaxineVM.Phase.PRISTINE);
+    }
+
+    public static final VMBooleanOption PrintNUMAAllocationStatsOption = register(new VMBooleanOption("-XX:-PrintNUMAAllocationStats",
+            "Report how many allocating regions were handed out from the requesting node.") {
+        @Override
+        protected void beforeExit() {
+            if (getValue()) {
+                Log.print("NUMA allocation: ");
+                if (numNodes <= 1) {
+                    Log.println("disabled");
+                    return;
+                }
+                Log.print(numNodes);
+                Log.print(" nodes, ");
+                Log.print(localRegions);
+                Log.print(" node-local allocating regions, ");
+                Log.print(remoteRegions);
+                Log.println(" remote");
+            }
+        }
+    }, MaxineVM.Phase.STARTING);
+
+    /**
+     * Maximum number of nodes per-node structures are built for in the boot image. Nodes beyond that share the structures of node 0.
+     */
+    public static final int MAX_NODES = 8;
+
+    private static int numNodes = 1;
+
+    @RESET
+    static long localRegions;
+
+    @RESET
+    static long remoteRegions;
+
+    private NUMAHeapRegions() {
+    }
+
+    /**
+     * Determines the number of NUMA nodes and binds the regions of the managed heap space to their home node.
+     * Leaves NUMA placement disabled if there is only one node or the platform doesn't support it.
+     *
+     * @param startOfManagedSpace address of the first region
+     * @param numRegions number of regions in the managed space
+     */
+    static void initialize(Address startOfManagedSpace, int numRegions) {
+        if (!UseNUMA || platform().isa != ISA.AMD64 || platform().os != OS.LINUX || NUMALib.numalib_available() == -1) {
+            return;
+        }
+        int maxNode = 0;
+        final int numCPUs = NUMALib.numaConfiguredCPUs();
+        for (int cpu = 0; cpu < numCPUs; cpu++) {
+            maxNode = Math.max(maxNode, NUMALib.numaNodeOfCPU(cpu));
+        }
+        numNodes = Math.min(maxNode + 1, MAX_NODES);
+        if (numNodes <= 1) {
+            return;
+        }
+        Address regionStart = startOfManagedSpace;
+        for (int regionID = 0; regionID < numRegions; regionID++) {
+            NUMALib.numaBindToNode(regionStart.toLong(), regionSizeInBytes, nodeOfRegion(regionID));
+            regionStart = regionStart.plus(regionSizeInBytes);
+        }
+    }
+
+    /**
+     * Number of nodes regions are distributed over; 1 if NUMA placement is disabled.
+     */
+    @INLINE
+    public static int numNodes() {
+        return numNodes;
+    }
+
+    @INLINE
+    public static boolean isEnabled() {
+        return numNodes > 1;
+    }
+
+    /**
+     * Home node of a region. Only meaningful if NUMA placement is {@linkplain #isEnabled() enabled}.
+     */
+    @INLINE
+    public static int nodeOfRegion(int regionID) {
+        return regionID % numNodes;
+    }
+
+    /**
+     * Node of the CPU the current thread runs on, or 0 if NUMA placement is disabled.
+     */
+    @INLINE
+    public static int currentNode() {
+        if (numNodes <= 1) {
+            return 0;
+        }
+        final int node = Intrinsics.getCpuID() >> NUMA_NODE_SHIFT;
+        return node < numNodes ? node : 0;
+    }
+}
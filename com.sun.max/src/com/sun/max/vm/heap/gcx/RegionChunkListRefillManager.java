@@ -76,6 +76,11 @@ public final class RegionChunkListRefillManager extends ChunkListRefillManager {
      */
     private Size wastedSpace;
 
+    /**
+     * NUMA node the allocating regions are requested from, or -1 if any region will do.
+     */
+    private int node = -1;
+
     private static final OutOfMemoryError outOfMemoryError = new OutOfMemoryError();
 
     public void setRegionProvider(RegionProvider regionProvider) {
@@ -100,6 +105,10 @@ public final class RegionChunkListRefillManager extends ChunkListRefillManager {
         allocatingRegion = INVALID_REGION_ID;
     }
 
+    void setNode(int node) {
+        this.node = node;
+    }
+
     void setRefillPolicy(Size refillThreshold) {
         this.refillThreshold = refillThreshold;
     }
@@ -133,7 +142,7 @@ public final class RegionChunkListRefillManager extends ChunkListRefillManager {
             int gcCount = 0;
             retireCurrentAllocatingRegion();
             do {
-                allocatingRegion = regionProvider.getAllocatingRegion();
+                allocatingRegion = node < 0 ? regionProvider.getAllocatingRegion() : regionProvider.getAllocatingRegionOnNode(node);
                 if (allocatingRegion != INVALID_REGION_ID) {
                     if (allocatingRegion == DebuggedRegion) {
                         TLABLog.TraceTLABAllocation = true;
@@ -43,6 +43,14 @@ public interface RegionProvider {
      */
     int getAllocatingRegion();
 
+    /**
+     * Obtain a region with free space from the region provider, preferably one homed on the specified NUMA node.
+     * Falls back to any region with free space if the node has none.
+     * @param node a NUMA node (see {@link NUMAHeapRegions})
+     * @return an region identifier, or {@link HeapRegionConstants#INVALID_REGION_ID} if free space is exhausted.
+     */
+    int getAllocatingRegionOnNode(int node);
+
     /**
      * Obtain a region with at least the specified amount of free space, and at most the specified number of chunks.
      * @param minFreeBytes
@@ -43,6 +43,10 @@ import com.sun.max.vm.reference.*;
  * or to test it against the finger to decide whether to mark it grey or push it on the marking stack.
  * We can just blindingly mark grey any references to the covered area,
  * and update the leftmost and rightmost marked positions.
+ *
+ * When the roots are marked in parallel by {@linkplain GCWorkerThread GC worker threads}, each worker uses its own
+ * {@linkplain #newWorkerVisitor() visitor}, grey marks are set atomically, and the leftmost and rightmost positions of
+ * the workers are {@linkplain #merge(RootCellVisitor) merged} once all the roots are marked.
  */
 abstract class RootCellVisitor extends PointerIndexVisitor implements CellVisitor {
 
@@ -58,9 +62,37 @@ abstract class RootCellVisitor extends PointerIndexVisitor implements CellVisito
 
     protected Address bottom;
 
+    /**
+     * Indicates if other visitors may mark roots in the same color map at the same time.
+     */
+    boolean parallel;
+
+    /**
+     * The visitor of the GC thread, on whose behalf this visitor marks roots.
+     */
+    private RootCellVisitor leader = this;
+
     RootCellVisitor() {
     }
 
+    /**
+     * Creates a visitor marking roots in the area covered by the same heap marker as this visitor,
+     * for use by a GC worker thread.
+     */
+    abstract RootCellVisitor newWorkerVisitor();
+
+    final RootCellVisitor newWorkerVisitor(TricolorHeapMarker heapMarker) {
+        RootCellVisitor workerVisitor = newWorkerVisitor();
+        workerVisitor.initialize(heapMarker);
+        workerVisitor.leader = this;
+        return workerVisitor;
+    }
+
+    @Override
+    public PointerIndexVisitor leader() {
+        return leader;
+    }
+
     void initialize(TricolorHeapMarker heapMarker) {
         this.heapMarker = heapMarker;
     }
@@ -75,15 +107,33 @@ abstract class RootCellVisitor extends PointerIndexVisitor implements CellVisito
     final void markExternalRoot(Pointer cell) {
         // Note: the first test also acts as a null pointer filter.
         if (cell.greaterEqual(bottom) && isNonNullCovered(cell)) {
-            heapMarker.markGrey(cell);
+            if (parallel) {
+                heapMarker.markGreyAtomically(cell);
+            } else {
+                heapMarker.markGrey(cell);
+            }
+            // The first cell marked is both the leftmost and the rightmost
             if (cell.lessThan(leftmost)) {
                 leftmost = cell;
-            } else if (cell.greaterThan(rightmost)) {
+            }
+            if (cell.greaterThan(rightmost)) {
                 rightmost = cell;
             }
         }
     }
 
+    /**
+     * Extends the range of marked positions of this visitor with that of a visitor that marked roots in parallel.
+     */
+    final void merge(RootCellVisitor workerVisitor) {
+        if (workerVisitor.leftmost.lessThan(leftmost)) {
+            leftmost = workerVisitor.leftmost;
+        }
+        if (workerVisitor.rightmost.greaterThan(rightmost)) {
+            rightmost = workerVisitor.rightmost;
+        }
+    }
+
     @Override
     final public void visit(Pointer pointer, int wordIndex) {
         markExternalRoot(Layout.originToCell(pointer.getReference(wordIndex).toOrigin()));
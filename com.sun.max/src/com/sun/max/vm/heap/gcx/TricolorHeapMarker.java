@@ -29,7 +29,6 @@ import com.sun.max.util.timer.*;
 import com.sun.max.vm.*;
 import com.sun.max.vm.MaxineVM.Phase;
 import com.sun.max.vm.actor.holder.*;
-import com.sun.max.vm.code.*;
 import com.sun.max.vm.heap.*;
 import com.sun.max.vm.layout.*;
 import com.sun.max.vm.reference.*;
@@ -524,6 +523,9 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markingStack = null;
         rootCellVisitor = null;
         heapRootsScanner = null;
+        workerRootCellVisitors = null;
+        heapRootsScanWorkers = null;
+        rootScanTask = null;
         overflowLinearScanState = null;
         overflowScanWithRescanMapState = null;
         initialize(start, end, bitmapStorage, bitmapSize);
@@ -543,7 +545,15 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markingStack.setOverflowHandler(this);
         this.rootCellVisitor = rootCellVisitor;
         rootCellVisitor.initialize(this);
-        heapRootsScanner = new SequentialHeapRootsScanner(rootCellVisitor);
+        heapRootsScanner = new ParallelHeapRootsScanner();
+        workerRootCellVisitors = new RootCellVisitor[GCWorkerThread.MAX_GC_WORKER_THREADS + 1];
+        heapRootsScanWorkers = new ParallelHeapRootsScanner.Worker[GCWorkerThread.MAX_GC_WORKER_THREADS + 1];
+        for (int i = 0; i < workerRootCellVisitors.length; i++) {
+            final RootCellVisitor visitor = i == 0 ? rootCellVisitor : rootCellVisitor.newWorkerVisitor(this);
+            workerRootCellVisitors[i] = visitor;
+            heapRootsScanWorkers[i] = heapRootsScanner.newWorker(visitor, visitor);
+        }
+        rootScanTask = new RootScanTask();
         overflowLinearScanState = new OverflowLinearScanState(this);
         overflowScanWithRescanMapState = new OverflowScanWithRescanMapState(this);
     }
@@ -716,6 +726,43 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markGrey(bitIndex);
     }
 
+    /**
+     * Atomically set bits of a word of the color map.
+     * @param wordIndex index of the bitmap word
+     * @param bits the bits to set
+     */
+    @INLINE
+    private void setBitsAtomically(int wordIndex, long bits) {
+        final Pointer basePointer = base.asPointer();
+        final int offset = wordIndex << Word.widthValue().log2numberOfBytes;
+        long word = basePointer.getLong(wordIndex);
+        while ((word & bits) != bits) {
+            final long witness = basePointer.compareAndSwapLong(offset, word, word | bits);
+            if (witness == word) {
+                return;
+            }
+            word = witness;
+        }
+    }
+
+    /**
+     * Paint grey a cell that may be marked by other threads at the same time, e.g., by GC worker threads marking roots in parallel.
+     * Unlike {@link #markGrey(Address)}, the color map words are updated atomically, so that the marks of cells sharing a bitmap word are not lost.
+     * @param cell
+     */
+    @INLINE
+    final void markGreyAtomically(Address cell) {
+        final int bitIndex = bitIndexOf(cell);
+        traceGreyMark(cell, bitIndex);
+        final int wordIndex = bitmapWordIndex(bitIndex);
+        if (!colorSpanWords(bitIndex)) {
+            setBitsAtomically(wordIndex, GREY << bitIndexInWord(bitIndex));
+        } else {
+            setBitsAtomically(wordIndex, bitmaskFor(LAST_BIT_INDEX_IN_WORD));
+            setBitsAtomically(wordIndex + 1, 1L);
+        }
+    }
+
     @INLINE
     final boolean markGreyIfWhite(Pointer cell) {
         final int bitIndex = bitIndexOf(cell);
@@ -1258,21 +1305,55 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
     ColorMapScanState currentScanState = forwardScanState;
 
     /**
-     * Scanning of strong roots external to the heap and boot region (namely, thread stacks and live monitors).
+     * Scanning of strong roots external to the heap (namely, thread stacks and live monitors), of the boot region and of the code regions.
+     * These roots are split among the GC thread and the {@linkplain GCWorkerThread GC worker threads}, each marking with its own
+     * root cell visitor (the one of the GC thread being {@link #rootCellVisitor}) and root scanning worker, indexed by worker index.
      */
-    private final SequentialHeapRootsScanner heapRootsScanner;
+    private final ParallelHeapRootsScanner heapRootsScanner;
+
+    private final RootCellVisitor[] workerRootCellVisitors;
+
+    private final ParallelHeapRootsScanner.Worker[] heapRootsScanWorkers;
 
-    void markBootHeap() {
-        Heap.bootHeapRegion.visitReferences(rootCellVisitor);
+    /**
+     * Marks the roots of the current {@linkplain #markPhase mark phase} claimed by the GC thread or a GC worker thread.
+     */
+    private final class RootScanTask implements GCWorkerThread.Task {
+        @Override
+        public void run(int workerIndex) {
+            final ParallelHeapRootsScanner.Worker worker = heapRootsScanWorkers[workerIndex];
+            if (markPhase == MARK_PHASE.SCAN_THREADS) {
+                worker.scanThreads();
+            } else if (markPhase == MARK_PHASE.SCAN_BOOT_HEAP) {
+                worker.scanBootHeap();
+            } else {
+                FatalError.check(markPhase == MARK_PHASE.SCAN_CODE, "Roots of this mark phase are not scanned in parallel");
+                // References in the boot code region are immutable and only ever refer
+                // to objects in the boot heap region. Only non-boot code regions are scanned.
+                worker.scanCode();
+            }
+        }
     }
 
+    private final RootScanTask rootScanTask;
 
-    void markCode() {
-        // References in the boot code region are immutable and only ever refer
-        // to objects in the boot heap region.
-        // Setting includeBootCode to false tells to scan non-boot code regions only.
-        boolean includeBootCode = false;
-        Code.visitCells(rootCellVisitor, includeBootCode);
+    private void resetRootCellVisitors() {
+        final boolean parallel = GCWorkerThread.numberOfWorkers() > 0;
+        for (int i = 0; i <= GCWorkerThread.numberOfWorkers(); i++) {
+            final RootCellVisitor visitor = workerRootCellVisitors[i];
+            visitor.reset();
+            visitor.parallel = parallel;
+        }
+    }
+
+    /**
+     * Gathers the leftmost and rightmost marked positions of the GC worker threads into the {@link #rootCellVisitor} of the GC thread.
+     */
+    private void mergeRootCellVisitors() {
+        for (int i = 1; i <= GCWorkerThread.numberOfWorkers(); i++) {
+            rootCellVisitor.merge(workerRootCellVisitors[i]);
+        }
+        rootCellVisitor.parallel = false;
     }
 
     void markImmortalHeap() {
@@ -1301,14 +1382,16 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
      */
     public void markRoots() {
         final boolean traceGCPhases = Heap.logGCPhases();
-        rootCellVisitor.reset();
+        resetRootCellVisitors();
+        heapRootsScanner.reset();
 
         // Mark all out of heap roots first (i.e., thread).
         // This only needs setting grey marks blindly (there are no black mark at this stage).
+        // The threads, boot heap and code roots are marked in parallel by the GC thread and the GC worker threads, if any.
         markPhase = MARK_PHASE.SCAN_THREADS;
         markPhase.traceBegin(traceGCPhases);
         startTimer(rootScanTimer);
-        heapRootsScanner.run();
+        GCWorkerThread.run(rootScanTask);
         stopTimer(rootScanTimer);
         markPhase.traceEnd(traceGCPhases);
 
@@ -1316,16 +1399,17 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markPhase = MARK_PHASE.SCAN_BOOT_HEAP;
         markPhase.traceBegin(traceGCPhases);
         startTimer(bootHeapScanTimer);
-        markBootHeap();
+        GCWorkerThread.run(rootScanTask);
         stopTimer(bootHeapScanTimer);
         markPhase.traceEnd(traceGCPhases);
 
         markPhase = MARK_PHASE.SCAN_CODE;
         markPhase.traceBegin(traceGCPhases);
         startTimer(codeScanTimer);
-        markCode();
+        GCWorkerThread.run(rootScanTask);
         stopTimer(codeScanTimer);
         markPhase.traceEnd(traceGCPhases);
+        mergeRootCellVisitors();
 
         markPhase = MARK_PHASE.SCAN_IMMORTAL;
         markPhase.traceBegin(traceGCPhases);
@@ -1488,6 +1572,27 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         forwardScanState.visitGreyObjects(regionRanges);
     }
 
+    /**
+     * Heap region ranges being marked by {@link #markAll(HeapRegionRangeIterable)}, or {@code null} if the whole
+     * covered area is being marked.
+     */
+    private HeapRegionRangeIterable markedRegionsRanges;
+
+    /**
+     * Visit all objects marked grey while processing special references.
+     */
+    void visitGreyObjectsOfSpecialReferences() {
+        if (markedRegionsRanges == null) {
+            visitGreyObjects();
+        } else {
+            // Note: the VISIT_GREY_FORWARD has already visited the whole heap, so any additional grey reference added by the special reference
+            // manager are on the marking stack. Draining that stack may nevertheless add new grey reference after the finger, so we still
+            // need to iterate over the region ranges past the finger, hence the reset.
+            markedRegionsRanges.reset();
+            visitGreyObjects(markedRegionsRanges);
+        }
+    }
+
     /**
      * Visit all objects marked grey during root marking that resides in list of memory region ranges.
      * Regions are numbered from 0, where in the address to the first bytes of region 0 coincide with
@@ -1805,8 +1910,9 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markPhase = MARK_PHASE.SPECIAL_REF;
         markPhase.traceBegin(traceGCPhases);
         startTimer(weakRefTimer);
+        markedRegionsRanges = null;
         SpecialReferenceManager.processDiscoveredSpecialReferences(forwardScanState);
-        visitGreyObjects();
+        visitGreyObjectsOfSpecialReferences();
         stopTimer(weakRefTimer);
         markPhase.traceEnd(traceGCPhases);
 
@@ -1897,12 +2003,10 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markPhase = MARK_PHASE.SPECIAL_REF;
         markPhase.traceBegin(traceGCPhases);
         startTimer(weakRefTimer);
+        markedRegionsRanges = regionsRanges;
         SpecialReferenceManager.processDiscoveredSpecialReferences(forwardScanState);
-        // Note: the VISIT_GREY_FORWARD has already visited the whole heap, so any additional grey reference added by the special reference
-        // manager are on the marking stack. Draining that stack may nevertheless add new grey reference after the finger, so we still
-        // need to iterate over the region ranges past the finger, hence the reset.
-        regionsRanges.reset();
-        visitGreyObjects(regionsRanges);
+        visitGreyObjectsOfSpecialReferences();
+        markedRegionsRanges = null;
         stopTimer(weakRefTimer);
         markPhase.traceEnd(traceGCPhases);
         FatalError.check(markingStack.isEmpty(), "Marking Stack must be empty after special references are processed.");
@@ -283,6 +283,10 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
     final class GenCollection extends GCOperation {
         HeapRegionRangeIterable regionsRangeIterable;
         int fullCollectionCount = 0;
+        /**
+         * Tells whether the old generation is being collected, as opposed to the young generation.
+         */
+        boolean oldGenCollection;
         GenCollection() {
             super("GenCollection");
             regionsRangeIterable = new HeapRegionRangeIterable();
@@ -300,6 +304,8 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
          * Perform old generation collection. This is done after the young generation has been fully evacuated.
          */
         private void doOldGenCollection() {
+            oldGenCollection = true;
+            Heap.invokeGCCallbacks(Heap.GCCallbackPhase.BEFORE);
             youngSpaceEvacuator.doBeforeGC();
             youngSpace.doBeforeGC();
             oldSpace.doBeforeGC();
@@ -311,6 +317,8 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
             oldSpace.doAfterGC();
             youngSpaceEvacuator.doAfterGC();
             fullCollectionCount++;
+            Heap.invokeGCCallbacks(Heap.GCCallbackPhase.AFTER);
+            oldGenCollection = false;
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.MUTATING);
         }
 
@@ -328,6 +336,7 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
             // The full GC is thereafter just a old gen GC with an empty young gen.
             VmThreadMap.ACTIVE.forAllThreadLocals(null, tlabFiller);
             vmConfig().monitorScheme().beforeGarbageCollection();
+            Heap.invokeGCCallbacks(Heap.GCCallbackPhase.BEFORE);
             if (Heap.verbose()) {
                 Log.println("--Begin nursery evacuation");
             }
@@ -344,6 +353,7 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
             }
             Size worstCaseEvac = youngSpace.totalSpace();
             Size freeSpace = oldSpace.freeSpace();
+            Heap.invokeGCCallbacks(Heap.GCCallbackPhase.AFTER);
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.MUTATING);
             if (worstCaseEvac.greaterThan(freeSpace)) {
                 if (Heap.verbose()) {
@@ -368,6 +378,27 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
         }
     }
 
+    private GarbageCollectorMXBeanAdaptor youngGarbageCollectorMXBean;
+    private GarbageCollectorMXBeanAdaptor oldGarbageCollectorMXBean;
+
+    @HOSTED_ONLY
+    @Override
+    protected GarbageCollectorMXBeanAdaptor[] createGarbageCollectorMXBeans() {
+        youngGarbageCollectorMXBean = new GarbageCollectorMXBeanAdaptor("GenMSE Young", "end of minor GC");
+        oldGarbageCollectorMXBean = new GarbageCollectorMXBeanAdaptor("GenMSE Old", "end of major GC");
+        final HeapSpaceMemoryPoolMXBean youngPool = new HeapSpaceMemoryPoolMXBean("GenMSE Young Gen", youngSpace, youngGarbageCollectorMXBean);
+        youngGarbageCollectorMXBean.add(youngPool);
+        // As the old generation is collected once the young generation is evacuated, the old collector manages both
+        oldGarbageCollectorMXBean.add(youngPool);
+        oldGarbageCollectorMXBean.add(new HeapSpaceMemoryPoolMXBean("GenMSE Old Gen", oldSpace, oldGarbageCollectorMXBean));
+        return new GarbageCollectorMXBeanAdaptor[] {youngGarbageCollectorMXBean, oldGarbageCollectorMXBean};
+    }
+
+    @Override
+    protected GarbageCollectorMXBeanAdaptor collectingMXBean() {
+        return genCollection.oldGenCollection ? oldGarbageCollectorMXBean : youngGarbageCollectorMXBean;
+    }
+
     @Override
     public boolean contains(Address address) {
         return theHeapRegionManager().contains(address);
@@ -422,6 +453,12 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
         cardTableRSet.record(ref, displacement, index);
     }
 
+    @INLINE
+    @Override
+    public void postWriteBarrierRange(Reference ref, int displacement, int firstIndex, int length) {
+        cardTableRSet.recordRange(ref, displacement, firstIndex, length);
+    }
+
     /**
      * Allocate a chunk of memory of the specified size and refill a thread's TLAB with it.
      * @param etla the thread whose TLAB will be refilled
@@ -433,6 +470,13 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
         refillTLAB(etla, tlab, effectiveSize);
     }
 
+    @Override
+    protected Size maxTlabSize() {
+        // The nursery allocator refills TLABs from a single region.
+        final Size max = Size.fromInt(regionSizeInBytes);
+        return max.lessThan(super.maxTlabSize()) ? max : super.maxTlabSize();
+    }
+
     @Override
     @NEVER_INLINE
     protected Pointer handleTLABOverflow(Size size, Pointer etla, Pointer tlabMark, Pointer tlabEnd) {
@@ -451,7 +495,7 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
             allocateAndRefillTLAB(etla, tlabSize);
             // Let's do a bit of meta-circularity. The TLAB is refilled, and no-one except the current thread can use it.
             // So the TLAB allocation is going to succeed here
-            TLABRefillPolicy.setForCurrentThread(etla, new SimpleTLABRefillPolicy(tlabSize));
+            TLABRefillPolicy.setForCurrentThread(etla, newTLABRefillPolicy(tlabSize));
             // Now, address the initial request. Note that we may recurse down to handleTLABOverflow again here if the
             // request is larger than the TLAB size. However, this second call will succeed and allocate outside of the TLAB.
             return tlabAllocate(size);
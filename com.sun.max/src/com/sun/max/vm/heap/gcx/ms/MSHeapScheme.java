@@ -282,6 +282,7 @@ public final class MSHeapScheme extends HeapSchemeWithTLABAdaptor {
             traceGCTimes = Heap.logGCTime();
             startTimer(totalPauseTime);
             VmThreadMap.ACTIVE.forAllThreadLocals(null, tlabFiller);
+            Heap.invokeGCCallbacks(Heap.GCCallbackPhase.BEFORE);
 
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.ANALYZING);
 
@@ -313,6 +314,7 @@ public final class MSHeapScheme extends HeapSchemeWithTLABAdaptor {
             }
             final GCRequest gcRequest = callingThread().gcRequest;
             gcRequest.lastInvocationCount = invocationCount;
+            Heap.invokeGCCallbacks(Heap.GCCallbackPhase.AFTER);
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.MUTATING);
             stopTimer(totalPauseTime);
 
@@ -338,7 +340,8 @@ public final class MSHeapScheme extends HeapSchemeWithTLABAdaptor {
     @INLINE
     private Size setNextTLABChunk(Pointer etla, Pointer nextChunk) {
         Size nextChunkEffectiveSize = setNextTLABChunk(nextChunk);
-        fastRefillTLAB(etla, nextChunk, nextChunkEffectiveSize);
+        // The current chunk was used up exactly.
+        changeTLABChunk(etla, nextChunk, nextChunkEffectiveSize, Size.zero());
         return nextChunkEffectiveSize;
     }
 
@@ -366,7 +369,7 @@ public final class MSHeapScheme extends HeapSchemeWithTLABAdaptor {
         // Zap chunk data to leave allocation area clean.
         Memory.clearWords(chunk, effectiveSize.unsignedShiftedRight(Word.widthValue().log2numberOfBytes).toInt());
         chunk.plus(effectiveSize).setWord(nextChunk);
-        fastRefillTLAB(etla, chunk, effectiveSize);
+        changeTLABChunk(etla, chunk, effectiveSize, tlabHardLimit.minus(tlabHeadroom()).minus(tlabMark).asSize());
         return tlabAllocate(size);
     }
 
@@ -403,7 +406,7 @@ public final class MSHeapScheme extends HeapSchemeWithTLABAdaptor {
             allocateAndRefillTLAB(etla, tlabSize);
             // Let's do a bit of dirty meta-circularity. The TLAB is refilled, and no-one except the current thread can use it.
             // So the tlab allocation is going to succeed here
-            TLABRefillPolicy.setForCurrentThread(etla, new SimpleTLABRefillPolicy(tlabSize));
+            TLABRefillPolicy.setForCurrentThread(etla, newTLABRefillPolicy(tlabSize));
             // Now, address the initial request. Note that we may recurse down to handleTLABOverflow again here if the
             // request is larger than the TLAB size. However, this second call will succeed and allocate outside of the tlab.
             return tlabAllocate(size);
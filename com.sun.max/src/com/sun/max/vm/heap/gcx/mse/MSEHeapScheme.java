@@ -317,6 +317,7 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
             traceGCTimes = Heap.logGCTime();
             startTimer(totalPauseTime);
             VmThreadMap.ACTIVE.forAllThreadLocals(null, tlabFiller);
+            Heap.invokeGCCallbacks(Heap.GCCallbackPhase.BEFORE);
 
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.ANALYZING);
 
@@ -351,6 +352,7 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
 
             final GCRequest gcRequest = callingThread().gcRequest;
             gcRequest.lastInvocationCount = invocationCount;
+            Heap.invokeGCCallbacks(Heap.GCCallbackPhase.AFTER);
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.MUTATING);
             stopTimer(totalPauseTime);
 
@@ -377,7 +379,8 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
     @INLINE
     private Size setNextTLABChunk(Pointer etla, Pointer nextChunk) {
         Size nextChunkEffectiveSize = setNextTLABChunk(nextChunk);
-        fastRefillTLAB(etla, nextChunk, nextChunkEffectiveSize);
+        // The current chunk was used up exactly.
+        changeTLABChunk(etla, nextChunk, nextChunkEffectiveSize, Size.zero());
         return nextChunkEffectiveSize;
     }
 
@@ -407,7 +410,7 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
         // Zap chunk data to leave allocation area clean.
         Memory.clearWords(chunk, effectiveSize.unsignedShiftedRight(Word.widthValue().log2numberOfBytes).toInt());
         chunk.plus(effectiveSize).setWord(nextChunk);
-        fastRefillTLAB(etla, chunk, effectiveSize);
+        changeTLABChunk(etla, chunk, effectiveSize, tlabHardLimit.minus(tlabHeadroom()).minus(tlabMark).asSize());
         return tlabAllocate(size);
     }
 
@@ -452,7 +455,7 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
             allocateAndRefillTLAB(etla, tlabSize);
             // Let's do a bit of dirty meta-circularity. The TLAB is refilled, and no-one except the current thread can use it.
             // So the tlab allocation is going to succeed here
-            TLABRefillPolicy.setForCurrentThread(etla, new SimpleTLABRefillPolicy(tlabSize));
+            TLABRefillPolicy.setForCurrentThread(etla, newTLABRefillPolicy(tlabSize));
             // Now, address the initial request. Note that we may recurse down to handleTLABOverflow again here if the
             // request is larger than the TLAB size. However, this second call will succeed and allocate outside of the tlab.
             return tlabAllocate(size);
@@ -504,6 +507,21 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
         return markSweepSpace.heapAccount();
     }
 
+    private GarbageCollectorMXBeanAdaptor garbageCollectorMXBean;
+
+    @HOSTED_ONLY
+    @Override
+    protected GarbageCollectorMXBeanAdaptor[] createGarbageCollectorMXBeans() {
+        garbageCollectorMXBean = new GarbageCollectorMXBeanAdaptor("MSE");
+        garbageCollectorMXBean.add(new HeapSpaceMemoryPoolMXBean("MSE Heap", markSweepSpace, garbageCollectorMXBean));
+        return new GarbageCollectorMXBeanAdaptor[] {garbageCollectorMXBean};
+    }
+
+    @Override
+    protected GarbageCollectorMXBeanAdaptor collectingMXBean() {
+        return garbageCollectorMXBean;
+    }
+
     @Override
     public PhaseLogger phaseLogger() {
         return HeapSchemeLoggerAdaptor.phaseLogger;
@@ -291,6 +291,28 @@ public final class CardTableRSet extends DeadSpaceListener implements HeapManage
         cardTable.dirtyCovered(ref.toOrigin().plus(Address.fromInt(index).shiftedLeft(Word.widthValue().log2numberOfBytes).plus(displacement)));
     }
 
+    /**
+     * Record update to a range of reference slots of a cell, dirtying each card the range overlaps once.
+     * @param ref the cell whose references are updated
+     * @param displacement a displacement from the origin of the cell
+     * @param firstIndex a word index to the first updated reference
+     * @param length the number of updated references
+     */
+    @NO_SAFEPOINT_POLLS("the cards must be those of the current address of the cell")
+    public void recordRange(Reference ref, int displacement, int firstIndex, int length) {
+        if (length <= 0) {
+            return;
+        }
+        final int log2WordSize = Word.widthValue().log2numberOfBytes;
+        final Address first = ref.toOrigin().plus(Address.fromInt(firstIndex).shiftedLeft(log2WordSize).plus(displacement));
+        final Address last = first.plus(Address.fromInt(length - 1).shiftedLeft(log2WordSize));
+        Address card = alignDownToCard(first);
+        do {
+            cardTable.dirtyCovered(card);
+            card = card.plus(CARD_SIZE);
+        } while (card.lessEqual(last));
+    }
+
     /**
      * Visit the cells that overlap a card.
      *
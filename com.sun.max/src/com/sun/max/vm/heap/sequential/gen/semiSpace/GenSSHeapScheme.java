@@ -28,7 +28,6 @@ import java.lang.management.*;
 
 import com.sun.cri.xir.*;
 import com.sun.cri.xir.CiXirAssembler.XirOperand;
-import com.sun.management.GarbageCollectorMXBean;
 import com.sun.max.annotate.*;
 import com.sun.max.memory.*;
 import com.sun.max.platform.*;
@@ -735,7 +734,6 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
         if (MaxineVM.isDebug() && Heap.verbose()) {
             Log.println("--Begin nursery evacuation");
         }
-        final long startGCTime = System.currentTimeMillis();
         evacTimers.start(TOTAL);
         youngSpaceEvacuator.setGCOperation(genCollection);
         HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.ANALYZING);
@@ -840,7 +838,6 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
             // clearing this flag must be done before moving to the MUTATING phase to avoid the inspector's confusion.
             requiresFullGC = false;
         }
-        accumulatedGCTime = endGCTime - startGCTime;
         Heap.invokeGCCallbacks(GCCallbackPhase.AFTER);
         HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.MUTATING);
     }
@@ -897,6 +894,12 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
         cardTableRSet.record(ref, displacement, index);
     }
 
+    @INLINE
+    @Override
+    public void postWriteBarrierRange(Reference ref, int displacement, int firstIndex, int length) {
+        cardTableRSet.recordRange(ref, displacement, firstIndex, length);
+    }
+
     @Override
     public long maxObjectInspectionAge() {
         return System.currentTimeMillis() - lastFullGCTime;
@@ -1008,6 +1011,13 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
         refillTLAB(etla, tlab, effectiveSize);
     }
 
+    @Override
+    protected Size maxTlabSize() {
+        // Larger TLABs would be allocated as large objects by the young space allocator.
+        final Size max = Size.fromLong(Long.highestOneBit(largeObjectSizeThreshold.toLong()));
+        return max.lessThan(super.maxTlabSize()) ? max : super.maxTlabSize();
+    }
+
     @NEVER_INLINE
     @Override
     protected Pointer handleTLABOverflow(Size size, Pointer etla, Pointer tlabMark, Pointer tlabEnd) {
@@ -1026,7 +1036,7 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
             allocateAndRefillTLAB(etla, tlabSize);
             // Let's do a bit of meta-circularity. The TLAB is refilled, and no-one except the current thread can use it.
             // So the TLAB allocation is going to succeed here
-            TLABRefillPolicy.setForCurrentThread(etla, new SimpleTLABRefillPolicy(tlabSize));
+            TLABRefillPolicy.setForCurrentThread(etla, newTLABRefillPolicy(tlabSize));
             // Now, address the initial request. Note that we may recurse down to handleTLABOverflow again here if the
             // request is larger than the TLAB size. However, this second call will succeed and allocate outside of the TLAB.
             return tlabAllocate(size);
@@ -1098,9 +1108,18 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
         return XirWriteBarrierSpecification.NULL_WRITE_BARRIER_GEN;
     }
 
+    private GenSSGarbageCollectorMXBean garbageCollectorMXBean;
+
+    @HOSTED_ONLY
+    @Override
+    protected GarbageCollectorMXBeanAdaptor[] createGarbageCollectorMXBeans() {
+        garbageCollectorMXBean = new GenSSGarbageCollectorMXBean();
+        return new GarbageCollectorMXBeanAdaptor[] {garbageCollectorMXBean};
+    }
+
     @Override
-    public GarbageCollectorMXBean getGarbageCollectorMXBean() {
-        return new GenSSGarbageCollectorMXBean();
+    protected GarbageCollectorMXBeanAdaptor collectingMXBean() {
+        return garbageCollectorMXBean;
     }
 
     private final class GenSSGarbageCollectorMXBean extends HeapSchemeAdaptor.GarbageCollectorMXBeanAdaptor {
@@ -29,7 +29,6 @@ import static com.sun.max.vm.thread.VmThreadLocal.*;
 
 import java.lang.management.*;
 
-import com.sun.management.GarbageCollectorMXBean;
 import com.sun.max.annotate.*;
 import com.sun.max.memory.*;
 import com.sun.max.platform.*;
@@ -308,6 +307,10 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
             return newRef;
         }
 
+        public void traceFromPreserved() {
+            // preserve() already moved the objects reachable from the preserved ones
+        }
+
         public boolean mayRelocateLiveObjects() {
             return true;
         }
@@ -436,7 +439,6 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
                 gcRequest.lastInvocationCount = invocationCount;
 
                 lastGCTime = System.currentTimeMillis();
-                accumulatedGCTime += lastGCTime - startGCTime;
                 if (Heap.verbose()) {
                     Log.print("--During GC   time: ");
                     Log.print(lastGCTime - startGCTime);
@@ -851,6 +853,13 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
         return ImmortalHeap.allocate(size, true);
     }
 
+    @Override
+    protected Size maxTlabSize() {
+        // The safety zone must be able to hold a TLAB.
+        final Size max = Size.fromInt(safetyZoneSize);
+        return max.lessThan(super.maxTlabSize()) ? max : super.maxTlabSize();
+    }
+
     /**
      * Handling of TLAB Overflow. This may refill the TLAB or allocate memory directly from the underlying heap.
      * This will always be taken when not using TLABs which is fine as the cost of the
@@ -885,7 +894,7 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
             allocateAndRefillTLAB(etla, tlabSize);
             // Let's do a bit of meta-circularity. The TLAB is refilled, and no-one except the current thread can use it.
             // So the TLAB allocation is going to succeed here
-            TLABRefillPolicy.setForCurrentThread(etla, new SimpleTLABRefillPolicy(tlabSize));
+            TLABRefillPolicy.setForCurrentThread(etla, newTLABRefillPolicy(tlabSize));
             // Now, address the initial request. Note that we may recurse down to handleTLABOverflow again here if the
             // request is larger than the TLAB size. However, this second call will succeed and allocate outside of the TLAB.
             return tlabAllocate(size);
@@ -1235,9 +1244,18 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
         return System.currentTimeMillis() - lastGCTime;
     }
 
+    private SemiSpaceGarbageCollectorMXBean garbageCollectorMXBean;
+
+    @HOSTED_ONLY
+    @Override
+    protected GarbageCollectorMXBeanAdaptor[] createGarbageCollectorMXBeans() {
+        garbageCollectorMXBean = new SemiSpaceGarbageCollectorMXBean();
+        return new GarbageCollectorMXBeanAdaptor[] {garbageCollectorMXBean};
+    }
+
     @Override
-    public GarbageCollectorMXBean getGarbageCollectorMXBean() {
-        return new SemiSpaceGarbageCollectorMXBean();
+    protected GarbageCollectorMXBeanAdaptor collectingMXBean() {
+        return garbageCollectorMXBean;
     }
 
     private final class SemiSpaceGarbageCollectorMXBean extends HeapSchemeAdaptor.GarbageCollectorMXBeanAdaptor {
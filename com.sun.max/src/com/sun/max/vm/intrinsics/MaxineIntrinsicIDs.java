@@ -329,6 +329,39 @@ public class MaxineIntrinsicIDs {
     public static final int CPU_MASK = (1 << 12) - 1;
     public static final int NUMA_NODE_SHIFT = 12;
 
+    /**
+     * Compares two blocks of memory with 256-bit AVX2 operations. Must only be executed if the CPU supports AVX2.
+     * <p>
+     * The method definition must have the following form:
+     * <pre>
+     * static boolean m(Pointer pointer1, Pointer pointer2, Size numberOfBytes);
+     * </pre>
+     */
+    public static final String VECTORIZED_EQUALS = p + "VECTORIZED_EQUALS";
+
+    /**
+     * Searches a block of 16-bit chars with 256-bit AVX2 operations. Must only be executed if the CPU supports AVX2.
+     * <p>
+     * The method definition must have the following form:
+     * <pre>
+     * static int m(Pointer chars, int length, char ch);
+     *
+     * returns the index of the first of the length chars equal to ch, or -1
+     * </pre>
+     */
+    public static final String VECTORIZED_INDEX_OF_CHAR = p + "VECTORIZED_INDEX_OF_CHAR";
+
+    /**
+     * Fills a block of memory with a 64-bit pattern using 256-bit AVX2 operations. Must only be executed if the CPU
+     * supports AVX2.
+     * <p>
+     * The method definition must have the following form:
+     * <pre>
+     * static void m(Pointer start, Size numberOfBytes, long pattern);
+     * </pre>
+     */
+    public static final String VECTORIZED_FILL = p + "VECTORIZED_FILL";
+
     /**
      * A vehicle for testing snippets.
      * TODO remove when debugged
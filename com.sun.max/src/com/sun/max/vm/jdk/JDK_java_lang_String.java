@@ -25,6 +25,8 @@ package com.sun.max.vm.jdk;
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 
 import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
 import com.sun.max.vm.classfile.constant.*;
 
 /**
@@ -40,6 +42,12 @@ public final class JDK_java_lang_String {
     @INTRINSIC(UNSAFE_CAST)
     private native String thisString();
 
+    @ALIAS(declaringClass = String.class)
+    char[] value;
+
+    @ALIAS(declaringClass = String.class)
+    private native int indexOfSupplementary(int ch, int fromIndex);
+
     /**
      * Intern this string, returning a canonicalized version.
      * @see java.lang.String#intern()
@@ -50,4 +58,65 @@ public final class JDK_java_lang_String {
     public String intern() {
         return SymbolTable.intern(thisString());
     }
+
+    /**
+     * Compares this string to an object, comparing the characters of long strings with
+     * {@linkplain VectorizedMemory vectorized} operations.
+     * @see java.lang.String#equals(Object)
+     */
+    @SUBSTITUTE
+    public boolean equals(Object anObject) {
+        if (thisString() == anObject) {
+            return true;
+        }
+        if (anObject instanceof String) {
+            final char[] v1 = value;
+            final char[] v2 = asThis((String) anObject).value;
+            final int n = v1.length;
+            if (n != v2.length) {
+                return false;
+            }
+            if (VectorizedMemory.isUseful(Size.fromInt(n << 1))) {
+                return JDK_java_util_Arrays.vectorizedEquals(v1, v2, n, 1);
+            }
+            for (int i = 0; i < n; i++) {
+                if (v1[i] != v2[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Searches this string for a character, searching long strings with {@linkplain VectorizedMemory vectorized}
+     * operations.
+     * @see java.lang.String#indexOf(int, int)
+     */
+    @SUBSTITUTE
+    public int indexOf(int ch, int fromIndex) {
+        final char[] v = value;
+        final int max = v.length;
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        } else if (fromIndex >= max) {
+            return -1;
+        }
+        if (ch < 0 || ch >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return indexOfSupplementary(ch, fromIndex);
+        }
+        if (VectorizedMemory.isUseful(Size.fromInt((max - fromIndex) << 1))) {
+            return JDK_java_util_Arrays.vectorizedIndexOf(v, fromIndex, max, (char) ch);
+        }
+        for (int i = fromIndex; i < max; i++) {
+            if (v[i] == ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @INTRINSIC(UNSAFE_CAST)
+    static native JDK_java_lang_String asThis(String s);
 }
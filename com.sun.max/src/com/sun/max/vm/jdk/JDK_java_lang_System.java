@@ -22,19 +22,25 @@ package com.sun.max.vm.jdk;
 
 import com.sun.max.annotate.*;
 import com.sun.max.lang.Strings;
+import com.sun.max.memory.Memory;
 import com.sun.max.platform.OS;
 import com.sun.max.platform.Platform;
 import com.sun.max.program.ProgramError;
+import com.sun.max.unsafe.Address;
 import com.sun.max.unsafe.CString;
 import com.sun.max.unsafe.Pointer;
+import com.sun.max.unsafe.Size;
 import com.sun.max.unsafe.Word;
 import com.sun.max.util.Utf8Exception;
 import com.sun.max.vm.*;
 import com.sun.max.vm.MaxineVM.NativeProperty;
 import com.sun.max.vm.actor.holder.ClassActor;
 import com.sun.max.vm.actor.holder.Hub;
+import com.sun.max.vm.heap.HeapScheme;
+import com.sun.max.vm.layout.Layout;
 import com.sun.max.vm.object.ArrayAccess;
 import com.sun.max.vm.object.ObjectAccess;
+import com.sun.max.vm.reference.Reference;
 import com.sun.max.vm.runtime.FatalError;
 import com.sun.max.vm.type.BootClassLoader;
 import com.sun.max.vm.type.Kind;
@@ -134,6 +140,47 @@ public final class JDK_java_lang_System {
         return MaxineVM.native_nanoTime();
     }
 
+    /**
+     * Copies of at least this many bytes are done by {@link #bulkCopy}, shorter ones element by element.
+     */
+    private static final int BULK_COPY_THRESHOLD = 16;
+
+    /**
+     * Determines if an array copy that needs no store checks should be done by {@link #bulkCopy}.
+     */
+    @INLINE
+    private static boolean isBulkCopy(Kind kind, int length) {
+        return !MaxineVM.isHosted() && length >= (BULK_COPY_THRESHOLD >> kind.width.log2numberOfBytes);
+    }
+
+    /**
+     * Copies array elements as raw memory, a word at a time for the most part (see {@link Memory#copyElementsForward}).
+     * Reference elements are copied without write barriers; a single {@linkplain HeapScheme#postWriteBarrierRange range
+     * barrier} covers them all once the copy is done. No store checks are performed.
+     * <p>
+     * The addresses of the arrays are held in raw pointers for the duration of the copy, so neither this method nor
+     * anything it calls may reach a safepoint.
+     *
+     * @param forward specifies if the elements are copied in ascending or descending address order
+     */
+    @NO_SAFEPOINT_POLLS("raw addresses of the arrays must remain valid during the copy")
+    private static void bulkCopy(Kind kind, Object fromArray, int fromIndex, Object toArray, int toIndex, int length, boolean forward) {
+        final int log2ElementSize = kind.width.log2numberOfBytes;
+        final int displacement = Layout.arrayLayout().headerSize();
+        final Reference toReference = Reference.fromJava(toArray);
+        final Pointer from = Reference.fromJava(fromArray).toOrigin().plus(Address.fromInt(fromIndex).shiftedLeft(log2ElementSize).plus(displacement));
+        final Pointer to = toReference.toOrigin().plus(Address.fromInt(toIndex).shiftedLeft(log2ElementSize).plus(displacement));
+        final Size numberOfBytes = Address.fromInt(length).shiftedLeft(log2ElementSize).asSize();
+        if (forward) {
+            Memory.copyElementsForward(from, to, numberOfBytes, log2ElementSize);
+        } else {
+            Memory.copyElementsBackward(from, to, numberOfBytes, log2ElementSize);
+        }
+        if (kind.isReference) {
+            vmConfig().heapScheme().postWriteBarrierRange(toReference, displacement, toIndex, length);
+        }
+    }
+
     /**
      * Performs an array copy in the forward direction.
      *
@@ -146,6 +193,10 @@ public final class JDK_java_lang_System {
      * @param toComponentClassActor the class actor representing the component type of the destination array
      */
     private static void arrayCopyForward(final Kind kind, Object fromArray, int fromIndex, Object toArray, int toIndex, int length, ClassActor toComponentClassActor) {
+        if (toComponentClassActor == null && isBulkCopy(kind, length)) {
+            bulkCopy(kind, fromArray, fromIndex, toArray, toIndex, length, true);
+            return;
+        }
         switch (kind.asEnum) {
             case BYTE: {
                 for (int i = 0; i < length; i++) {
@@ -228,6 +279,10 @@ public final class JDK_java_lang_System {
      * @param length    the number of elements to copy
      */
     private static void arrayCopyBackward(final Kind kind, Object fromArray, int fromIndex, Object toArray, int toIndex, int length) {
+        if (isBulkCopy(kind, length)) {
+            bulkCopy(kind, fromArray, fromIndex, toArray, toIndex, length, false);
+            return;
+        }
         switch (kind.asEnum) {
             case BYTE: {
                 for (int i = length - 1; i >= 0; i--) {
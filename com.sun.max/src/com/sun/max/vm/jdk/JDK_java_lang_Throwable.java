@@ -22,6 +22,7 @@
  */
 package com.sun.max.vm.jdk;
 
+import static com.sun.max.vm.compiler.target.Stub.Type.*;
 import static com.sun.max.vm.intrinsics.Infopoints.*;
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 
@@ -32,9 +33,11 @@ import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
 import com.sun.max.vm.actor.holder.*;
 import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.stack.*;
 import com.sun.max.vm.thread.*;
+import com.sun.max.vm.type.*;
 
 /**
  * Substitutions for {@link Throwable} that collect the stack trace.
@@ -44,8 +47,11 @@ import com.sun.max.vm.thread.*;
 public final class JDK_java_lang_Throwable {
 
     public static boolean StackTraceInThrowable = true;
+    public static int MaxJavaStackTraceDepth = 1024;
     static {
         VMOptions.addFieldOption("-XX:", "StackTraceInThrowable", JDK_java_lang_Throwable.class, "Collect backtrace in throwable when exception happens.");
+        VMOptions.addFieldOption("-XX:", "MaxJavaStackTraceDepth", JDK_java_lang_Throwable.class,
+            "The maximum number of frames recorded in the stack trace of an exception (0 means all).");
     }
 
     private static final ObjectThreadLocal<Throwable> TRACE_UNDER_CONSTRUCTION = new ObjectThreadLocal<Throwable>("TRACE_UNDER_CONSTRUCTION",
@@ -73,8 +79,9 @@ public final class JDK_java_lang_Throwable {
     private static StackTraceElement[] UNASSIGNED_STACK;
 
     /**
-     * Fills in the stack trace for this exception. This implementation eagerly creates a
-     * stack trace and fills in all the {@link java.lang.StackTraceElement stack trace elements}.
+     * Fills in the stack trace for this exception. This implementation records a {@link Backtrace} of at most
+     * {@link #MaxJavaStackTraceDepth} frames. The {@link java.lang.StackTraceElement stack trace elements}
+     * are only created if the stack trace is requested.
      *
      * @see java.lang.Throwable#fillInStackTrace()
      * @return the throwable with a filled-in stack trace (typically this object)
@@ -100,7 +107,7 @@ public final class JDK_java_lang_Throwable {
         final Pointer sp = VMRegister.getCpuStackPointer();
         final Pointer fp = VMRegister.getCpuFramePointer();
         try {
-            Backtrace backtrace = getBacktrace(sfw, ip, sp, fp, throwableActor, Integer.MAX_VALUE);
+            Backtrace backtrace = getBacktrace(sfw, ip, sp, fp, throwableActor, MaxJavaStackTraceDepth <= 0 ? Integer.MAX_VALUE : MaxJavaStackTraceDepth);
             this.backtrace = backtrace;
         } catch (OutOfMemoryError e) {
             // Could not build backtrace due to memory shortage
@@ -111,48 +118,149 @@ public final class JDK_java_lang_Throwable {
     }
 
     /**
-     * A back trace is a lighter weight representation of a stack trace than
-     * an array of {@link StackTraceElement}s.
+     * A back trace is a lighter weight representation of a stack trace than an array of {@link StackTraceElement}s.
+     * <p>
+     * Capturing a back trace only records the {@link TargetMethod} and code position of each physical frame on the
+     * stack. Expanding these into source frames (including frames for inlined methods), eliding the exception
+     * constructor chain and looking up line numbers is deferred until the trace is {@linkplain #getTrace() requested}.
+     * Most exceptions are caught and discarded without their stack trace ever being inspected and so never pay for
+     * this expansion.
      */
-    public static class Backtrace extends StackTraceVisitor {
-
-        static final int INITIAL_LENGTH = 200;
-
-        public int count;
-        public int[] lineNos;
-        public ClassMethodActor[] methods;
+    public static class Backtrace extends RawStackFrameVisitor {
+
+        static final int INITIAL_LENGTH = 32;
+
+        /**
+         * The class of the exception for which the trace is being captured or {@code null} if the trace is not for an
+         * exception. This is cleared if the exception is raised by a trap, in which case there is no constructor chain
+         * to elide.
+         */
+        private ClassActor exceptionClass;
+
+        /**
+         * The maximum number of source frames in the trace.
+         */
+        private final int maxDepth;
+
+        /**
+         * The number of frames captured so far that count towards {@link #maxDepth}. Frames of methods in the
+         * constructor chain of {@link #exceptionClass} do not count as they are elided when the trace is resolved.
+         */
+        private int depth;
+
+        private int count;
+        private TargetMethod[] targetMethods;
+        private int[] positions;
+
+        /**
+         * The resolved source frames, or {@code null} if the trace has not yet been {@linkplain #resolve() resolved}.
+         */
+        private ClassMethodActor[] methods;
+        private int[] lineNos;
+        private int resolvedCount;
 
         public Backtrace(ClassActor exceptionClass, int maxDepth) {
-            super(exceptionClass);
-
+            this.exceptionClass = exceptionClass;
+            this.maxDepth = maxDepth;
             int len = Math.min(maxDepth, INITIAL_LENGTH);
-            lineNos = new int[len];
-            methods = new ClassMethodActor[len];
+            targetMethods = new TargetMethod[len];
+            positions = new int[len];
         }
 
         @Override
-        public void clear() {
-            for (int i = count - 1; i >= 0; i--) {
-                methods[i] = null;
+        public boolean visitFrame(StackFrameCursor current, StackFrameCursor callee) {
+            final TargetMethod targetMethod = current.targetMethod();
+            if (targetMethod == null || targetMethod.classMethodActor == null) {
+                // ignore native frames as well as stubs, trampolines, adapters etc
+                return true;
             }
-            count = 0;
-        }
-
-        @Override
-        public boolean add(ClassMethodActor methodActor, int sourceLineNumber) {
-            if (count == lineNos.length) {
+            if (callee.targetMethod() != null && callee.targetMethod().is(TrapStub)) {
+                // The frames above a trap are VM frames raising the implicit exception
+                count = 0;
+                depth = 0;
+                exceptionClass = null;
+            }
+            if (count == targetMethods.length) {
                 expand();
             }
-            lineNos[count] = sourceLineNumber;
-            methods[count] = methodActor;
+            targetMethods[count] = targetMethod;
+            positions[count] = targetMethod.posFor(current.vmIP());
             count++;
-            return true;
+            if (!inConstructorChain(targetMethod.classMethodActor)) {
+                depth++;
+            }
+            return depth < maxDepth;
+        }
+
+        private boolean inConstructorChain(ClassMethodActor method) {
+            return exceptionClass != null && method.holder().isAssignableFrom(exceptionClass) &&
+                (method.isInstanceInitializer() || method.holder() == ClassRegistry.THROWABLE);
         }
 
         private void expand() {
-            int newLength = lineNos.length * 2;
-            lineNos = Arrays.copyOf(lineNos, newLength);
-            methods = Arrays.copyOf(methods, newLength);
+            int newLength = targetMethods.length * 2;
+            targetMethods = Arrays.copyOf(targetMethods, newLength);
+            positions = Arrays.copyOf(positions, newLength);
+        }
+
+        /**
+         * Expands the captured frames into source frames. The expansion is only done once.
+         */
+        private void resolve() {
+            if (methods != null) {
+                return;
+            }
+            methods = new ClassMethodActor[Math.min(count, maxDepth)];
+            lineNos = new int[methods.length];
+            final StackTraceVisitor resolver = new StackTraceVisitor(exceptionClass) {
+                @Override
+                public boolean add(ClassMethodActor methodActor, int sourceLineNumber) {
+                    if (resolvedCount == maxDepth) {
+                        return false;
+                    }
+                    if (resolvedCount == methods.length) {
+                        methods = Arrays.copyOf(methods, Math.min(maxDepth, methods.length * 2 + 1));
+                        lineNos = Arrays.copyOf(lineNos, methods.length);
+                    }
+                    methods[resolvedCount] = methodActor;
+                    lineNos[resolvedCount] = sourceLineNumber;
+                    resolvedCount++;
+                    return true;
+                }
+            };
+            for (int i = 0; i < count; i++) {
+                final TargetMethod targetMethod = targetMethods[i];
+                final int pos = positions[i];
+                int n = 0;
+                if (pos >= 0 && pos < targetMethod.codeLength()) {
+                    n = targetMethod.forEachCodePos(resolver, targetMethod.codeAt(pos));
+                }
+                if (n == 0 && !resolver.visitSourceFrame(targetMethod.classMethodActor, -1, false, 0)) {
+                    break;
+                }
+                if (resolvedCount == maxDepth) {
+                    break;
+                }
+            }
+            // Let the GC reclaim the raw frames
+            targetMethods = null;
+            positions = null;
+        }
+
+        /**
+         * Gets the number of source frames in this back trace.
+         */
+        public int count() {
+            resolve();
+            return resolvedCount;
+        }
+
+        /**
+         * Gets the method of the source frame at a given index in this back trace.
+         */
+        public ClassMethodActor methodAt(int index) {
+            resolve();
+            return methods[index];
         }
 
         StackTraceElement stackTraceElement(int index) {
@@ -162,10 +270,10 @@ public final class JDK_java_lang_Throwable {
             return new StackTraceElement(holder.name.toString(), method.name.toString(), holder.sourceFileName, sourceLineNumber);
         }
 
-        @Override
         public StackTraceElement[] getTrace() {
-            StackTraceElement[] trace = new StackTraceElement[count];
-            for (int i = 0; i != count; i++) {
+            resolve();
+            StackTraceElement[] trace = new StackTraceElement[resolvedCount];
+            for (int i = 0; i != resolvedCount; i++) {
                 trace[i] = stackTraceElement(i);
             }
             return trace;
@@ -186,7 +294,7 @@ public final class JDK_java_lang_Throwable {
             return null;
         }
         Backtrace backtrace = new Backtrace(exceptionClass, maxDepth);
-        backtrace.walk(walker, ip, sp, fp);
+        walker.inspect(ip, sp, fp, backtrace);
         return backtrace;
     }
 
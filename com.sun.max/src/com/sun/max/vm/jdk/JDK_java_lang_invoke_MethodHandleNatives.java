@@ -33,6 +33,7 @@ import com.sun.max.program.*;
 import com.sun.max.vm.actor.holder.*;
 import com.sun.max.vm.actor.member.*;
 import com.sun.max.vm.classfile.constant.*;
+import com.sun.max.vm.compiler.deps.*;
 import com.sun.max.vm.methodhandle.*;
 import com.sun.max.vm.methodhandle.MaxMethodHandles.*;
 import com.sun.max.vm.runtime.FatalError;
@@ -127,6 +128,22 @@ public final class JDK_java_lang_invoke_MethodHandleNatives {
     public static native Object linkCallSite(Object callerObj, Object bootstrapMethodObj, Object nameObj,
                                              Object typeObj, Object staticArguments, Object[] appendixResult);
 
+    /**
+     * Sets the target of a call site, deoptimizing the code compiled against its previous target.
+     */
+    @SUBSTITUTE
+    static void setCallSiteTargetNormal(CallSite site, MethodHandle target) {
+        CallSiteTargetDependencyProcessor.setTarget(site, target, false);
+    }
+
+    /**
+     * Sets the target of a call site with volatile semantics, deoptimizing the code compiled against its previous target.
+     */
+    @SUBSTITUTE
+    static void setCallSiteTargetVolatile(CallSite site, MethodHandle target) {
+        CallSiteTargetDependencyProcessor.setTarget(site, target, true);
+    }
+
     /**
      * For a field MemberName, return the offset of the field in its holder.
      *
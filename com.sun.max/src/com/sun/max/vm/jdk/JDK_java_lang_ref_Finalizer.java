@@ -68,18 +68,24 @@ final class JDK_java_lang_ref_Finalizer {
             Object finalizee = asReference(this).get();
 
             if (finalizee != null && !(finalizee instanceof java.lang.Enum)) {
-                ClassActor holder = ObjectAccess.readClassActor(finalizee);
-                MethodActor selectedMethod = (MethodActor) holder.resolveMethodImpl(Object_finalize);
-
                 if (TraceFinalization) {
+                    ClassActor holder = ObjectAccess.readClassActor(finalizee);
+                    MethodActor selectedMethod = (MethodActor) holder.resolveMethodImpl(Object_finalize);
                     Log.print("Finalizing ");
-                    Log.print(ObjectAccess.readClassActor(finalizee).name.string);
+                    Log.print(holder.name.string);
                     Log.print(" instance at ");
                     Log.print(Reference.fromJava(finalizee).toOrigin());
                     Log.println(" by calling " + selectedMethod);
                 }
 
-                selectedMethod.invoke(ReferenceValue.from(finalizee));
+                if (jla != null) {
+                    // A direct call, which does not box the finalizee in a Value as a reflective invocation does
+                    jla.invokeFinalize(finalizee);
+                } else {
+                    ClassActor holder = ObjectAccess.readClassActor(finalizee);
+                    MethodActor selectedMethod = (MethodActor) holder.resolveMethodImpl(Object_finalize);
+                    selectedMethod.invoke(ReferenceValue.from(finalizee));
+                }
                 /* Clear stack slot containing this variable, to decrease
                    the chances of false retention with a conservative GC */
                 finalizee = null;
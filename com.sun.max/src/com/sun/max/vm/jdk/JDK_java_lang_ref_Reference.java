@@ -57,29 +57,23 @@ public final class JDK_java_lang_ref_Reference {
     /**
      * Substitute of java.lang.ref.Reference.tryHandlePending.
      * <p>
-     * It is essentially a copy of the substitutee that instead of traversing the pending list through the discovered
-     * field (as in JDK 8), it traverses it through the next field (as prior to JDK 8).
+     * It is derived from the substitutee but, instead of traversing the pending list through the discovered
+     * field (as in JDK 8), it traverses it through the next field (as prior to JDK 8). It also takes the whole
+     * pending list at once and {@linkplain JDK_java_lang_ref_ReferenceQueue#enqueuePending enqueues} each run of
+     * references registered with the same queue under a single acquisition of the lock of the queue, instead of
+     * taking the lock of the pending list and the lock of the queue once per reference.
      *
      * @param waitForNotify
      * @return
      */
     @SUBSTITUTE(optional = true) // Not available in JDK 7
     static boolean tryHandlePending(boolean waitForNotify) {
-        Reference                   ref;
-        JDK_java_lang_ref_Reference refAlias;
-        Cleaner                     c;
+        Reference ref;
         try {
             synchronized (lock) {
                 if (pending != null) {
                     ref = pending;
-                    refAlias = asJLRRAlias(ref);
-                    Reference rn = refAlias.next;
-                    pending = (rn == ref) ? null : rn;
-                    refAlias.next = ref;
-                    // 'instanceof' might throw OutOfMemoryError sometimes
-                    // so do this before un-linking 'r' from the 'pending' chain...
-                    c = ClassRegistry.CLEANER.isInstance(ref) ? asCleaner(ref) : null;
-                    // unlink 'r' from 'pending' chain
+                    pending = null;
                 } else {
                     // The waiting on the lock may cause an OutOfMemoryError
                     // because it may try to allocate exception objects.
@@ -93,8 +87,6 @@ public final class JDK_java_lang_ref_Reference {
         } catch (OutOfMemoryError x) {
             // Give other threads CPU time so they hopefully drop some live references
             // and GC reclaims some space.
-            // Also prevent CPU intensive spinning in case 'r instanceof Cleaner' above
-            // persistently throws OOME for some time...
             Thread.yield();
             // retry
             return true;
@@ -103,18 +95,47 @@ public final class JDK_java_lang_ref_Reference {
             return true;
         }
 
-        // Fast path for cleaners
-        if (c != null) {
-            c.clean();
-            return true;
-        }
-
-        JDK_java_lang_ref_ReferenceQueue q = JDK_java_lang_ref_ReferenceQueue.asThis(refAlias.queue);
-        if (refAlias.queue != JDK_java_lang_ref_ReferenceQueue.NULL) {
-            q.enqueue(ref);
+        try {
+            while (ref != null) {
+                JDK_java_lang_ref_Reference refAlias = asJLRRAlias(ref);
+                ReferenceQueue queue = refAlias.queue;
+                // The type test may cause an OutOfMemoryError, so it is done before the
+                // reference is unlinked from the rest of the list.
+                final boolean isCleaner = ClassRegistry.CLEANER.isInstance(ref);
+                if (isCleaner || queue == JDK_java_lang_ref_ReferenceQueue.NULL || queue == JDK_java_lang_ref_ReferenceQueue.ENQUEUED) {
+                    Reference rn = refAlias.next;
+                    refAlias.next = ref;
+                    if (isCleaner) {
+                        // Fast path for cleaners
+                        asCleaner(ref).clean();
+                    }
+                    ref = (rn == ref) ? null : rn;
+                } else {
+                    ref = JDK_java_lang_ref_ReferenceQueue.enqueuePending(queue, ref);
+                }
+            }
+        } catch (OutOfMemoryError x) {
+            // Entering the lock of a queue may cause an OutOfMemoryError. Put the references
+            // not yet enqueued back on the pending list and retry later.
+            requeuePending(ref);
+            Thread.yield();
         }
         return true;
     }
 
-
+    /**
+     * Puts a list of references linked through their next field back in front of the pending list.
+     */
+    private static void requeuePending(Reference ref) {
+        Reference tail = ref;
+        while (asJLRRAlias(tail).next != tail) {
+            tail = asJLRRAlias(tail).next;
+        }
+        synchronized (lock) {
+            if (pending != null) {
+                asJLRRAlias(tail).next = pending;
+            }
+            pending = ref;
+        }
+    }
 }
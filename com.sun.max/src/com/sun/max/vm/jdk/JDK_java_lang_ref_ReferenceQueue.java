@@ -115,6 +115,46 @@ public final class JDK_java_lang_ref_ReferenceQueue {
         }
     }
 
+    /**
+     * Enqueues the references at the front of a list of pending references that are registered with a given queue,
+     * holding the lock of the queue once for all of them. The references enqueued are removed from the list.
+     *
+     * @param queue the queue with which {@code r} is registered
+     * @param r the head of a list of pending references linked through their next field
+     * @return the first reference of the list that was not enqueued, i.e., that is a cleaner or is registered with
+     *         another queue, or {@code null} if the whole list was enqueued
+     */
+    static java.lang.ref.Reference enqueuePending(ReferenceQueue queue, java.lang.ref.Reference r) {
+        final JDK_java_lang_ref_ReferenceQueue q = asThis(queue);
+        java.lang.ref.Reference ref = r;
+        synchronized (q.lock) {
+            int finalReferences = 0;
+            do {
+                JLRRAlias refAlias = asJLRRAlias(ref);
+                if (refAlias.queue != queue || ClassRegistry.CLEANER.isInstance(ref)) {
+                    break;
+                }
+                java.lang.ref.Reference rn = refAlias.next;
+                refAlias.queue = ENQUEUED;
+                refAlias.next = (q.head == null) ? ref : q.head;
+                q.head = ref;
+                q.queueLength++;
+                if (ClassRegistry.JLR_FINAL_REFERENCE.isInstance(ref)) {
+                    finalReferences++;
+                }
+                if (SpecialReferenceManager.specialReferenceLogger.enabled()) {
+                    SpecialReferenceManager.specialReferenceLogger.logEnqueue(ObjectAccess.readClassActor(ref), Reference.fromJava(ref).toOrigin(), Reference.fromJava(queue).toOrigin());
+                }
+                ref = (rn == ref) ? null : rn;
+            } while (ref != null);
+            if (finalReferences != 0) {
+                sun.misc.VM.addFinalRefCount(finalReferences);
+            }
+            q.lock.notifyAll();
+        }
+        return ref;
+    }
+
     /**
      * Note: Must be kept in sync with the original JDK source.
      */
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.jdk;
+
+import java.util.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.layout.*;
+import com.sun.max.vm.reference.*;
+
+/**
+ * Method substitutions for {@link java.util.Arrays}, comparing and filling large primitive arrays with
+ * {@linkplain VectorizedMemory vectorized} operations.
+ */
+@METHOD_SUBSTITUTIONS(Arrays.class)
+public final class JDK_java_util_Arrays {
+
+    private JDK_java_util_Arrays() {
+    }
+
+    @ALIAS(declaringClass = Arrays.class)
+    private static native void rangeCheck(int arrayLength, int fromIndex, int toIndex);
+
+    @INLINE
+    private static Pointer elementAddress(Object array, int index, int log2ElementSize) {
+        return Reference.fromJava(array).toOrigin().plus(Address.fromInt(index).shiftedLeft(log2ElementSize).plus(Layout.arrayLayout().headerSize()));
+    }
+
+    @INLINE
+    private static boolean isVectorizable(int length, int log2ElementSize) {
+        return VectorizedMemory.isUseful(Address.fromInt(length).shiftedLeft(log2ElementSize).asSize());
+    }
+
+    /**
+     * Compares the first {@code length} elements of two primitive arrays of elements of size {@code 1 << log2ElementSize}.
+     */
+    @NO_SAFEPOINT_POLLS("raw addresses of the arrays must remain valid during the comparison")
+    static boolean vectorizedEquals(Object array1, Object array2, int length, int log2ElementSize) {
+        final Size numberOfBytes = Address.fromInt(length).shiftedLeft(log2ElementSize).asSize();
+        return VectorizedMemory.equals(elementAddress(array1, 0, log2ElementSize), elementAddress(array2, 0, log2ElementSize), numberOfBytes);
+    }
+
+    /**
+     * Searches {@code array[fromIndex .. toIndex - 1]} for a character.
+     *
+     * @return the index of the first occurrence of {@code ch} in the range, or -1
+     */
+    @NO_SAFEPOINT_POLLS("raw address of the array must remain valid during the search")
+    static int vectorizedIndexOf(char[] array, int fromIndex, int toIndex, char ch) {
+        final int index = VectorizedMemory.indexOfChar(elementAddress(array, fromIndex, 1), toIndex - fromIndex, ch);
+        return index < 0 ? -1 : fromIndex + index;
+    }
+
+    /**
+     * Fills elements {@code fromIndex .. toIndex - 1} of a primitive array of elements of size {@code 1 << log2ElementSize}.
+     *
+     * @param pattern the value replicated over 64 bits
+     */
+    @NO_SAFEPOINT_POLLS("raw address of the array must remain valid during the fill")
+    static void vectorizedFill(Object array, int fromIndex, int toIndex, long pattern, int log2ElementSize) {
+        final Size numberOfBytes = Address.fromInt(toIndex - fromIndex).shiftedLeft(log2ElementSize).asSize();
+        VectorizedMemory.fill(elementAddress(array, fromIndex, log2ElementSize), numberOfBytes, pattern);
+    }
+
+    /**
+     * @see java.util.Arrays#equals(byte[], byte[])
+     */
+    @SUBSTITUTE
+    public static boolean equals(byte[] a, byte[] a2) {
+        if (a == a2) {
+            return true;
+        }
+        if (a == null || a2 == null) {
+            return false;
+        }
+        final int length = a.length;
+        if (a2.length != length) {
+            return false;
+        }
+        if (isVectorizable(length, 0)) {
+            return vectorizedEquals(a, a2, length, 0);
+        }
+        for (int i = 0; i < length; i++) {
+            if (a[i] != a2[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see java.util.Arrays#equals(short[], short[])
+     */
+    @SUBSTITUTE
+    public static boolean equals(short[] a, short[] a2) {
+        if (a == a2) {
+            return true;
+        }
+        if (a == null || a2 == null) {
+            return false;
+        }
+        final int length = a.length;
+        if (a2.length != length) {
+            return false;
+        }
+        if (isVectorizable(length, 1)) {
+            return vectorizedEquals(a, a2, length, 1);
+        }
+        for (int i = 0; i < length; i++) {
+            if (a[i] != a2[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see java.util.Arrays#equals(char[], char[])
+     */
+    @SUBSTITUTE
+    public static boolean equals(char[] a, char[] a2) {
+        if (a == a2) {
+            return true;
+        }
+        if (a == null || a2 == null) {
+            return false;
+        }
+        final int length = a.length;
+        if (a2.length != length) {
+            return false;
+        }
+        if (isVectorizable(length, 1)) {
+            return vectorizedEquals(a, a2, length, 1);
+        }
+        for (int i = 0; i < length; i++) {
+            if (a[i] != a2[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see java.util.Arrays#equals(int[], int[])
+     */
+    @SUBSTITUTE
+    public static boolean equals(int[] a, int[] a2) {
+        if (a == a2) {
+            return true;
+        }
+        if (a == null || a2 == null) {
+            return false;
+        }
+        final int length = a.length;
+        if (a2.length != length) {
+            return false;
+        }
+        if (isVectorizable(length, 2)) {
+            return vectorizedEquals(a, a2, length, 2);
+        }
+        for (int i = 0; i < length; i++) {
+            if (a[i] != a2[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see java.util.Arrays#equals(long[], long[])
+     */
+    @SUBSTITUTE
+    public static boolean equals(long[] a, long[] a2) {
+        if (a == a2) {
+            return true;
+        }
+        if (a == null || a2 == null) {
+            return false;
+        }
+        final int length = a.length;
+        if (a2.length != length) {
+            return false;
+        }
+        if (isVectorizable(length, 3)) {
+            return vectorizedEquals(a, a2, length, 3);
+        }
+        for (int i = 0; i < length; i++) {
+            if (a[i] != a2[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see java.util.Arrays#fill(byte[], byte)
+     */
+    @SUBSTITUTE
+    public static void fill(byte[] a, byte val) {
+        fill0(a, 0, a.length, val);
+    }
+
+    /**
+     * @see java.util.Arrays#fill(byte[], int, int, byte)
+     */
+    @SUBSTITUTE
+    public static void fill(byte[] a, int fromIndex, int toIndex, byte val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        fill0(a, fromIndex, toIndex, val);
+    }
+
+    private static void fill0(byte[] a, int fromIndex, int toIndex, byte val) {
+        if (isVectorizable(toIndex - fromIndex, 0)) {
+            vectorizedFill(a, fromIndex, toIndex, (val & 0xFFL) * 0x0101010101010101L, 0);
+            return;
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = val;
+        }
+    }
+
+    /**
+     * @see java.util.Arrays#fill(short[], short)
+     */
+    @SUBSTITUTE
+    public static void fill(short[] a, short val) {
+        fill0(a, 0, a.length, val);
+    }
+
+    /**
+     * @see java.util.Arrays#fill(short[], int, int, short)
+     */
+    @SUBSTITUTE
+    public static void fill(short[] a, int fromIndex, int toIndex, short val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        fill0(a, fromIndex, toIndex, val);
+    }
+
+    private static void fill0(short[] a, int fromIndex, int toIndex, short val) {
+        if (isVectorizable(toIndex - fromIndex, 1)) {
+            vectorizedFill(a, fromIndex, toIndex, (val & 0xFFFFL) * 0x0001000100010001L, 1);
+            return;
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = val;
+        }
+    }
+
+    /**
+     * @see java.util.Arrays#fill(char[], char)
+     */
+    @SUBSTITUTE
+    public static void fill(char[] a, char val) {
+        fill0(a, 0, a.length, val);
+    }
+
+    /**
+     * @see java.util.Arrays#fill(char[], int, int, char)
+     */
+    @SUBSTITUTE
+    public static void fill(char[] a, int fromIndex, int toIndex, char val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        fill0(a, fromIndex, toIndex, val);
+    }
+
+    private static void fill0(char[] a, int fromIndex, int toIndex, char val) {
+        if (isVectorizable(toIndex - fromIndex, 1)) {
+            vectorizedFill(a, fromIndex, toIndex, (val & 0xFFFFL) * 0x0001000100010001L, 1);
+            return;
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = val;
+        }
+    }
+
+    /**
+     * @see java.util.Arrays#fill(int[], int)
+     */
+    @SUBSTITUTE
+    public static void fill(int[] a, int val) {
+        fill0(a, 0, a.length, val);
+    }
+
+    /**
+     * @see java.util.Arrays#fill(int[], int, int, int)
+     */
+    @SUBSTITUTE
+    public static void fill(int[] a, int fromIndex, int toIndex, int val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        fill0(a, fromIndex, toIndex, val);
+    }
+
+    private static void fill0(int[] a, int fromIndex, int toIndex, int val) {
+        if (isVectorizable(toIndex - fromIndex, 2)) {
+            vectorizedFill(a, fromIndex, toIndex, (val & 0xFFFFFFFFL) * 0x0000000100000001L, 2);
+            return;
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = val;
+        }
+    }
+
+    /**
+     * @see java.util.Arrays#fill(long[], long)
+     */
+    @SUBSTITUTE
+    public static void fill(long[] a, long val) {
+        fill0(a, 0, a.length, val);
+    }
+
+    /**
+     * @see java.util.Arrays#fill(long[], int, int, long)
+     */
+    @SUBSTITUTE
+    public static void fill(long[] a, int fromIndex, int toIndex, long val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        fill0(a, fromIndex, toIndex, val);
+    }
+
+    private static void fill0(long[] a, int fromIndex, int toIndex, long val) {
+        if (isVectorizable(toIndex - fromIndex, 3)) {
+            vectorizedFill(a, fromIndex, toIndex, val, 3);
+            return;
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = val;
+        }
+    }
+}
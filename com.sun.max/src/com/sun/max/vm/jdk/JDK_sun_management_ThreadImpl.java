@@ -24,6 +24,7 @@
 package com.sun.max.vm.jdk;
 
 import com.sun.max.annotate.*;
+import com.sun.max.vm.management.*;
 
 /**
  * Method substitutions for sun.management.ThreadImpl.
@@ -33,6 +34,6 @@ final class JDK_sun_management_ThreadImpl {
 
     @SUBSTITUTE
     public boolean isCurrentThreadCpuTimeSupported() {
-        return false; //TODO
+        return ThreadManagement.isThreadCpuTimeSupported();
     }
 }
@@ -98,29 +98,38 @@ public final class JDK_sun_reflect_ReflectionFactory {
     private native ReflectionFactory thisReflectionFactory();
 
     /**
-     * Creates a new method accessor for the specified method.
+     * Creates a new method accessor for the specified method. Unless a stub was generated for it while
+     * bootstrapping, the method is invoked through a {@link GenericInvoker} that only generates a stub
+     * once the method has been invoked often enough.
      * @see sun.reflect.ReflectionFactory#newMethodAccessor(Method)
      * @param method the method for which to create the accessor
      * @return a method accessor that is capable of invoking the method
      */
     @SUBSTITUTE
     public MethodAccessor newMethodAccessor(Method method) {
-        MethodAccessor result = prePopulatedMethodStubs.get(MethodActor.fromJava(method));
+        final MethodActor methodActor = MethodActor.fromJava(method);
+        MethodAccessor result = prePopulatedMethodStubs.get(methodActor);
         if (result == null) {
-            result = newMethodStub(method, Boxing.JAVA);
+            if (GenericInvoker.canInvoke(methodActor, method.getReturnType(), method.getParameterTypes())) {
+                result = new GenericMethodInvoker(method);
+            } else {
+                result = newMethodStub(method, Boxing.JAVA);
+            }
         }
         return result;
     }
 
     /**
-     * Creates a new constructor access for the specified constructor.
+     * Creates a new constructor access for the specified constructor, which is invoked through a
+     * {@link GenericInvoker} in the same way as a method.
      * @see sun.reflect.ReflectionFactory#newConstructorAccessor(Constructor)
      * @param constructor the constructor for which to create the method stub
      * @return a method accessor that is capable of invoke the constructor
      */
     @SUBSTITUTE
     public ConstructorAccessor newConstructorAccessor(Constructor constructor) {
-        ConstructorAccessor result = prePopulatedConstructorStubs.get(MethodActor.fromJavaConstructor(constructor));
+        final MethodActor constructorActor = MethodActor.fromJavaConstructor(constructor);
+        ConstructorAccessor result = prePopulatedConstructorStubs.get(constructorActor);
         if (result == null) {
             final Class declaringClass = constructor.getDeclaringClass();
             if (Modifier.isAbstract(declaringClass.getModifiers())) {
@@ -137,7 +146,11 @@ public final class JDK_sun_reflect_ReflectionFactory {
                     }
                 };
             }
-            result = newConstructorStub(constructor, null, Boxing.JAVA);
+            if (GenericInvoker.canInvoke(constructorActor, Void.TYPE, constructor.getParameterTypes())) {
+                result = new GenericConstructorInvoker(constructor);
+            } else {
+                result = newConstructorStub(constructor, null, Boxing.JAVA);
+            }
         }
         return result;
     }
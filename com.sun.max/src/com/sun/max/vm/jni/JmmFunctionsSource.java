@@ -118,7 +118,14 @@ public final class JmmFunctionsSource {
 
     @VM_ENTRY_POINT
     private static boolean GetBoolAttribute(Pointer env, int att) {
-        return false;
+        switch (att) {
+            case JMM_THREAD_CONTENTION_MONITORING:
+                return ThreadManagement.isThreadContentionMonitoringEnabled();
+            case JMM_THREAD_CPU_TIME:
+                return ThreadManagement.isThreadCpuTimeEnabled();
+            default:
+                return false;
+        }
     }
 
     @VM_ENTRY_POINT
@@ -129,7 +136,7 @@ public final class JmmFunctionsSource {
             case JMM_VERBOSE_CLASS:
                 return ClassLoadingManagement.setVerboseClass(flag);
             case JMM_THREAD_CONTENTION_MONITORING:
-                return ThreadManagement.setThreadCpuTimeEnabled(flag);
+                return ThreadManagement.setThreadContentionMonitoringEnabled(flag);
             case JMM_THREAD_CPU_TIME:
                 return ThreadManagement.setThreadCpuTimeEnabled(flag);
             default:
@@ -145,12 +152,12 @@ public final class JmmFunctionsSource {
 
     @VM_ENTRY_POINT
     private static JniHandle FindCircularBlockedThreads(Pointer env) {
-        return JniHandle.zero();
+        return JniHandles.createLocalHandle(ThreadManagement.findMonitorDeadlockedThreads());
     }
 
     @VM_ENTRY_POINT
     private static long GetThreadCpuTime(Pointer env, long thread_id) {
-        return 0;
+        return ThreadManagement.getThreadCpuTime(thread_id, false);
     }
 
     @VM_ENTRY_POINT
@@ -198,7 +205,7 @@ public final class JmmFunctionsSource {
 
     @VM_ENTRY_POINT
     private static long GetThreadCpuTimeWithKind(Pointer env, long thread_id, boolean user_sys_cpu_time) {
-        return 0;
+        return ThreadManagement.getThreadCpuTime(thread_id, !user_sys_cpu_time);
     }
 
     @VM_ENTRY_POINT
@@ -211,7 +218,8 @@ public final class JmmFunctionsSource {
 
     @VM_ENTRY_POINT
     private static JniHandle FindDeadlocks(Pointer env, boolean object_monitors_only) {
-        return JniHandle.zero();
+        // Only object monitors record their owner
+        return JniHandles.createLocalHandle(ThreadManagement.findMonitorDeadlockedThreads());
     }
 
     @VM_ENTRY_POINT
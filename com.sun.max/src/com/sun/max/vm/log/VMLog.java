@@ -345,7 +345,7 @@ public abstract class VMLog implements Heap.GCCallback {
 
     /**
      * Phase specific initialization.
-     * Only called for BOOTSTRAPPING, PRIMORDIAL, TERMINATING.
+     * Only called for BOOTSTRAPPING, PRIMORDIAL, RUNNING, TERMINATING.
      * @param phase the phase
      */
     public void initialize(MaxineVM.Phase phase) {
@@ -419,6 +419,13 @@ public abstract class VMLog implements Heap.GCCallback {
         return loggers[id - 1];
     }
 
+    /**
+     * Returns the registered loggers, indexed by {@link VMLogger#loggerId} {@code - 1}.
+     */
+    protected VMLogger[] loggers() {
+        return loggers;
+    }
+
     /**
      * Called when a new thread is started so any thread-specific log state can be setup.
      */
@@ -537,11 +544,16 @@ public abstract class VMLog implements Heap.GCCallback {
     }
 
     /**
-     * Records the identify of the last visitor passed to {@link #scanLog} to avoid repeat scans
-     * of global log buffers.
-     * N.B. this assumes no parallel calls on multiple threads.
+     * Records the {@linkplain PointerIndexVisitor#leader() leader} of the last visitor passed to {@link #scanLog}
+     * to avoid repeat scans of global log buffers. It is updated atomically, as GC worker threads may scan the
+     * roots of different threads in parallel.
      */
-    private PointerIndexVisitor lastVisitor;
+    private volatile PointerIndexVisitor lastVisitor;
+
+    @FOLD
+    private static int lastVisitorOffset() {
+        return ClassActor.fromJava(VMLog.class).findLocalInstanceFieldActor("lastVisitor").offset();
+    }
 
     @Override
     public void gcCallback(GCCallbackPhase gcCallbackPhase) {
@@ -551,16 +563,22 @@ public abstract class VMLog implements Heap.GCCallback {
     }
 
     /**
-     * Returns {@code true} is {@code visitor} is the same as the last call.
+     * Returns {@code true} is {@code visitor} has the same leader as in the last call.
      * @param visitor
      */
     protected boolean isRepeatScanLogVisitor(PointerIndexVisitor visitor) {
         // if it's the same visitor (and not null) it's a repeat call for a different thread.
-        if (lastVisitor == visitor) {
-            return true;
-        } else {
-            lastVisitor = visitor;
-            return false;
+        final PointerIndexVisitor leader = visitor.leader();
+        final Reference reference = Reference.fromJava(this);
+        while (true) {
+            final PointerIndexVisitor last = lastVisitor;
+            if (last == leader) {
+                return true;
+            }
+            final Reference expected = Reference.fromJava(last);
+            if (reference.compareAndSwapReference(lastVisitorOffset(), expected, Reference.fromJava(leader)) == expected) {
+                return false;
+            }
         }
     }
 
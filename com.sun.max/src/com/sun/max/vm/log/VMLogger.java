@@ -202,6 +202,13 @@ public class VMLogger {
         this.vmLog = vmLog;
     }
 
+    /**
+     * Returns the number of distinct operations of this logger.
+     */
+    public int numberOfOperations() {
+        return numOps;
+    }
+
     /**
      * Provides a mnemonic name for the given operation.
      * Default is {@code OpN}.
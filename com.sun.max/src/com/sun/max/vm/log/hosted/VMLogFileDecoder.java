@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.log.hosted;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.vm.log.*;
+import com.sun.max.vm.log.VMLog.Record;
+import com.sun.max.vm.log.nat.thread.*;
+import com.sun.max.vm.log.nat.thread.var.std.*;
+
+/**
+ * Rebuilds the text of the records in a file written with {@code -XX:VMLogFile} by a
+ * {@link VMLogNativeThreadVariableStdStream}. The records of each chunk are printed after a line naming the thread
+ * that logged them, one record per line, as in:
+ * <pre>
+ *     VMLog contents for thread: 3
+ *     1204 Thread 3 GC.BeginGC
+ *     1205 Thread 3 Heap.Allocate 0x7f12c4003208 0x20
+ * </pre>
+ * The arguments are printed in hexadecimal, as their meaning may depend on the state of the VM that logged them.
+ * <p>
+ * Usage: {@code VMLogFileDecoder <file> [<output file>]}.
+ */
+@HOSTED_ONLY
+public final class VMLogFileDecoder {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final FileChannel channel;
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+    private int wordSize;
+    private final Map<Integer, String> loggerNames = new HashMap<Integer, String>();
+    private final Map<Integer, String[]> operationNames = new HashMap<Integer, String[]>();
+
+    private VMLogFileDecoder(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: VMLogFileDecoder <file> [<output file>]");
+            System.exit(1);
+        }
+        final FileInputStream in = new FileInputStream(args[0]);
+        final PrintStream out = args.length == 2 ? new PrintStream(new BufferedOutputStream(new FileOutputStream(args[1]))) : System.out;
+        try {
+            final VMLogFileDecoder decoder = new VMLogFileDecoder(in.getChannel());
+            decoder.readHeader();
+            decoder.decode(out);
+        } finally {
+            in.close();
+            out.flush();
+            if (out != System.out) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads {@code size} bytes, or returns {@code null} at the end of the file.
+     */
+    private ByteBuffer read(int size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == 0) {
+                    return null;
+                }
+                throw new EOFException("truncated VMLog file");
+            }
+        }
+        buffer.flip();
+        buffer.order(order);
+        return buffer;
+    }
+
+    private int readInt() throws IOException {
+        final ByteBuffer buffer = read(4);
+        if (buffer == null) {
+            throw new EOFException("truncated VMLog file");
+        }
+        return buffer.getInt();
+    }
+
+    private String readString() throws IOException {
+        final int length = readInt();
+        return length == 0 ? "" : UTF8.decode(read(length)).toString();
+    }
+
+    private void readHeader() throws IOException {
+        final int magic = readInt();
+        if (magic != VMLogStreamWriter.MAGIC) {
+            if (Integer.reverseBytes(magic) != VMLogStreamWriter.MAGIC) {
+                throw new IOException("not a VMLog file");
+            }
+            order = ByteOrder.LITTLE_ENDIAN;
+        }
+        final int version = readInt();
+        if (version != VMLogStreamWriter.VERSION) {
+            throw new IOException("unsupported VMLog file version " + version);
+        }
+        wordSize = readInt();
+        final int loggerCount = readInt();
+        for (int i = 0; i < loggerCount; i++) {
+            final int loggerId = readInt();
+            loggerNames.put(loggerId, readString());
+            final String[] operations = new String[readInt()];
+            for (int op = 0; op < operations.length; op++) {
+                operations[op] = readString();
+            }
+            operationNames.put(loggerId, operations);
+        }
+    }
+
+    private void decode(PrintStream out) throws IOException {
+        ByteBuffer chunkHeader;
+        while ((chunkHeader = read(8)) != null) {
+            final int threadId = chunkHeader.getInt();
+            final int length = chunkHeader.getInt();
+            out.print(VMLog.RawDumpFlusher.THREAD_MARKER);
+            out.println(threadId);
+            final ByteBuffer records = read(length);
+            while (records != null && records.remaining() >= VMLogNativeThread.ARGS_OFFSET) {
+                final int header = records.getInt();
+                final int uuid = records.getInt();
+                final int argCount = Record.getArgCount(header);
+                if (Record.isFree(header)) {
+                    continue;
+                }
+                out.print(uuid);
+                out.print(" Thread ");
+                out.print(threadId);
+                out.print(' ');
+                out.print(operationName(Record.getLoggerId(header), Record.getOperation(header)));
+                for (int i = 0; i < argCount; i++) {
+                    final long arg = wordSize == 8 ? records.getLong() : records.getInt() & 0xFFFFFFFFL;
+                    out.print(" 0x");
+                    out.print(Long.toHexString(arg));
+                }
+                out.println();
+            }
+        }
+    }
+
+    private String operationName(int loggerId, int op) {
+        final String loggerName = loggerNames.get(loggerId);
+        if (loggerName == null) {
+            return "Logger" + loggerId + ".Op" + op;
+        }
+        final String[] operations = operationNames.get(loggerId);
+        return loggerName + "." + (op < operations.length ? operations[op] : "Op" + op);
+    }
+}
@@ -31,6 +31,9 @@ public class Package extends BootImagePackage {
             registerThreadLocal(VMLogNativeThreadVariableStd.class, VMLogNativeThreadVariableStd.VMLOG_BUFFER_NAME);
             registerThreadLocal(VMLogNativeThreadVariableStd.class, VMLogNativeThreadVariableStd.VMLOG_BUFFER_OFFSETS_NAME);
             registerThreadLocal(VMLogNativeThreadVariableStd.class, "VMLOG_RECORD");
+            if (VMLog.Factory.contains("VMLogNativeThreadVariableStdStream")) {
+                registerThreadLocal(VMLogNativeThreadVariableStdStream.class, VMLogNativeThreadVariableStdStream.VMLOG_SEQUENCE_NAME);
+            }
         }
     }
 
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.log.nat.thread.var.std;
+
+import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.platform.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * A {@link VMLogNativeThreadVariableStd} that streams the binary records of every thread to a file, selected with
+ * {@code -Dmax.vmlog.class=nat.thread.var.std.VMLogNativeThreadVariableStdStream} at image build time.
+ * <p>
+ * If {@code -XX:VMLogFile} is set, the records are numbered per thread, so that logging needs no global atomic update,
+ * and, once the VM is running, a thread buffer that is about to wrap is copied to an off-heap chunk and pushed on a
+ * lock-free stack instead. The {@link VMLogStreamWriter} thread appends the chunks to a memory-mapped file that starts
+ * with the names of the loggers and of their operations, from which {@code VMLogFileDecoder} rebuilds the text of the
+ * records offline. The records left in the buffers are written when a thread terminates and when the VM exits.
+ * <p>
+ * As the record ids are only ordered within a thread, the Inspector cannot merge the records of different threads
+ * in the order they were logged. Without {@code -XX:VMLogFile}, this log behaves exactly as its superclass.
+ */
+public class VMLogNativeThreadVariableStdStream extends VMLogNativeThreadVariableStd {
+    public static final String VMLOG_SEQUENCE_NAME = "VMLOG_SEQUENCE";
+    public static final VmThreadLocal VMLOG_SEQUENCE = new VmThreadLocal(VMLOG_SEQUENCE_NAME, false, "VMLog per-thread record id");
+
+    private static String VMLogFile;
+
+    static {
+        VMOptions.addFieldOption("-XX:", "VMLogFile", VMLogNativeThreadVariableStdStream.class,
+            "File to which the VM log records are streamed in binary form, to be decoded with VMLogFileDecoder.", MaxineVM.Phase.PRISTINE);
+    }
+
+    /*
+     * Layout of a chunk of records handed to the writer.
+     */
+    static final int CHUNK_NEXT_OFFSET = 0;
+    static final int CHUNK_THREAD_ID_OFFSET = 8;
+    static final int CHUNK_LENGTH_OFFSET = 12;
+    static final int CHUNK_HEADER_SIZE = 16;
+
+    /*
+     * Layout of the off-heap anchor of the chunk stack.
+     */
+    private static final int ANCHOR_HEAD_OFFSET = 0;
+    private static final int ANCHOR_DROPPED_OFFSET = 8;
+
+    /**
+     * Off-heap words holding the head of the stack of chunks, so that it can be updated with
+     * {@link Pointer#compareAndSwapWord}, and the number of buffers dropped because no chunk could be allocated.
+     * Chunks are pushed by any thread and only ever taken all at once.
+     */
+    private Pointer anchor = Pointer.zero();
+
+    private boolean streaming;
+
+    private VMLogStreamWriter writer;
+
+    @Override
+    public void initialize(MaxineVM.Phase phase) {
+        if (phase == MaxineVM.Phase.TERMINATING) {
+            // written before the records are flushed by any -XX:VMLogFlush option
+            stopStreaming();
+        }
+        super.initialize(phase);
+        if (phase == MaxineVM.Phase.RUNNING && VMLogFile != null) {
+            startStreaming();
+        }
+    }
+
+    private void startStreaming() {
+        anchor = VirtualMemory.allocate(Size.fromInt(Platform.platform().pageSize), VirtualMemory.Type.DATA);
+        if (anchor.isZero()) {
+            throw FatalError.unexpected("VMLog: could not allocate chunk stack");
+        }
+        writer = new VMLogStreamWriter(this, VMLogFile, loggers());
+        writer.start();
+        streaming = true;
+    }
+
+    private void stopStreaming() {
+        if (!streaming) {
+            return;
+        }
+        new StopStreamingOperation().submit();
+        writer.terminate();
+    }
+
+    /**
+     * A safepoint operation that hands off the buffers of all the threads and stops streaming. No thread other than
+     * the VM operation thread can be logging while it runs, as {@link #getRecord} does not poll for safepoints.
+     */
+    private final class StopStreamingOperation extends VmOperation {
+        StopStreamingOperation() {
+            super("VMLogStopStreaming", null, Mode.Safepoint);
+        }
+
+        @Override
+        protected void doIt() {
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, new Pointer.Procedure() {
+                public void run(Pointer tla) {
+                    handOff(tla);
+                }
+            });
+            streaming = false;
+        }
+    }
+
+    @Override
+    @NO_SAFEPOINT_POLLS("atomic")
+    protected int getUniqueId() {
+        if (MaxineVM.isHosted() || VMLogFile == null) {
+            return super.getUniqueId();
+        }
+        final Pointer tla = VmThread.currentTLA();
+        final int id = VMLOG_SEQUENCE.load(tla).toInt();
+        VMLOG_SEQUENCE.store3(Address.fromInt(id + 1));
+        return id;
+    }
+
+    @Override
+    @NO_SAFEPOINT_POLLS("atomic")
+    protected Record getRecord(int argCount) {
+        if (!streaming) {
+            return super.getRecord(argCount);
+        }
+        int uuid = getUniqueId();
+        Pointer tla = VmThread.currentTLA();
+        Pointer buffer = getBuffer(tla);
+        long offsets = vmLogBufferOffsetsTL.load(tla).toLong();
+        int recordSize = ARGS_OFFSET + argCount * Word.size();
+        // the buffer never wraps, as a full buffer would make the next offset equal to the first one
+        if (isWrapped(offsets) || nextOffset(offsets) + recordSize >= logSize) {
+            handOff(tla);
+            offsets = 0;
+        }
+        final int nextOffset = nextOffset(offsets);
+        vmLogBufferOffsetsTL.store3(Address.fromInt(nextOffset + recordSize));
+
+        Pointer recordAddress = buffer.plus(nextOffset);
+        recordAddress.writeInt(ID_OFFSET, uuid);
+        NativeRecord record = getNativeRecord(tla);
+        record.address = recordAddress;
+        return record;
+    }
+
+    @Override
+    public void flush(int mode, VmThread vmThread) {
+        if (streaming && (mode & FLUSHMODE_EXIT) != 0) {
+            // the thread is terminating
+            handOff(vmThread.tla());
+        }
+        super.flush(mode, vmThread);
+    }
+
+    /**
+     * Copies the records in the buffer of a thread to a new chunk, pushes it on the chunk stack and empties the buffer.
+     * The records are dropped if no chunk can be allocated.
+     */
+    @NO_SAFEPOINT_POLLS("atomic")
+    private void handOff(Pointer tla) {
+        final long offsets = vmLogBufferOffsetsTL.load(tla).toLong();
+        final int nextOffset = nextOffset(offsets);
+        if (nextOffset == 0 && !isWrapped(offsets)) {
+            return;
+        }
+        final Pointer buffer = vmLogBufferTL.load(tla);
+        final int firstOffset = firstOffset(offsets);
+        // a wrapped buffer holds the records from the first offset to its end, then those before the next offset
+        final int tailLength = firstOffset < nextOffset ? nextOffset - firstOffset : logSize - firstOffset;
+        final int headLength = firstOffset < nextOffset ? 0 : nextOffset;
+        final Pointer chunk = Memory.allocate(Size.fromInt(CHUNK_HEADER_SIZE + tailLength + headLength));
+        if (chunk.isZero()) {
+            int dropped;
+            do {
+                dropped = anchor.readInt(ANCHOR_DROPPED_OFFSET);
+            } while (anchor.compareAndSwapInt(ANCHOR_DROPPED_OFFSET, dropped, dropped + 1) != dropped);
+        } else {
+            Memory.copyBytes(buffer.plus(firstOffset), chunk.plus(CHUNK_HEADER_SIZE), Size.fromInt(tailLength));
+            Memory.copyBytes(buffer, chunk.plus(CHUNK_HEADER_SIZE + tailLength), Size.fromInt(headLength));
+            chunk.writeInt(CHUNK_THREAD_ID_OFFSET, VmThreadLocal.ID.load(tla).toInt());
+            chunk.writeInt(CHUNK_LENGTH_OFFSET, tailLength + headLength);
+            Word head;
+            do {
+                head = anchor.readWord(ANCHOR_HEAD_OFFSET);
+                chunk.writeWord(CHUNK_NEXT_OFFSET, head);
+            } while (!anchor.compareAndSwapWord(ANCHOR_HEAD_OFFSET, head, chunk).equals(head));
+        }
+        // keep the disabled state of the thread
+        vmLogBufferOffsetsTL.store3(tla, Address.fromLong(offsets & DISABLED));
+    }
+
+    /**
+     * Atomically takes all the chunks handed off, most recent first.
+     */
+    Pointer takeChunks() {
+        Word head;
+        do {
+            head = anchor.readWord(ANCHOR_HEAD_OFFSET);
+        } while (!anchor.compareAndSwapWord(ANCHOR_HEAD_OFFSET, head, Word.zero()).equals(head));
+        return head.asPointer();
+    }
+
+    /**
+     * Gets the number of buffers dropped because no chunk could be allocated.
+     */
+    int droppedBuffers() {
+        return anchor.readInt(ANCHOR_DROPPED_OFFSET);
+    }
+}
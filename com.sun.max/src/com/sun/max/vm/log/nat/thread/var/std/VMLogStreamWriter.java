@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.log.nat.thread.var.std;
+
+import static com.sun.max.vm.log.nat.thread.var.std.VMLogNativeThreadVariableStdStream.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.log.*;
+
+/**
+ * Background thread appending the chunks of records handed off by a {@link VMLogNativeThreadVariableStdStream} to a
+ * memory-mapped file.
+ * <p>
+ * The file is mapped in windows of {@value #WINDOW_SIZE} bytes and truncated to its contents when closed. All the
+ * values are in the byte order of the VM, which the decoder recognizes from {@link #MAGIC}. The file is laid out as:
+ * <pre>
+ *     int magic, int version, int wordSize, int loggerCount
+ *     loggerCount times: int loggerId, string name, int operationCount, operationCount times: string operationName
+ *     any number of chunks: int threadId, int length, length bytes of records
+ * </pre>
+ * A string is an int length followed by that many bytes in UTF-8. The records have the layout of the thread buffers,
+ * and a record whose header has the {@linkplain VMLog.Record#FREE free bit} set is a hole to skip.
+ */
+public final class VMLogStreamWriter extends Thread {
+
+    public static final int MAGIC = 0x564d4c47;
+    public static final int VERSION = 1;
+
+    /**
+     * The interval at which the chunks are written, in milliseconds.
+     */
+    private static final int DRAIN_INTERVAL = 50;
+
+    private static final int WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final VMLogNativeThreadVariableStdStream vmLog;
+    private final String path;
+    private final VMLogger[] loggers;
+    private volatile boolean terminating;
+
+    private RandomAccessFile file;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private byte[] staging = new byte[0];
+    private long chunks;
+
+    VMLogStreamWriter(VMLogNativeThreadVariableStdStream vmLog, String path, VMLogger[] loggers) {
+        super("VMLogStreamWriter");
+        this.vmLog = vmLog;
+        this.path = path;
+        this.loggers = loggers;
+        setDaemon(true);
+    }
+
+    /**
+     * Waits for this thread to write the remaining chunks and closes the file.
+     */
+    void terminate() {
+        terminating = true;
+        interrupt();
+        try {
+            join();
+        } catch (InterruptedException e) {
+        }
+        if (file != null) {
+            try {
+                final long length = windowStart + window.position();
+                window.force();
+                window = null;
+                file.setLength(length);
+                file.close();
+            } catch (IOException e) {
+                error(e);
+            }
+        }
+        final int dropped = vmLog.droppedBuffers();
+        if (dropped != 0) {
+            Log.print("VMLog: ");
+            Log.print(dropped);
+            Log.print(" of ");
+            Log.print(chunks + dropped);
+            Log.println(" buffers dropped");
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            file = new RandomAccessFile(path, "rw");
+            file.setLength(0);
+            writeHeader();
+        } catch (IOException e) {
+            error(e);
+            file = null;
+        }
+        boolean done = false;
+        while (!done) {
+            // Read the flag before draining so that chunks handed off before termination are not missed.
+            done = terminating;
+            drain();
+            if (!done) {
+                try {
+                    Thread.sleep(DRAIN_INTERVAL);
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+    }
+
+    private void error(IOException e) {
+        Log.print("VMLog: error writing ");
+        Log.print(path);
+        Log.print(": ");
+        Log.println(e.getMessage());
+    }
+
+    /**
+     * Writes the chunks handed off since the last call, in the order they were handed off, and frees them.
+     */
+    private void drain() {
+        Pointer chunk = vmLog.takeChunks();
+        Pointer ordered = Pointer.zero();
+        while (chunk.isNotZero()) {
+            final Pointer next = chunk.readWord(CHUNK_NEXT_OFFSET).asPointer();
+            chunk.writeWord(CHUNK_NEXT_OFFSET, ordered);
+            ordered = chunk;
+            chunk = next;
+        }
+        while (ordered.isNotZero()) {
+            final Pointer next = ordered.readWord(CHUNK_NEXT_OFFSET).asPointer();
+            if (file != null) {
+                try {
+                    write(ordered);
+                } catch (IOException e) {
+                    error(e);
+                    file = null;
+                }
+            }
+            Memory.deallocate(ordered);
+            chunks++;
+            ordered = next;
+        }
+    }
+
+    private void write(Pointer chunk) throws IOException {
+        final int length = chunk.readInt(CHUNK_LENGTH_OFFSET);
+        reserve(8 + length);
+        window.putInt(chunk.readInt(CHUNK_THREAD_ID_OFFSET));
+        window.putInt(length);
+        if (staging.length < length) {
+            staging = new byte[length];
+        }
+        Memory.readBytes(chunk.plus(CHUNK_HEADER_SIZE), length, staging);
+        window.put(staging, 0, length);
+    }
+
+    private void writeHeader() throws IOException {
+        int count = 0;
+        for (VMLogger logger : loggers) {
+            if (logger != null) {
+                count++;
+            }
+        }
+        reserve(16);
+        window.putInt(MAGIC);
+        window.putInt(VERSION);
+        window.putInt(Word.size());
+        window.putInt(count);
+        for (VMLogger logger : loggers) {
+            if (logger != null) {
+                reserve(4);
+                window.putInt(logger.loggerId);
+                writeString(logger.name);
+                final int operations = logger.numberOfOperations();
+                reserve(4);
+                window.putInt(operations);
+                for (int op = 0; op < operations; op++) {
+                    writeString(logger.operationName(op));
+                }
+            }
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        final byte[] bytes = s.getBytes(UTF8);
+        reserve(4 + bytes.length);
+        window.putInt(bytes.length);
+        window.put(bytes);
+    }
+
+    /**
+     * Maps a new window at the end of the file if the current one has less than {@code size} bytes left.
+     */
+    private void reserve(int size) throws IOException {
+        if (window != null && window.remaining() >= size) {
+            return;
+        }
+        if (window != null) {
+            windowStart += window.position();
+        }
+        window = file.getChannel().map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(WINDOW_SIZE, size));
+        window.order(ByteOrder.nativeOrder());
+    }
+}
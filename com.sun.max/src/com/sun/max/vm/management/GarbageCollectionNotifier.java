@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.management;
+
+import static com.sun.max.vm.VMConfiguration.*;
+
+import java.lang.management.*;
+
+import javax.management.openmbean.*;
+
+import com.sun.management.GcInfo;
+import com.sun.max.program.*;
+import com.sun.max.vm.heap.*;
+
+/**
+ * Delivers the {@code com.sun.management.gc.notification} notifications of the garbage collector beans of the heap
+ * scheme.
+ * <p>
+ * The beans record their collections while the GC runs, when no allocation is allowed. The notifications are built and
+ * sent afterwards by this daemon thread, which is woken by the thread that requested the collection once the GC
+ * operation is over. The thread is started when the first listener is registered.
+ * <p>
+ * The user data of a notification has the layout read by {@code GarbageCollectionNotificationInfo.from()}, with the
+ * open types built here instead of by the {@code sun.management} classes, which rely on HotSpot internals.
+ */
+public final class GarbageCollectionNotifier extends Thread {
+
+    private static final Object LOCK = new Object();
+
+    private static GarbageCollectionNotifier notifier;
+    private static boolean pending;
+
+    private static CompositeType memoryUsageType;
+    private static CompositeType memoryUsageRowType;
+    private static TabularType memoryUsageMapType;
+    private static CompositeType gcInfoType;
+    private static CompositeType notificationType;
+
+    private static final String[] MEMORY_USAGE_ITEMS = {"committed", "init", "max", "used"};
+    private static final String[] ROW_ITEMS = {"key", "value"};
+    private static final String[] GC_INFO_ITEMS = {"id", "startTime", "endTime", "duration", "memoryUsageBeforeGc", "memoryUsageAfterGc"};
+    private static final String[] NOTIFICATION_ITEMS = {"gcName", "gcAction", "gcCause", "gcInfo"};
+
+    private GarbageCollectionNotifier() {
+        super("GarbageCollectionNotifier");
+        setDaemon(true);
+    }
+
+    /**
+     * Starts the notifier thread if it is not running.
+     */
+    public static void ensureStarted() {
+        synchronized (LOCK) {
+            if (notifier == null) {
+                notifier = new GarbageCollectionNotifier();
+                notifier.start();
+            }
+        }
+    }
+
+    /**
+     * Wakes up the notifier thread, if any, after a garbage collection. Called by the thread that requested the
+     * collection.
+     */
+    public static void collectionsEnded() {
+        if (notifier != null) {
+            synchronized (LOCK) {
+                pending = true;
+                LOCK.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            synchronized (LOCK) {
+                while (!pending) {
+                    try {
+                        LOCK.wait();
+                    } catch (InterruptedException e) {
+                    }
+                }
+                pending = false;
+            }
+            // Listeners run outside the lock, so that they can themselves trigger collections
+            for (GarbageCollectorMXBean bean : vmConfig().heapScheme().getGarbageCollectorMXBeans()) {
+                if (bean instanceof HeapSchemeAdaptor.GarbageCollectorMXBeanAdaptor) {
+                    ((HeapSchemeAdaptor.GarbageCollectorMXBeanAdaptor) bean).sendPendingNotification();
+                }
+            }
+        }
+    }
+
+    private static synchronized void initializeTypes() throws OpenDataException {
+        if (notificationType != null) {
+            return;
+        }
+        final OpenType<?> l = SimpleType.LONG;
+        memoryUsageType = new CompositeType(MemoryUsage.class.getName(), "Memory usage", MEMORY_USAGE_ITEMS, MEMORY_USAGE_ITEMS,
+                        new OpenType<?>[] {l, l, l, l});
+        final String mapName = "java.util.Map<java.lang.String,java.lang.management.MemoryUsage>";
+        memoryUsageRowType = new CompositeType(mapName, mapName, ROW_ITEMS, ROW_ITEMS, new OpenType<?>[] {SimpleType.STRING, memoryUsageType});
+        memoryUsageMapType = new TabularType(mapName, mapName, memoryUsageRowType, new String[] {"key"});
+        gcInfoType = new CompositeType(GcInfo.class.getName(), "GC information", GC_INFO_ITEMS, GC_INFO_ITEMS,
+                        new OpenType<?>[] {l, l, l, l, memoryUsageMapType, memoryUsageMapType});
+        final OpenType<?> s = SimpleType.STRING;
+        notificationType = new CompositeType("com.sun.management.GarbageCollectionNotificationInfo", "GC notification", NOTIFICATION_ITEMS, NOTIFICATION_ITEMS,
+                        new OpenType<?>[] {s, s, s, gcInfoType});
+    }
+
+    private static TabularData toTabularData(String[] poolNames, MemoryUsage[] usages) throws OpenDataException {
+        final TabularDataSupport map = new TabularDataSupport(memoryUsageMapType);
+        for (int i = 0; i < poolNames.length; i++) {
+            final MemoryUsage u = usages[i];
+            final CompositeData usage = new CompositeDataSupport(memoryUsageType, MEMORY_USAGE_ITEMS,
+                            new Object[] {u.getCommitted(), u.getInit(), u.getMax(), u.getUsed()});
+            map.put(new CompositeDataSupport(memoryUsageRowType, ROW_ITEMS, new Object[] {poolNames[i], usage}));
+        }
+        return map;
+    }
+
+    /**
+     * Creates the {@link GcInfo} of a collection.
+     *
+     * @param id the number of the collection
+     * @param startTime the start time of the collection, in milliseconds since the VM started
+     * @param endTime the end time of the collection, in milliseconds since the VM started
+     * @param poolNames the names of the memory pools
+     * @param before the usage of each pool before the collection
+     * @param after the usage of each pool after the collection
+     */
+    public static GcInfo toGcInfo(long id, long startTime, long endTime, String[] poolNames, MemoryUsage[] before, MemoryUsage[] after) {
+        try {
+            initializeTypes();
+            return GcInfo.from(new CompositeDataSupport(gcInfoType, GC_INFO_ITEMS, new Object[] {id, startTime, endTime, endTime - startTime,
+                toTabularData(poolNames, before), toTabularData(poolNames, after)}));
+        } catch (OpenDataException e) {
+            throw ProgramError.unexpected(e);
+        }
+    }
+
+    /**
+     * Creates the user data of a {@code com.sun.management.gc.notification} notification.
+     */
+    public static CompositeData toNotificationData(String gcName, String gcAction, String gcCause, GcInfo gcInfo) {
+        try {
+            initializeTypes();
+            return new CompositeDataSupport(notificationType, NOTIFICATION_ITEMS, new Object[] {gcName, gcAction, gcCause, gcInfo.toCompositeData(null)});
+        } catch (OpenDataException e) {
+            throw ProgramError.unexpected(e);
+        }
+    }
+}
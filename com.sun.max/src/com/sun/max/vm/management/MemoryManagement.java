@@ -47,20 +47,33 @@ public class MemoryManagement {
         final ArrayList<MemoryPoolMXBean> theMemoryPoolMXBeans = new ArrayList<MemoryPoolMXBean>();
         for (MemoryManagerMXBean memoryManagerMXBean : theMemoryManagers) {
             MemoryManagerMXBeanPools memoryManagerMXBeanPools = (MemoryManagerMXBeanPools) memoryManagerMXBean;
-            theMemoryPoolMXBeans.addAll(memoryManagerMXBeanPools.getAll());
+            addPools(theMemoryPoolMXBeans, memoryManagerMXBeanPools.getAll());
         }
         return theMemoryPoolMXBeans.toArray(new MemoryPoolMXBean[theMemoryPoolMXBeans.size()]);
     }
 
+    /**
+     * Adds pools to a list, skipping those already in it since a pool may have several managers (e.g. the old
+     * generation collector of a generational heap also manages the young generation).
+     */
+    private static void addPools(List<MemoryPoolMXBean> result, List<MemoryPoolMXBean> pools) {
+        for (MemoryPoolMXBean pool : pools) {
+            if (!result.contains(pool)) {
+                result.add(pool);
+            }
+        }
+    }
+
     public static MemoryManagerMXBean[] getMemoryManagers() {
         /*
          * In a complete implementation there would be a manager for code, non-heap data and heap data.
          * Currently, we only support code and heap. This information probably could be cached safely.
          */
-        final MemoryManagerMXBean[] result = new MemoryManagerMXBean[3];
+        final GarbageCollectorMXBean[] collectors = vmConfig().heapScheme().getGarbageCollectorMXBeans();
+        final MemoryManagerMXBean[] result = new MemoryManagerMXBean[2 + collectors.length];
         result[0] = Code.getMemoryManagerMXBean();
         result[1] = ImmortalHeap.getMemoryManagerMXBean();
-        result[2] = vmConfig().heapScheme().getGarbageCollectorMXBean();
+        System.arraycopy(collectors, 0, result, 2, collectors.length);
         return result;
     }
 
@@ -69,7 +82,9 @@ public class MemoryManagement {
         if (heap) {
             pools = new ArrayList<MemoryPoolMXBean>();
             pools.addAll(getMemoryManagerMXBeanPools(ImmortalHeap.getMemoryManagerMXBean()).getAll());
-            pools.addAll(getMemoryManagerMXBeanPools(vmConfig().heapScheme().getGarbageCollectorMXBean()).getAll());
+            for (GarbageCollectorMXBean collector : vmConfig().heapScheme().getGarbageCollectorMXBeans()) {
+                addPools(pools, getMemoryManagerMXBeanPools(collector).getAll());
+            }
         } else {
             pools = getMemoryManagerMXBeanPools(Code.getMemoryManagerMXBean()).getAll();
         }
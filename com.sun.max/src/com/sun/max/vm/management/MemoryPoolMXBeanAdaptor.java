@@ -40,16 +40,60 @@ public class MemoryPoolMXBeanAdaptor implements MemoryPoolMXBean {
     protected MemoryRegion region;
     private MemoryType type;
 
+    /**
+     * The bytes used and committed in this pool at the end of the last collection, or -1 if there was none.
+     */
+    private long collectionUsed = -1;
+    private long collectionCommitted = -1;
+
     private MemoryPoolMXBeanAdaptor() {
     }
 
     public MemoryPoolMXBeanAdaptor(MemoryType type, MemoryRegion region, MemoryManagerMXBean manager) {
         this.type = type;
         this.region = region;
+        this.manager = manager;
+    }
+
+    /**
+     * Gets the number of bytes used in this pool. Unlike {@link #getUsage()}, this does not allocate and can be
+     * called during a garbage collection.
+     */
+    public long usedBytes() {
+        if (region instanceof LinearAllocationMemoryRegion) {
+            return ((LinearAllocationMemoryRegion) region).used().toLong();
+        }
+        return region.size().toLong();
+    }
+
+    /**
+     * Gets the number of bytes committed to this pool. Unlike {@link #getUsage()}, this does not allocate and can be
+     * called during a garbage collection.
+     */
+    public long committedBytes() {
+        return region.size().toLong();
+    }
+
+    /**
+     * Records the usage of this pool at the end of a garbage collection, as reported by {@link #getCollectionUsage()}.
+     */
+    public void recordCollectionUsage(long used, long committed) {
+        collectionCommitted = committed;
+        collectionUsed = used;
     }
 
     public MemoryUsage getCollectionUsage() {
-        return null;
+        final long committed = collectionCommitted;
+        if (committed < 0) {
+            return null;
+        }
+        // A collection may have been recorded in between the two reads
+        final long used = Math.min(collectionUsed, committed);
+        final MemoryUsage usage = getUsage();
+        if (usage == null) {
+            return new MemoryUsage(-1, used, committed, -1);
+        }
+        return new MemoryUsage(usage.getInit(), used, committed, Math.max(committed, usage.getMax()));
     }
 
     public long getCollectionUsageThreshold() {
@@ -22,12 +22,17 @@
  */
 package com.sun.max.vm.management;
 
+import static com.sun.max.platform.Platform.*;
+
 import java.lang.management.*;
 import java.lang.reflect.*;
 import java.util.*;
 
+import com.sun.max.annotate.*;
+import com.sun.max.platform.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.jdk.*;
+import com.sun.max.vm.monitor.modal.sync.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.stack.*;
 import com.sun.max.vm.thread.*;
@@ -67,16 +72,86 @@ public class ThreadManagement {
         return VmThreadMap.getLiveTheadCount();
     }
 
+    private static boolean threadCpuTimeEnabled = true;
+
+    private static boolean threadContentionMonitoringEnabled;
+
+    /**
+     * Determines if the CPU time of threads can be measured on this platform.
+     */
+    public static boolean isThreadCpuTimeSupported() {
+        return platform().os == OS.LINUX || platform().os == OS.DARWIN;
+    }
+
+    public static boolean isThreadCpuTimeEnabled() {
+        return threadCpuTimeEnabled;
+    }
+
     public static boolean setThreadCpuTimeEnabled(boolean enable) {
-        // TODO
-        return false;
+        threadCpuTimeEnabled = enable;
+        return true;
+    }
+
+    /**
+     * Determines if the time threads spend blocked entering or waiting on monitors is measured.
+     * The number of times they do so is always counted.
+     */
+    @INLINE
+    public static boolean isThreadContentionMonitoringEnabled() {
+        return threadContentionMonitoringEnabled;
     }
 
     public static boolean setThreadContentionMonitoringEnabled(boolean enable) {
-        // TODO
-        return false;
+        threadContentionMonitoringEnabled = enable;
+        return true;
     }
 
+    /**
+     * Gets the CPU time consumed by a thread.
+     *
+     * @param id the {@linkplain Thread#getId() id} of the thread, or 0 for the current thread
+     * @param userTimeOnly specifies if only the time spent in user mode is requested
+     * @return the CPU time in nanoseconds, or -1 if the thread is not alive or its CPU time cannot be measured
+     */
+    public static long getThreadCpuTime(long id, boolean userTimeOnly) {
+        if (!isThreadCpuTimeSupported() || !threadCpuTimeEnabled) {
+            return -1L;
+        }
+        if (id == 0L || id == Thread.currentThread().getId()) {
+            return jmm_threadCpuTime(Word.zero(), userTimeOnly);
+        }
+        final CpuTimeProcedure proc = new CpuTimeProcedure(id, userTimeOnly);
+        // The thread cannot terminate, and its native handle become invalid, while the thread lock is held
+        synchronized (VmThreadMap.THREAD_LOCK) {
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, proc);
+        }
+        return proc.result;
+    }
+
+    static final class CpuTimeProcedure implements Pointer.Procedure {
+        long result = -1L;
+        private final long id;
+        private final boolean userTimeOnly;
+        CpuTimeProcedure(long id, boolean userTimeOnly) {
+            this.id = id;
+            this.userTimeOnly = userTimeOnly;
+        }
+        public void run(Pointer tla) {
+            final VmThread vmThread = VmThread.fromTLA(tla);
+            if (vmThread.javaThread().getId() == id) {
+                result = jmm_threadCpuTime(vmThread.nativeThread(), userTimeOnly);
+            }
+        }
+    }
+
+    /**
+     * Gets the CPU time of a native thread.
+     *
+     * @param nativeThread the native handle of a live thread, or zero for the current thread
+     */
+    @C_FUNCTION
+    private static native long jmm_threadCpuTime(Word nativeThread, boolean userTimeOnly);
+
     public static void getThreadInfo(long[] ids, int maxDepth, ThreadInfo[] result) {
         // The ids are java.lang.Thread ids from getId()
         // maxDepth is -1 when the entire stack is requested, not MAX_VALUE as in API call (see sun.management.ThreadImpl)
@@ -90,12 +165,23 @@ public class ThreadManagement {
             if (thread == null || thread.getState() == Thread.State.TERMINATED) {
                 result[i] = null;
             } else {
-                // we don't handle any of the lock information yet
+                // Locked monitors and synchronizers are not reported
+                final VmThread vmThread = VmThread.fromJava(thread);
+                final Thread.State state = thread.getState();
+                JavaMonitor monitor = null;
+                if (state == Thread.State.BLOCKED) {
+                    monitor = vmThread.contendedMonitor();
+                } else if (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING) {
+                    monitor = vmThread.waitedMonitor();
+                }
+                final Object lock = monitor == null ? null : monitor.boundObject();
+                final VmThread owner = lock == null || state != Thread.State.BLOCKED ? null : monitor.ownerThread();
+                final long nanosPerMilli = 1000000L;
                 try {
                     final Object obj = threadInfoConstructor.newInstance(new Object[] {
-                        thread, thread.getState().ordinal(), null, null,
-                        0, 0,
-                        0, 0,
+                        thread, state.ordinal(), lock, owner == null ? null : owner.javaThread(),
+                        vmThread.blockedCount(), threadContentionMonitoringEnabled ? vmThread.blockedNanos() / nanosPerMilli : -1L,
+                        vmThread.waitedCount(), threadContentionMonitoringEnabled ? vmThread.waitedNanos() / nanosPerMilli : -1L,
                         maxDepth == 0 ? new StackTraceElement[0] : getStackTrace(thread, maxDepth),
                         null,
                         null,
@@ -221,8 +307,63 @@ public class ThreadManagement {
     }
 
 
+    /**
+     * Finds the threads in cycles of threads blocked entering monitors owned by the next thread in the cycle.
+     *
+     * @return the deadlocked threads or {@code null} if there are none
+     */
     public static Thread[] findMonitorDeadlockedThreads() {
-        return null;
+        final MonitorOwnershipGatherer gatherer = new MonitorOwnershipGatherer();
+        VmOperationThread.submit(gatherer);
+
+        // A thread is deadlocked if following the owners of the monitors it blocks on leads back to itself
+        final Map<VmThread, VmThread> waitsFor = gatherer.waitsFor;
+        final Set<VmThread> deadlocked = new LinkedHashSet<VmThread>();
+        final Set<VmThread> visited = new HashSet<VmThread>();
+        for (VmThread start : waitsFor.keySet()) {
+            final List<VmThread> path = new ArrayList<VmThread>();
+            VmThread thread = start;
+            while (thread != null && !visited.contains(thread)) {
+                visited.add(thread);
+                path.add(thread);
+                thread = waitsFor.get(thread);
+            }
+            final int cycleStart = thread == null ? -1 : path.indexOf(thread);
+            if (cycleStart >= 0) {
+                deadlocked.addAll(path.subList(cycleStart, path.size()));
+            }
+        }
+        if (deadlocked.isEmpty()) {
+            return null;
+        }
+        final Thread[] result = new Thread[deadlocked.size()];
+        int i = 0;
+        for (VmThread thread : deadlocked) {
+            result[i++] = thread.javaThread();
+        }
+        return result;
+    }
+
+    /**
+     * A thread-freezing operation recording, for each thread blocked entering a monitor, the owner of the monitor.
+     */
+    static final class MonitorOwnershipGatherer extends VmOperation {
+        final Map<VmThread, VmThread> waitsFor = new HashMap<VmThread, VmThread>();
+
+        MonitorOwnershipGatherer() {
+            super("MonitorOwnershipGatherer", null, Mode.Safepoint);
+        }
+
+        @Override
+        public void doThread(VmThread vmThread, Pointer ip, Pointer sp, Pointer fp) {
+            final JavaMonitor monitor = vmThread.contendedMonitor();
+            if (monitor != null) {
+                final VmThread owner = monitor.ownerThread();
+                if (owner != null && owner != vmThread) {
+                    waitsFor.put(vmThread, owner);
+                }
+            }
+        }
     }
 
     public static void checkThreadInfoConstructor() {
@@ -531,4 +531,47 @@ public final class MaxMethodHandles {
         return UnsafeCast.asClassMethodActor(target.getVmTarget());
     }
 
+    @ALIAS(declaringClass = CallSite.class, descriptor = "Ljava/lang/invoke/MethodHandle;")
+    private Object target;
+
+    @ALIAS(declaringClassName = "java.lang.invoke.DirectMethodHandle", descriptor = "Ljava/lang/invoke/MemberName;")
+    private Object member;
+
+    /**
+     * Gets the target of a call site, as {@link CallSite#getTarget()} without the virtual dispatch.
+     */
+    public static Object callSiteTarget(Object callSite) {
+        return asThis(callSite).target;
+    }
+
+    /**
+     * Sets the target of a call site. The caller is responsible for ordering the store with respect to other threads.
+     */
+    public static void setCallSiteTarget(Object callSite, Object target) {
+        asThis(callSite).target = target;
+    }
+
+    /**
+     * Gets the static method invoked by a method handle that neither adapts its arguments nor initializes the holder
+     * of the method, so that a call site whose target is {@code mh} can call the method directly.
+     *
+     * @param mh a method handle
+     * @param signature the type of the call site
+     * @return the method, or {@code null} if {@code mh} is not a direct handle to an initialized static method whose
+     *         descriptor is {@code signature}
+     */
+    public static ClassMethodActor directStaticTarget(Object mh, SignatureDescriptor signature) {
+        if (isHosted() || mh == null || mh.getClass() != JDK.java_lang_invoke_DirectMethodHandle.javaClass()) {
+            return null;
+        }
+        final VMTarget target = VMTarget.fromMemberName(asThis(mh).member);
+        if (target == null || !(target.getVmTarget() instanceof StaticMethodActor)) {
+            return null;
+        }
+        final StaticMethodActor methodActor = (StaticMethodActor) target.getVmTarget();
+        if (!methodActor.holder().isInitialized() || methodActor.descriptor() != signature) {
+            return null;
+        }
+        return methodActor;
+    }
 }
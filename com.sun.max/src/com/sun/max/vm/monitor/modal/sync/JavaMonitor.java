@@ -107,6 +107,21 @@ public interface JavaMonitor {
      */
     void monitorPrivateRelease();
 
+    /**
+     * Returns this monitor's bound object.
+     *
+     * @return the bound object
+     */
+    Object boundObject();
+
+    /**
+     * Gets the thread owning this monitor. Unless the owner and the threads contending for this monitor are
+     * stopped, the value may be out of date as soon as it is returned.
+     *
+     * @return the owner of this monitor or {@code null} if it is not owned
+     */
+    VmThread ownerThread();
+
     /**
      * Prints the details of this monitor to the {@linkplain Log VM log stream}.
      */
@@ -582,13 +582,6 @@ public class JavaMonitorManager {
          */
         void allocate();
 
-        /**
-         * Returns this monitor's bound object.
-         *
-         * @return the bound object
-         */
-        Object boundObject();
-
         /**
          * Refreshes the two-way binding of this monitor.
          */
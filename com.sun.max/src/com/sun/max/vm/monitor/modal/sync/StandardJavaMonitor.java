@@ -95,9 +95,17 @@ public class StandardJavaMonitor extends AbstractJavaMonitor {
             traceEndMonitorEnter(currentThread);
             return;
         }
+        // An unsynchronized read: the owner may change before the lock is taken, which only skews the statistics
+        final boolean contended = ownerThread != null;
+        if (contended) {
+            currentThread.beginMonitorContention(this);
+        }
         currentThread.setState(Thread.State.BLOCKED);
         mutex.lock();
         currentThread.setState(Thread.State.RUNNABLE);
+        if (contended) {
+            currentThread.endMonitorContention();
+        }
         ownerThread = currentThread;
         setBindingProtection(BindingProtection.PROTECTED);
         recursionCount = 1;
@@ -149,7 +157,9 @@ public class StandardJavaMonitor extends AbstractJavaMonitor {
             // The wait is prematurely interrupted and never calls native code
             interrupted = true;
         } else {
+            ownerThread.beginMonitorWait(this);
             waitingCondition.threadWait(mutex, timeoutMilliSeconds);
+            ownerThread.endMonitorWait();
             interrupted = ownerThread.isInterrupted(true);
         }
 
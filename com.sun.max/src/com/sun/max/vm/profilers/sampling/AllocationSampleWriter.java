@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.profilers.sampling;
+
+import static com.sun.max.vm.profilers.sampling.AllocationSampler.*;
+
+import java.io.*;
+import java.util.*;
+
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.jni.*;
+
+/**
+ * Background thread draining the chunks filled by the {@link AllocationSampler}.
+ * <p>
+ * The samples are folded into a histogram of allocation sites, a site being the stack recorded by a sample, and are
+ * streamed to a file if one is given. The file format (big-endian) is:
+ * <pre>
+ *  header:  "MXAS" version:int interval:long
+ *  entries: 'M' methodId:long name:UTF                                          -- method name, written before its first use
+ *           'S' threadId:int weight:long size:int depth:int (methodId:long position:int)*depth   -- a sample, top frame first
+ * </pre>
+ * The weight of a sample is the number of bytes its thread allocated since its previous sample and the size is that of
+ * the allocation that triggered it.
+ */
+final class AllocationSampleWriter extends Thread {
+
+    static final int VERSION = 1;
+
+    /**
+     * The interval at which the filled chunks are drained, in milliseconds.
+     */
+    private static final int DRAIN_INTERVAL = 1000;
+
+    /**
+     * The maximum number of sites printed by {@link #printHistogram()}.
+     */
+    private static final int MAX_PRINTED_SITES = 64;
+
+    private final String path;
+    private final long interval;
+    private volatile boolean terminating;
+    private DataOutputStream out;
+    private final Set<Long> writtenMethodIds = new HashSet<Long>();
+    private final Map<Site, Site> sites = new HashMap<Site, Site>();
+    private long totalWeight;
+    private long totalSamples;
+
+    /**
+     * An allocation site and the samples attributed to it.
+     */
+    private static final class Site {
+        final long[] methodIds;
+        final int[] positions;
+        long weight;
+        long samples;
+
+        Site(long[] methodIds, int[] positions) {
+            this.methodIds = methodIds;
+            this.positions = positions;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(methodIds) ^ Arrays.hashCode(positions);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof Site) {
+                final Site site = (Site) other;
+                return Arrays.equals(methodIds, site.methodIds) && Arrays.equals(positions, site.positions);
+            }
+            return false;
+        }
+    }
+
+    AllocationSampleWriter(String path, long interval) {
+        super("AllocationSampleWriter");
+        this.path = path;
+        this.interval = interval;
+        setDaemon(true);
+    }
+
+    /**
+     * Drains the remaining chunks, including the ones threads are still filling, and waits for this thread to finish.
+     */
+    void terminate() {
+        terminating = true;
+        interrupt();
+        try {
+            join();
+        } catch (InterruptedException e) {
+        }
+        try {
+            for (long chunk : AllocationSampler.activeChunks()) {
+                if (chunk != 0L) {
+                    drain(Pointer.fromLong(chunk));
+                }
+            }
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            reportError(e);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (path != null) {
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), CHUNK_SIZE));
+                out.writeBytes("MXAS");
+                out.writeInt(VERSION);
+                out.writeLong(interval);
+            }
+            boolean done = false;
+            while (!done) {
+                // Read the flag before draining so that chunks pushed before termination are not missed.
+                done = terminating;
+                final Pointer chain = AllocationSampler.takeFilledChunks();
+                Pointer chunk = chain;
+                while (chunk.isNotZero()) {
+                    final Pointer next = AllocationSampler.next(chunk);
+                    drain(chunk);
+                    AllocationSampler.releaseChunk(chunk);
+                    chunk = next;
+                }
+                if (out != null) {
+                    out.flush();
+                }
+                if (!done) {
+                    try {
+                        Thread.sleep(DRAIN_INTERVAL);
+                    } catch (InterruptedException e) {
+                    }
+                }
+            }
+        } catch (IOException e) {
+            reportError(e);
+            out = null;
+        }
+    }
+
+    private void reportError(IOException e) {
+        Log.print("Allocation sampler: error writing ");
+        Log.print(path);
+        Log.print(": ");
+        Log.println(e.getMessage());
+    }
+
+    /**
+     * Adds the samples of a chunk to the histogram and writes them to the file.
+     */
+    private void drain(Pointer chunk) throws IOException {
+        final int used = AllocationSampler.used(chunk);
+        final int threadId = AllocationSampler.threadId(chunk);
+        int offset = HEADER_SIZE;
+        while (offset < used) {
+            final Pointer sample = chunk.plus(offset);
+            final long weight = sample.readLong(WEIGHT_OFFSET);
+            final int size = sample.readInt(SIZE_OFFSET);
+            final int depth = sample.readInt(DEPTH_OFFSET);
+            final long[] methodIds = new long[depth];
+            final int[] positions = new int[depth];
+            for (int i = 0; i < depth; i++) {
+                final Pointer frame = sample.plus(SAMPLE_HEADER_SIZE + i * FRAME_SIZE);
+                methodIds[i] = frame.readLong(0);
+                positions[i] = frame.readInt(8);
+            }
+            offset += SAMPLE_HEADER_SIZE + depth * FRAME_SIZE;
+
+            final Site key = new Site(methodIds, positions);
+            Site site = sites.get(key);
+            if (site == null) {
+                site = key;
+                sites.put(key, site);
+            }
+            site.weight += weight;
+            site.samples++;
+            totalWeight += weight;
+            totalSamples++;
+
+            if (out != null) {
+                for (long methodId : methodIds) {
+                    if (writtenMethodIds.add(methodId)) {
+                        out.writeByte('M');
+                        out.writeLong(methodId);
+                        out.writeUTF(methodName(methodId));
+                    }
+                }
+                out.writeByte('S');
+                out.writeInt(threadId);
+                out.writeLong(weight);
+                out.writeInt(size);
+                out.writeInt(depth);
+                for (int i = 0; i < depth; i++) {
+                    out.writeLong(methodIds[i]);
+                    out.writeInt(positions[i]);
+                }
+            }
+        }
+    }
+
+    private static String methodName(long methodId) {
+        final MethodActor methodActor = MethodID.toMethodActor(MethodID.fromWord(Address.fromLong(methodId)));
+        return methodActor.format("%H.%n(%p)");
+    }
+
+    /**
+     * Prints the allocation sites sorted by decreasing weight.
+     */
+    void printHistogram() {
+        final Site[] sorted = sites.values().toArray(new Site[sites.size()]);
+        Arrays.sort(sorted, new Comparator<Site>() {
+            public int compare(Site a, Site b) {
+                return a.weight < b.weight ? 1 : a.weight > b.weight ? -1 : 0;
+            }
+        });
+        Log.println();
+        Log.print("Allocation samples: ");
+        Log.print(totalSamples);
+        Log.print(" samples, ");
+        Log.print(totalWeight / 1024);
+        Log.print(" KB sampled, ");
+        Log.print(sorted.length);
+        Log.println(" sites");
+        final int n = Math.min(sorted.length, MAX_PRINTED_SITES);
+        for (int i = 0; i < n; i++) {
+            final Site site = sorted[i];
+            final long percent = totalWeight == 0 ? 0 : site.weight * 1000 / totalWeight;
+            Log.print(percent / 10);
+            Log.print('.');
+            Log.print(percent % 10);
+            Log.print("% ");
+            Log.print(site.weight / 1024);
+            Log.print(" KB in ");
+            Log.print(site.samples);
+            Log.println(" samples");
+            for (int j = 0; j < site.methodIds.length; j++) {
+                Log.print("    at ");
+                Log.print(methodName(site.methodIds[j]));
+                Log.print(" +");
+                Log.println(site.positions[j]);
+            }
+        }
+        if (sorted.length > n) {
+            Log.print("  (");
+            Log.print(sorted.length - n);
+            Log.println(" more sites)");
+        }
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.profilers.sampling;
+
+import static com.sun.max.vm.VMOptions.*;
+import static com.sun.max.vm.intrinsics.Infopoints.*;
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.platform.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.jni.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.stack.*;
+import com.sun.max.vm.thread.*;
+import com.sun.max.vm.thread.VmThreadLocal.Nature;
+
+/**
+ * Allocation sampler driven by the allocation slow path of {@link HeapSchemeWithTLAB}.
+ * <p>
+ * A thread counts the bytes it allocates TLAB by TLAB, each time it takes the allocation slow path. When the count
+ * reaches a randomized sample point, uniformly distributed between half and one and a half times
+ * {@code -XX:AllocationSampleInterval} bytes, the thread walks its own stack and appends a sample, weighted by the bytes
+ * it allocated since its previous sample, to an off-heap chunk of its own. No other thread is stopped and no lock is
+ * taken, unlike with {@link HeapSamplingProfiler}. Since bytes are only counted at TLAB boundaries, a sample is
+ * attributed to the allocation that overflowed the TLAB; over many samples, the weights of a site converge on the
+ * bytes allocated there.
+ * <p>
+ * Full chunks are pushed onto a global stack with a compare-and-swap. The {@link AllocationSampleWriter} thread takes
+ * them, folds them into the allocation site histogram printed at exit by {@code -XX:+PrintAllocationSamples} and
+ * streams them to {@code -XX:AllocationSampleFile}.
+ * <p>
+ * A chunk is a {@value #CHUNK_SIZE} byte block of virtual memory laid out as follows:
+ * <pre>
+ *   0: next chunk (word)   8: used bytes (int)   12: thread id (int)   16: TLAB allocation mark up to which bytes were counted (word)
+ *  24: bytes allocated since the last sample (long)   32: sample point (long)   40: random state (long)   48: walk state (int)
+ *  56: samples: weight (long) size (int) depth (int), followed by depth frames: method id (long) code position (int) unused (int)
+ * </pre>
+ * The method id of a frame is the {@link MethodID} of the frame's method and the code position is relative to the start
+ * of the code of the frame's {@link TargetMethod}. Frames of the VM's allocation path are not recorded.
+ */
+public final class AllocationSampler {
+
+    private static final VMSizeOption intervalOption = register(new VMSizeOption("-XX:AllocationSampleInterval=", Size.zero(),
+        "Mean number of bytes allocated by a thread between two allocation samples; 0 disables allocation sampling."), MaxineVM.Phase.PRISTINE);
+
+    private static int AllocationSampleDepth = 32;
+    private static String AllocationSampleFile;
+    private static boolean PrintAllocationSamples;
+
+    static {
+        VMOptions.addFieldOption("-XX:", "AllocationSampleDepth", AllocationSampler.class,
+            "Maximum number of frames recorded by an allocation sample.", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "AllocationSampleFile", AllocationSampler.class,
+            "File to which allocation samples are streamed.", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "PrintAllocationSamples", AllocationSampler.class,
+            "Print the allocation site histogram of the allocation sampler at exit.", MaxineVM.Phase.PRISTINE);
+    }
+
+    /**
+     * The sample chunk of a thread, or zero if the thread has not allocated since sampling started.
+     */
+    private static final VmThreadLocal ALLOCATION_SAMPLES
+        = new VmThreadLocal("ALLOCATION_SAMPLES", false, "AllocationSampler: sample chunk of the thread", Nature.Single);
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int NEXT_OFFSET = 0;
+    private static final int USED_OFFSET = 8;
+    private static final int THREAD_ID_OFFSET = 12;
+    private static final int MARK_OFFSET = 16;
+    private static final int BYTES_OFFSET = 24;
+    private static final int SAMPLE_POINT_OFFSET = 32;
+    private static final int RANDOM_OFFSET = 40;
+    private static final int WALK_STATE_OFFSET = 48;
+    static final int HEADER_SIZE = 56;
+
+    static final int WEIGHT_OFFSET = 0;
+    static final int SIZE_OFFSET = 8;
+    static final int DEPTH_OFFSET = 12;
+    static final int SAMPLE_HEADER_SIZE = 16;
+    static final int FRAME_SIZE = 16;
+
+    /*
+     * Values of the walk state while a thread records a sample.
+     */
+    private static final int SKIPPING_ALLOCATION_FRAMES = 0;
+    private static final int RECORDING_FRAMES = 1;
+
+    private static final int MAX_DEPTH = (CHUNK_SIZE - HEADER_SIZE - SAMPLE_HEADER_SIZE) / FRAME_SIZE;
+
+    private static final ClassActor HEAP_SCHEME = ClassActor.fromJava(HeapScheme.class);
+    private static final ClassActor HEAP = ClassActor.fromJava(Heap.class);
+    private static final ClassActor SNIPPETS = ClassActor.fromJava(Snippets.class);
+    private static final ClassActor ALLOCATION_SAMPLER = ClassActor.fromJava(AllocationSampler.class);
+
+    private static final FrameRecorder frameRecorder = new FrameRecorder();
+
+    private static boolean enabled;
+    private static long interval;
+    private static int maxDepth;
+
+    /**
+     * Off-heap word holding the head of the stack of full chunks, so that it can be updated with
+     * {@link Pointer#compareAndSwapWord}. Chunks are pushed by any thread and only ever taken all at once.
+     */
+    private static Pointer filledChunks = Pointer.zero();
+
+    private static AllocationSampleWriter writer;
+
+    private AllocationSampler() {
+    }
+
+    /**
+     * Determines if the heap scheme should report its allocation slow paths to the sampler.
+     */
+    @INLINE
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts sampling if {@code -XX:AllocationSampleInterval} is set. Called once the VM is running.
+     */
+    public static void start() {
+        interval = intervalOption.getValue().toLong();
+        if (interval <= 0) {
+            return;
+        }
+        if (!(vmConfigHeapScheme() instanceof HeapSchemeWithTLAB)) {
+            Log.println("Allocation sampling requires a heap scheme with TLABs");
+            return;
+        }
+        maxDepth = Math.max(1, Math.min(AllocationSampleDepth, MAX_DEPTH));
+        filledChunks = VirtualMemory.allocate(Size.fromInt(Platform.platform().pageSize), VirtualMemory.Type.DATA);
+        if (filledChunks.isZero()) {
+            throw FatalError.unexpected("AllocationSampler: could not allocate chunk stack");
+        }
+        if (AllocationSampleFile == null) {
+            PrintAllocationSamples = true;
+        }
+        writer = new AllocationSampleWriter(AllocationSampleFile, interval);
+        writer.start();
+        enabled = true;
+    }
+
+    /**
+     * Stops sampling, writes out the remaining samples and prints the histogram if requested.
+     */
+    public static void terminate() {
+        if (!enabled) {
+            return;
+        }
+        enabled = false;
+        writer.terminate();
+        if (PrintAllocationSamples) {
+            writer.printHistogram();
+        }
+    }
+
+    private static HeapScheme vmConfigHeapScheme() {
+        return VMConfiguration.vmConfig().heapScheme();
+    }
+
+    /**
+     * Counts the bytes allocated by the current thread since its last slow path allocation, and takes a sample if this
+     * moves the thread past its sample point.
+     *
+     * @param etla the current thread's TLA
+     * @param oldAllocationMark the allocation mark of the TLAB that overflowed
+     * @param newAllocationMark the allocation mark of the thread's TLAB after the slow path allocation
+     * @param size the size of the slow path allocation
+     */
+    @NO_SAFEPOINT_POLLS("allocation sampling is part of the allocation slow path")
+    public static void afterSlowPathAllocate(Pointer etla, Pointer oldAllocationMark, Pointer newAllocationMark, Size size) {
+        Pointer chunk = ALLOCATION_SAMPLES.load(etla);
+        if (chunk.isZero()) {
+            chunk = acquireChunk(etla, Pointer.zero());
+            if (chunk.isZero()) {
+                return;
+            }
+        }
+        long bytes = chunk.readLong(BYTES_OFFSET) + size.toLong();
+        final Pointer mark = chunk.readWord(MARK_OFFSET).asPointer();
+        if (mark.isNotZero() && oldAllocationMark.greaterEqual(mark)) {
+            // the part of the TLAB filled since the last slow path
+            bytes += oldAllocationMark.minus(mark).toLong();
+        }
+        chunk.writeWord(MARK_OFFSET, newAllocationMark);
+        if (bytes < chunk.readLong(SAMPLE_POINT_OFFSET)) {
+            chunk.writeLong(BYTES_OFFSET, bytes);
+            return;
+        }
+        chunk.writeLong(BYTES_OFFSET, 0L);
+        chunk.writeLong(SAMPLE_POINT_OFFSET, nextSamplePoint(chunk));
+        if (chunk.readInt(USED_OFFSET) + SAMPLE_HEADER_SIZE + maxDepth * FRAME_SIZE > CHUNK_SIZE) {
+            chunk = acquireChunk(etla, chunk);
+            if (chunk.isZero()) {
+                return;
+            }
+        }
+        recordSample(chunk, bytes, size);
+    }
+
+    @NO_SAFEPOINT_POLLS("allocation sampling is part of the allocation slow path")
+    private static void recordSample(Pointer chunk, long weight, Size size) {
+        final VmStackFrameWalker walker = VmThread.current().allocationSamplerStackFrameWalker();
+        if (walker.isInUse()) {
+            return;
+        }
+        final int used = chunk.readInt(USED_OFFSET);
+        final Pointer sample = chunk.plus(used);
+        sample.writeLong(WEIGHT_OFFSET, weight);
+        sample.writeInt(SIZE_OFFSET, size.toInt());
+        sample.writeInt(DEPTH_OFFSET, 0);
+        chunk.writeInt(WALK_STATE_OFFSET, SKIPPING_ALLOCATION_FRAMES);
+        walker.inspect(Pointer.fromLong(here()), VMRegister.getCpuStackPointer(), VMRegister.getCpuFramePointer(), frameRecorder);
+        final int depth = sample.readInt(DEPTH_OFFSET);
+        if (depth > 0) {
+            // Publish the sample only once it is complete
+            chunk.writeInt(USED_OFFSET, used + SAMPLE_HEADER_SIZE + depth * FRAME_SIZE);
+        }
+    }
+
+    /**
+     * Records the frames of the current thread into the sample being appended to its chunk. Holds no state of its own so
+     * that all threads can share it.
+     */
+    private static final class FrameRecorder extends RawStackFrameVisitor {
+        @Override
+        public boolean visitFrame(StackFrameCursor current, StackFrameCursor callee) {
+            final TargetMethod targetMethod = current.targetMethod();
+            if (targetMethod == null || targetMethod.classMethodActor == null) {
+                // native frames, stubs, trampolines, adapters etc
+                return true;
+            }
+            final Pointer chunk = ALLOCATION_SAMPLES.load(ETLA.load(VmThread.currentTLA()));
+            if (chunk.readInt(WALK_STATE_OFFSET) == SKIPPING_ALLOCATION_FRAMES) {
+                if (isAllocationFrame(targetMethod.classMethodActor)) {
+                    return true;
+                }
+                chunk.writeInt(WALK_STATE_OFFSET, RECORDING_FRAMES);
+            }
+            final Pointer sample = chunk.plus(chunk.readInt(USED_OFFSET));
+            final int depth = sample.readInt(DEPTH_OFFSET);
+            final Pointer frame = sample.plus(SAMPLE_HEADER_SIZE + depth * FRAME_SIZE);
+            frame.writeLong(0, MethodID.fromMethodActor(targetMethod.classMethodActor).asAddress().toLong());
+            frame.writeInt(8, targetMethod.posFor(current.vmIP()));
+            frame.writeInt(12, 0);
+            sample.writeInt(DEPTH_OFFSET, depth + 1);
+            return depth + 1 < maxDepth;
+        }
+    }
+
+    /**
+     * Determines if a frame is part of the VM's allocation path rather than of the code requesting the allocation.
+     */
+    private static boolean isAllocationFrame(ClassMethodActor method) {
+        final ClassActor holder = method.holder();
+        return holder == ALLOCATION_SAMPLER || holder == HEAP || holder == SNIPPETS || HEAP_SCHEME.isAssignableFrom(holder);
+    }
+
+    /**
+     * Draws the number of bytes the thread owning a chunk allocates before its next sample.
+     */
+    @INLINE
+    private static long nextSamplePoint(Pointer chunk) {
+        // xorshift64
+        long x = chunk.readLong(RANDOM_OFFSET);
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        chunk.writeLong(RANDOM_OFFSET, x);
+        return interval / 2 + ((x >>> 1) % (interval + 1));
+    }
+
+    /**
+     * Gets a new chunk for the current thread, carrying the sampling state over from its previous chunk, which is
+     * pushed onto the stack of full chunks.
+     *
+     * @return the new chunk, or zero if memory is exhausted
+     */
+    @NO_SAFEPOINT_POLLS("allocation sampling is part of the allocation slow path")
+    private static Pointer acquireChunk(Pointer etla, Pointer previous) {
+        final Pointer chunk = VirtualMemory.allocate(Size.fromInt(CHUNK_SIZE), VirtualMemory.Type.DATA);
+        if (chunk.isZero()) {
+            return chunk;
+        }
+        chunk.writeWord(NEXT_OFFSET, Word.zero());
+        chunk.writeInt(USED_OFFSET, HEADER_SIZE);
+        chunk.writeInt(THREAD_ID_OFFSET, VmThread.current().id());
+        if (previous.isZero()) {
+            chunk.writeWord(MARK_OFFSET, Word.zero());
+            chunk.writeLong(BYTES_OFFSET, 0L);
+            chunk.writeLong(RANDOM_OFFSET, (System.nanoTime() ^ etla.toLong()) | 1L);
+            chunk.writeLong(SAMPLE_POINT_OFFSET, nextSamplePoint(chunk));
+        } else {
+            Memory.copyBytes(previous.plus(MARK_OFFSET), chunk.plus(MARK_OFFSET), Size.fromInt(HEADER_SIZE - MARK_OFFSET));
+            push(previous);
+        }
+        ALLOCATION_SAMPLES.store(etla, chunk);
+        return chunk;
+    }
+
+    /**
+     * Hands the chunk of the current thread over to the writer. Called when the thread detaches from the VM.
+     */
+    public static void retireCurrentThread(Pointer etla) {
+        final Pointer chunk = ALLOCATION_SAMPLES.load(etla);
+        if (chunk.isNotZero()) {
+            ALLOCATION_SAMPLES.store(etla, Word.zero());
+            push(chunk);
+        }
+    }
+
+    private static void push(Pointer chunk) {
+        Word head;
+        do {
+            head = filledChunks.readWord(0);
+            chunk.writeWord(NEXT_OFFSET, head);
+        } while (!filledChunks.compareAndSwapWord(0, head, chunk).equals(head));
+    }
+
+    /**
+     * Atomically takes all the full chunks, in the order they were pushed.
+     */
+    static Pointer takeFilledChunks() {
+        Word head;
+        do {
+            head = filledChunks.readWord(0);
+        } while (!filledChunks.compareAndSwapWord(0, head, Word.zero()).equals(head));
+        Pointer reversed = Pointer.zero();
+        Pointer chunk = head.asPointer();
+        while (chunk.isNotZero()) {
+            final Pointer next = next(chunk);
+            chunk.writeWord(NEXT_OFFSET, reversed);
+            reversed = chunk;
+            chunk = next;
+        }
+        return reversed;
+    }
+
+    static void releaseChunk(Pointer chunk) {
+        VirtualMemory.deallocate(chunk, Size.fromInt(CHUNK_SIZE), VirtualMemory.Type.DATA);
+    }
+
+    /**
+     * Gets the chunks threads are still filling. The samples they hold may be read, but the chunks must not be released.
+     *
+     * @return the addresses of the chunks, possibly followed by zeros
+     */
+    static long[] activeChunks() {
+        // Allocate before taking the thread lock; threads started in between are missed
+        final long[] chunks = new long[VmThreadMap.getLiveTheadCount() + 1];
+        final Pointer.Procedure collect = new Pointer.Procedure() {
+            int count;
+            public void run(Pointer tla) {
+                final Pointer chunk = ALLOCATION_SAMPLES.load(ETLA.load(tla));
+                if (chunk.isNotZero() && count < chunks.length) {
+                    chunks[count++] = chunk.toLong();
+                }
+            }
+        };
+        synchronized (VmThreadMap.THREAD_LOCK) {
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, collect);
+        }
+        return chunks;
+    }
+
+    @INLINE
+    static Pointer next(Pointer chunk) {
+        return chunk.readWord(NEXT_OFFSET).asPointer();
+    }
+
+    @INLINE
+    static int used(Pointer chunk) {
+        return chunk.readInt(USED_OFFSET);
+    }
+
+    @INLINE
+    static int threadId(Pointer chunk) {
+        return chunk.readInt(THREAD_ID_OFFSET);
+    }
+}
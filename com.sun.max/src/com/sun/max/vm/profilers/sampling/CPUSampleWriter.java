@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.profilers.sampling;
+
+import static com.sun.max.vm.profilers.sampling.CPUSampler.*;
+
+import java.io.*;
+import java.util.*;
+
+import com.oracle.max.cri.intrinsics.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.code.*;
+import com.sun.max.vm.jdk.JDK_java_lang_Throwable.Backtrace;
+import com.sun.max.vm.stack.*;
+
+/**
+ * Background thread decoding the samples recorded by the {@link CPUSampler}.
+ * <p>
+ * Every {@value #DRAIN_INTERVAL} milliseconds, the samples in the ring buffers of the running threads and of the
+ * threads that terminated are walked with a {@link SnapshotStackFrameWalker} and counted by stack. At exit, the counts
+ * are written one stack per line, root frame first, in the collapsed format read by flame graph tools:
+ * <pre>
+ *     java.lang.Thread.run;Foo.loop;Foo.compute 42
+ * </pre>
+ * A sample taken in native code called from Java ends with a {@value #NATIVE_FRAME} frame. A sample taken in native
+ * code with no Java caller to attribute it to is counted as a lone {@value #NATIVE_FRAME} frame.
+ */
+final class CPUSampleWriter extends Thread {
+
+    /**
+     * The interval at which the ring buffers are drained, in milliseconds.
+     */
+    private static final int DRAIN_INTERVAL = 50;
+
+    private static final String NATIVE_FRAME = "[native]";
+    private static final String UNKNOWN_FRAME = "[unknown]";
+
+    private final String path;
+    private final int maxDepth;
+    private volatile boolean terminating;
+    private final SnapshotStackFrameWalker walker = new SnapshotStackFrameWalker();
+    private final Map<String, long[]> stacks = new HashMap<String, long[]>();
+    private final StringBuilder stackBuilder = new StringBuilder();
+    private long totalSamples;
+    private long droppedSamples;
+
+    CPUSampleWriter(String path, int maxDepth) {
+        super("CPUSampleWriter");
+        this.path = path;
+        this.maxDepth = maxDepth;
+        setDaemon(true);
+    }
+
+    /**
+     * Waits for this thread to decode the remaining samples and writes the collapsed stacks.
+     */
+    void terminate() {
+        terminating = true;
+        interrupt();
+        try {
+            join();
+        } catch (InterruptedException e) {
+        }
+        for (long buffer : CPUSampler.activeBuffers()) {
+            if (buffer != 0L) {
+                droppedSamples += CPUSampler.dropped(Pointer.fromLong(buffer));
+            }
+        }
+        try {
+            final PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(path)));
+            final String[] sorted = stacks.keySet().toArray(new String[stacks.size()]);
+            Arrays.sort(sorted);
+            for (String stack : sorted) {
+                out.print(stack);
+                out.print(' ');
+                out.println(stacks.get(stack)[0]);
+            }
+            out.close();
+        } catch (IOException e) {
+            Log.print("CPU sampler: error writing ");
+            Log.print(path);
+            Log.print(": ");
+            Log.println(e.getMessage());
+        }
+        if (droppedSamples != 0) {
+            Log.print("CPU sampler: ");
+            Log.print(droppedSamples);
+            Log.print(" of ");
+            Log.print(totalSamples + droppedSamples);
+            Log.println(" samples dropped");
+        }
+    }
+
+    @Override
+    public void run() {
+        boolean done = false;
+        while (!done) {
+            // Read the flag before draining so that samples recorded before termination are not missed.
+            done = terminating;
+            for (long buffer : CPUSampler.activeBuffers()) {
+                if (buffer != 0L) {
+                    drain(Pointer.fromLong(buffer));
+                }
+            }
+            // A buffer retired after being listed above is only released below, once it is no longer in use
+            Pointer buffer = CPUSampler.takeRetiredBuffers();
+            while (buffer.isNotZero()) {
+                final Pointer next = CPUSampler.next(buffer);
+                drain(buffer);
+                droppedSamples += CPUSampler.dropped(buffer);
+                CPUSampler.releaseBuffer(buffer);
+                buffer = next;
+            }
+            if (!done) {
+                try {
+                    Thread.sleep(DRAIN_INTERVAL);
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the samples published in a ring buffer and frees their entries.
+     */
+    private void drain(Pointer buffer) {
+        final int head = CPUSampler.head(buffer);
+        MemoryBarriers.barrier(MemoryBarriers.JMM_POST_VOLATILE_READ);
+        int tail = CPUSampler.tail(buffer);
+        while (tail != head) {
+            count(decode(CPUSampler.entry(buffer, tail)));
+            tail++;
+        }
+        // The entries must be read before the handler can reuse them
+        MemoryBarriers.barrier(MemoryBarriers.JMM_PRE_VOLATILE_WRITE);
+        CPUSampler.setTail(buffer, tail);
+    }
+
+    private void count(String stack) {
+        long[] count = stacks.get(stack);
+        if (count == null) {
+            count = new long[1];
+            stacks.put(stack, count);
+        }
+        count[0]++;
+        totalSamples++;
+    }
+
+    /**
+     * Walks the stack copy of a sample.
+     *
+     * @return the stack of the sample in the collapsed format
+     */
+    private String decode(Pointer entry) {
+        final Pointer ip = entry.readWord(IP_OFFSET).asPointer();
+        final Pointer sp = entry.readWord(SP_OFFSET).asPointer();
+        final Pointer fp = entry.readWord(FP_OFFSET).asPointer();
+        final boolean inNative = (entry.readInt(FLAGS_OFFSET) & IN_NATIVE) != 0;
+        if (Code.codePointerToTargetMethod(ip) == null) {
+            return NATIVE_FRAME;
+        }
+
+        final Backtrace backtrace = new Backtrace(null, maxDepth);
+        walker.setSnapshot(sp, entry.plus(STACK_OFFSET), entry.readInt(LENGTH_OFFSET));
+        try {
+            walker.inspect(ip, sp, fp, backtrace);
+        } catch (SnapshotStackFrameWalker.SnapshotEnd e) {
+            // the frames visited so far are kept
+            walker.reset();
+        }
+
+        final StackTraceElement[] trace = backtrace.getTrace();
+        final StringBuilder sb = stackBuilder;
+        sb.setLength(0);
+        for (int i = trace.length - 1; i >= 0; i--) {
+            sb.append(trace[i].getClassName()).append('.').append(trace[i].getMethodName()).append(';');
+        }
+        if (trace.length == 0) {
+            sb.append(UNKNOWN_FRAME).append(';');
+        }
+        if (inNative) {
+            sb.append(NATIVE_FRAME).append(';');
+        }
+        sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+}
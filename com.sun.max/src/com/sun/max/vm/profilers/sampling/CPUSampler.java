@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.profilers.sampling;
+
+import static com.sun.max.vm.VMOptions.*;
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.platform.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.stack.*;
+import com.sun.max.vm.thread.*;
+import com.sun.max.vm.thread.VmThreadLocal.Nature;
+
+/**
+ * CPU sampler driven by a profiling timer signal instead of a {@link VmOperation}.
+ * <p>
+ * Once {@code -XX:CPUSampleFile} is set, an {@code ITIMER_PROF} timer sends {@code SIGPROF} to the thread that
+ * consumes the CPU every {@code -XX:CPUSampleInterval} milliseconds of process CPU time. The native handler in
+ * {@code signal.c} copies the interrupted instruction, stack and frame pointers, as well as the top
+ * {@code -XX:CPUSampleStackCopy} bytes of the stack, into a ring buffer of the thread. A thread in native code is
+ * recorded at the Java call site saved in its last frame anchor. No thread is stopped at a safepoint and no lock is
+ * taken, unlike with {@link CPUSamplingProfiler}.
+ * <p>
+ * The {@link CPUSampleWriter} thread periodically decodes the samples with a {@link SnapshotStackFrameWalker} and, at
+ * exit, writes the number of samples of each stack to the file in the collapsed format used by flame graph tools.
+ * <p>
+ * A ring buffer is a block of virtual memory laid out as follows, which must match the layout in {@code signal.c}:
+ * <pre>
+ *   0: head (int)   4: tail (int)   8: dropped samples (int)   12: capacity (int)   16: entry size (int)   20: thread id (int)
+ *  24: next buffer (word)
+ *  32: entries: ip (word) sp (word) fp (word) flags (int) copied stack bytes (int), followed by the stack copy
+ * </pre>
+ * The head is only written by the signal handler, and the tail only by the writer thread.
+ */
+public final class CPUSampler {
+
+    private static final VMSizeOption stackCopyOption = register(new VMSizeOption("-XX:CPUSampleStackCopy=", Size.K.times(16),
+        "Number of bytes of the top of the stack copied by a CPU sample."), MaxineVM.Phase.PRISTINE);
+
+    private static String CPUSampleFile;
+    private static int CPUSampleInterval = 10;
+    private static int CPUSampleDepth = 128;
+
+    static {
+        VMOptions.addFieldOption("-XX:", "CPUSampleFile", CPUSampler.class,
+            "File to which the collapsed stacks of the signal-based CPU sampler are written at exit; enables the sampler.", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "CPUSampleInterval", CPUSampler.class,
+            "Milliseconds of CPU time between two CPU samples.", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "CPUSampleDepth", CPUSampler.class,
+            "Maximum number of frames decoded for a CPU sample.", MaxineVM.Phase.PRISTINE);
+        new CriticalNativeMethod(CPUSampler.class, "cpuSampler_start");
+        new CriticalNativeMethod(CPUSampler.class, "cpuSampler_stop");
+        new CriticalNativeMethod(CPUSampler.class, "cpuSampler_setBuffer");
+    }
+
+    /**
+     * The ring buffer of a thread, or zero if the thread is not sampled.
+     */
+    private static final VmThreadLocal CPU_SAMPLES
+        = new VmThreadLocal("CPU_SAMPLES", false, "CPUSampler: sample ring buffer of the thread", Nature.Single);
+
+    private static final int HEAD_OFFSET = 0;
+    private static final int TAIL_OFFSET = 4;
+    private static final int DROPPED_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int ENTRY_SIZE_OFFSET = 16;
+    private static final int THREAD_ID_OFFSET = 20;
+    private static final int NEXT_OFFSET = 24;
+    private static final int HEADER_SIZE = 32;
+
+    static final int IP_OFFSET = 0;
+    static final int SP_OFFSET = 8;
+    static final int FP_OFFSET = 16;
+    static final int FLAGS_OFFSET = 24;
+    static final int LENGTH_OFFSET = 28;
+    static final int STACK_OFFSET = 32;
+
+    /**
+     * Flag of a sample taken while the thread was in native code.
+     */
+    static final int IN_NATIVE = 1;
+
+    /**
+     * The number of entries of a ring buffer; a power of two so that the indexes stay consistent when they wrap.
+     */
+    private static final int CAPACITY = 32;
+
+    private static boolean enabled;
+    private static int entrySize;
+
+    /**
+     * Off-heap word holding the head of the stack of buffers of terminated threads, so that it can be updated with
+     * {@link Pointer#compareAndSwapWord}. Buffers are pushed by any thread and only ever taken all at once.
+     */
+    private static Pointer retiredBuffers = Pointer.zero();
+
+    private static CPUSampleWriter writer;
+
+    private CPUSampler() {
+    }
+
+    /**
+     * Starts sampling if {@code -XX:CPUSampleFile} is set. Called once the VM is running.
+     */
+    public static void start() {
+        if (CPUSampleFile == null) {
+            return;
+        }
+        entrySize = STACK_OFFSET + stackCopyOption.getValue().alignUp(Word.size()).toInt();
+        retiredBuffers = VirtualMemory.allocate(Size.fromInt(Platform.platform().pageSize), VirtualMemory.Type.DATA);
+        if (retiredBuffers.isZero()) {
+            throw FatalError.unexpected("CPUSampler: could not allocate buffer stack");
+        }
+        writer = new CPUSampleWriter(CPUSampleFile, Math.max(1, CPUSampleDepth));
+        writer.start();
+
+        // Threads started from now on attach their own buffers; threads started in between are missed
+        enabled = true;
+        final Pointer.Procedure attach = new Pointer.Procedure() {
+            public void run(Pointer tla) {
+                attach(ETLA.load(tla));
+            }
+        };
+        synchronized (VmThreadMap.THREAD_LOCK) {
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, attach);
+        }
+
+        if (cpuSampler_start(Math.max(1, CPUSampleInterval) * 1000, JavaFrameAnchor.PC.offset, JavaFrameAnchor.SP.offset, JavaFrameAnchor.FP.offset) != 0) {
+            Log.println("CPU sampling is not supported on this platform");
+        }
+    }
+
+    /**
+     * Stops sampling, decodes the remaining samples and writes the collapsed stacks.
+     */
+    public static void terminate() {
+        if (!enabled) {
+            return;
+        }
+        cpuSampler_stop();
+        enabled = false;
+        writer.terminate();
+    }
+
+    /**
+     * Gives a thread being added to the VM a ring buffer if sampling is on.
+     *
+     * @param etla the TLA of the thread
+     */
+    public static void threadAdded(Pointer etla) {
+        if (enabled) {
+            attach(etla);
+        }
+    }
+
+    private static void attach(Pointer etla) {
+        if (CPU_SAMPLES.load(etla).isNotZero()) {
+            return;
+        }
+        final Pointer buffer = VirtualMemory.allocate(bufferSize(), VirtualMemory.Type.DATA);
+        if (buffer.isZero()) {
+            return;
+        }
+        buffer.writeInt(CAPACITY_OFFSET, CAPACITY);
+        buffer.writeInt(ENTRY_SIZE_OFFSET, entrySize);
+        buffer.writeInt(THREAD_ID_OFFSET, ID.load(etla).toInt());
+        CPU_SAMPLES.store(etla, buffer);
+        cpuSampler_setBuffer(NATIVE_THREAD_LOCALS.load(etla), buffer);
+    }
+
+    /**
+     * Detaches the ring buffer of the current thread, which is about to terminate, and hands it to the writer thread.
+     * As the signal handler runs on the current thread, no sample can be under way.
+     *
+     * @param etla the current thread's TLA
+     */
+    public static void retireCurrentThread(Pointer etla) {
+        final Pointer buffer = CPU_SAMPLES.load(etla);
+        if (buffer.isNotZero()) {
+            cpuSampler_setBuffer(NATIVE_THREAD_LOCALS.load(etla), Address.zero());
+            CPU_SAMPLES.store(etla, Word.zero());
+            Word head;
+            do {
+                head = retiredBuffers.readWord(0);
+                buffer.writeWord(NEXT_OFFSET, head);
+            } while (!retiredBuffers.compareAndSwapWord(0, head, buffer).equals(head));
+        }
+    }
+
+    /**
+     * Atomically takes all the buffers of terminated threads.
+     */
+    static Pointer takeRetiredBuffers() {
+        Word head;
+        do {
+            head = retiredBuffers.readWord(0);
+        } while (!retiredBuffers.compareAndSwapWord(0, head, Word.zero()).equals(head));
+        return head.asPointer();
+    }
+
+    static void releaseBuffer(Pointer buffer) {
+        VirtualMemory.deallocate(buffer, bufferSize(), VirtualMemory.Type.DATA);
+    }
+
+    private static Size bufferSize() {
+        return Size.fromInt(HEADER_SIZE + CAPACITY * entrySize);
+    }
+
+    /**
+     * Gets the buffers of the threads currently sampled.
+     */
+    static long[] activeBuffers() {
+        // Allocate before taking the thread lock; threads started in between are missed
+        final long[] buffers = new long[VmThreadMap.getLiveTheadCount() + 1];
+        final Pointer.Procedure collect = new Pointer.Procedure() {
+            int count;
+            public void run(Pointer tla) {
+                final Pointer buffer = CPU_SAMPLES.load(ETLA.load(tla));
+                if (buffer.isNotZero() && count < buffers.length) {
+                    buffers[count++] = buffer.toLong();
+                }
+            }
+        };
+        synchronized (VmThreadMap.THREAD_LOCK) {
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, collect);
+        }
+        return buffers;
+    }
+
+    @INLINE
+    static int head(Pointer buffer) {
+        return buffer.readInt(HEAD_OFFSET);
+    }
+
+    @INLINE
+    static int tail(Pointer buffer) {
+        return buffer.readInt(TAIL_OFFSET);
+    }
+
+    @INLINE
+    static void setTail(Pointer buffer, int tail) {
+        buffer.writeInt(TAIL_OFFSET, tail);
+    }
+
+    @INLINE
+    static int dropped(Pointer buffer) {
+        return buffer.readInt(DROPPED_OFFSET);
+    }
+
+    @INLINE
+    static Pointer next(Pointer buffer) {
+        return buffer.readWord(NEXT_OFFSET).asPointer();
+    }
+
+    /**
+     * Gets the entry of a buffer holding the sample with a given sequence number.
+     */
+    @INLINE
+    static Pointer entry(Pointer buffer, int sequence) {
+        return buffer.plus(HEADER_SIZE + (sequence & (CAPACITY - 1)) * entrySize);
+    }
+
+    @C_FUNCTION
+    private static native int cpuSampler_start(int intervalMicros, int anchorPCOffset, int anchorSPOffset, int anchorFPOffset);
+
+    @C_FUNCTION
+    private static native void cpuSampler_stop();
+
+    @C_FUNCTION
+    private static native void cpuSampler_setBuffer(Address nativeThreadLocals, Address buffer);
+}
@@ -75,18 +75,34 @@ public class NUMAProfiler {
     static native void numaProfiler_unlock();
 
     private static int          profilingCycle;
-    private static int          uniqueId = 0;
+
+    /**
+     * Timestamp of the start of the current profiling cycle. Printed record timestamps are relative to it.
+     */
+    private static long cycleStartTicks;
+
+    /**
+     * The {@linkplain RecordChunk record chunks} of the objects allocated during the current cycle.
+     * Only assembled during GC: while the cycle runs, each thread records allocations in its own chunk
+     * ({@link VmThreadLocal#PROFILER_RECORDS}) and pushes it on the filled chunk stack when full.
+     */
+    private static Pointer newObjects = Pointer.zero();
+
     /**
-     * The NUMAProfiler Buffer for newly allocated objects.
+     * The record chunks of the objects that survived the last GC. Rebuilt in fresh chunks at every GC, when
+     * allocation is disabled.
      */
-    private static RecordBuffer newObjects;
+    private static Pointer survivors = Pointer.zero();
 
     /**
-     * The NUMAProfiler Buffers for survivor objects. We use two identical buffers because
-     * allocation is disabled at the point we need to move the data in a clean buffer.
+     * Last chunk of the survivor chain being built during a GC.
      */
-    private static RecordBuffer survivors1;
-    private static RecordBuffer survivors2;
+    private static Pointer survivorsTail = Pointer.zero();
+
+    /**
+     * The thread streaming records to {@link #NUMAProfilerOutputFile}, or {@code null} if records are printed to the {@link Log}.
+     */
+    private static NUMAProfilerFlusher flusher;
 
     /**
      * The Buffer who keeps track of the physical NUMA node of any virtual memory page allocated for the JVM Heap.
@@ -103,15 +119,14 @@ public class NUMAProfiler {
     private static boolean NUMAProfilerDebug;
     @SuppressWarnings("unused")
     private static boolean NUMAProfilerIncludeFinalization;
+    @SuppressWarnings("unused")
+    private static String  NUMAProfilerOutputFile;
+    @SuppressWarnings("unused")
+    private static int     NUMAProfilerFlushInterval = 100;
 
     private static int totalNewSize  = 0;
     private static int totalSurvSize = 0;
 
-    /**
-     * A buffer to transform a String object to char array.
-     */
-    private static char[] charArrayBuffer;
-
     /**
      * PROFILING POLICY 1: Explicit GC Driven
      * Trigger Event: An Application's System.gc() call.
@@ -153,8 +168,6 @@ public class NUMAProfiler {
     @SuppressWarnings("FieldCanBeLocal")
     private static String NUMAProfilerFlareObject        = "NUMAProfilerFlareObject";
 
-    private static final int MINIMUMBUFFERSIZE = 500000;
-
     /**
      * The underlying hardware configuration.
      */
@@ -185,13 +198,17 @@ public class NUMAProfiler {
     static {
         VMOptions.addFieldOption("-XX:", "NUMAProfilerAll", NUMAProfiler.class, "Profile all allocated objects. (default: false)", MaxineVM.Phase.PRISTINE);
         VMOptions.addFieldOption("-XX:", "NUMAProfilerVerbose", NUMAProfiler.class, "Verbose numa profiler output. (default: false)", MaxineVM.Phase.PRISTINE);
-        VMOptions.addFieldOption("-XX:", "NUMAProfilerBufferSize", NUMAProfiler.class, "NUMAProfiler's Buffer Size.");
+        VMOptions.addFieldOption("-XX:", "NUMAProfilerBufferSize", NUMAProfiler.class, "Ignored: NUMAProfiler's record buffers grow on demand.");
         VMOptions.addFieldOption("-XX:", "NUMAProfilerExplicitGCThreshold", NUMAProfiler.class, "The number of the Explicit GCs to be performed before the NUMAProfiler starts recording. (default: 0)");
         VMOptions.addFieldOption("-XX:", "NUMAProfilerFlareObject", NUMAProfiler.class, "The Class of the Object to be sought after by the NUMAProfiler to drive the profiling process. (default: 'AllocationProfilerFlareObject')");
         VMOptions.addFieldOption("-XX:", "NUMAProfilerFlareAllocationThreshold", NUMAProfiler.class, "The number of the Flare objects to be allocated before the NUMAProfiler starts recording. (default: 0)");
         VMOptions.addFieldOption("-XX:", "NUMAProfilerFlareProfileWindow", NUMAProfiler.class, "The number of the Flare objects to be allocated before the NUMAProfiler stops recording. (default: 1)");
         VMOptions.addFieldOption("-XX:", "NUMAProfilerDebug", NUMAProfiler.class, "Print information to help in NUMAProfiler's Validation. (default: false)", MaxineVM.Phase.PRISTINE);
         VMOptions.addFieldOption("-XX:", "NUMAProfilerIncludeFinalization", NUMAProfiler.class, "Include memory accesses performed due to Finalization. (default: false)", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "NUMAProfilerOutputFile", NUMAProfiler.class,
+            "Stream the object records to this binary file from a background thread instead of printing them. (default: none)", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "NUMAProfilerFlushInterval", NUMAProfiler.class,
+            "Milliseconds between two flushes of the NUMAProfiler output file. (default: 100)", MaxineVM.Phase.PRISTINE);
 
         objectAccessCounterNames = new String[]{
             "LOCAL_TUPLE_WRITES", "INTERNODE_TUPLE_WRITES", "INTERBLADE_TUPLE_WRITES",
@@ -210,31 +227,7 @@ public class NUMAProfiler {
             Log.println("(NUMA Profiler): NUMAProfiler Initialization.");
         }
 
-        int survivorBufferSize = MINIMUMBUFFERSIZE;
-        int allocatorBufferSize = MINIMUMBUFFERSIZE;
-
-        if (NUMAProfilerBufferSize != 0) {
-            if (NUMAProfilerBufferSize < MINIMUMBUFFERSIZE) {
-                Log.print("WARNING: Small Buffer Size. Minimum Buffer Size applied! (=");
-                Log.print(MINIMUMBUFFERSIZE);
-                Log.println(")");
-                allocatorBufferSize = MINIMUMBUFFERSIZE;
-                survivorBufferSize = MINIMUMBUFFERSIZE;
-            } else {
-                allocatorBufferSize = NUMAProfilerBufferSize;
-                survivorBufferSize = NUMAProfilerBufferSize;
-            }
-        }
-
-        newObjects = new RecordBuffer(allocatorBufferSize, "New Objects Buffer");
-
-        if (NUMAProfilerVerbose) {
-            Log.println("(NUMA Profiler): Initialize the Survivor Objects NUMAProfiler Buffers.");
-        }
-        survivors1 = new RecordBuffer(survivorBufferSize, "Survivors Buffer No1");
-        survivors2 = new RecordBuffer(survivorBufferSize, "Survivors Buffer No2");
-
-        charArrayBuffer = new char[RecordBuffer.MAX_CHARS];
+        RecordChunk.initialize();
 
         if (NUMAProfilerVerbose) {
             Log.println("(NUMA Profiler): Initialize the Heap Boundaries Buffer.");
@@ -243,7 +236,13 @@ public class NUMAProfiler {
 
         numaConfig = new NUMALib();
 
+        if (NUMAProfilerOutputFile != null) {
+            flusher = new NUMAProfilerFlusher(NUMAProfilerOutputFile, NUMAProfilerFlushInterval);
+            flusher.start();
+        }
+
         profilingCycle = 1;
+        cycleStartTicks = Intrinsics.getTicks();
         if (NUMAProfilerVerbose) {
             Log.println("(NUMA Profiler): Initialization Complete.");
 
@@ -334,57 +333,78 @@ public class NUMAProfiler {
     }
 
     /**
-     * This method has the same functionality as the String.toCharArray() but
-     * we avoid the new object creation.
-     * @param str, The String to be converted to char array.
+     * This method is called when a profiled object is allocated.
+     * The allocation is recorded in the current thread's record chunk, without any locking.
      */
-    private static char[] asCharArray(String str) {
-        int i = 0;
-        while (i < str.length()) {
-            charArrayBuffer[i] = str.charAt(i);
-            i++;
+    @NO_SAFEPOINT_POLLS("numa profiler call chain must be atomic")
+    @NEVER_INLINE
+    public static void profileNew(int size, int classId, long address) {
+        final Pointer etla = ETLA.load(VmThread.currentTLA());
+        Pointer chunk = PROFILER_RECORDS.load(etla).asPointer();
+        if (chunk.isZero() || RecordChunk.isFull(chunk)) {
+            chunk = refillRecordChunk(etla, chunk);
         }
-        charArrayBuffer[i] = '\0';
-        return charArrayBuffer;
+        final long timestamp = Intrinsics.getTicks();
+        final int coreID = Intrinsics.getCpuID() & MaxineIntrinsicIDs.CPU_MASK;
+        RecordChunk.append(chunk, RecordChunk.nextId(), VmThread.current().id(), classId, size, address, -1, timestamp, coreID);
     }
 
-    private static boolean ongoingAllocation = false;
-
     /**
-     * This method is called when a profiled object is allocated.
+     * Hands a thread's full record chunk over to the filled chunk stack and gives the thread an empty one.
      */
     @NO_SAFEPOINT_POLLS("numa profiler call chain must be atomic")
     @NEVER_INLINE
-    public static void profileNew(int size, String type, long address) {
-        /* PROFILER_TLA is currently a thread local that has it's value maintained
-         * only in the {@linkplain VmThreadLocal#ETLA safepoints-enabled} TLA. That
-         * said if we lock and disable safepoints it is no longer accessible, thus
-         * we read it before locking. */
-        final boolean lockDisabledSafepoints = lock();
-        //transform the object type from String to char[] and pass the charArrayBuffer[] to record
-        charArrayBuffer = asCharArray(type);
-        final int threadId = VmThread.current().id();
-        //detect recursive allocations if another allocation is ongoing
-        if (NUMAProfilerDebug) {
-            if (ongoingAllocation) {
-                Log.println("Recursive Allocation. ");
-                Log.println(type);
-                throw FatalError.unexpected("Recursive Allocation.");
-            }
-            ongoingAllocation = true;
+    private static Pointer refillRecordChunk(Pointer etla, Pointer chunk) {
+        if (chunk.isNotZero()) {
+            RecordChunk.push(RecordChunk.FILLED_CHUNKS, chunk);
         }
-        //guard RecordBuffer from overflow
-        if (newObjects.currentIndex >= newObjects.bufferSize) {
-            Log.print("Allocations Buffer out of bounds. Increase the Buffer Size.");
+        final Pointer newChunk = RecordChunk.acquire(RecordChunk.FREE_CHUNKS);
+        if (newChunk.isZero()) {
+            Log.println("(NUMA Profiler): Out of memory for record chunks.");
             MaxineVM.exit(1);
         }
-        newObjects.record(uniqueId, threadId, charArrayBuffer, size, address);
-        uniqueId++;
-        totalNewSize = totalNewSize + size;
-        if (NUMAProfilerDebug) {
-            ongoingAllocation = false;
+        PROFILER_RECORDS.store(etla, newChunk);
+        return newChunk;
+    }
+
+    /**
+     * A {@link Pointer.Procedure} that hands a thread's current record chunk over to the filled chunk stack.
+     */
+    private static final Pointer.Procedure retireThreadRecordChunk = new Pointer.Procedure() {
+        public void run(Pointer tla) {
+            Pointer etla = ETLA.load(tla);
+            Pointer chunk = PROFILER_RECORDS.load(etla).asPointer();
+            if (chunk.isNotZero()) {
+                PROFILER_RECORDS.store(etla, Pointer.zero());
+                RecordChunk.push(RecordChunk.FILLED_CHUNKS, chunk);
+            }
+        }
+    };
+
+    /**
+     * Hands the record chunk of a terminating thread over to the filled chunk stack.
+     * @param tla
+     */
+    public static void retireRecordsOfThread(Pointer tla) {
+        retireThreadRecordChunk.run(tla);
+    }
+
+    /**
+     * Gathers the records of all the objects allocated during the cycle into {@link #newObjects}.
+     */
+    private static void collectNewObjects() {
+        VmThreadMap.ACTIVE.forAllThreadLocals(null, retireThreadRecordChunk);
+        final Pointer filled = RecordChunk.takeAll(RecordChunk.FILLED_CHUNKS);
+        if (newObjects.isZero()) {
+            newObjects = filled;
+        } else if (filled.isNotZero()) {
+            Pointer last = filled;
+            while (RecordChunk.next(last).isNotZero()) {
+                last = RecordChunk.next(last);
+            }
+            RecordChunk.setNext(last, newObjects);
+            newObjects = filled;
         }
-        unlock(lockDisabledSafepoints);
     }
 
     /**
@@ -470,6 +490,30 @@ public class NUMAProfiler {
         increaseAccessCounter(accessCounter);
     }
 
+    /**
+     * Dump the records of a chain of chunks to Maxine's Log output, or hand copies of them to the {@link #flusher}.
+     * Called with safepoints disabled, so that the output chunk stack is only ever popped by one thread at a time.
+     */
+    private static void dumpRecords(Pointer chain, int allocation) {
+        if (flusher == null) {
+            RecordChunk.print(chain, profilingCycle, allocation, cycleStartTicks);
+            return;
+        }
+        for (Pointer chunk = chain; chunk.isNotZero(); chunk = RecordChunk.next(chunk)) {
+            if (RecordChunk.count(chunk) == 0) {
+                continue;
+            }
+            final Pointer output = RecordChunk.acquire(RecordChunk.FREE_OUTPUT_CHUNKS);
+            if (output.isZero()) {
+                Log.println("(NUMA Profiler): Out of memory for output chunks.");
+                MaxineVM.exit(1);
+            }
+            RecordChunk.appendAll(output, chunk);
+            RecordChunk.setCycle(output, profilingCycle, allocation);
+            RecordChunk.push(RecordChunk.OUTPUT_CHUNKS, output);
+        }
+    }
+
     /**
      * Dump NUMAProfiler Buffer to Maxine's Log output.
      */
@@ -480,7 +524,7 @@ public class NUMAProfiler {
             Log.print(profilingCycle);
             Log.println(" ====");
         }
-        newObjects.print(profilingCycle, 1);
+        dumpRecords(newObjects, 1);
         unlock(lockDisabledSafepoints);
     }
 
@@ -491,11 +535,7 @@ public class NUMAProfiler {
             Log.print(profilingCycle);
             Log.println(" ====");
         }
-        if ((profilingCycle % 2) == 0) {
-            survivors2.print(profilingCycle, 0);
-        } else {
-            survivors1.print(profilingCycle, 0);
-        }
+        dumpRecords(survivors, 0);
         unlock(lockDisabledSafepoints);
     }
 
@@ -518,34 +558,35 @@ public class NUMAProfiler {
      */
     private void findObjectNumaNode() {
         int pageSize = NUMALib.numaPageSize();
-        long objectAddress;
         long firstPageAddress = heapPages.readAddr(0);
-        int pageIndex;
         int maxPageIndex = heapPages.pagesCurrentIndex;
-        for (int i = 0; i < newObjects.currentIndex; i++) {
-            objectAddress = newObjects.readAddr(i);
-            // safe for heap up to 8TB
-            long numerator = objectAddress - firstPageAddress;
-            long div = numerator / (long) pageSize;
-            pageIndex = (int) div;
-            if (pageIndex > maxPageIndex) {
-                Log.println("Heap Ranges Overflow");
-                MaxineVM.exit(1);
-            }
-            int node = heapPages.readNumaNode(pageIndex);
-            // compare the calculated object numa node with the libnuma system
-            // call returned value for validation (note: increased overhead)
-            assert node == NUMALib.numaNodeOfAddress(newObjects.readAddr(i));
-            newObjects.writeNode(i, node);
-
-            if (VirtualPagesBuffer.debug) {
-                Log.print("object in address ");
-                Log.print(objectAddress);
-                Log.print(" found in range ");
-                Log.print(pageIndex);
-                Log.print(" [");
-                Log.print(heapPages.readAddr(pageIndex));
-                Log.println("]");
+        for (Pointer chunk = newObjects; chunk.isNotZero(); chunk = RecordChunk.next(chunk)) {
+            for (int i = 0; i < RecordChunk.count(chunk); i++) {
+                final Pointer record = RecordChunk.record(chunk, i);
+                final long objectAddress = RecordChunk.address(record);
+                // safe for heap up to 8TB
+                long numerator = objectAddress - firstPageAddress;
+                long div = numerator / (long) pageSize;
+                int pageIndex = (int) div;
+                if (pageIndex > maxPageIndex) {
+                    Log.println("Heap Ranges Overflow");
+                    MaxineVM.exit(1);
+                }
+                int node = heapPages.readNumaNode(pageIndex);
+                // compare the calculated object numa node with the libnuma system
+                // call returned value for validation (note: increased overhead)
+                assert node == NUMALib.numaNodeOfAddress(objectAddress);
+                RecordChunk.setNode(record, node);
+
+                if (VirtualPagesBuffer.debug) {
+                    Log.print("object in address ");
+                    Log.print(objectAddress);
+                    Log.print(" found in range ");
+                    Log.print(pageIndex);
+                    Log.print(" [");
+                    Log.print(heapPages.readAddr(pageIndex));
+                    Log.println("]");
+                }
             }
         }
     }
@@ -580,60 +621,77 @@ public class NUMAProfiler {
     }
 
     /**
-     * Search "from" buffer for survivor objects and store them into "to" buffer.
-     * @param from the source buffer in which we search for survivor objects.
-     * @param to the destination buffer in which we store the survivor objects.
+     * Search a chain of record chunks for survivor objects and append them to the survivor chain being built.
+     * @param from the chain in which we search for survivor objects.
      */
-    private void storeSurvivors(RecordBuffer from, RecordBuffer to) {
-        if (NUMAProfilerVerbose) {
-            Log.print("(NUMA Profiler): Copy Survived Objects from ");
-            Log.print(from.buffersName);
-            Log.print(" to ");
-            Log.println(to.buffersName);
-        }
-        for (int i = 0; i < from.currentIndex; i++) {
-            long address = from.readAddr(i);
-            /*
-            if an object is alive, update both its Virtual Address and
-            NUMA Node before copy it to the survivors buffer
-             */
-            if (Heap.isSurvivor(address)) {
-                // update Virtual Address
-                long newAddr = Heap.getForwardedAddress(address);
-                // update NUMA Node
-                int node = NUMALib.numaNodeOfAddress(newAddr);
-                //guard survivors RecordBuffer from overflow
-                if (to.currentIndex >= to.bufferSize) {
-                    Log.print("Survivor Buffer out of bounds! Increase the Buffer Size.");
-                    MaxineVM.exit(1);
+    private void storeSurvivors(Pointer from) {
+        for (Pointer chunk = from; chunk.isNotZero(); chunk = RecordChunk.next(chunk)) {
+            for (int i = 0; i < RecordChunk.count(chunk); i++) {
+                final Pointer record = RecordChunk.record(chunk, i);
+                long address = RecordChunk.address(record);
+                /*
+                if an object is alive, update both its Virtual Address and
+                NUMA Node before copy it to the survivors buffer
+                 */
+                if (Heap.isSurvivor(address)) {
+                    // update Virtual Address
+                    long newAddr = Heap.getForwardedAddress(address);
+                    // update NUMA Node
+                    int node = NUMALib.numaNodeOfAddress(newAddr);
+                    if (survivorsTail.isZero() || RecordChunk.isFull(survivorsTail)) {
+                        final Pointer newChunk = RecordChunk.acquire(RecordChunk.FREE_CHUNKS);
+                        if (newChunk.isZero()) {
+                            Log.println("(NUMA Profiler): Out of memory for survivor record chunks.");
+                            MaxineVM.exit(1);
+                        }
+                        if (survivorsTail.isZero()) {
+                            survivors = newChunk;
+                        } else {
+                            RecordChunk.setNext(survivorsTail, newChunk);
+                        }
+                        survivorsTail = newChunk;
+                    }
+                    RecordChunk.append(survivorsTail, RecordChunk.id(record), RecordChunk.threadId(record), RecordChunk.classId(record), RecordChunk.size(record),
+                                    newAddr, node, RecordChunk.timestamp(record), RecordChunk.coreId(record));
+                    totalSurvSize = totalSurvSize + RecordChunk.size(record);
                 }
-                // write it to Buffer
-                to.record(from.readId(i), from.readThreadId(i), from.readType(i), from.readSize(i), newAddr, node);
-                totalSurvSize = totalSurvSize + from.readSize(i);
             }
         }
     }
 
     /**
-     * This method is called from postGC actions. Given the profiling cycle,
-     * it decides in which buffer should we search for survivor objects.
-     * Firstly we search in the so far survivor objects (survivors<num> buffer)
-     * and then in the recently allocated objects (newObjects buffer).
-     * The found survivor objects are stored in a clean survivor buffer.
-     * In even profiling cycles we use the survivor2 buffer.
-     * In odd profiling cycles we use the survivor1 buffer.
+     * This method is called from postGC actions.
+     * Firstly we search in the so far survivor objects and then in the recently allocated objects.
+     * The found survivor objects are stored in fresh record chunks, and the chunks searched are released.
+     * This is safe as allocation is disabled and no other thread is using the record chunks at that point.
      */
     private void profileSurvivors() {
+        final Pointer oldSurvivors = survivors;
+        survivors = Pointer.zero();
+        survivorsTail = Pointer.zero();
+        storeSurvivors(oldSurvivors);
+        storeSurvivors(newObjects);
+        RecordChunk.releaseAll(RecordChunk.FREE_CHUNKS, oldSurvivors);
+        RecordChunk.releaseAll(RecordChunk.FREE_CHUNKS, newObjects);
+        newObjects = Pointer.zero();
+    }
 
-        if ((profilingCycle % 2) == 0) {
-            //even cycles
-            storeSurvivors(survivors1, survivors2);
-            storeSurvivors(newObjects, survivors2);
-        } else {
-            //odd cycles
-            storeSurvivors(survivors2, survivors1);
-            storeSurvivors(newObjects, survivors1);
+    private static int totalSize(Pointer chain) {
+        int total = 0;
+        for (Pointer chunk = chain; chunk.isNotZero(); chunk = RecordChunk.next(chunk)) {
+            for (int i = 0; i < RecordChunk.count(chunk); i++) {
+                total += RecordChunk.size(RecordChunk.record(chunk, i));
+            }
         }
+        return total;
+    }
+
+    private static void printRecordChunkUsage() {
+        Log.print("(NUMA Profiler): ");
+        Log.print(RecordChunk.allocatedChunks());
+        Log.print(" record chunks of ");
+        Log.print(RecordChunk.CAPACITY);
+        Log.println(" records allocated.");
     }
 
     private void printProfilingCyclyStats() {
@@ -648,7 +706,7 @@ public class NUMAProfiler {
         Log.print((float) Heap.reportUsedSpace() / (1024 * 1024));
         Log.println(" MB");
 
-        newObjects.printUsage();
+        printRecordChunkUsage();
     }
 
     /**
@@ -663,8 +721,11 @@ public class NUMAProfiler {
             Log.println(" Profiling Is Now Complete. [pre-GC phase]");
         }
 
+        collectNewObjects();
+        totalNewSize = totalNewSize + totalSize(newObjects);
+
         // guard libnuma sys call usage during non-profiling cycles
-        if (newObjects.currentIndex > 0) {
+        if (newObjects.isNotZero()) {
             findNumaNodeForPages();
             findObjectNumaNode();
         }
@@ -698,24 +759,10 @@ public class NUMAProfiler {
             Log.println("(NUMA Profiler): Entering Post-GC Phase.");
         }
 
-        profileSurvivors();
-
-        if ((profilingCycle % 2) == 0) {
-            if (NUMAProfilerVerbose) {
-                Log.println("(NUMA Profiler): Clean-up Survivor1 Buffer. [post-gc phase]");
-            }
-            survivors1.resetBuffer();
-        } else {
-            if (NUMAProfilerVerbose) {
-                Log.println("(NUMA Profiler): Clean-up Survivor2 Buffer. [post-gc phase]");
-            }
-            survivors2.resetBuffer();
-        }
-
         if (NUMAProfilerVerbose) {
-            Log.println("(NUMA Profiler): Clean-up NUMAProfiler Buffer. [post-gc phase]");
+            Log.println("(NUMA Profiler): Copy Survived Objects to fresh record chunks. [post-gc phase]");
         }
-        newObjects.resetBuffer();
+        profileSurvivors();
 
         if (NUMAProfilerVerbose) {
             Log.println("(NUMA Profiler): Reset HeapBoundaries Buffer. [post-gc phase]");
@@ -736,8 +783,7 @@ public class NUMAProfiler {
             Log.print((float) Heap.reportUsedSpace() / (1024 * 1024));
             Log.println(" MB\n");
 
-            survivors1.printUsage();
-            survivors2.printUsage();
+            printRecordChunkUsage();
         } else {
             dumpSurvivors();
         }
@@ -758,6 +804,7 @@ public class NUMAProfiler {
         }
 
         profilingCycle++;
+        cycleStartTicks = Intrinsics.getTicks();
 
         if (NUMAProfilerVerbose) {
             Log.println("(NUMA Profiler): Leaving Post-GC Phase.");
@@ -774,6 +821,7 @@ public class NUMAProfiler {
             VmThread vmThread = VmThread.fromTLA(tla);
             return vmThread.javaThread() != null &&
                     !vmThread.isVmOperationThread() &&
+                    !(vmThread.javaThread() instanceof NUMAProfilerFlusher) &&
                     (NUMAProfilerIncludeFinalization || !vmThread.getName().equals("Finalizer"));
         }
     };
@@ -862,10 +910,10 @@ public class NUMAProfiler {
         VmThreadMap.ACTIVE.forAllThreadLocals(profilingPredicate, initThreadLocalProfilingCounters);
     }
 
+    /**
+     * Record chunks are not released: threads that are still running may hold on to theirs until the VM exits.
+     */
     private void releaseReservedMemory() {
-        newObjects.deallocateAll();
-        survivors1.deallocateAll();
-        survivors2.deallocateAll();
         heapPages.deallocateAll();
     }
 
@@ -881,15 +929,17 @@ public class NUMAProfiler {
             Log.println("(NUMA Profiler): Disable profiling for termination");
         }
 
-        // Disable profiling for shutdown
-        PROFILER_STATE.store(VmThread.currentTLA(), Address.fromInt(PROFILING_STATE.DISABLED.value));
+        // Disable profiling for shutdown and gather the records of all the threads at a safepoint
+        new CollectRecordsOperation().submit();
 
         if (NUMAProfilerVerbose) {
             Log.println("(NUMA Profiler): Termination");
         }
 
+        totalNewSize = totalNewSize + totalSize(newObjects);
+
         // guard libnuma sys call usage during non-profiling cycles
-        if (newObjects.currentIndex > 0) {
+        if (newObjects.isNotZero()) {
             findNumaNodeForPages();
             findObjectNumaNode();
         }
@@ -904,6 +954,13 @@ public class NUMAProfiler {
 
         printProfilingCounters();
 
+        if (flusher != null) {
+            if (NUMAProfilerVerbose) {
+                Log.println("(NUMA Profiler): Flush Output File.");
+            }
+            flusher.terminate();
+        }
+
         if (NUMAProfilerVerbose) {
             Log.println("(NUMA Profiler): Release Reserved Memory.");
         }
@@ -917,6 +974,23 @@ public class NUMAProfiler {
         }
     }
 
+    /**
+     * A safepoint operation that disables the profiling of all the threads and gathers their records. No thread can be
+     * appending to its record chunk at a safepoint, as {@link #profileNew} and the allocation path calling it do not
+     * poll for safepoints.
+     */
+    private static final class CollectRecordsOperation extends VmOperation {
+        CollectRecordsOperation() {
+            super("NUMAProfilerCollectRecords", null, Mode.Safepoint);
+        }
+
+        @Override
+        protected void doIt() {
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, resetProfilingTLA);
+            collectNewObjects();
+        }
+    }
+
     private static VmThread lockOwner;
     private static int lockDepth;
 
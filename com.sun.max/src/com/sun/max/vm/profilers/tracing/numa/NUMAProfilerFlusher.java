@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.profilers.tracing.numa;
+
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import java.io.*;
+import java.util.*;
+
+import com.sun.max.lang.*;
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * Background thread streaming the NUMAProfiler records to a binary file.
+ * <p>
+ * During a GC, the profiler copies the records of the cycle into output {@linkplain RecordChunk chunks} and pushes them
+ * onto the output stack instead of printing them. This thread periodically takes the output chunks, writes them to the
+ * file given by {@code -XX:NUMAProfilerOutputFile} and returns them to the free output stack.
+ * <p>
+ * File format (header and framing big-endian, record bodies in the native byte order of the VM):
+ * <pre>
+ *  header:  "MXNP" version:int recordSize:int nativeLittleEndian:byte
+ *  entries: 'C' classId:int name:UTF                               -- class name, written before its first use
+ *           'R' cycle:int isAllocation:int count:int records...    -- count records of recordSize bytes, see RecordChunk
+ * </pre>
+ */
+final class NUMAProfilerFlusher extends Thread {
+
+    static final int VERSION = 1;
+
+    private final String path;
+    private final int interval;
+    private volatile boolean terminating;
+    private final BitSet writtenClassIds = new BitSet();
+    private final byte[] buffer = new byte[RecordChunk.CHUNK_SIZE];
+
+    NUMAProfilerFlusher(String path, int interval) {
+        super("NUMAProfilerFlusher");
+        this.path = path;
+        this.interval = interval;
+        setDaemon(true);
+    }
+
+    /**
+     * Writes the remaining output chunks and waits for this thread to finish.
+     */
+    void terminate() {
+        terminating = true;
+        interrupt();
+        try {
+            join();
+        } catch (InterruptedException e) {
+        }
+    }
+
+    @Override
+    public void run() {
+        // The flusher's own allocations are not of interest.
+        PROFILER_STATE.store(ETLA.load(VmThread.currentTLA()), Address.fromInt(NUMAProfiler.PROFILING_STATE.DISABLED.getValue()));
+        try {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), RecordChunk.CHUNK_SIZE));
+            try {
+                out.writeBytes("MXNP");
+                out.writeInt(VERSION);
+                out.writeInt(RecordChunk.RECORD_SIZE);
+                out.writeByte(Word.endianness() == Endianness.LITTLE ? 1 : 0);
+                boolean done = false;
+                while (!done) {
+                    // Read the flag before draining so that chunks pushed before termination are not missed.
+                    done = terminating;
+                    final Pointer chain = reverse(RecordChunk.takeAll(RecordChunk.OUTPUT_CHUNKS));
+                    for (Pointer chunk = chain; chunk.isNotZero(); chunk = RecordChunk.next(chunk)) {
+                        write(out, chunk);
+                    }
+                    RecordChunk.releaseAll(RecordChunk.FREE_OUTPUT_CHUNKS, chain);
+                    out.flush();
+                    if (!done && chain.isZero()) {
+                        try {
+                            Thread.sleep(interval);
+                        } catch (InterruptedException e) {
+                        }
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            Log.print("(NUMA Profiler): Error writing ");
+            Log.print(path);
+            Log.print(": ");
+            Log.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Reverses a chain of chunks taken off a stack so that they are written in the order they were pushed.
+     */
+    private static Pointer reverse(Pointer chain) {
+        Pointer reversed = Pointer.zero();
+        Pointer chunk = chain;
+        while (chunk.isNotZero()) {
+            final Pointer next = RecordChunk.next(chunk);
+            RecordChunk.setNext(chunk, reversed);
+            reversed = chunk;
+            chunk = next;
+        }
+        return reversed;
+    }
+
+    private void write(DataOutputStream out, Pointer chunk) throws IOException {
+        final int count = RecordChunk.count(chunk);
+        for (int i = 0; i < count; i++) {
+            final int classId = RecordChunk.classId(RecordChunk.record(chunk, i));
+            if (!writtenClassIds.get(classId)) {
+                writtenClassIds.set(classId);
+                out.writeByte('C');
+                out.writeInt(classId);
+                out.writeUTF(ClassIDManager.toClassActor(classId).name());
+            }
+        }
+        out.writeByte('R');
+        out.writeInt(RecordChunk.cycle(chunk));
+        out.writeInt(RecordChunk.allocation(chunk));
+        out.writeInt(count);
+        final int numberOfBytes = count * RecordChunk.RECORD_SIZE;
+        Memory.readBytes(RecordChunk.record(chunk, 0), numberOfBytes, buffer);
+        out.write(buffer, 0, numberOfBytes);
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.profilers.tracing.numa;
+
+import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.platform.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.runtime.*;
+
+/**
+ * Off-heap chunks of fixed-size object records, and the lock-free stacks the NUMAProfiler passes them around with.
+ * <p>
+ * A chunk is a {@value #CHUNK_SIZE} byte block of virtual memory laid out as follows:
+ * <pre>
+ *   0: next chunk (word)     8: record count (int)     12: profiling cycle (int)     16: allocation flag (int)
+ *  32: records, {@value #RECORD_SIZE} bytes each:
+ *      +0 address (long) +8 timestamp (long) +16 id +20 thread id +24 class id +28 size +32 NUMA node +36 core id (ints)
+ * </pre>
+ * Records store the {@linkplain ClassActor#id class id} of the object rather than its type name; names are resolved
+ * when records are printed or written out.
+ * <p>
+ * Each profiled thread fills a chunk of its own, so recording an allocation needs no lock. Filled chunks are pushed
+ * onto a global stack with a single compare-and-swap, and are only taken off it during GC. Chunks are obtained from a
+ * free stack that mutators pop concurrently but that is only pushed onto at a safepoint (or, for the output stacks,
+ * popped by a single thread), so the stacks are not subject to the ABA problem.
+ */
+final class RecordChunk {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int NEXT_OFFSET = 0;
+    private static final int COUNT_OFFSET = 8;
+    private static final int CYCLE_OFFSET = 12;
+    private static final int ALLOCATION_OFFSET = 16;
+    static final int HEADER_SIZE = 32;
+
+    private static final int ADDRESS_OFFSET = 0;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int ID_OFFSET = 16;
+    private static final int THREAD_ID_OFFSET = 20;
+    private static final int CLASS_ID_OFFSET = 24;
+    private static final int SIZE_OFFSET = 28;
+    private static final int NODE_OFFSET = 32;
+    private static final int CORE_ID_OFFSET = 36;
+    static final int RECORD_SIZE = 40;
+
+    static final int CAPACITY = (CHUNK_SIZE - HEADER_SIZE) / RECORD_SIZE;
+
+    /*
+     * Offsets of the stack heads and counters in the off-heap anchor block.
+     */
+    static final int FREE_CHUNKS = 0;
+    static final int FILLED_CHUNKS = 8;
+    static final int FREE_OUTPUT_CHUNKS = 16;
+    static final int OUTPUT_CHUNKS = 24;
+    private static final int NEXT_ID = 32;
+    private static final int ALLOCATED_CHUNKS = 40;
+
+    /**
+     * Off-heap block holding the stack heads, so that they can be updated with {@link Pointer#compareAndSwapWord}.
+     */
+    private static Pointer anchors = Pointer.zero();
+
+    private RecordChunk() {
+    }
+
+    static void initialize() {
+        anchors = VirtualMemory.allocate(Size.fromInt(Platform.platform().pageSize), VirtualMemory.Type.DATA);
+        if (anchors.isZero()) {
+            throw FatalError.unexpected("NUMAProfiler: could not allocate record chunk anchors");
+        }
+    }
+
+    /**
+     * Gets a unique, non-zero record id.
+     */
+    @INLINE
+    static int nextId() {
+        int id;
+        do {
+            id = anchors.readInt(NEXT_ID);
+        } while (anchors.compareAndSwapInt(NEXT_ID, id, id + 1) != id);
+        return id + 1;
+    }
+
+    static int allocatedChunks() {
+        return anchors.readInt(ALLOCATED_CHUNKS);
+    }
+
+    /**
+     * Pushes a chain of chunks linked through their next field onto one of the stacks.
+     */
+    static void push(int stack, Pointer first, Pointer last) {
+        Word head;
+        do {
+            head = anchors.readWord(stack);
+            last.writeWord(NEXT_OFFSET, head);
+        } while (!anchors.compareAndSwapWord(stack, head, first).equals(head));
+    }
+
+    @INLINE
+    static void push(int stack, Pointer chunk) {
+        push(stack, chunk, chunk);
+    }
+
+    /**
+     * Pops a chunk from a stack. See the class comment for the constraints under which this is safe.
+     *
+     * @return the chunk or zero if the stack is empty
+     */
+    static Pointer pop(int stack) {
+        Pointer head;
+        do {
+            head = anchors.readWord(stack).asPointer();
+            if (head.isZero()) {
+                return head;
+            }
+        } while (!anchors.compareAndSwapWord(stack, head, next(head)).equals(head));
+        return head;
+    }
+
+    /**
+     * Atomically takes all the chunks of a stack.
+     *
+     * @return the chain of chunks, or zero if the stack was empty
+     */
+    static Pointer takeAll(int stack) {
+        Word head;
+        do {
+            head = anchors.readWord(stack);
+        } while (!anchors.compareAndSwapWord(stack, head, Word.zero()).equals(head));
+        return head.asPointer();
+    }
+
+    /**
+     * Gets an empty chunk from a free stack, allocating a new one if the stack is empty.
+     *
+     * @return the chunk or zero if memory is exhausted
+     */
+    @NO_SAFEPOINT_POLLS("numa profiler call chain must be atomic")
+    static Pointer acquire(int freeStack) {
+        Pointer chunk = pop(freeStack);
+        if (chunk.isZero()) {
+            chunk = VirtualMemory.allocate(Size.fromInt(CHUNK_SIZE), VirtualMemory.Type.DATA);
+            if (chunk.isZero()) {
+                return chunk;
+            }
+            int n;
+            do {
+                n = anchors.readInt(ALLOCATED_CHUNKS);
+            } while (anchors.compareAndSwapInt(ALLOCATED_CHUNKS, n, n + 1) != n);
+        }
+        chunk.writeWord(NEXT_OFFSET, Word.zero());
+        chunk.writeInt(COUNT_OFFSET, 0);
+        return chunk;
+    }
+
+    /**
+     * Returns all the chunks of a chain to a free stack. Must only be called at a safepoint, or by the only thread popping the stack.
+     */
+    static void releaseAll(int freeStack, Pointer chain) {
+        if (chain.isNotZero()) {
+            Pointer last = chain;
+            while (next(last).isNotZero()) {
+                last = next(last);
+            }
+            push(freeStack, chain, last);
+        }
+    }
+
+    @INLINE
+    static Pointer next(Pointer chunk) {
+        return chunk.readWord(NEXT_OFFSET).asPointer();
+    }
+
+    @INLINE
+    static void setNext(Pointer chunk, Pointer next) {
+        chunk.writeWord(NEXT_OFFSET, next);
+    }
+
+    @INLINE
+    static int count(Pointer chunk) {
+        return chunk.readInt(COUNT_OFFSET);
+    }
+
+    @INLINE
+    static boolean isFull(Pointer chunk) {
+        return count(chunk) >= CAPACITY;
+    }
+
+    static int cycle(Pointer chunk) {
+        return chunk.readInt(CYCLE_OFFSET);
+    }
+
+    static int allocation(Pointer chunk) {
+        return chunk.readInt(ALLOCATION_OFFSET);
+    }
+
+    static void setCycle(Pointer chunk, int cycle, int allocation) {
+        chunk.writeInt(CYCLE_OFFSET, cycle);
+        chunk.writeInt(ALLOCATION_OFFSET, allocation);
+    }
+
+    @INLINE
+    static Pointer record(Pointer chunk, int index) {
+        return chunk.plus(HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    /**
+     * Appends a record to a chunk that is not full.
+     */
+    @INLINE
+    static void append(Pointer chunk, int id, int threadId, int classId, int size, long address, int node, long timestamp, int coreId) {
+        final int index = count(chunk);
+        final Pointer record = record(chunk, index);
+        record.writeLong(ADDRESS_OFFSET, address);
+        record.writeLong(TIMESTAMP_OFFSET, timestamp);
+        record.writeInt(ID_OFFSET, id);
+        record.writeInt(THREAD_ID_OFFSET, threadId);
+        record.writeInt(CLASS_ID_OFFSET, classId);
+        record.writeInt(SIZE_OFFSET, size);
+        record.writeInt(NODE_OFFSET, node);
+        record.writeInt(CORE_ID_OFFSET, coreId);
+        chunk.writeInt(COUNT_OFFSET, index + 1);
+    }
+
+    /**
+     * Copies the records of a chunk to the end of another, which must have room for them.
+     */
+    static void appendAll(Pointer to, Pointer from) {
+        final int n = count(from);
+        final int index = count(to);
+        Memory.copyBytes(record(from, 0), record(to, index), Size.fromInt(n * RECORD_SIZE));
+        to.writeInt(COUNT_OFFSET, index + n);
+    }
+
+    static long address(Pointer record) {
+        return record.readLong(ADDRESS_OFFSET);
+    }
+
+    static void setAddress(Pointer record, long address) {
+        record.writeLong(ADDRESS_OFFSET, address);
+    }
+
+    static long timestamp(Pointer record) {
+        return record.readLong(TIMESTAMP_OFFSET);
+    }
+
+    static int id(Pointer record) {
+        return record.readInt(ID_OFFSET);
+    }
+
+    static int threadId(Pointer record) {
+        return record.readInt(THREAD_ID_OFFSET);
+    }
+
+    static int classId(Pointer record) {
+        return record.readInt(CLASS_ID_OFFSET);
+    }
+
+    static int size(Pointer record) {
+        return record.readInt(SIZE_OFFSET);
+    }
+
+    static int node(Pointer record) {
+        return record.readInt(NODE_OFFSET);
+    }
+
+    static void setNode(Pointer record, int node) {
+        record.writeInt(NODE_OFFSET, node);
+    }
+
+    static int coreId(Pointer record) {
+        return record.readInt(CORE_ID_OFFSET);
+    }
+
+    /**
+     * Prints the records of a chain of chunks to the {@link Log}.
+     * Output format: Cycle; isAllocation; UniqueId; ThreadId; ThreadNumaNode; Type/Class; Size; NumaNode; TimeStamp; CoreId
+     *
+     * @param startTicks the timestamp printed timestamps are relative to
+     */
+    static void print(Pointer chain, int cycle, int allocation, long startTicks) {
+        for (Pointer chunk = chain; chunk.isNotZero(); chunk = next(chunk)) {
+            final int n = count(chunk);
+            for (int i = 0; i < n; i++) {
+                final Pointer record = record(chunk, i);
+                Log.print(cycle);
+                Log.print(';');
+                Log.print(allocation);
+                Log.print(';');
+                Log.print(id(record));
+                Log.print(';');
+                Log.print(threadId(record));
+                Log.print(';');
+                Log.print(NUMAProfiler.numaConfig.getNUMANodeOfCPU(coreId(record)));
+                Log.print(';');
+                final String type = ClassIDManager.toClassActor(classId(record)).name();
+                Log.print(type);
+                // print a semicolon only for primitive types because the rest are already followed by one.
+                if (type.charAt(type.length() - 1) != ';') {
+                    Log.print(';');
+                }
+                Log.print(size(record));
+                Log.print(';');
+                Log.print(node(record));
+                Log.print(';');
+                Log.print(timestamp(record) - startTicks);
+                Log.print(';');
+                Log.println(coreId(record));
+            }
+        }
+    }
+}
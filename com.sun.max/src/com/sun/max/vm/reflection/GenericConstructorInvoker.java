@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.reflection;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+
+import sun.reflect.*;
+
+/**
+ * A {@link GenericInvoker} for a constructor.
+ */
+public final class GenericConstructorInvoker extends GenericInvoker implements ConstructorAccessor {
+
+    private final Constructor constructor;
+    private volatile ConstructorAccessor stub;
+
+    public GenericConstructorInvoker(Constructor constructor) {
+        super(constructor.getParameterTypes());
+        this.constructor = constructor;
+    }
+
+    @Override
+    MethodHandle makeHandle(MethodHandles.Lookup lookup) {
+        try {
+            return spread(lookup.unreflectConstructor(constructor));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    public Object newInstance(Object[] args) throws InstantiationException, IllegalArgumentException, InvocationTargetException {
+        ConstructorAccessor stub = this.stub;
+        if (stub == null) {
+            final MethodHandle handle = isHot() ? null : handle();
+            if (handle != null) {
+                final Object[] checkedArgs = checkArguments(args);
+                try {
+                    return handle.invokeExact(checkedArgs);
+                } catch (Throwable throwable) {
+                    throw new InvocationTargetException(throwable);
+                }
+            }
+            stub = inflate();
+        }
+        return stub.newInstance(args);
+    }
+
+    private synchronized ConstructorAccessor inflate() {
+        if (stub == null) {
+            stub = InvocationStub.newConstructorStub(constructor, null, Boxing.JAVA);
+        }
+        return stub;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.reflection;
+
+import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
+
+import java.lang.invoke.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.jdk.*;
+import com.sun.max.vm.type.*;
+
+/**
+ * Invokes a method or constructor reflectively without generating an {@link InvocationStub} class for it.
+ * <p>
+ * The target is called through a {@linkplain MethodHandle method handle} whose type is erased to {@link Object}
+ * parameters and result and that spreads its arguments from an array. The classes implementing such handles are
+ * shared by all the targets with the same shape, so reflecting over many methods does not define, verify and compile a
+ * class per method. The arguments are checked and widened here with the semantics of the generated stubs, and are only
+ * boxed again when a widening conversion is needed.
+ * <p>
+ * Once a target has been invoked {@link #ReflectionInflationThreshold} times, a stub is generated for it and all
+ * later invocations go through the stub.
+ */
+public abstract class GenericInvoker {
+
+    private static int ReflectionInflationThreshold = 15;
+    static {
+        VMOptions.addFieldOption("-XX:", "ReflectionInflationThreshold", GenericInvoker.class,
+            "Number of reflective invocations of a method or constructor before an invocation stub is generated for it.");
+    }
+
+    static final Object[] NO_ARGS = {};
+
+    /**
+     * The types of the parameters of the target.
+     */
+    final Class[] parameterTypes;
+
+    /**
+     * The kinds of the parameters of the target.
+     */
+    private final Kind[] parameterKinds;
+
+    private final String incorrectArgumentCountMessage;
+
+    /**
+     * The number of invocations through the method handle so far. This is racy but, as in the JDK, losing a few
+     * increments only delays the generation of the stub.
+     */
+    private int invocations;
+
+    private volatile MethodHandle handle;
+
+    GenericInvoker(Class[] parameterTypes) {
+        this.parameterTypes = parameterTypes;
+        this.parameterKinds = new Kind[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterKinds[i] = Kind.fromJava(parameterTypes[i]);
+        }
+        this.incorrectArgumentCountMessage = "expected " + parameterTypes.length + " arguments, received ";
+    }
+
+    /**
+     * Determines if a given method or constructor can be invoked by a {@link GenericInvoker}. Methods that are
+     * {@linkplain MethodActor#isCallerSensitive() caller sensitive} cannot, as they would see the frames of the method
+     * handle as their caller, nor can those that have {@code Word} parameters or results.
+     */
+    public static boolean canInvoke(MethodActor methodActor, Class returnType, Class[] parameterTypes) {
+        if (MaxineVM.isHosted() || JDK.JDK_VERSION != JDK.JDK_8 || ReflectionInflationThreshold <= 0) {
+            return false;
+        }
+        if (methodActor.isCallerSensitive() || Kind.fromJava(returnType).isWord) {
+            return false;
+        }
+        for (Class parameterType : parameterTypes) {
+            if (Kind.fromJava(parameterType).isWord) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts an invocation and determines if the target has been invoked often enough to get its own stub.
+     */
+    final boolean isHot() {
+        if (invocations >= ReflectionInflationThreshold) {
+            return true;
+        }
+        invocations++;
+        return false;
+    }
+
+    /**
+     * Creates the method handle for the target, which has the type {@code (Object, Object[])Object} for a method and
+     * {@code (Object[])Object} for a constructor.
+     *
+     * @return {@code null} if the target cannot be invoked through a method handle
+     */
+    abstract MethodHandle makeHandle(MethodHandles.Lookup lookup);
+
+    /**
+     * Gets the method handle for the target.
+     *
+     * @return {@code null} if the target cannot be invoked through a method handle, in which case a stub must be used
+     */
+    final MethodHandle handle() {
+        MethodHandle result = handle;
+        if (result == null) {
+            result = makeHandle(trustedLookup());
+            if (result == null) {
+                // Make the caller inflate now
+                invocations = ReflectionInflationThreshold;
+                return null;
+            }
+            handle = result;
+        }
+        return result;
+    }
+
+    /**
+     * Spreads the arguments of a handle to the target from an array and erases its type.
+     */
+    static MethodHandle spread(MethodHandle target) {
+        final MethodType type = target.type();
+        return target.asType(type.generic()).asSpreader(Object[].class, type.parameterCount());
+    }
+
+    /**
+     * Checks the arguments to the target, widening those passed to primitive parameters to the type of the parameter.
+     *
+     * @return {@code args} or, if an argument had to be converted, a copy of {@code args}
+     * @throws IllegalArgumentException if the arguments do not match the parameters of the target
+     */
+    final Object[] checkArguments(Object[] args) throws IllegalArgumentException {
+        if (args == null) {
+            if (parameterTypes.length == 0) {
+                return NO_ARGS;
+            }
+            throw new IllegalArgumentException(incorrectArgumentCountMessage + 0);
+        }
+        if (args.length != parameterTypes.length) {
+            throw new IllegalArgumentException(incorrectArgumentCountMessage + args.length);
+        }
+        Object[] result = args;
+        for (int i = 0; i < args.length; i++) {
+            final Object arg = args[i];
+            final Kind kind = parameterKinds[i];
+            if (kind.isReference) {
+                if (arg != null && !parameterTypes[i].isInstance(arg)) {
+                    throw new IllegalArgumentException("argument type mismatch: expected " + parameterTypes[i].getName() + ", got " + arg.getClass().getName());
+                }
+            } else {
+                if (arg == null) {
+                    throw new IllegalArgumentException("expected a boxed " + kind + ", got null");
+                }
+                if (arg.getClass() != kind.boxedClass) {
+                    if (result == args) {
+                        result = args.clone();
+                    }
+                    result[i] = widen(kind, arg);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts a boxed value to the box of a given primitive kind, doing a primitive widening conversion.
+     */
+    private static Object widen(Kind kind, Object arg) {
+        switch (kind.asEnum) {
+            case BOOLEAN:
+                return Kind.unboxBoolean(arg);
+            case BYTE:
+                return Kind.unboxByte(arg);
+            case CHAR:
+                return Kind.unboxChar(arg);
+            case SHORT:
+                return Kind.unboxShort(arg);
+            case INT:
+                return Kind.unboxInt(arg);
+            case FLOAT:
+                return Kind.unboxFloat(arg);
+            case LONG:
+                return Kind.unboxLong(arg);
+            case DOUBLE:
+                return Kind.unboxDouble(arg);
+            default:
+                throw new IllegalArgumentException("cannot pass a boxed " + kind + " reflectively");
+        }
+    }
+
+    private static MethodHandles.Lookup trustedLookup;
+
+    /**
+     * Gets a lookup that can access any member, as the access checks of reflection have been done by the time an
+     * accessor is used.
+     */
+    private static MethodHandles.Lookup trustedLookup() {
+        MethodHandles.Lookup lookup = trustedLookup;
+        if (lookup == null) {
+            lookup = (MethodHandles.Lookup) Heap.createTuple(ClassActor.fromJava(MethodHandles.Lookup.class).dynamicHub());
+            LookupAlias.asThis(lookup).init(Object.class, LookupAlias.TRUSTED);
+            trustedLookup = lookup;
+        }
+        return lookup;
+    }
+
+    static final class LookupAlias {
+        /**
+         * The value of {@code MethodHandles.Lookup.TRUSTED}.
+         */
+        static final int TRUSTED = -1;
+
+        @ALIAS(declaringClass = MethodHandles.Lookup.class, name = "<init>")
+        private native void init(Class<?> lookupClass, int allowedModes);
+
+        @INTRINSIC(UNSAFE_CAST)
+        static native LookupAlias asThis(MethodHandles.Lookup lookup);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.reflection;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+
+import sun.reflect.*;
+
+/**
+ * A {@link GenericInvoker} for a method.
+ */
+public final class GenericMethodInvoker extends GenericInvoker implements MethodAccessor {
+
+    private final Method method;
+    private final boolean isStatic;
+    private volatile MethodAccessor stub;
+
+    public GenericMethodInvoker(Method method) {
+        super(method.getParameterTypes());
+        this.method = method;
+        this.isStatic = Modifier.isStatic(method.getModifiers());
+    }
+
+    @Override
+    MethodHandle makeHandle(MethodHandles.Lookup lookup) {
+        try {
+            MethodHandle target = lookup.unreflect(method);
+            if (isStatic) {
+                return MethodHandles.dropArguments(spread(target), 0, Object.class);
+            }
+            // The receiver is part of the spread arguments of the handle: move it out of the array
+            final MethodType type = target.type();
+            target = target.asType(type.generic());
+            return target.asSpreader(Object[].class, type.parameterCount() - 1);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    public Object invoke(Object obj, Object[] args) throws IllegalArgumentException, InvocationTargetException {
+        MethodAccessor stub = this.stub;
+        if (stub == null) {
+            final MethodHandle handle = isHot() ? null : handle();
+            if (handle != null) {
+                if (!isStatic) {
+                    if (obj == null) {
+                        throw new NullPointerException();
+                    }
+                    if (!method.getDeclaringClass().isInstance(obj)) {
+                        throw new IllegalArgumentException("object is not an instance of declaring class");
+                    }
+                }
+                final Object[] checkedArgs = checkArguments(args);
+                try {
+                    return handle.invokeExact(obj, checkedArgs);
+                } catch (Throwable throwable) {
+                    throw new InvocationTargetException(throwable);
+                }
+            }
+            stub = inflate();
+        }
+        return stub.invoke(obj, args);
+    }
+
+    private synchronized MethodAccessor inflate() {
+        if (stub == null) {
+            stub = InvocationStub.newMethodStub(method, Boxing.JAVA);
+        }
+        return stub;
+    }
+}
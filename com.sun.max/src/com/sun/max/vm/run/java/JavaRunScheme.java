@@ -190,6 +190,8 @@ public class JavaRunScheme extends AbstractVMScheme implements RunScheme {
         if (MaxineVM.numaProfiler != null) {
             MaxineVM.numaProfiler.terminate();
         }
+        AllocationSampler.terminate();
+        CPUSampler.terminate();
     }
 
     public static void restartProfilers() {
@@ -256,6 +258,9 @@ public class JavaRunScheme extends AbstractVMScheme implements RunScheme {
                     final String heapProfOptionPrefix = hprofOption.toString();
                     heapSamplingProfiler = new HeapSamplingProfiler(heapProfOptionPrefix, heapProfOptionValue);
                 }
+                AllocationSampler.start();
+                CPUSampler.start();
+                VMLog.vmLog().initialize(MaxineVM.Phase.RUNNING);
                 // The same for the NUMA Profiler
                 if (NUMAProfiler.profileAll() || NUMAProfiler.NUMAProfilerExplicitGCThreshold > 0) {
                     // Initialize NUMA Profiler
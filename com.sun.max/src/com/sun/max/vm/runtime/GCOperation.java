@@ -29,6 +29,7 @@ import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
 import com.sun.max.vm.heap.*;
+import com.sun.max.vm.management.*;
 import com.sun.max.vm.monitor.*;
 import com.sun.max.vm.stack.*;
 import com.sun.max.vm.thread.*;
@@ -148,6 +149,9 @@ public abstract class GCOperation extends VmOperation {
             REFERENCE_LOCK.notifyAll();
 
             Monitor.exit(REFERENCE_LOCK);
+
+            // Let the garbage collector beans notify their listeners
+            GarbageCollectionNotifier.collectionsEnded();
         } else {
             // The VM operation thread cannot notify the REFERENCE_LOCK as it doesn't hold.
             // This notification will occur during the next non-nested GC operation.
@@ -192,7 +196,11 @@ public abstract class GCOperation extends VmOperation {
             Log.unlock(lockDisabledSafepoints);
         }
 
+        // The stacks of the GC worker threads are scanned as roots, so they must have prepared their
+        // reference map before the collection starts.
+        GCWorkerThread.beginCollection();
         collect(invocationCount);
+        GCWorkerThread.endCollection();
 
         if (Heap.verbose()) {
             final long afterUsed = Heap.reportUsedSpace();
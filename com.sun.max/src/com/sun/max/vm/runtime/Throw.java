@@ -136,8 +136,9 @@ public final class Throw {
         if (FatalVMAssertions && StackTraceInThrowable && throwable instanceof AssertionError) {
             Backtrace bt = JDK_java_lang_Throwable.getBacktrace(throwable);
             if (bt != null) {
-                for (int i = 0; i < bt.count; i++) {
-                    ClassMethodActor cma = bt.methods[i];
+                final int count = bt.count();
+                for (int i = 0; i < count; i++) {
+                    ClassMethodActor cma = bt.methodAt(i);
                     if (cma.isInitializer() && AssertionError.class.isAssignableFrom(cma.holder().toJava())) {
                         // still in exception constructor chain
                     } else {
@@ -415,9 +415,69 @@ public abstract class Trap {
     }
 
     public static boolean DeoptOnImplicitException = true;
+    public static boolean OmitStackTraceInFastThrow;
+    public static int FastThrowThreshold = 100;
 
     static {
         VMOptions.addFieldOption("-XX:", "DeoptOnImplicitException", Trap.class, "Deoptimize on implicit exception occuring in optimized code.");
+        VMOptions.addFieldOption("-XX:", "OmitStackTraceInFastThrow", Trap.class,
+            "Raise a preallocated exception without a stack trace at implicit exception sites in optimized code that throw frequently.");
+        VMOptions.addFieldOption("-XX:", "FastThrowThreshold", Trap.class,
+            "The number of implicit exceptions raised at a site before it is considered to throw frequently (see -XX:+OmitStackTraceInFastThrow).");
+    }
+
+    public static final VMBooleanOption PrintFastThrowStatsOption = register(new VMBooleanOption("-XX:-PrintFastThrowStats",
+            "Report the number of implicit exceptions raised with and without a preallocated exception.") {
+        @Override
+        protected void beforeExit() {
+            if (getValue()) {
+                Log.print("Implicit exceptions: ");
+                Log.print(implicitExceptions);
+                Log.print(" raised, ");
+                Log.print(fastThrows);
+                Log.println(" raised with a preallocated exception");
+            }
+        }
+    }, MaxineVM.Phase.STARTING);
+
+    @RESET
+    private static long implicitExceptions;
+
+    @RESET
+    private static long fastThrows;
+
+    /**
+     * Preallocated exceptions raised at frequently throwing sites when {@link #OmitStackTraceInFastThrow} is enabled.
+     * These have an empty stack trace so that {@link Throwable#getStackTrace()} does not report the (meaningless)
+     * stack trace of the context in which they were created.
+     */
+    private static final NullPointerException FAST_NULL_POINTER_EXCEPTION = withoutStackTrace(new NullPointerException());
+    private static final ArithmeticException FAST_ARITHMETIC_EXCEPTION = withoutStackTrace(new ArithmeticException());
+
+    @HOSTED_ONLY
+    private static <T extends Throwable> T withoutStackTrace(T throwable) {
+        throwable.setStackTrace(new StackTraceElement[0]);
+        return throwable;
+    }
+
+    /**
+     * Gets the preallocated exception to raise for an implicit exception at a given site if the site throws
+     * frequently enough and {@link #OmitStackTraceInFastThrow} is enabled.
+     *
+     * @return the preallocated exception or {@code null} if a new exception should be allocated
+     */
+    private static Throwable fastThrowable(TargetMethod tm, Class< ? extends Throwable> throwableClass, CodePointer ip) {
+        if (!OmitStackTraceInFastThrow || tm.isBaseline()) {
+            return null;
+        }
+        if (throwableClass != NullPointerException.class && throwableClass != ArithmeticException.class) {
+            return null;
+        }
+        if (tm.countImplicitException(ip) <= FastThrowThreshold) {
+            return null;
+        }
+        fastThrows++;
+        return throwableClass == NullPointerException.class ? FAST_NULL_POINTER_EXCEPTION : FAST_ARITHMETIC_EXCEPTION;
     }
 
     /**
@@ -431,6 +491,10 @@ public abstract class Trap {
      * <p/>
      * Otherwise, the {@linkplain Throw#raise(Throwable, Pointer, Pointer, CodePointer) standard mechanism} for throwing
      * an exception is used.
+     * <p/>
+     * If {@link #OmitStackTraceInFastThrow} is enabled and the exception is raised in optimized code at a site that has
+     * raised more than {@link #FastThrowThreshold} implicit exceptions, a preallocated exception without a stack trace is
+     * raised instead of a new one.
      *
      * @param trapFrame a pointer to the trap frame
      * @param tm the target method containing the trap address
@@ -456,15 +520,18 @@ public abstract class Trap {
             return;
         }
 
-        Throwable throwable = null;
-        if (throwableClass == NullPointerException.class) {
-            throwable = new NullPointerException();
-        } else if (throwableClass == ArithmeticException.class) {
-            throwable = new ArithmeticException();
-        } else if (throwableClass == StackOverflowError.class) {
-            throwable = new StackOverflowError();
-        } else {
-            throw FatalError.unexpected("illegal implicit exception class");
+        implicitExceptions++;
+        Throwable throwable = fastThrowable(tm, throwableClass, ip);
+        if (throwable == null) {
+            if (throwableClass == NullPointerException.class) {
+                throwable = new NullPointerException();
+            } else if (throwableClass == ArithmeticException.class) {
+                throwable = new ArithmeticException();
+            } else if (throwableClass == StackOverflowError.class) {
+                throwable = new StackOverflowError();
+            } else {
+                throw FatalError.unexpected("illegal implicit exception class");
+            }
         }
         Throw.traceThrow(throwable);
 
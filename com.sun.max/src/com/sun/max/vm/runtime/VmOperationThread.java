@@ -122,6 +122,13 @@ public class VmOperationThread extends Thread implements UncaughtExceptionHandle
         return vmOp != null && vmOp.requiresGlobalSafepoint();
     }
 
+    /**
+     * Gets the operation currently run by the VM operation thread, or {@code null} if it is idle.
+     */
+    public VmOperation currentOperation() {
+        return currentOperation;
+    }
+
     @Override
     public void run() {
         if (TraceVmOperations) {
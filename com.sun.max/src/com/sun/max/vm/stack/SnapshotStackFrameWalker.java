@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.stack;
+
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.code.*;
+import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * A stack walker over a copy of the top of a thread's stack, taken while the thread was running.
+ * <p>
+ * The walk reads the copy instead of the stack, so the thread may have moved on or terminated. It ends with a
+ * {@link SnapshotEnd} as soon as it needs a stack slot outside the copy or a caller whose instruction pointer is not
+ * in compiled code, such as a native frame. Since the copy is not taken at a safepoint, the top frame may be
+ * incomplete (e.g. in a method prologue), in which case the walk ends early or, rarely, produces wrong callers.
+ * The frame anchors of the thread are not followed.
+ */
+public final class SnapshotStackFrameWalker extends StackFrameWalker {
+
+    /**
+     * Thrown to end a walk that leaves the copied stack or compiled code. Preallocated, as it is part of the normal
+     * operation of this walker.
+     */
+    public static final class SnapshotEnd extends RuntimeException {
+        private SnapshotEnd() {
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final SnapshotEnd SNAPSHOT_END = new SnapshotEnd();
+
+    private Address sp;
+    private Pointer copy;
+    private int length;
+
+    /**
+     * Sets the stack copy walked by the next walk.
+     *
+     * @param sp the stack pointer at which the copy starts
+     * @param copy the address of the copy
+     * @param length the number of bytes copied
+     */
+    public void setSnapshot(Address sp, Pointer copy, int length) {
+        this.sp = sp;
+        this.copy = copy;
+        this.length = length;
+    }
+
+    /**
+     * Gets the address in the copy of the {@code size} bytes at a given stack address.
+     *
+     * @throws SnapshotEnd if the bytes are not all in the copy
+     */
+    private Pointer inCopy(Address address, int offset, int size) {
+        final Address a = address.plus(offset);
+        if (a.lessThan(sp) || a.plus(size).greaterThan(sp.plus(length))) {
+            throw SNAPSHOT_END;
+        }
+        return copy.plus(a.minus(sp));
+    }
+
+    @Override
+    public TargetMethod targetMethodFor(Pointer instructionPointer) {
+        final TargetMethod targetMethod = Code.codePointerToTargetMethod(instructionPointer);
+        if (targetMethod == null) {
+            throw SNAPSHOT_END;
+        }
+        return targetMethod;
+    }
+
+    @Override
+    public Word readWord(Address address, int offset) {
+        return inCopy(address, offset, Word.size()).readWord(0);
+    }
+
+    @Override
+    public byte readByte(Address address, int offset) {
+        return inCopy(address, offset, 1).readByte(0);
+    }
+
+    @Override
+    public int readInt(Address address, int offset) {
+        return inCopy(address, offset, 4).readInt(0);
+    }
+
+    @Override
+    public Pointer readPointer(VmThreadLocal tl) {
+        // The thread locals are those of the thread now, not those of the copy
+        return Pointer.zero();
+    }
+}
@@ -237,8 +237,9 @@ public abstract class StackFrameWalker {
             StackReferenceMapPreparer preparer = (StackReferenceMapPreparer) context;
             if (preparer.checkIgnoreCurrentFrame()) {
                 proceed = true;
+            } else if (!preparer.prepareFrame(targetMethod, current, callee)) {
+                proceed = false;
             } else {
-                targetMethod.prepareReferenceMap(current, callee, preparer);
                 Pointer limit = preparer.completingReferenceMapLimit();
                 if (!limit.isZero() && current.sp().greaterEqual(limit)) {
                     proceed = false;
@@ -41,6 +41,7 @@ import com.sun.max.vm.log.*;
 import com.sun.max.vm.log.VMLogger.Interval;
 import com.sun.max.vm.log.hosted.*;
 import com.sun.max.vm.bytecode.refmaps.*;
+import com.sun.max.vm.code.*;
 import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.heap.*;
 import com.sun.max.vm.reference.*;
@@ -68,6 +69,13 @@ import com.sun.max.vm.type.*;
  * nor does it need to traverse any objects.
  * This provides a lot of flexibility in GC implementation.
  *
+ * With {@link #StackWatermarks}, the reference map of a stack is kept between GCs. Each preparation records the
+ * stack and instruction pointers of the frames it walks, and the frames found again at the same place and instruction
+ * pointer are deemed to have not returned since the previous GC. At the next GC, the frames beyond the youngest of
+ * them, the <i>watermark</i>, are checked against the record instead of being prepared again, and their part of the
+ * reference map is kept. If one of them has changed, the whole stack is prepared again. As the frames beyond the
+ * watermark are not prepared, the references they hold are not verified either, which is why this is off by default.
+ * <p>
  * ATTENTION: the algorithm below must not allocate any objects from the GC heap,
  * since it is running at a GC safepoint when the global GC lock may already be taken.
  * Especially the {@linkplain ReferenceMapInterpreter reference map interpreter},
@@ -104,6 +112,65 @@ public final class StackReferenceMapPreparer extends FrameReferenceMapVisitor {
             "the stack--as often as possible.", MaxineVM.Phase.PRISTINE);
     }
 
+    public static boolean StackWatermarks = false;
+    static {
+        VMOptions.addFieldOption("-XX:", "StackWatermarks", StackReferenceMapPreparer.class,
+            "Keep the reference maps of the frames that have not returned since the last GC instead of preparing them again. " +
+            "The references in these frames are not verified.");
+    }
+
+    /**
+     * The maximum number of frames, counted from the bottom of the stack, recorded for the {@linkplain #StackWatermarks
+     * stack watermark}.
+     */
+    private static final int WATERMARK_FRAMES = 256;
+
+    /**
+     * The stack pointer and instruction pointer of each frame recorded by the last preparation, from the youngest to
+     * the oldest. The instruction pointer of a frame whose reference map depends on the state of its callee is
+     * recorded as zero, so that the frame never matches.
+     */
+    private final long[] recordedFrames;
+
+    private int recordedFrameCount;
+
+    /**
+     * The index in {@link #recordedFrames} of the youngest frame of the watermark. The frames older than it are not
+     * prepared again if they are still on the stack. This is -1 if there is no watermark.
+     */
+    private int watermarkIndex = -1;
+
+    /**
+     * The {@linkplain CodeEviction#evictionCount() code eviction count} when the frames were recorded, as evicted code
+     * may be replaced by other code at the same address.
+     */
+    private int recordedEvictionCount;
+
+    /**
+     * The frames walked by the current preparation, as a ring buffer holding the {@value #WATERMARK_FRAMES} oldest
+     * frames walked.
+     */
+    private final long[] walkedFrames;
+
+    private int walkedFrameCount;
+
+    private boolean recording;
+
+    /**
+     * The lowest stack address of the frames that are not prepared by the current preparation, or zero if all frames
+     * are prepared.
+     */
+    private Pointer watermark = Pointer.zero();
+
+    private int nextWatermarkFrame;
+    private boolean watermarkMissed;
+    private int recordedFrameCursor;
+
+    /**
+     * The index of the oldest frame walked by the current preparation that is not in {@link #recordedFrames}.
+     */
+    private int lastChangedFrame;
+
     private final Timer timer = new SingleUseTimer(HeapScheme.GC_TIMING_CLOCK);
     private Pointer ttla;
     private Pointer referenceMap;
@@ -125,6 +192,16 @@ public final class StackReferenceMapPreparer extends FrameReferenceMapVisitor {
     public StackReferenceMapPreparer(boolean verify, boolean prepare) {
         this.verify = verify;
         this.prepare = prepare;
+        this.recordedFrames = prepare ? new long[WATERMARK_FRAMES * 2] : null;
+        this.walkedFrames = prepare ? new long[WATERMARK_FRAMES * 2] : null;
+    }
+
+    /**
+     * Discards the frames recorded for the stack watermark. This must be called when the stack of the thread changes.
+     */
+    public void resetWatermark() {
+        watermarkIndex = -1;
+        recordedFrameCount = 0;
     }
 
     private static Pointer slotAddress(int slotIndex, Pointer tla) {
@@ -294,8 +371,10 @@ public final class StackReferenceMapPreparer extends FrameReferenceMapVisitor {
             FatalError.unexpected("Cannot use stack reference map preparer of another thread");
         }
 
-        // clear the reference map covering the stack contents
-        clearReferenceMapRange(tla, stackPointer, highestStackSlot);
+        startRecording(stackPointer);
+
+        // clear the reference map covering the stack contents, except for the frames beyond the watermark
+        clearReferenceMapRange(tla, stackPointer, watermark.isZero() ? highestStackSlot : watermark.minus(Word.size()));
 
         boolean lockDisabledSafepoints = logStackRootScanStart(stackPointer, highestStackSlot, vmThread);
 
@@ -303,6 +382,18 @@ public final class StackReferenceMapPreparer extends FrameReferenceMapVisitor {
         StackFrameWalker sfw = vmThread.referenceMapPreparingStackFrameWalker();
         sfw.prepareReferenceMap(instructionPointer.toPointer(), stackPointer, framePointer, this);
 
+        if (recording && !watermark.isZero() && (watermarkMissed || nextWatermarkFrame != recordedFrameCount)) {
+            // A frame beyond the watermark has returned: prepare the whole stack again
+            watermark = Pointer.zero();
+            walkedFrameCount = 0;
+            recordedFrameCursor = 0;
+            lastChangedFrame = -1;
+            ignoreCurrentFrame = ignoreTopFrame;
+            clearReferenceMapRange(tla, stackPointer, highestStackSlot);
+            sfw.prepareReferenceMap(instructionPointer.toPointer(), stackPointer, framePointer, this);
+        }
+        finishRecording();
+
         logStackRootScanEnd(lockDisabledSafepoints);
 
         timer.stop();
@@ -401,6 +492,100 @@ public final class StackReferenceMapPreparer extends FrameReferenceMapVisitor {
         preparationTime += timer.getLastElapsedTime();
     }
 
+    private void startRecording(Pointer stackPointer) {
+        watermark = Pointer.zero();
+        recording = prepare && StackWatermarks;
+        if (!recording) {
+            // the frames recorded before the mechanism was turned off may have returned since
+            resetWatermark();
+            return;
+        }
+        walkedFrameCount = 0;
+        recordedFrameCursor = 0;
+        lastChangedFrame = -1;
+        watermarkMissed = false;
+        if (watermarkIndex >= 0 && recordedEvictionCount == CodeEviction.evictionCount()) {
+            nextWatermarkFrame = watermarkIndex + 1;
+            Pointer limit = Pointer.fromLong(recordedFrames[nextWatermarkFrame * 2]);
+            if (limit.greaterThan(stackPointer)) {
+                watermark = limit;
+            }
+        }
+    }
+
+    /**
+     * Prepares the reference map for a frame, unless it is beyond the watermark and has not changed since the last
+     * preparation.
+     *
+     * @return {@code false} if the stack walk must stop as a frame beyond the watermark has changed
+     */
+    public boolean prepareFrame(TargetMethod targetMethod, StackFrameCursor current, StackFrameCursor callee) {
+        if (!recording) {
+            targetMethod.prepareReferenceMap(current, callee, this);
+            return true;
+        }
+        final long sp = current.sp().toLong();
+        final TargetMethod calleeTM = callee.targetMethod();
+        final boolean dependsOnCallee = !callee.csa().isZero() || (calleeTM != null && calleeTM.stubType() != null);
+        final long ip = dependsOnCallee ? 0L : current.ipAsPointer().toLong();
+        if (!watermark.isZero() && current.sp().greaterEqual(watermark)) {
+            final int index = nextWatermarkFrame * 2;
+            if (nextWatermarkFrame >= recordedFrameCount || ip == 0L || recordedFrames[index] != sp || recordedFrames[index + 1] != ip) {
+                watermarkMissed = true;
+                return false;
+            }
+            nextWatermarkFrame++;
+        } else {
+            targetMethod.prepareReferenceMap(current, callee, this);
+            if (!isRecordedFrame(sp, ip)) {
+                lastChangedFrame = walkedFrameCount;
+            }
+        }
+        final int slot = (walkedFrameCount % WATERMARK_FRAMES) * 2;
+        walkedFrames[slot] = sp;
+        walkedFrames[slot + 1] = ip;
+        walkedFrameCount++;
+        return true;
+    }
+
+    /**
+     * Determines if the last preparation recorded a given frame. The frames are walked and recorded in ascending order
+     * of their stack pointer, so the search resumes where the previous one ended.
+     */
+    private boolean isRecordedFrame(long sp, long ip) {
+        if (ip == 0L) {
+            return false;
+        }
+        while (recordedFrameCursor < recordedFrameCount && Pointer.fromLong(recordedFrames[recordedFrameCursor * 2]).lessThan(Pointer.fromLong(sp))) {
+            recordedFrameCursor++;
+        }
+        return recordedFrameCursor < recordedFrameCount && recordedFrames[recordedFrameCursor * 2] == sp && recordedFrames[recordedFrameCursor * 2 + 1] == ip;
+    }
+
+    /**
+     * Records the frames walked by the current preparation and places the watermark for the next one on the youngest
+     * frame that was already recorded by the previous preparation, as are all the frames older than it.
+     */
+    private void finishRecording() {
+        if (!recording) {
+            return;
+        }
+        recording = false;
+        watermark = Pointer.zero();
+        final int count = Math.min(walkedFrameCount, WATERMARK_FRAMES);
+        final int first = walkedFrameCount - count;
+        for (int i = 0; i < count; i++) {
+            final int slot = ((first + i) % WATERMARK_FRAMES) * 2;
+            recordedFrames[i * 2] = walkedFrames[slot];
+            recordedFrames[i * 2 + 1] = walkedFrames[slot + 1];
+        }
+        recordedFrameCount = count;
+        recordedEvictionCount = CodeEviction.evictionCount();
+        // The youngest unchanged frame is still prepared, as its callee has changed
+        final int youngest = Math.max(lastChangedFrame + 1, first) - first;
+        watermarkIndex = youngest + 1 < count ? youngest : -1;
+    }
+
     /**
      * Gets the lowest stack address for which a stack map has already been completed.
      * A zero return value indicates that this preparer is not currently in a call to {@link #completeStackReferenceMap(Pointer)}.
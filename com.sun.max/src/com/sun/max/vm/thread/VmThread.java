@@ -48,8 +48,10 @@ import com.sun.max.vm.hosted.*;
 import com.sun.max.vm.jdk.*;
 import com.sun.max.vm.jni.*;
 import com.sun.max.vm.log.*;
+import com.sun.max.vm.management.*;
 import com.sun.max.vm.monitor.modal.sync.*;
 import com.sun.max.vm.object.*;
+import com.sun.max.vm.profilers.sampling.CPUSampler;
 import com.sun.max.vm.profilers.tracing.numa.NUMAProfiler;
 import com.sun.max.vm.reference.*;
 import com.sun.max.vm.runtime.*;
@@ -127,6 +129,12 @@ public class VmThread {
      */
     public static final VmThread signalDispatcherThread;
 
+    /**
+     * The pool of {@link GCWorkerThread}s, of which only the first {@linkplain GCWorkerThread#numberOfWorkers() few}
+     * are started.
+     */
+    public static final VmThread[] gcWorkerThreads;
+
     /**
      * The main thread created by the primordial thread at runtime.
      */
@@ -190,6 +198,15 @@ public class VmThread {
         WithoutAccessCheck.setInstanceField(vmOperationJavaThread, "group", null);
         signalDispatcherThread = initVmThread(new SignalDispatcher(systemThreadGroup));
 
+        // GC worker threads are hidden the same way as the VmOperationThread
+        gcWorkerThreads = new VmThread[GCWorkerThread.MAX_GC_WORKER_THREADS];
+        for (int i = 0; i < gcWorkerThreads.length; i++) {
+            Thread gcWorkerJavaThread = new GCWorkerThread(systemThreadGroup, i + 1);
+            gcWorkerThreads[i] = initVmThread(gcWorkerJavaThread);
+            gcWorkerThreads[i].gcWorker = true;
+            WithoutAccessCheck.setInstanceField(gcWorkerJavaThread, "group", null);
+        }
+
         try {
             referenceHandlerThread = initVmThread(copyProps(hostReferenceHandlerThread, (Thread) ReferenceHandler_init.invokeConstructor(systemThreadGroupRef, ReferenceValue.from(hostReferenceHandlerThread.getName())).asObject()));
             finalizerThread = initVmThread(copyProps(hostFinalizerThread, (Thread) FinalizerThread_init.invokeConstructor(systemThreadGroupRef).asObject()));
@@ -270,6 +287,8 @@ public class VmThread {
 
     private final VmStackFrameWalker stackDumpStackFrameWalker = new VmStackFrameWalker(Pointer.zero());
 
+    private final VmStackFrameWalker allocationSamplerStackFrameWalker = new VmStackFrameWalker(Pointer.zero());
+
     @CONSTANT_WHEN_NOT_ZERO
     private VmStackFrameWalker samplingProfilerStackFrameWalker;
 
@@ -295,6 +314,11 @@ public class VmThread {
      */
     private boolean jvmtiAgent;
 
+    /**
+     * Marks this as one of the {@link #gcWorkerThreads}.
+     */
+    private boolean gcWorker;
+
     /**
      * Holds the exception object for the exception currently being raised. This value will only be
      * non-null during the unwinding process between calls to {@link #storeExceptionForHandler(Throwable, TargetMethod, int)}
@@ -442,6 +466,99 @@ public class VmThread {
         nextWaitingThread = this;
     }
 
+    /**
+     * The monitor this thread is blocked on entering while it is owned by another thread, or {@code null}.
+     */
+    private volatile JavaMonitor contendedMonitor;
+
+    /**
+     * The monitor this thread is {@linkplain Object#wait() waiting} on, or {@code null}.
+     */
+    private volatile JavaMonitor waitedMonitor;
+
+    private long blockedCount;
+    private long blockedNanos;
+    private long waitedCount;
+    private long waitedNanos;
+
+    /**
+     * The {@link System#nanoTime()} at which this thread started blocking or waiting on a monitor, or 0 if the
+     * time is not measured.
+     */
+    private long monitorStartNanos;
+
+    /**
+     * Records that this thread, the current thread, is about to block entering a monitor owned by another thread.
+     * The time blocked is only measured while {@linkplain ThreadManagement#isThreadContentionMonitoringEnabled()
+     * thread contention monitoring} is enabled.
+     */
+    public final void beginMonitorContention(JavaMonitor monitor) {
+        blockedCount++;
+        monitorStartNanos = ThreadManagement.isThreadContentionMonitoringEnabled() ? System.nanoTime() : 0L;
+        contendedMonitor = monitor;
+    }
+
+    public final void endMonitorContention() {
+        contendedMonitor = null;
+        if (monitorStartNanos != 0L) {
+            blockedNanos += System.nanoTime() - monitorStartNanos;
+        }
+    }
+
+    /**
+     * Records that this thread, the current thread, is about to wait on a monitor.
+     *
+     * @see #beginMonitorContention(JavaMonitor)
+     */
+    public final void beginMonitorWait(JavaMonitor monitor) {
+        waitedCount++;
+        monitorStartNanos = ThreadManagement.isThreadContentionMonitoringEnabled() ? System.nanoTime() : 0L;
+        waitedMonitor = monitor;
+    }
+
+    public final void endMonitorWait() {
+        waitedMonitor = null;
+        if (monitorStartNanos != 0L) {
+            waitedNanos += System.nanoTime() - monitorStartNanos;
+        }
+    }
+
+    public final JavaMonitor contendedMonitor() {
+        return contendedMonitor;
+    }
+
+    public final JavaMonitor waitedMonitor() {
+        return waitedMonitor;
+    }
+
+    /**
+     * Gets the number of times this thread blocked entering a monitor owned by another thread.
+     */
+    public final long blockedCount() {
+        return blockedCount;
+    }
+
+    /**
+     * Gets the time this thread spent blocked entering monitors while contention monitoring was enabled.
+     */
+    public final long blockedNanos() {
+        return blockedNanos;
+    }
+
+    /**
+     * Gets the number of times this thread waited on a monitor.
+     */
+    public final long waitedCount() {
+        return waitedCount;
+    }
+
+    /**
+     * Gets the time this thread spent waiting on monitors while contention monitoring was enabled.
+     */
+    public final long waitedNanos() {
+        return waitedNanos;
+    }
+
     /**
      * A stack of elements that support  {@link AccessController#doPrivileged(PrivilegedAction)} calls.
      */
@@ -605,7 +722,10 @@ public class VmThread {
         thread.tla = etla;
         thread.stackFrameWalker.setTLA(etla);
         thread.stackDumpStackFrameWalker.setTLA(etla);
+        thread.allocationSamplerStackFrameWalker.setTLA(etla);
+        thread.stackReferenceMapPreparer.resetWatermark();
         thread.yellowZone = yellowZone;
+        CPUSampler.threadAdded(etla);
 
         // Enable profiling for the new VM Thread if profiling should be enabled
         if (MaxineVM.useNUMAProfiler && MaxineVM.numaProfiler != null) {
@@ -674,6 +794,7 @@ public class VmThread {
 
             // We can now start the other system threads.
             VmThread.vmOperationThread.startVmSystemThread();
+            GCWorkerThread.startWorkers();
             SpecialReferenceManager.initialize(MaxineVM.Phase.PRISTINE);
             VmThread.signalDispatcherThread.startVmSystemThread();
 
@@ -697,6 +818,7 @@ public class VmThread {
             // print the Access Profiling Counters before exit
             if (MaxineVM.useNUMAProfiler && MaxineVM.numaProfiler != null) {
                 NUMAProfiler.printProfilingCountersOfThread(thread.tla);
+                NUMAProfiler.retireRecordsOfThread(thread.tla);
             }
             // call Thread.exit()
             JDK_java_lang_Thread.exitThread(thread.javaThread());
@@ -817,6 +939,8 @@ public class VmThread {
 
         thread.traceThreadAfterTermination();
 
+        CPUSampler.retireCurrentThread(ETLA.load(tla));
+
         // GC may now reclaim or prepare any of its resources before the thread vanishes forever.
         vmConfig().heapScheme().notifyCurrentThreadDetach();
 
@@ -1031,6 +1155,14 @@ public class VmThread {
         return stackDumpStackFrameWalker;
     }
 
+    /**
+     * Gets a preallocated, thread local object that the {@link com.sun.max.vm.profilers.sampling.AllocationSampler}
+     * uses to walk this thread's stack from the allocation slow path, where allocation must not occur.
+     */
+    public final VmStackFrameWalker allocationSamplerStackFrameWalker() {
+        return allocationSamplerStackFrameWalker;
+    }
+
     /**
      * Gets a preallocated, thread local object that can be used to log a stack dump without incurring any allocation.
      */
@@ -1134,6 +1266,13 @@ public class VmThread {
         return vmOperationThread == this;
     }
 
+    /**
+     * Determines if this is one of the {@link GCWorkerThread}s.
+     */
+    public final boolean isGCWorkerThread() {
+        return gcWorker;
+    }
+
     public final boolean isJVMTIAgentThread() {
         return jvmtiAgent;
     }
@@ -1366,7 +1505,7 @@ public class VmThread {
      */
     public final void startVmSystemThread() {
         ThreadGroupAlias threadGroupAlias = ThreadGroupAlias.asThreadGroupAlias(systemThreadGroup);
-        if (this == vmOperationThread) {
+        if (this == vmOperationThread || gcWorker) {
             // hidden
             threadGroupAlias.nUnstartedThreads--;
         } else {
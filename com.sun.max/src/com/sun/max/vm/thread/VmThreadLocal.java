@@ -313,6 +313,13 @@ public class VmThreadLocal implements FormatWithToString {
     public static final VmThreadLocal PROFILER_STATE
         = new VmThreadLocal("PROFILER_STATE", false, "points to TLA used for profiler on/off", Nature.Single);
 
+    /**
+     * The off-heap chunk in which {@link com.sun.max.vm.profilers.tracing.numa.NUMAProfiler} records the objects allocated
+     * by this thread, or zero if the thread has none yet.
+     */
+    public static final VmThreadLocal PROFILER_RECORDS
+        = new VmThreadLocal("PROFILER_RECORDS", false, "NUMAProfiler record chunk of the thread", Nature.Single);
+
     /**
      * This VmThreadLocal array stores all counters for each object access kind (remote/local, array/tuple, read/write).
      */
@@ -541,7 +548,8 @@ public class VmThreadLocal implements FormatWithToString {
      */
     public static void scanReferences(Pointer tla, PointerIndexVisitor wordPointerIndexVisitor) {
         final VmThread thread = VmThread.fromTLA(tla);
-        boolean isVmOperationThread = thread.isVmOperationThread();
+        // The VM operation thread and the GC worker threads prepare their own stack reference map from their current frame
+        boolean preparedFromCurrentFrame = thread.isVmOperationThread() || thread.isGCWorkerThread();
 
         // Note: as a side effect, this lock serializes stack reference map scanning
         boolean tracing = logStackRootScanning();
@@ -564,7 +572,7 @@ public class VmThreadLocal implements FormatWithToString {
             final Pointer highestSlot = HIGHEST_STACK_SLOT_ADDRESS.load(tla);
             final Pointer lowestSlot = LOWEST_STACK_SLOT_ADDRESS.load(tla);
 
-            if (!isVmOperationThread && lastJavaCallerStackPointer.lessThan(lowestActiveSlot)) {
+            if (!preparedFromCurrentFrame && lastJavaCallerStackPointer.lessThan(lowestActiveSlot)) {
                 Log.print("The stack has slots between ");
                 Log.print(lastJavaCallerStackPointer);
                 Log.print(" and ");
@@ -29,6 +29,7 @@ import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 import java.io.*;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import com.sun.max.annotate.*;
 import com.sun.max.platform.*;
@@ -56,7 +57,12 @@ public final class BootClassLoader extends ClassLoader {
      */
     public static final BootClassLoader BOOT_CLASS_LOADER = new BootClassLoader();
 
-    private Classpath classpath;
+    private volatile Classpath classpath;
+
+    /**
+     * The locks serializing the loading of each class, so that classes of different names are loaded in parallel.
+     */
+    private final ConcurrentHashMap<String, Object> classLoadingLocks = new ConcurrentHashMap<String, Object>();
 
     /**
      * Map from a package name (in "/" separated format) to the file system path from it was loaded.
@@ -64,14 +70,21 @@ public final class BootClassLoader extends ClassLoader {
     private final HashMap<String, String> packages = new HashMap<String, String>();
 
     public Classpath classpath() {
-        if (classpath == null) {
-            String extraPath = null;
-            if (!MaxineVM.isHosted()) {
-                extraPath = VMTI.handler().bootclassPathExtension();
+        Classpath result = classpath;
+        if (result == null) {
+            synchronized (this) {
+                result = classpath;
+                if (result == null) {
+                    String extraPath = null;
+                    if (!MaxineVM.isHosted()) {
+                        extraPath = VMTI.handler().bootclassPathExtension();
+                    }
+                    result = Classpath.bootClassPath(extraPath);
+                    classpath = result;
+                }
             }
-            classpath = Classpath.bootClassPath(extraPath);
         }
-        return classpath;
+        return result;
     }
 
     /**
@@ -116,12 +129,22 @@ public final class BootClassLoader extends ClassLoader {
         return classActor.toJava();
     }
 
-    public synchronized Class<?> findBootstrapClass(String name) {
-        final Class c = findLoadedClass(name);
-        if (c != null) {
-            return c;
+    public Class<?> findBootstrapClass(String name) {
+        Object lock = classLoadingLocks.get(name);
+        if (lock == null) {
+            final Object newLock = new Object();
+            lock = classLoadingLocks.putIfAbsent(name, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        synchronized (lock) {
+            final Class c = findLoadedClass(name);
+            if (c != null) {
+                return c;
+            }
+            return resolveClassOrNull(classpath(), name);
         }
-        return resolveClassOrNull(classpath(), name);
     }
 
     private static class VMResolveState extends ThreadLocal<Boolean> {
@@ -30,6 +30,7 @@ import java.lang.reflect.*;
 import java.nio.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import com.sun.max.*;
 import com.sun.max.annotate.*;
@@ -135,7 +136,7 @@ public final class ClassRegistry {
     public static final ClassMethodActor VmThread_detach = (ClassMethodActor) findMethod("detach", VmThread.class);
     public static final ClassMethodActor ClassLoader_findBootstrapClass = (ClassMethodActor) findMethod("findBootstrapClass", ClassLoader.class);
 
-    private static int loadCount;        // total loaded
+    private static final AtomicInteger loadCount = new AtomicInteger();        // total loaded
     private static int unloadCount;    // total unloaded
 
     static {
@@ -277,7 +278,7 @@ public final class ClassRegistry {
             }
             return existingClassActor;
         }
-        loadCount++;
+        loadCount.incrementAndGet();
 
         // Add to class hierarchy, initialize vtables, and do possible deoptimizations.
         DependenciesManager.addToHierarchy(classActor);
@@ -381,6 +382,7 @@ public final class ClassRegistry {
         ANNOTATION_DEFAULT_BYTES(MethodActor.class, byte[].class, MethodActor.NO_ANNOTATION_DEFAULT_BYTES),
         ACCESSOR(MethodActor.class, Class.class, null),
         INVOCATION_STUB(false, MethodActor.class, InvocationStub.class, null),
+        CLASS_IDENTITY(false, ClassActor.class, String.class, null),
         RUNTIME_VISIBLE_PARAMETER_ANNOTATION_BYTES(MethodActor.class, byte[].class, MethodActor.NO_RUNTIME_VISIBLE_PARAMETER_ANNOTATION_BYTES);
 
         public static final List<Property> VALUES = java.util.Arrays.asList(values());
@@ -473,15 +475,15 @@ public final class ClassRegistry {
         return Utils.cast(type, property.get(propertyMaps[property.ordinal()], object));
     }
 
-    public static synchronized int getLoadedClassCount() {
-        return loadCount - unloadCount;
+    public static int getLoadedClassCount() {
+        return loadCount.get() - unloadCount;
     }
 
-    public static synchronized int getTotalLoadedClassCount() {
-        return loadCount;
+    public static int getTotalLoadedClassCount() {
+        return loadCount.get();
     }
 
-    public static synchronized int getUnloadedClassCount() {
+    public static int getUnloadedClassCount() {
         return unloadCount;
     }
 
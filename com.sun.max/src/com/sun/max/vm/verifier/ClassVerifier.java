@@ -22,10 +22,13 @@
  */
 package com.sun.max.vm.verifier;
 
+import java.util.*;
+
 import com.sun.max.vm.*;
 import com.sun.max.vm.actor.holder.*;
 import com.sun.max.vm.actor.member.*;
 import com.sun.max.vm.classfile.*;
+import com.sun.max.vm.type.*;
 
 /**
  * An instance of {@code ClassVerifier} is created to verify the methods in a given class.
@@ -33,9 +36,25 @@ import com.sun.max.vm.classfile.*;
 public abstract class ClassVerifier extends Verifier {
 
     public final ClassActor classActor;
+
+    /**
+     * The classes resolved during verification, recorded for the {@link VerificationCache} if it is enabled.
+     */
+    final Set<ClassActor> resolvedClasses;
+
     protected ClassVerifier(ClassActor classActor) {
         super(classActor.constantPool());
         this.classActor = classActor;
+        this.resolvedClasses = VerificationCache.isEnabled() ? new HashSet<ClassActor>() : null;
+    }
+
+    @Override
+    public ClassActor resolve(TypeDescriptor type) {
+        final ClassActor resolved = super.resolve(type);
+        if (resolvedClasses != null) {
+            resolvedClasses.add(resolved);
+        }
+        return resolved;
     }
 
     /**
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.verifier;
+
+import static com.sun.max.vm.type.ClassRegistry.Property.*;
+
+import java.io.*;
+import java.util.*;
+
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.type.*;
+
+/**
+ * A persistent record of the classes that passed {@linkplain TypeCheckingVerifier type checking verification},
+ * enabled with {@code -XX:VerificationCacheFile=<file>}, so that the classes of an unchanged application are not
+ * verified again by later runs.
+ * <p>
+ * A class is identified by the SHA-256 hash of its class file bytes combined with the identities of its superclass and
+ * interfaces, as they determine the assignability checks made by the verifier. The classes of the boot image are
+ * identified by their name and a stamp of the image. A class defined without its bytes being seen by
+ * {@link #recordClassfile} has no identity and is always verified.
+ * <p>
+ * Each line of the file records a verified class by its identity, followed by the type descriptor and identity of
+ * every class resolved while verifying it. A class is considered verified only if the same type descriptors, resolved
+ * by its class loader, denote classes of the same identities. Any mismatch, or a class that cannot be resolved, leads to
+ * a full verification. Classes verified with {@code -noverify} or by the failover verifier are not recorded.
+ */
+public final class VerificationCache {
+
+    private VerificationCache() {
+    }
+
+    private static String VerificationCacheFile;
+    static {
+        VMOptions.addFieldOption("-XX:", "VerificationCacheFile", VerificationCache.class,
+            "File recording the classes that passed verification, which are not verified again while their class files and those they depend on are unchanged.");
+    }
+
+    /**
+     * Distinguishes the classes of this boot image from those of other images.
+     */
+    private static final String BOOT_IMAGE_STAMP = Long.toHexString(new Random().nextLong());
+
+    /**
+     * The dependencies recorded for each identity, as pairs of a type descriptor followed by an identity.
+     */
+    private static Map<String, String[]> entries;
+
+    private static Writer writer;
+
+    /**
+     * Set while the file is being read, which may load classes.
+     */
+    private static boolean loading;
+
+    public static boolean isEnabled() {
+        return VerificationCacheFile != null && !MaxineVM.isHosted();
+    }
+
+    /**
+     * Records the identity of a class from the bytes from which it was defined, if the cache is enabled.
+     */
+    public static void recordClassfile(ClassActor classActor, byte[] bytes, int offset, int length) {
+        if (!isEnabled()) {
+            return;
+        }
+        final Sha256 sha = new Sha256();
+        sha.update(bytes, offset, length);
+        final ClassActor superClassActor = classActor.superClassActor;
+        if (superClassActor != null && !sha.update(identity(superClassActor))) {
+            return;
+        }
+        for (ClassActor interfaceActor : classActor.localInterfaceActors()) {
+            if (!sha.update(identity(interfaceActor))) {
+                return;
+            }
+        }
+        classActor.classRegistry().set(CLASS_IDENTITY, classActor, sha.digest());
+    }
+
+    /**
+     * Gets the identity of a class, or {@code null} if it has none.
+     */
+    static String identity(ClassActor classActor) {
+        if (classActor.isArrayClass()) {
+            final String componentIdentity = identity(classActor.componentClassActor());
+            return componentIdentity == null ? null : "[" + componentIdentity;
+        }
+        String identity = classActor.classRegistry().get(CLASS_IDENTITY, classActor);
+        if (identity == null && Heap.isInBootImage(classActor)) {
+            final Sha256 sha = new Sha256();
+            sha.update(BOOT_IMAGE_STAMP);
+            sha.update(classActor.typeDescriptor.toString());
+            identity = sha.digest();
+            classActor.classRegistry().set(CLASS_IDENTITY, classActor, identity);
+        }
+        return identity;
+    }
+
+    /**
+     * Determines if a class is recorded as verified with the classes it depends on unchanged.
+     */
+    public static boolean isVerified(ClassActor classActor) {
+        if (!isEnabled() || classActor.majorVersion < 50) {
+            return false;
+        }
+        final String identity = identity(classActor);
+        if (identity == null) {
+            return false;
+        }
+        final String[] dependencies;
+        synchronized (VerificationCache.class) {
+            if (loading || !load()) {
+                return false;
+            }
+            dependencies = entries.get(identity);
+        }
+        if (dependencies == null) {
+            return false;
+        }
+        for (int i = 0; i < dependencies.length; i += 2) {
+            final ClassActor dependency;
+            try {
+                dependency = ClassActor.fromJava(JavaTypeDescriptor.parseTypeDescriptor(dependencies[i]).resolveType(classActor.classLoader));
+            } catch (LinkageError e) {
+                return false;
+            }
+            if (!dependencies[i + 1].equals(identity(dependency))) {
+                return false;
+            }
+        }
+        if (Verifier.TraceVerifierLevel >= Verifier.TRACE_CLASS) {
+            Log.println("[Verified class " + classActor.name + " from the verification cache]");
+        }
+        return true;
+    }
+
+    /**
+     * Records a class that passed verification, if the cache is enabled and all the classes it depends on have an
+     * identity.
+     */
+    public static void recordVerified(ClassVerifier verifier) {
+        if (verifier.resolvedClasses == null || Verifier.noVerify.isPresent() ||
+            !(verifier instanceof TypeCheckingVerifier) || ((TypeCheckingVerifier) verifier).failoverVerifier != null) {
+            return;
+        }
+        final String identity = identity(verifier.classActor);
+        if (identity == null) {
+            return;
+        }
+        final String[] dependencies = new String[verifier.resolvedClasses.size() * 2];
+        int i = 0;
+        for (ClassActor dependency : verifier.resolvedClasses) {
+            final String dependencyIdentity = identity(dependency);
+            if (dependencyIdentity == null) {
+                return;
+            }
+            dependencies[i++] = dependency.typeDescriptor.toString();
+            dependencies[i++] = dependencyIdentity;
+        }
+        synchronized (VerificationCache.class) {
+            if (loading || !load() || entries.containsKey(identity)) {
+                return;
+            }
+            entries.put(identity, dependencies);
+            try {
+                if (writer == null) {
+                    writer = new BufferedWriter(new FileWriter(VerificationCacheFile, true));
+                }
+                final StringBuilder line = new StringBuilder(identity);
+                for (String s : dependencies) {
+                    line.append(' ').append(s);
+                }
+                line.append('\n');
+                writer.write(line.toString());
+                writer.flush();
+            } catch (IOException e) {
+                error(e);
+            }
+        }
+    }
+
+    /**
+     * Reads the file the first time the cache is used.
+     *
+     * @return {@code false} if the file could not be read
+     */
+    private static boolean load() {
+        if (entries != null) {
+            return true;
+        }
+        loading = true;
+        try {
+            final Map<String, String[]> map = new HashMap<String, String[]>();
+            final File file = new File(VerificationCacheFile);
+            if (file.exists()) {
+                final BufferedReader reader = new BufferedReader(new FileReader(file));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        final String[] fields = line.split(" ");
+                        // a truncated line has an even number of fields
+                        if (fields.length % 2 == 1) {
+                            map.put(fields[0], Arrays.copyOfRange(fields, 1, fields.length));
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+            entries = map;
+            return true;
+        } catch (IOException e) {
+            error(e);
+            VerificationCacheFile = null;
+            return false;
+        } finally {
+            loading = false;
+        }
+    }
+
+    private static void error(IOException e) {
+        Log.print("Verification cache: error accessing ");
+        Log.print(VerificationCacheFile);
+        Log.print(": ");
+        Log.println(e.getMessage());
+    }
+}
@@ -42,6 +42,7 @@ public final class AutoTest {
         suite.addTest(com.sun.max.lang.AllTests.suite());
         suite.addTest(com.sun.max.profile.AllTests.suite());
         suite.addTest(com.sun.max.util.AllTests.suite());
+        suite.addTest(com.sun.max.vm.verifier.AllTests.suite());
         return suite;
     }
 }
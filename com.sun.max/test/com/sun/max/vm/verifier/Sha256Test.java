@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.verifier;
+
+import java.security.*;
+import java.util.*;
+
+import junit.framework.*;
+
+/**
+ * Tests {@link Sha256} against the examples of FIPS 180-4 and the NIST known-answer vectors, and against
+ * {@link MessageDigest} for messages whose padding ends on either side of a block boundary.
+ */
+public class Sha256Test extends TestCase {
+
+    public Sha256Test(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(Sha256Test.class);
+    }
+
+    private static String digest(byte[] bytes) {
+        final Sha256 sha = new Sha256();
+        sha.update(bytes, 0, bytes.length);
+        return sha.digest();
+    }
+
+    private static String ascii(String s) {
+        return digest(s.getBytes());
+    }
+
+    private static String hex(byte[] bytes) {
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static String reference(byte[] bytes) throws NoSuchAlgorithmException {
+        return hex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    public void test_fips180() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", ascii(""));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ascii("abc"));
+        assertEquals("248d6a61d20638b8e5c026930c3e6039a33ce45964ff2167f6ecedd419db06c1",
+            ascii("abcdbcdecdefdefgefghfghighijhijkijkljklmklmnlmnomnopnopq"));
+        assertEquals("cf5b16a778af8380036ce59e7b0492370b249b11e8f07a51afac45037afee9d1",
+            ascii("abcdefghbcdefghicdefghijdefghijkefghijklfghijklmghijklmnhijklmnoijklmnopjklmnopqklmnopqrlmnopqrsmnopqrstnopqrstu"));
+        final byte[] million = new byte[1000000];
+        Arrays.fill(million, (byte) 'a');
+        assertEquals("cdc76e5c9914fb9281a1c7e284d73e67f1809a48a497200e046d39ccc7112cd0", digest(million));
+    }
+
+    public void test_nistBytes() {
+        assertEquals("68325720aabd7c82f30f554b313d0570c95accbb7dc4b5aae11204c08ffe732b", digest(new byte[] {(byte) 0xbd}));
+        assertEquals("7abc22c0ae5af26ce93dbb94433a0e0b2e119d014f8e7f65bd56c61ccccd9504",
+            digest(new byte[] {(byte) 0xc9, (byte) 0x8c, (byte) 0x8e, (byte) 0x55}));
+    }
+
+    public void test_blockBoundaries() throws NoSuchAlgorithmException {
+        final Random random = new Random(180);
+        for (int length = 0; length <= 3 * 64; length++) {
+            final byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            assertEquals("length " + length, reference(bytes), digest(bytes));
+        }
+    }
+
+    public void test_updateRange() throws NoSuchAlgorithmException {
+        final byte[] bytes = new byte[300];
+        new Random(4).nextBytes(bytes);
+        final Sha256 sha = new Sha256();
+        sha.update(bytes, 0, 7);
+        sha.update(bytes, 7, 200);
+        sha.update(bytes, 207, 93);
+        assertEquals(reference(bytes), sha.digest());
+    }
+
+    /**
+     * A string is hashed as its UTF-16 big-endian chars followed by a zero byte.
+     */
+    public void test_updateString() throws Exception {
+        final String s = "java/lang/Object\u00e9\u4e2d";
+        final byte[] chars = s.getBytes("UTF-16BE");
+        final byte[] bytes = Arrays.copyOf(chars, chars.length + 1);
+        final Sha256 sha = new Sha256();
+        assertTrue(sha.update(s));
+        assertFalse(sha.update((String) null));
+        assertEquals(reference(bytes), sha.digest());
+    }
+}
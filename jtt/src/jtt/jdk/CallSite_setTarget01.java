@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.jdk;
+
+import java.lang.invoke.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = true; 1 = true; 2 = true; 3 = true
+ */
+public final class CallSite_setTarget01 {
+
+    private static final int HOT = 20000;
+
+    private static MutableCallSite mutableCallSite;
+    private static VolatileCallSite volatileCallSite;
+    private static MethodHandle invoker;
+
+    private CallSite_setTarget01() {
+    }
+
+    /**
+     * Calls the dynamic invoker of a {@code MutableCallSite} (even arguments) or of a {@code VolatileCallSite} (odd
+     * arguments) often enough for its caller to be compiled by the optimizing compiler, then changes the target of the
+     * call site and checks that the caller calls the new target. The call sites are kept across runs, so that later
+     * runs change the target of call sites that compiled code has already called.
+     */
+    public static boolean test(int arg) throws Throwable {
+        final CallSite callSite;
+        if (arg % 2 == 0) {
+            if (mutableCallSite == null) {
+                mutableCallSite = new MutableCallSite(MethodType.methodType(int.class));
+            }
+            callSite = mutableCallSite;
+        } else {
+            if (volatileCallSite == null) {
+                volatileCallSite = new VolatileCallSite(MethodType.methodType(int.class));
+            }
+            callSite = volatileCallSite;
+        }
+        invoker = callSite.dynamicInvoker();
+        callSite.setTarget(MethodHandles.constant(int.class, arg));
+        for (int i = 0; i < HOT; i++) {
+            if (call() != arg) {
+                return false;
+            }
+        }
+        callSite.setTarget(MethodHandles.constant(int.class, arg + 100));
+        if (call() != arg + 100) {
+            return false;
+        }
+        if (callSite instanceof MutableCallSite) {
+            MutableCallSite.syncAll(new MutableCallSite[] {(MutableCallSite) callSite});
+        }
+        return call() == arg + 100;
+    }
+
+    private static int call() throws Throwable {
+        return (int) invoker.invokeExact();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.jdk;
+
+import java.lang.ref.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = true; 1 = true
+ */
+public class Reference_softWeak01 {
+
+    /**
+     * Checks that an object reachable from the referent of a soft reference is not cleared from a weak reference
+     * while the soft reference keeps its referent alive. The soft reference is used just before the GC, so its
+     * referent is normally kept alive; if it is cleared, the weak reference must be cleared as well.
+     */
+    public static boolean test(int arg) {
+        Object[] holder = new Object[] {new Object()};
+        final WeakReference<Object> weak = new WeakReference<Object>(holder[0]);
+        final SoftReference<Object[]> soft = new SoftReference<Object[]>(holder);
+        holder = null;
+        for (int i = 0; i <= arg; i++) {
+            soft.get();
+            System.gc();
+        }
+        final Object[] softReferent = soft.get();
+        final Object weakReferent = weak.get();
+        if (softReferent == null) {
+            return weakReferent == null;
+        }
+        return weakReferent == softReferent[0];
+    }
+}
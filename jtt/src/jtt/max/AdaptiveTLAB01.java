@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.max;
+
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import java.lang.reflect.*;
+
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.thread.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = true
+ */
+public final class AdaptiveTLAB01 {
+
+    private static final int GC_CYCLES = 4;
+    private static final int ALLOCATIONS_PER_CYCLE = 1 << 20;
+
+    private static volatile Object sink;
+
+    private AdaptiveTLAB01() {
+    }
+
+    private static TLABRefillPolicy currentPolicy() {
+        return TLABRefillPolicy.getForCurrentThread(ETLA.load(VmThread.currentTLA()));
+    }
+
+    private static Size minTlabSize(TLABRefillPolicy policy) throws Exception {
+        final Field field = AdaptiveTLABRefillPolicy.class.getDeclaredField("minTlabSize");
+        field.setAccessible(true);
+        return (Size) field.get(policy);
+    }
+
+    /**
+     * Has the current thread allocate tens of megabytes of small objects per GC cycle while another thread allocates a
+     * single object and waits. The adaptive refill policy must have grown the TLABs of the first thread above the
+     * minimum TLAB size, and must keep those of the quiet thread at that minimum.
+     * The test trivially passes if the heap scheme does not size TLABs adaptively.
+     */
+    public static boolean test(int arg) throws Exception {
+        sink = new Object();
+        final TLABRefillPolicy busyPolicy = currentPolicy();
+        if (!(busyPolicy instanceof AdaptiveTLABRefillPolicy)) {
+            return true;
+        }
+        final Object lock = new Object();
+        final Size[] quietTlabSize = new Size[1];
+        // 0: quiet thread not started, 1: quiet thread allocated, 2: busy thread done
+        final int[] state = new int[1];
+        final Thread quiet = new Thread() {
+            @Override
+            public void run() {
+                sink = new int[2];
+                synchronized (lock) {
+                    state[0] = 1;
+                    lock.notifyAll();
+                    while (state[0] != 2) {
+                        await(lock);
+                    }
+                }
+                quietTlabSize[0] = currentPolicy().nextTlabSize();
+            }
+        };
+        quiet.start();
+        synchronized (lock) {
+            while (state[0] != 1) {
+                await(lock);
+            }
+        }
+        for (int cycle = 0; cycle < GC_CYCLES; cycle++) {
+            for (int i = 0; i < ALLOCATIONS_PER_CYCLE; i++) {
+                sink = new long[4];
+            }
+            System.gc();
+        }
+        synchronized (lock) {
+            state[0] = 2;
+            lock.notifyAll();
+        }
+        quiet.join();
+        final Size minTlabSize = minTlabSize(busyPolicy);
+        return busyPolicy.nextTlabSize().greaterThan(minTlabSize) && minTlabSize.equals(quietTlabSize[0]);
+    }
+
+    private static void await(Object lock) {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+        }
+    }
+}
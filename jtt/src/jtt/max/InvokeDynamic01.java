@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.max;
+
+import java.io.*;
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.compiler.target.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = true; 1 = true
+ */
+public final class InvokeDynamic01 {
+
+    /**
+     * Implemented by a class generated at run time, each method of which is an invokedynamic instruction bootstrapped
+     * by {@link InvokeDynamic01#bootstrap}.
+     */
+    public interface Linked {
+        /**
+         * Calls {@link InvokeDynamic01#twice} through a {@code ConstantCallSite}.
+         */
+        int constant(int x);
+
+        /**
+         * Calls the current target of {@link InvokeDynamic01#mutableCallSite}.
+         */
+        int mutable(int x);
+    }
+
+    private static final int MAX_CALLS = 1000000;
+    private static final String LINKED_NAME = "jtt/max/InvokeDynamic01$LinkedImpl";
+
+    private static Linked linked;
+    private static MutableCallSite mutableCallSite;
+
+    private InvokeDynamic01() {
+    }
+
+    public static int twice(int x) {
+        return 2 * x;
+    }
+
+    public static int thrice(int x) {
+        return 3 * x;
+    }
+
+    public static CallSite bootstrap(MethodHandles.Lookup lookup, String name, MethodType type) throws ReflectiveOperationException {
+        final MethodHandle twice = MethodHandles.lookup().findStatic(InvokeDynamic01.class, "twice", type);
+        if (name.equals("constant")) {
+            return new ConstantCallSite(twice);
+        }
+        mutableCallSite = new MutableCallSite(twice);
+        return mutableCallSite;
+    }
+
+    /**
+     * Calls an invokedynamic instruction, first in code compiled by the baseline compiler, then until its method is
+     * recompiled by the optimizing compiler, which links the call directly to the target of the call site. For the
+     * mutable call site (argument 1), the target of the call site is then changed, which must deoptimize the method,
+     * and the method is made hot again to be recompiled against the new target.
+     */
+    public static boolean test(int arg) throws Throwable {
+        if (linked == null) {
+            linked = (Linked) new Loader().define().newInstance();
+        }
+        if (arg == 0) {
+            return callUntilOptimized("constant", 2);
+        }
+        // the first call bootstraps the call site
+        linked.mutable(0);
+        mutableCallSite.setTarget(MethodHandles.lookup().findStatic(InvokeDynamic01.class, "twice", MethodType.methodType(int.class, int.class)));
+        if (!callUntilOptimized("mutable", 2)) {
+            return false;
+        }
+        mutableCallSite.setTarget(MethodHandles.lookup().findStatic(InvokeDynamic01.class, "thrice", MethodType.methodType(int.class, int.class)));
+        return callUntilOptimized("mutable", 3);
+    }
+
+    private static boolean callUntilOptimized(String name, int factor) throws NoSuchMethodException {
+        final ClassMethodActor method = ClassMethodActor.fromJava(linked.getClass().getMethod(name, int.class));
+        for (int i = 0; i < MAX_CALLS; i++) {
+            final int result = name.equals("constant") ? linked.constant(i) : linked.mutable(i);
+            if (result != factor * i) {
+                return false;
+            }
+            if (i % 1000 == 999) {
+                final TargetMethod targetMethod = method.currentTargetMethod();
+                if (targetMethod != null && !targetMethod.isBaseline()) {
+                    // a few more calls, to the optimized code
+                    for (int j = 0; j < 10; j++) {
+                        final int x = i + j;
+                        if ((name.equals("constant") ? linked.constant(x) : linked.mutable(x)) != factor * x) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Defines the implementation of {@link Linked}, as Java source code cannot express invokedynamic instructions.
+     */
+    private static final class Loader extends ClassLoader {
+        Loader() {
+            super(InvokeDynamic01.class.getClassLoader());
+        }
+
+        Class<?> define() throws IOException {
+            final byte[] classfile = classfile();
+            return defineClass(LINKED_NAME.replace('/', '.'), classfile, 0, classfile.length);
+        }
+    }
+
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_NameAndType = 12;
+    private static final int CONSTANT_MethodHandle = 15;
+    private static final int CONSTANT_InvokeDynamic = 18;
+    private static final int REF_invokeStatic = 6;
+
+    private static void utf8(DataOutputStream out, String s) throws IOException {
+        out.writeByte(CONSTANT_Utf8);
+        out.writeUTF(s);
+    }
+
+    private static void ref(DataOutputStream out, int tag, int index1, int index2) throws IOException {
+        out.writeByte(tag);
+        out.writeShort(index1);
+        out.writeShort(index2);
+    }
+
+    private static void method(DataOutputStream out, int name, int descriptor, int maxStack, int maxLocals, byte[] code) throws IOException {
+        out.writeShort(Modifier.PUBLIC);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(25); // Code
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    private static byte[] classfile() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(51);
+        out.writeShort(27);
+        utf8(out, LINKED_NAME);                                  // 1
+        out.writeByte(CONSTANT_Class); out.writeShort(1);        // 2
+        utf8(out, "java/lang/Object");                           // 3
+        out.writeByte(CONSTANT_Class); out.writeShort(3);        // 4
+        utf8(out, "jtt/max/InvokeDynamic01$Linked");             // 5
+        out.writeByte(CONSTANT_Class); out.writeShort(5);        // 6
+        utf8(out, "<init>");                                     // 7
+        utf8(out, "()V");                                        // 8
+        ref(out, CONSTANT_NameAndType, 7, 8);                    // 9
+        ref(out, CONSTANT_Methodref, 4, 9);                      // 10
+        utf8(out, "constant");                                   // 11
+        utf8(out, "mutable");                                    // 12
+        utf8(out, "(I)I");                                       // 13
+        ref(out, CONSTANT_NameAndType, 11, 13);                  // 14
+        ref(out, CONSTANT_NameAndType, 12, 13);                  // 15
+        utf8(out, "jtt/max/InvokeDynamic01");                    // 16
+        out.writeByte(CONSTANT_Class); out.writeShort(16);       // 17
+        utf8(out, "bootstrap");                                  // 18
+        utf8(out, "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;"); // 19
+        ref(out, CONSTANT_NameAndType, 18, 19);                  // 20
+        ref(out, CONSTANT_Methodref, 17, 20);                    // 21
+        out.writeByte(CONSTANT_MethodHandle); out.writeByte(REF_invokeStatic); out.writeShort(21); // 22
+        ref(out, CONSTANT_InvokeDynamic, 0, 14);                 // 23
+        ref(out, CONSTANT_InvokeDynamic, 0, 15);                 // 24
+        utf8(out, "Code");                                       // 25
+        utf8(out, "BootstrapMethods");                           // 26
+        out.writeShort(Modifier.PUBLIC | Modifier.FINAL | 0x20); // ACC_SUPER
+        out.writeShort(2);
+        out.writeShort(4);
+        out.writeShort(1);
+        out.writeShort(6);
+        out.writeShort(0);
+        out.writeShort(3);
+        // aload_0; invokespecial Object.<init>; return
+        method(out, 7, 8, 1, 1, new byte[] {0x2a, (byte) 0xb7, 0, 10, (byte) 0xb1});
+        // iload_1; invokedynamic; ireturn
+        method(out, 11, 13, 1, 2, new byte[] {0x1b, (byte) 0xba, 0, 23, 0, 0, (byte) 0xac});
+        method(out, 12, 13, 1, 2, new byte[] {0x1b, (byte) 0xba, 0, 24, 0, 0, (byte) 0xac});
+        out.writeShort(1);
+        out.writeShort(26);
+        out.writeInt(6);
+        out.writeShort(1);
+        out.writeShort(22);
+        out.writeShort(0);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
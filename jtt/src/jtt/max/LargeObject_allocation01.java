@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.max;
+
+import java.util.*;
+
+/*
+ * @Harness: java
+ * @Runs: 1 = true; 4 = true; 8 = true
+ */
+public final class LargeObject_allocation01 implements Runnable {
+
+    private static final int ITERATIONS = 32;
+    private static final int KEPT = 4;
+    private static final int MIN_LENGTH = 8 * 1024;
+    private static final int MAX_LENGTH = 320 * 1024;
+    private static final int STRIDE = 61;
+
+    private static volatile boolean failed;
+
+    private final int id;
+
+    private LargeObject_allocation01(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Has several threads allocate arrays of 64 KB to 2.5 MB, the size of the large objects the MS heap scheme
+     * allocates from its lock-free large chunk lists and zeroes by discarding pages when they are at least 1 MB. Each
+     * array must be zeroed when allocated, and must keep its contents while the other threads allocate and collect,
+     * which fails if two threads are handed overlapping chunks. The first thread runs a GC every eight allocations,
+     * so that the chunk lists are refilled and, with the {@code jtt-msverify} image configuration, the free space
+     * accounting is verified after each GC.
+     */
+    public static boolean test(int numThreads) throws InterruptedException {
+        failed = false;
+        final Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(new LargeObject_allocation01(i));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return !failed;
+    }
+
+    public void run() {
+        try {
+            final Random random = new Random(id);
+            final long[][] kept = new long[KEPT][];
+            final long[] keptTags = new long[KEPT];
+            for (int i = 0; i < ITERATIONS && !failed; i++) {
+                final long[] array = new long[MIN_LENGTH + random.nextInt(MAX_LENGTH - MIN_LENGTH)];
+                for (long element : array) {
+                    if (element != 0L) {
+                        failed = true;
+                        return;
+                    }
+                }
+                final long tag = ((long) id << 32) | ((long) i << 16);
+                fill(array, tag);
+                final long[] retired = kept[i % KEPT];
+                if (retired != null && !check(retired, keptTags[i % KEPT])) {
+                    failed = true;
+                    return;
+                }
+                kept[i % KEPT] = array;
+                keptTags[i % KEPT] = tag;
+                if (id == 0 && i % 8 == 7) {
+                    System.gc();
+                }
+            }
+            for (int i = 0; i < KEPT; i++) {
+                if (kept[i] != null && !check(kept[i], keptTags[i])) {
+                    failed = true;
+                }
+            }
+        } catch (Throwable t) {
+            failed = true;
+        }
+    }
+
+    private static void fill(long[] array, long tag) {
+        for (int i = 0; i < array.length; i += STRIDE) {
+            array[i] = tag + i;
+        }
+        array[array.length - 1] = tag + array.length - 1;
+    }
+
+    private static boolean check(long[] array, long tag) {
+        for (int i = 0; i < array.length; i += STRIDE) {
+            if (array[i] != tag + i) {
+                return false;
+            }
+        }
+        return array[array.length - 1] == tag + array.length - 1;
+    }
+}
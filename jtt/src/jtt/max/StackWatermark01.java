@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.max;
+
+import com.sun.max.vm.stack.*;
+
+/*
+ * @Harness: java
+ * @Runs: 10 = true; 300 = true
+ */
+public final class StackWatermark01 {
+
+    private StackWatermark01() {
+    }
+
+    /**
+     * Runs GCs with {@link StackReferenceMapPreparer#StackWatermarks} on. The GCs at the bottom of a first recursion
+     * place a watermark on its frames. The recursion then returns half way and goes down again through other call
+     * sites, so the frames beyond the watermark no longer match the recorded ones and the stack must be prepared
+     * again. Every frame checks that the object it refers to survived the GCs.
+     */
+    public static boolean test(int depth) {
+        final boolean stackWatermarks = StackReferenceMapPreparer.StackWatermarks;
+        StackReferenceMapPreparer.StackWatermarks = true;
+        try {
+            return descend(depth, depth / 2);
+        } finally {
+            StackReferenceMapPreparer.StackWatermarks = stackWatermarks;
+        }
+    }
+
+    private static boolean descend(int depth, int turn) {
+        final String local = Integer.toString(depth);
+        boolean result;
+        if (depth == 0) {
+            System.gc();
+            System.gc();
+            System.gc();
+            result = true;
+        } else {
+            result = descend(depth - 1, turn);
+            if (depth == turn) {
+                result &= descendAgain(depth - 1, new long[depth]);
+            }
+        }
+        return result && local.equals(Integer.toString(depth));
+    }
+
+    private static boolean descendAgain(int depth, long[] padding) {
+        final String local = "again " + depth;
+        boolean result;
+        if (depth == 0) {
+            System.gc();
+            System.gc();
+            result = true;
+        } else {
+            result = descendAgain(depth - 1, padding);
+        }
+        return result && padding.length > 0 && local.equals("again " + depth);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.max;
+
+import java.io.*;
+import java.lang.reflect.*;
+
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.verifier.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = true; 1 = true; 2 = true; 3 = true; 4 = true; 5 = true
+ */
+public final class VerificationCache01 {
+
+    private VerificationCache01() {
+    }
+
+    static class Base {
+    }
+
+    interface Marker {
+    }
+
+    static class Middle extends Base {
+    }
+
+    static class Leaf extends Middle implements Marker {
+        Base base() {
+            return new Leaf();
+        }
+    }
+
+    /**
+     * Verifies {@link Leaf} with a fresh {@link VerificationCache} file, with class file bytes standing in for those of
+     * the test classes, and then checks whether the cache holds it as verified:
+     * <ol start="0">
+     * <li>with nothing changed, which is a hit;</li>
+     * <li>after the file is read back, which is a hit;</li>
+     * <li>after the superclass is redefined from other bytes, which is a miss;</li>
+     * <li>after the interface is redefined from other bytes, which is a miss;</li>
+     * <li>after the class itself is redefined from other bytes, which is a miss;</li>
+     * <li>after the superclass is redefined from its original bytes, which is a hit again.</li>
+     * </ol>
+     */
+    public static boolean test(int arg) throws Exception {
+        final ClassActor middle = ClassActor.fromJava(Middle.class);
+        final ClassActor marker = ClassActor.fromJava(Marker.class);
+        final ClassActor leaf = ClassActor.fromJava(Leaf.class);
+        final File file = File.createTempFile("VerificationCache01", null);
+        final Field cacheFile = field("VerificationCacheFile");
+        final Field entries = field("entries");
+        final Field writer = field("writer");
+        final Object savedCacheFile = cacheFile.get(null);
+        final Object savedEntries = entries.get(null);
+        final Object savedWriter = writer.get(null);
+        cacheFile.set(null, file.getPath());
+        entries.set(null, null);
+        writer.set(null, null);
+        try {
+            define(middle, "Middle");
+            define(marker, "Marker");
+            define(leaf, "Leaf");
+            if (VerificationCache.isVerified(leaf)) {
+                return false;
+            }
+            final ClassVerifier verifier = Verifier.verifierFor(leaf);
+            verifier.verify();
+            VerificationCache.recordVerified(verifier);
+            switch (arg) {
+                case 0:
+                    return VerificationCache.isVerified(leaf);
+                case 1:
+                    entries.set(null, null);
+                    return VerificationCache.isVerified(leaf);
+                case 2:
+                    define(middle, "Middle2");
+                    define(leaf, "Leaf");
+                    return !VerificationCache.isVerified(leaf);
+                case 3:
+                    define(marker, "Marker2");
+                    define(leaf, "Leaf");
+                    return !VerificationCache.isVerified(leaf);
+                case 4:
+                    define(leaf, "Leaf2");
+                    return !VerificationCache.isVerified(leaf);
+                case 5:
+                    define(middle, "Middle2");
+                    define(leaf, "Leaf");
+                    define(middle, "Middle");
+                    define(leaf, "Leaf");
+                    return VerificationCache.isVerified(leaf);
+            }
+            return false;
+        } finally {
+            final Writer w = (Writer) writer.get(null);
+            if (w != null) {
+                w.close();
+            }
+            cacheFile.set(null, savedCacheFile);
+            entries.set(null, savedEntries);
+            writer.set(null, savedWriter);
+            file.delete();
+        }
+    }
+
+    private static Field field(String name) throws NoSuchFieldException {
+        final Field field = VerificationCache.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    /**
+     * Gives a class the identity it would have if it had been defined from the given bytes.
+     */
+    private static void define(ClassActor classActor, String bytes) {
+        final byte[] classfile = bytes.getBytes();
+        VerificationCache.recordClassfile(classActor, classfile, 0, classfile.length);
+    }
+}
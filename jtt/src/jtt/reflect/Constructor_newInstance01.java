@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.reflect;
+
+import java.lang.reflect.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = 6; 1 = !java.lang.IllegalArgumentException; 2 = 0; 20 = 6; 21 = !java.lang.IllegalArgumentException; 22 = 0
+ */
+public class Constructor_newInstance01 {
+
+    private final int value;
+
+    public Constructor_newInstance01(long a, int b) {
+        if (a < 0) {
+            throw new IllegalStateException();
+        }
+        value = (int) a + b;
+    }
+
+    /**
+     * Creates instances reflectively with boxed arguments that must be widened (0), with a wrong number of arguments
+     * (1) or with arguments that make the constructor throw (2), selected by the last digit of {@code arg}. If
+     * {@code arg >= 10}, the constructor is first invoked enough times with valid arguments to get an invocation stub.
+     *
+     * @return the value of the instance, or 0 if the exception thrown by the constructor was wrapped as expected
+     */
+    public static int test(int arg) throws NoSuchMethodException, IllegalAccessException, InstantiationException, InvocationTargetException {
+        final Constructor<Constructor_newInstance01> c = Constructor_newInstance01.class.getConstructor(long.class, int.class);
+        if (arg >= 10) {
+            for (int i = 0; i < 20; i++) {
+                c.newInstance(1L, i);
+            }
+        }
+        try {
+            switch (arg % 10) {
+                case 0:
+                    return c.newInstance(5, (short) 1).value;
+                case 1:
+                    return c.newInstance(5L).value;
+                default:
+                    return c.newInstance(-1L, 1).value;
+            }
+        } catch (InvocationTargetException e) {
+            return e.getCause() instanceof IllegalStateException ? 0 : -1;
+        }
+    }
+}
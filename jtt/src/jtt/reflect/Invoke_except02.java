@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.reflect;
+
+import java.lang.reflect.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = !java.lang.IllegalArgumentException; 1 = !java.lang.IllegalArgumentException; 2 = !java.lang.IllegalArgumentException; 3 = !java.lang.NullPointerException; 4 = !java.lang.IllegalArgumentException; 10 = !java.lang.IllegalArgumentException; 11 = !java.lang.IllegalArgumentException; 12 = !java.lang.IllegalArgumentException; 13 = !java.lang.NullPointerException; 14 = !java.lang.IllegalArgumentException
+ */
+public class Invoke_except02 {
+
+    /**
+     * Invokes an instance method reflectively with invalid arguments or receiver, selected by the last digit of
+     * {@code arg}. If {@code arg >= 10}, the method is first invoked enough times with valid arguments to get an
+     * invocation stub.
+     */
+    public static int test(int arg) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        final Method m = Invoke_except02.class.getDeclaredMethod("length", String.class, int.class);
+        final Invoke_except02 receiver = new Invoke_except02();
+        if (arg >= 10) {
+            for (int i = 0; i < 20; i++) {
+                m.invoke(receiver, "abc", i);
+            }
+        }
+        switch (arg % 10) {
+            case 0:
+                return (Integer) m.invoke(receiver, "abc");
+            case 1:
+                return (Integer) m.invoke(receiver, "abc", "def");
+            case 2:
+                return (Integer) m.invoke(receiver, "abc", null);
+            case 3:
+                return (Integer) m.invoke(null, "abc", 1);
+            default:
+                return (Integer) m.invoke("receiver", "abc", 1);
+        }
+    }
+
+    public int length(String s, int i) {
+        return s.length() + i;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.reflect;
+
+import java.lang.reflect.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = true; 20 = true
+ */
+public class Invoke_except03 {
+
+    /**
+     * Checks that an exception thrown by a reflectively invoked method is wrapped in an
+     * {@link InvocationTargetException}, after a given number of invocations that do not throw.
+     */
+    public static boolean test(int warmup) throws NoSuchMethodException, IllegalAccessException {
+        final Method m = Invoke_except03.class.getDeclaredMethod("divide", int.class);
+        try {
+            for (int i = 0; i < warmup; i++) {
+                m.invoke(null, 1);
+            }
+            m.invoke(null, 0);
+        } catch (InvocationTargetException e) {
+            return e.getCause() instanceof ArithmeticException;
+        }
+        return false;
+    }
+
+    public static int divide(int i) {
+        return 10 / i;
+    }
+}
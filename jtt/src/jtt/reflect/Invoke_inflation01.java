@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.reflect;
+
+import java.lang.reflect.*;
+
+/*
+ * @Harness: java
+ * @Runs: 1 = 1; 15 = 15; 16 = 16; 40 = 40
+ */
+public class Invoke_inflation01 {
+
+    /**
+     * Invokes an instance method reflectively a given number of times, crossing the number of invocations after
+     * which an invocation stub is generated for it.
+     */
+    public static int test(int count) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        final Method m = Invoke_inflation01.class.getDeclaredMethod("add", int.class, int.class);
+        final Invoke_inflation01 receiver = new Invoke_inflation01();
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            result = (Integer) m.invoke(receiver, i, 1);
+        }
+        return result;
+    }
+
+    public int add(int a, int b) {
+        return a + b;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package jtt.reflect;
+
+import java.lang.reflect.*;
+
+/*
+ * @Harness: java
+ * @Runs: 0 = 103; 20 = 103
+ */
+public class Invoke_widening01 {
+
+    /**
+     * Invokes a static method reflectively with boxed arguments that must be widened to the types of its parameters,
+     * after a given number of invocations with arguments of the exact types.
+     */
+    public static int test(int warmup) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        final Method m = Invoke_widening01.class.getDeclaredMethod("widen", long.class, double.class, int.class, int.class);
+        for (int i = 0; i < warmup; i++) {
+            m.invoke(null, 1L, 2.5d, 3, 97);
+        }
+        return (Integer) m.invoke(null, (byte) 1, 2.5f, (short) 3, 'a');
+    }
+
+    public static int widen(long l, double d, int i, int c) {
+        return (int) (l + d + i + c);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020, APT Group, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+/*
+ * @Harness: java
+ * @Runs: 0 = true
+ */
+package test.bench.java.lang;
+
+import test.bench.util.*;
+
+/**
+ * Companion of {@link ArrayCopy_Loop} copying a larger byte array with {@link System#arraycopy}.
+ */
+public class ArrayCopy_Bulk extends RunBench {
+
+    protected ArrayCopy_Bulk() {
+        super(new Bench());
+    }
+
+    public static boolean test(int i) {
+        return new ArrayCopy_Bulk().runBench();
+    }
+
+    public static class Bench extends MicroBenchmark {
+        private static final byte[] TEST_BYTES = new byte[4096];
+        private byte[] buf;
+
+        @Override
+        public void prerun() {
+            buf = new byte[TEST_BYTES.length];
+        }
+
+        @Override
+        public long run() {
+            System.arraycopy(TEST_BYTES, 0, buf, 0, buf.length);
+            return defaultResult;
+        }
+    }
+
+    public static void main(String[] args) {
+        test(0);
+    }
+}